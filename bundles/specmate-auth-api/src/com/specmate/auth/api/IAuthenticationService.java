@@ -13,6 +13,12 @@ public interface IAuthenticationService {
 
 	public void validateToken(String token, String path, boolean refresh) throws SpecmateException;
 
+	/**
+	 * Validates that the session is valid and belongs to one of the configured
+	 * administrators, regardless of the project the session was created for.
+	 */
+	public void validateAdminToken(String token, boolean refresh) throws SpecmateException;
+
 	public String getUserName(String token) throws SpecmateException;
 
 	public AccessRights getSourceAccessRights(String token) throws SpecmateException;
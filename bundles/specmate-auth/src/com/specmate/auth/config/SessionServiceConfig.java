@@ -8,6 +8,7 @@ import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 
+import com.specmate.auth.internal.DatabaseSessionService;
 import com.specmate.auth.internal.InMemorySessionService;
 import com.specmate.auth.internal.PersistentSessionService;
 import com.specmate.common.OSGiUtil;
@@ -26,6 +27,16 @@ public class SessionServiceConfig {
 	/** Config key for deciding whether the sessions should be persisted or not */
 	public static final String SESSION_PERSISTENT = "session.persistent";
 
+	/**
+	 * Config key for the store of persistent sessions, either "cdo" to store
+	 * sessions as model objects or "database" to store them in a separate,
+	 * non-audited table
+	 */
+	public static final String SESSION_STORE = "session.store";
+
+	/** Store value for sessions in a separate database table */
+	public static final String SESSION_STORE_DATABASE = "database";
+
 	/** The configuration admin instance */
 	private ConfigurationAdmin configurationAdmin;
 
@@ -44,7 +55,12 @@ public class SessionServiceConfig {
 
 		String pid = InMemorySessionService.PID;
 		if (isPersistentSession) {
-			pid = PersistentSessionService.PID;
+			String store = configService.getConfigurationProperty(SESSION_STORE, "cdo");
+			if (SESSION_STORE_DATABASE.equals(store)) {
+				pid = DatabaseSessionService.PID;
+			} else {
+				pid = PersistentSessionService.PID;
+			}
 		}
 
 		properties.put(SESSION_MAX_IDLE_MINUTES, maxIdleMinutes);
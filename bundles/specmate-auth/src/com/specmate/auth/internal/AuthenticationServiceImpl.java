@@ -1,5 +1,11 @@
 package com.specmate.auth.internal;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 
@@ -7,6 +13,7 @@ import com.specmate.auth.api.IAuthenticationService;
 import com.specmate.auth.api.ISessionService;
 import com.specmate.common.exception.SpecmateAuthorizationException;
 import com.specmate.common.exception.SpecmateException;
+import com.specmate.config.api.IConfigService;
 import com.specmate.connectors.api.IProject;
 import com.specmate.connectors.api.IProjectService;
 import com.specmate.export.api.IExporter;
@@ -19,8 +26,25 @@ import com.specmate.usermodel.UserSession;
  */
 @Component(immediate = true, service = IAuthenticationService.class)
 public class AuthenticationServiceImpl implements IAuthenticationService {
+
+	/**
+	 * Configuration key for the comma-separated names of the users that may call
+	 * the administrative services spanning all projects
+	 */
+	public static final String KEY_ADMIN_USERS = "auth.adminUsers";
+
 	private ISessionService sessionService;
 	private IProjectService projectService;
+	private IConfigService configService;
+	private Set<String> adminUsers = Collections.emptySet();
+
+	@Activate
+	public void activate() {
+		String[] users = configService.getConfigurationPropertyArray(KEY_ADMIN_USERS);
+		if (users != null) {
+			adminUsers = new HashSet<>(Arrays.asList(users));
+		}
+	}
 
 	@Override
 	public UserSession authenticate(String username, String password, String projectname) throws SpecmateException {
@@ -74,6 +98,23 @@ public class AuthenticationServiceImpl implements IAuthenticationService {
 		}
 	}
 
+	@Override
+	public void validateAdminToken(String token, boolean refresh) throws SpecmateException {
+		if (sessionService.isExpired(token)) {
+			sessionService.delete(token);
+			throw new SpecmateAuthorizationException("Session " + token + " is expired.");
+		}
+
+		String userName = sessionService.getUserName(token);
+		if (!adminUsers.contains(userName)) {
+			throw new SpecmateAuthorizationException("User " + userName + " is not an administrator.");
+		}
+
+		if (refresh) {
+			sessionService.refresh(token);
+		}
+	}
+
 	@Override
 	public String getUserName(String token) throws SpecmateException {
 		return sessionService.getUserName(token);
@@ -99,6 +140,11 @@ public class AuthenticationServiceImpl implements IAuthenticationService {
 		this.projectService = projectService;
 	}
 
+	@Reference
+	public void setConfigService(IConfigService configService) {
+		this.configService = configService;
+	}
+
 	private AccessRights retrieveTargetAccessRights(IProject project, String username, String password) {
 		IExporter exporter = project.getExporter();
 		if (exporter == null) {
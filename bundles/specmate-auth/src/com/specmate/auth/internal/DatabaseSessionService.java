@@ -0,0 +1,290 @@
+package com.specmate.auth.internal;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.log.LogService;
+
+import com.specmate.auth.api.ISessionService;
+import com.specmate.common.exception.SpecmateException;
+import com.specmate.common.exception.SpecmateInternalException;
+import com.specmate.config.api.IConfigService;
+import com.specmate.dbprovider.api.IDBProvider;
+import com.specmate.metrics.IUserMetricsService;
+import com.specmate.model.administration.ErrorCode;
+import com.specmate.usermodel.AccessRights;
+import com.specmate.usermodel.UserSession;
+import com.specmate.usermodel.UsermodelFactory;
+
+/**
+ * Session service that stores the sessions in a plain table of the database,
+ * next to the CDO tables.
+ *
+ * Unlike {@link PersistentSessionService}, sessions are not CDO objects. Login,
+ * refresh and logout update the table in place, hence they neither create
+ * audit revisions nor model events that would reach the history, the search
+ * index or the event clients.
+ *
+ * Deleted and expired sessions are purged periodically. The most recent session
+ * of each user is kept for a year, as the login counters are derived from the
+ * last activity of the users.
+ */
+@Component(immediate = true, service = ISessionService.class, configurationPid = DatabaseSessionService.PID, configurationPolicy = ConfigurationPolicy.REQUIRE, property = "impl=database")
+public class DatabaseSessionService extends BaseSessionService {
+
+	/** The PID of the session service */
+	public static final String PID = "com.specmate.auth.DatabaseSessionService";
+
+	/** The table holding the sessions */
+	static final String SESSION_TABLE = "SPECMATE_SESSION";
+
+	private static final long SESSION_REFRESH_LIMIT = 1000L * 60; // 60 seconds
+
+	/** Minutes between two purges of deleted and expired sessions */
+	private static final long PURGE_INTERVAL_MINUTES = 60;
+
+	/** Time the last session of a user is kept for the login counters */
+	private static final long LAST_SESSION_RETENTION = TimeUnit.DAYS.toMillis(366);
+
+	private static final String LIBRARY_SEPARATOR = "\n";
+
+	private IDBProvider dbProvider;
+	private IUserMetricsService userMetricsService;
+	private LogService logService;
+
+	/** Purges deleted and expired sessions */
+	private ScheduledExecutorService purgeExecutor;
+
+	@Override
+	@Activate
+	public void activate(Map<String, Object> properties) throws SpecmateException {
+		super.activate(properties);
+		try (Connection connection = dbProvider.borrowConnection()) {
+			boolean exists;
+			try (ResultSet tables = connection.getMetaData().getTables(null, null, SESSION_TABLE, null)) {
+				exists = tables.next();
+			}
+			if (!exists) {
+				try (Statement statement = connection.createStatement()) {
+					statement.execute("CREATE TABLE " + SESSION_TABLE + " (ID VARCHAR(255) NOT NULL PRIMARY KEY, "
+							+ "USER_NAME VARCHAR(255), ALLOWED_PATH_PATTERN VARCHAR(2000), "
+							+ "SOURCE_SYSTEM NUMBER(10), TARGET_SYSTEM NUMBER(10), LIBRARY_FOLDERS VARCHAR(4000), "
+							+ "LAST_ACTIVE NUMBER(19) NOT NULL, IS_DELETED NUMBER(1) NOT NULL)");
+					statement.execute("CREATE INDEX " + SESSION_TABLE + "_USER ON " + SESSION_TABLE
+							+ " (USER_NAME, LAST_ACTIVE)");
+				}
+			}
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.USER_SESSION, "Could not create the session table.", e);
+		}
+		purgeSessions();
+		userMetricsService.initializeLoginCounters(this::countActiveUsers);
+		purgeExecutor = Executors.newSingleThreadScheduledExecutor();
+		purgeExecutor.scheduleWithFixedDelay(this::purgeSessionsLogged, PURGE_INTERVAL_MINUTES,
+				PURGE_INTERVAL_MINUTES, TimeUnit.MINUTES);
+	}
+
+	@Deactivate
+	public void deactivate() {
+		if (purgeExecutor != null) {
+			purgeExecutor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Removes the deleted and expired sessions from the table, except for the
+	 * most recent session of each user that was active within the last year.
+	 *
+	 * @return the number of removed sessions
+	 */
+	public int purgeSessions() throws SpecmateException {
+		long now = new Date().getTime();
+		try (Connection connection = dbProvider.borrowConnection();
+				PreparedStatement delete = connection.prepareStatement("DELETE FROM " + SESSION_TABLE
+						+ " S WHERE (S.IS_DELETED = 1 OR S.LAST_ACTIVE < ?) AND (S.LAST_ACTIVE < ? OR S.LAST_ACTIVE < "
+						+ "(SELECT MAX(L.LAST_ACTIVE) FROM " + SESSION_TABLE + " L WHERE L.USER_NAME = S.USER_NAME))")) {
+			delete.setLong(1, now - maxIdleMilliSeconds);
+			delete.setLong(2, now - LAST_SESSION_RETENTION);
+			return delete.executeUpdate();
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.USER_SESSION, "Could not purge sessions.", e);
+		}
+	}
+
+	private void purgeSessionsLogged() {
+		try {
+			int purged = purgeSessions();
+			if (purged > 0) {
+				logService.log(LogService.LOG_DEBUG, "Purged " + purged + " deleted or expired sessions.");
+			}
+		} catch (SpecmateException e) {
+			logService.log(LogService.LOG_ERROR, "Purging sessions failed.", e);
+		}
+	}
+
+	@Override
+	public UserSession create(AccessRights source, AccessRights target, String userName,
+			String password, String projectName) throws SpecmateException {
+		userMetricsService.loginCounter(userName, getLastLogin(userName));
+		UserSession session = createSession(source, target, userName, password, sanitize(projectName));
+
+		try (Connection connection = dbProvider.borrowConnection();
+				PreparedStatement insert = connection.prepareStatement("INSERT INTO " + SESSION_TABLE
+						+ " (ID, USER_NAME, ALLOWED_PATH_PATTERN, SOURCE_SYSTEM, TARGET_SYSTEM, LIBRARY_FOLDERS,"
+						+ " LAST_ACTIVE, IS_DELETED) VALUES (?, ?, ?, ?, ?, ?, ?, 0)")) {
+			insert.setString(1, session.getId());
+			insert.setString(2, session.getUserName());
+			insert.setString(3, session.getAllowedPathPattern());
+			insert.setInt(4, session.getSourceSystem().getValue());
+			insert.setInt(5, session.getTargetSystem().getValue());
+			insert.setString(6, String.join(LIBRARY_SEPARATOR, session.getLibraryFolders()));
+			insert.setLong(7, session.getLastActive());
+			insert.executeUpdate();
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.USER_SESSION, "Could not store session.", e);
+		}
+		return session;
+	}
+
+	@Override
+	public UserSession create() {
+		// Don't create unauthenticated sessions in persistent storage.
+		UserSession session = UsermodelFactory.eINSTANCE.createUserSession();
+		session.setAllowedPathPattern(null);
+		session.setLastActive(0);
+		session.setSourceSystem(AccessRights.NONE);
+		session.setTargetSystem(AccessRights.NONE);
+		session.setId("INVALID-SESSION");
+		return session;
+	}
+
+	@Override
+	public void refresh(String token) throws SpecmateException {
+		if (getSession(token) == null) {
+			throw new SpecmateInternalException(ErrorCode.USER_SESSION,
+					"Invalid session when trying to refresh session.");
+		}
+		long now = new Date().getTime();
+		// Rate limit the writes, the expiration is measured in minutes anyway
+		try (Connection connection = dbProvider.borrowConnection();
+				PreparedStatement update = connection.prepareStatement(
+						"UPDATE " + SESSION_TABLE + " SET LAST_ACTIVE = ? WHERE ID = ? AND LAST_ACTIVE < ?")) {
+			update.setLong(1, now);
+			update.setString(2, token);
+			update.setLong(3, now - SESSION_REFRESH_LIMIT);
+			update.executeUpdate();
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.USER_SESSION, "Could not refresh session " + token + ".",
+					e);
+		}
+	}
+
+	@Override
+	public void delete(String token) throws SpecmateException {
+		// Deleted sessions are kept for the login counter
+		try (Connection connection = dbProvider.borrowConnection();
+				PreparedStatement update = connection.prepareStatement(
+						"UPDATE " + SESSION_TABLE + " SET IS_DELETED = 1 WHERE ID = ? AND IS_DELETED = 0")) {
+			update.setString(1, token);
+			if (update.executeUpdate() == 0) {
+				throw new SpecmateInternalException(ErrorCode.USER_SESSION,
+						"Invalid session when trying to delete session.");
+			}
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.USER_SESSION, "Could not delete session " + token + ".",
+					e);
+		}
+	}
+
+	@Override
+	protected UserSession getSession(String token) throws SpecmateException {
+		try (Connection connection = dbProvider.borrowConnection();
+				PreparedStatement select = connection.prepareStatement("SELECT USER_NAME, ALLOWED_PATH_PATTERN, "
+						+ "SOURCE_SYSTEM, TARGET_SYSTEM, LIBRARY_FOLDERS, LAST_ACTIVE FROM " + SESSION_TABLE
+						+ " WHERE ID = ? AND IS_DELETED = 0")) {
+			select.setString(1, token);
+			try (ResultSet result = select.executeQuery()) {
+				if (!result.next()) {
+					return null;
+				}
+				UserSession session = UsermodelFactory.eINSTANCE.createUserSession();
+				session.setId(token);
+				session.setUserName(result.getString(1));
+				session.setAllowedPathPattern(result.getString(2));
+				session.setSourceSystem(AccessRights.get(result.getInt(3)));
+				session.setTargetSystem(AccessRights.get(result.getInt(4)));
+				String libraryFolders = result.getString(5);
+				if (libraryFolders != null && !libraryFolders.isEmpty()) {
+					session.getLibraryFolders().addAll(Arrays.asList(libraryFolders.split(LIBRARY_SEPARATOR)));
+				}
+				session.setLastActive(result.getLong(6));
+				return session;
+			}
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.USER_SESSION, "Could not read session " + token + ".", e);
+		}
+	}
+
+	/** Returns the number of distinct users active after the given time */
+	private int countActiveUsers(long time) throws SpecmateException {
+		try (Connection connection = dbProvider.borrowConnection();
+				PreparedStatement select = connection.prepareStatement(
+						"SELECT COUNT(DISTINCT USER_NAME) FROM " + SESSION_TABLE + " WHERE LAST_ACTIVE > ?")) {
+			select.setLong(1, time);
+			try (ResultSet result = select.executeQuery()) {
+				return result.next() ? result.getInt(1) : 0;
+			}
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.USER_SESSION, "Could not count the active users.", e);
+		}
+	}
+
+	/** Returns the time the user was last active, or 0 if never */
+	private long getLastLogin(String userName) throws SpecmateException {
+		try (Connection connection = dbProvider.borrowConnection();
+				PreparedStatement select = connection
+						.prepareStatement("SELECT MAX(LAST_ACTIVE) FROM " + SESSION_TABLE + " WHERE USER_NAME = ?")) {
+			select.setString(1, userName);
+			try (ResultSet result = select.executeQuery()) {
+				return result.next() ? result.getLong(1) : 0;
+			}
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.USER_SESSION,
+					"Could not read sessions of user " + userName + ".", e);
+		}
+	}
+
+	@Reference
+	public void setDBProvider(IDBProvider dbProvider) {
+		this.dbProvider = dbProvider;
+	}
+
+	@Reference
+	public void setConfigService(IConfigService configService) {
+		this.configService = configService;
+	}
+
+	@Reference
+	public void setUserMetricsService(IUserMetricsService userMetricsService) {
+		this.userMetricsService = userMetricsService;
+	}
+
+	@Reference
+	public void setLogService(LogService logService) {
+		this.logService = logService;
+	}
+}
@@ -21,9 +21,11 @@ import com.specmate.persistency.IChange;
 import com.specmate.persistency.IPersistencyService;
 import com.specmate.persistency.ITransaction;
 import com.specmate.persistency.IView;
+import com.specmate.persistency.ObjectQuery;
 import com.specmate.usermodel.AccessRights;
 import com.specmate.usermodel.UserSession;
 import com.specmate.usermodel.UsermodelFactory;
+import com.specmate.usermodel.UsermodelPackage;
 
 @Component(immediate = true, service = ISessionService.class, configurationPid = PersistentSessionService.PID, configurationPolicy = ConfigurationPolicy.REQUIRE, property = "impl=persistent")
 public class PersistentSessionService extends BaseSessionService {
@@ -134,17 +136,18 @@ public class PersistentSessionService extends BaseSessionService {
 	protected UserSession getSession(String token) throws SpecmateException {
 		// Only get the active sessions, the deleted sessions are only used for the
 		// login counter
-		String query = "UserSession.allInstances()->select(u | u.id='" + token + "' and u.isDeleted=false)";
+		ObjectQuery<UserSession> query = ObjectQuery.of(UserSession.class, UsermodelPackage.Literals.USER_SESSION)
+				.where(UsermodelPackage.Literals.USER_SESSION__ID, token)
+				.where(UsermodelPackage.Literals.USER_SESSION__IS_DELETED, false);
 
-		List<Object> results = sessionView.query(query,
-				UsermodelFactory.eINSTANCE.getUsermodelPackage().getUserSession());
+		List<UserSession> results = sessionView.find(query);
 
 		if (results.size() > 1) {
 			throw new SpecmateInternalException(ErrorCode.USER_SESSION, "More than one session " + token + " found.");
 		}
 
 		if (results.size() == 1) {
-			return (UserSession) results.get(0);
+			return results.get(0);
 		} else {
 			return null;
 		}
@@ -0,0 +1,199 @@
+package com.specmate.auth.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.osgi.service.log.LogService;
+
+import com.specmate.auth.config.SessionServiceConfig;
+import com.specmate.auth.internal.DatabaseSessionService;
+import com.specmate.common.exception.SpecmateException;
+import com.specmate.config.api.IConfigService;
+import com.specmate.dbprovider.api.IDBProvider;
+import com.specmate.metrics.IUserMetricsService;
+import com.specmate.metrics.IUserMetricsService.IActiveUsers;
+import com.specmate.usermodel.AccessRights;
+import com.specmate.usermodel.UserSession;
+
+public class DatabaseSessionServiceTest {
+
+	private static final String URL = "jdbc:h2:mem:sessions;DB_CLOSE_DELAY=-1";
+
+	private static final String BASE_URL = "/services/rest/";
+
+	private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+	private Connection connection;
+
+	private IUserMetricsService userMetricsService;
+
+	private DatabaseSessionService sessionService;
+
+	@Before
+	public void setUp() throws Exception {
+		connection = DriverManager.getConnection(URL, "", "");
+		IDBProvider dbProvider = mock(IDBProvider.class);
+		when(dbProvider.borrowConnection()).thenAnswer(invocation -> DriverManager.getConnection(URL, "", ""));
+		userMetricsService = mock(IUserMetricsService.class);
+
+		sessionService = new DatabaseSessionService();
+		sessionService.setDBProvider(dbProvider);
+		sessionService.setConfigService(mock(IConfigService.class));
+		sessionService.setUserMetricsService(userMetricsService);
+		sessionService.setLogService(mock(LogService.class));
+		Map<String, Object> properties = new HashMap<>();
+		properties.put(SessionServiceConfig.SESSION_MAX_IDLE_MINUTES, 5);
+		sessionService.activate(properties);
+	}
+
+	@After
+	public void tearDown() throws SQLException {
+		sessionService.deactivate();
+		execute("DROP ALL OBJECTS");
+		connection.close();
+	}
+
+	@Test
+	public void testSessionLifecycle() throws SpecmateException {
+		UserSession session = sessionService.create(AccessRights.ALL, AccessRights.NONE, "user", "pass",
+				"project");
+		String token = session.getId();
+
+		assertTrue(sessionService.isAuthorizedPath(token, BASE_URL + "project/resource"));
+		assertFalse(sessionService.isAuthorizedPath(token, BASE_URL + "other/resource"));
+		assertEquals("user", sessionService.getUserName(token));
+		assertEquals(AccessRights.ALL, sessionService.getSourceAccessRights(token));
+		assertEquals(AccessRights.NONE, sessionService.getTargetAccessRights(token));
+		assertFalse(sessionService.isExpired(token));
+
+		sessionService.refresh(token);
+		sessionService.delete(token);
+		assertFalse(sessionService.isAuthorizedPath(token, BASE_URL + "project/resource"));
+	}
+
+	@Test
+	public void testExpiredSession() throws Exception {
+		String token = sessionService.create(AccessRights.ALL, AccessRights.ALL, "user", "pass", "project").getId();
+		setLastActive(token, System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(6));
+
+		assertTrue(sessionService.isExpired(token));
+	}
+
+	@Test
+	public void testLoginCountsLastActivity() throws Exception {
+		String token = sessionService.create(AccessRights.ALL, AccessRights.ALL, "user", "pass", "project").getId();
+		setLastActive(token, 1000);
+		sessionService.delete(token);
+
+		sessionService.create(AccessRights.ALL, AccessRights.ALL, "user", "pass", "project");
+
+		verify(userMetricsService).loginCounter("user", 0);
+		verify(userMetricsService).loginCounter("user", 1000);
+	}
+
+	@Test
+	public void testCountersAreInitializedFromTable() throws Exception {
+		String recent = sessionService.create(AccessRights.ALL, AccessRights.ALL, "a", "pass", "project").getId();
+		String old = sessionService.create(AccessRights.ALL, AccessRights.ALL, "b", "pass", "project").getId();
+		sessionService.create(AccessRights.ALL, AccessRights.ALL, "b", "pass", "project");
+		setLastActive(old, 1000);
+
+		ArgumentCaptor<IActiveUsers> activeUsers = ArgumentCaptor.forClass(IActiveUsers.class);
+		verify(userMetricsService).initializeLoginCounters(activeUsers.capture());
+
+		long now = System.currentTimeMillis();
+		assertEquals(2, activeUsers.getValue().countActiveAfter(now - DAY));
+		setLastActive(recent, 1000);
+		assertEquals(1, activeUsers.getValue().countActiveAfter(now - DAY));
+		assertEquals(2, activeUsers.getValue().countActiveAfter(0));
+	}
+
+	@Test
+	public void testPurgeKeepsLastSessionOfUser() throws Exception {
+		long now = System.currentTimeMillis();
+		String deleted = sessionService.create(AccessRights.ALL, AccessRights.ALL, "user", "pass", "project")
+				.getId();
+		sessionService.delete(deleted);
+		setLastActive(deleted, now - 2 * DAY);
+		String expired = sessionService.create(AccessRights.ALL, AccessRights.ALL, "user", "pass", "project")
+				.getId();
+		setLastActive(expired, now - DAY);
+		String active = sessionService.create(AccessRights.ALL, AccessRights.ALL, "user", "pass", "project")
+				.getId();
+		String lastOfOtherUser = sessionService
+				.create(AccessRights.ALL, AccessRights.ALL, "other", "pass", "project").getId();
+		sessionService.delete(lastOfOtherUser);
+		String outdated = sessionService.create(AccessRights.ALL, AccessRights.ALL, "gone", "pass", "project")
+				.getId();
+		setLastActive(outdated, now - 400 * DAY);
+
+		assertEquals(3, sessionService.purgeSessions());
+
+		assertFalse(exists(deleted));
+		assertFalse(exists(expired));
+		assertFalse(exists(outdated));
+		assertTrue(exists(active));
+		assertTrue(exists(lastOfOtherUser));
+		assertEquals(0, sessionService.purgeSessions());
+	}
+
+	@Test
+	public void testPurgeRunsOnActivation() throws Exception {
+		String token = sessionService.create(AccessRights.ALL, AccessRights.ALL, "user", "pass", "project").getId();
+		sessionService.create(AccessRights.ALL, AccessRights.ALL, "user", "pass", "project");
+		sessionService.delete(token);
+		setLastActive(token, 1000);
+		sessionService.deactivate();
+
+		Map<String, Object> properties = new HashMap<>();
+		properties.put(SessionServiceConfig.SESSION_MAX_IDLE_MINUTES, 5);
+		sessionService.activate(properties);
+
+		assertFalse(exists(token));
+		verify(userMetricsService, times(2)).initializeLoginCounters(any());
+	}
+
+	private void setLastActive(String token, long lastActive) throws SQLException {
+		try (PreparedStatement update = connection
+				.prepareStatement("UPDATE SPECMATE_SESSION SET LAST_ACTIVE = ? WHERE ID = ?")) {
+			update.setLong(1, lastActive);
+			update.setString(2, token);
+			update.executeUpdate();
+		}
+	}
+
+	private boolean exists(String token) throws SQLException {
+		try (PreparedStatement select = connection.prepareStatement("SELECT 1 FROM SPECMATE_SESSION WHERE ID = ?")) {
+			select.setString(1, token);
+			try (ResultSet result = select.executeQuery()) {
+				return result.next();
+			}
+		}
+	}
+
+	private void execute(String sql) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute(sql);
+		}
+	}
+}
@@ -23,6 +23,13 @@ public class SpecmateCDOServerConfig {
 	public static final String KEY_REPOSITORY_NAME = "cdo.repositoryName";
 	public static final String KEY_CDO_USER = "cdo.user";
 	public static final String KEY_CDO_PASSWORD = "cdo.password";
+	public static final String KEY_RETENTION_DAYS = "cdo.retention.days";
+	public static final String KEY_RETENTION_KEEP_VERSIONS = "cdo.retention.keepVersions";
+
+	/** Revisions are kept forever by default */
+	public static final int DEFAULT_RETENTION_DAYS = 0;
+	/** Keeps the first page of an object history loaded by CDO */
+	public static final int DEFAULT_RETENTION_KEEP_VERSIONS = 50;
 
 	private ConfigurationAdmin configurationAdmin;
 
@@ -38,12 +45,19 @@ public class SpecmateCDOServerConfig {
 
 	private String cdoPassword;
 
+	private int retentionDays;
+
+	private int retentionKeepVersions;
+
 	@Activate
 	private void activate() throws SpecmateException {
 		this.serverPort = configService.getConfigurationProperty(KEY_SERVER_HOST_PORT);
 		this.repositoryName = configService.getConfigurationProperty(KEY_REPOSITORY_NAME);
 		this.cdoUser = configService.getConfigurationProperty(KEY_CDO_USER);
 		this.cdoPassword = configService.getConfigurationProperty(KEY_CDO_PASSWORD);
+		this.retentionDays = configService.getConfigurationPropertyInt(KEY_RETENTION_DAYS, DEFAULT_RETENTION_DAYS);
+		this.retentionKeepVersions = configService.getConfigurationPropertyInt(KEY_RETENTION_KEEP_VERSIONS,
+				DEFAULT_RETENTION_KEEP_VERSIONS);
 
 		Dictionary<String, Object> properties = new Hashtable<>();
 		if (!StringUtil.isEmpty(serverPort) && !StringUtil.isEmpty(repositoryName) && !StringUtil.isEmpty(cdoUser)
@@ -52,6 +66,8 @@ public class SpecmateCDOServerConfig {
 			properties.put(KEY_REPOSITORY_NAME, repositoryName);
 			properties.put(KEY_CDO_USER, cdoUser);
 			properties.put(KEY_CDO_PASSWORD, cdoPassword);
+			properties.put(KEY_RETENTION_DAYS, retentionDays);
+			properties.put(KEY_RETENTION_KEEP_VERSIONS, retentionKeepVersions);
 			logService.log(LogService.LOG_DEBUG,
 					"Configuring CDO with:\n" + OSGiUtil.configDictionaryToString(properties));
 			OSGiUtil.configureService(configurationAdmin, PID, properties);
@@ -0,0 +1,273 @@
+package com.specmate.cdoserver.internal;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.specmate.common.exception.SpecmateException;
+import com.specmate.common.exception.SpecmateInternalException;
+import com.specmate.model.administration.ErrorCode;
+
+/**
+ * Removes old historical revisions from the tables of an audited CDO DB store
+ * with horizontal mapping.
+ *
+ * A revision is removed if it has been revised before the cutoff time and the
+ * object has at least the given number of newer versions. Current revisions
+ * are never removed. Afterwards, the list entries of removed revisions are
+ * removed from the list tables of their class table. The commit infos are kept,
+ * such that the commits remain visible in the history.
+ *
+ * The pruner works on the tables directly and must only run while no CDO
+ * repository is active on the store, otherwise the revision caches of the
+ * repository would still hand out the removed revisions. As the change log of
+ * the history is built from the revisions on its first start, nothing is
+ * pruned before the change log exists.
+ */
+public class RevisionPruner {
+
+	private static final String ID = "CDO_ID";
+	private static final String VERSION = "CDO_VERSION";
+	private static final String REVISED = "CDO_REVISED";
+	private static final String SOURCE = "CDO_SOURCE";
+	private static final String INDEX = "CDO_IDX";
+	private static final String VERSION_ADDED = "CDO_VERSION_ADDED";
+
+	/** The table of the change log, see ChangeLogIndex in the CDO persistency */
+	private static final String CHANGE_LOG_TABLE = "SPECMATE_CHANGELOG";
+
+	/** Bytes assumed for values of types without a fixed or measurable size */
+	private static final int DEFAULT_VALUE_SIZE = 8;
+
+	/** The outcome of a pruning run */
+	public static class Report {
+		private Map<String, Integer> removedRows = new LinkedHashMap<>();
+		private long reclaimedBytes;
+		private boolean skipped;
+
+		private void add(String table, int rows, long bytes) {
+			if (rows > 0) {
+				removedRows.put(table, rows);
+				reclaimedBytes += bytes;
+			}
+		}
+
+		/** Returns the number of removed rows per table */
+		public Map<String, Integer> getRemovedRows() {
+			return removedRows;
+		}
+
+		/** Returns the total number of removed rows */
+		public int getTotalRemovedRows() {
+			return removedRows.values().stream().mapToInt(Integer::intValue).sum();
+		}
+
+		/**
+		 * Returns the estimated size of the removed data in bytes, computed from
+		 * the column types and the lengths of the character data of the removed
+		 * rows
+		 */
+		public long getReclaimedBytes() {
+			return reclaimedBytes;
+		}
+
+		/** Returns whether pruning was skipped as the change log does not exist yet */
+		public boolean isSkipped() {
+			return skipped;
+		}
+
+		@Override
+		public String toString() {
+			if (skipped) {
+				return "Skipped pruning of old revisions, the change log does not exist yet.";
+			}
+			return "Removed " + getTotalRemovedRows() + " rows of old revisions " + removedRows + ", reclaiming about "
+					+ reclaimedBytes + " bytes.";
+		}
+	}
+
+	private Connection connection;
+
+	public RevisionPruner(Connection connection) {
+		this.connection = connection;
+	}
+
+	/**
+	 * Removes old revisions.
+	 *
+	 * @param cutoff
+	 *            only revisions revised before this time are removed
+	 * @param keepVersions
+	 *            the number of most recent versions to keep per object
+	 */
+	public Report prune(long cutoff, int keepVersions) throws SpecmateException {
+		Report report = new Report();
+		try {
+			Map<String, Map<String, Integer>> columns = readColumns();
+			if (!columns.containsKey(CHANGE_LOG_TABLE)) {
+				report.skipped = true;
+				return report;
+			}
+			Set<String> classTables = new TreeSet<>();
+			Set<String> listTables = new TreeSet<>();
+			for (Map.Entry<String, Map<String, Integer>> table : columns.entrySet()) {
+				Set<String> tableColumns = table.getValue().keySet();
+				if (tableColumns.contains(ID) && tableColumns.contains(VERSION) && tableColumns.contains(REVISED)) {
+					classTables.add(table.getKey());
+				} else if (tableColumns.contains(SOURCE) && tableColumns.contains(VERSION)
+						&& tableColumns.contains(INDEX) && !tableColumns.contains(VERSION_ADDED)) {
+					listTables.add(table.getKey());
+				}
+			}
+
+			connection.setAutoCommit(false);
+			try {
+				Set<String> prunedTables = new HashSet<>();
+				for (String table : classTables) {
+					String condition = getClassTableCondition(table);
+					long bytes = measure(table, columns.get(table), condition, cutoff, keepVersions);
+					int rows = delete(table, condition, cutoff, keepVersions);
+					report.add(table, rows, bytes);
+					if (rows > 0) {
+						prunedTables.add(table);
+					}
+				}
+				for (String listTable : listTables) {
+					String owner = getOwner(listTable, classTables);
+					if (owner != null && prunedTables.contains(owner)) {
+						String condition = getListTableCondition(owner);
+						long bytes = measure(listTable, columns.get(listTable), condition);
+						report.add(listTable, delete(listTable, condition), bytes);
+					}
+				}
+				connection.commit();
+			} catch (SQLException e) {
+				connection.rollback();
+				throw e;
+			} finally {
+				connection.setAutoCommit(true);
+			}
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.PERSISTENCY, "Could not prune old revisions.", e);
+		}
+		return report;
+	}
+
+	/** Returns the columns and their SQL types per table */
+	private Map<String, Map<String, Integer>> readColumns() throws SQLException {
+		DatabaseMetaData metaData = connection.getMetaData();
+		Set<String> tables = new HashSet<>();
+		try (ResultSet result = metaData.getTables(null, null, "%", new String[] { "TABLE" })) {
+			while (result.next()) {
+				tables.add(result.getString("TABLE_NAME"));
+			}
+		}
+		Map<String, Map<String, Integer>> columns = new HashMap<>();
+		try (ResultSet result = metaData.getColumns(null, null, "%", "%")) {
+			while (result.next()) {
+				String table = result.getString("TABLE_NAME");
+				if (tables.contains(table)) {
+					columns.computeIfAbsent(table, t -> new LinkedHashMap<>()).put(
+							result.getString("COLUMN_NAME").toUpperCase(Locale.ROOT), result.getInt("DATA_TYPE"));
+				}
+			}
+		}
+		return columns;
+	}
+
+	/**
+	 * Returns the condition for the old revisions of a class table, the
+	 * parameters are the cutoff and the number of versions to keep
+	 */
+	private String getClassTableCondition(String table) {
+		return "D." + REVISED + " > 0 AND D." + REVISED + " < ? AND D." + VERSION + " > 0 AND D." + VERSION
+				+ " <= (SELECT MAX(ABS(M." + VERSION + ")) FROM " + table + " M WHERE M." + ID + " = D." + ID
+				+ ") - ?";
+	}
+
+	/** Returns the condition for the list entries of removed revisions */
+	private String getListTableCondition(String owner) {
+		return "NOT EXISTS (SELECT 1 FROM " + owner + " R WHERE R." + ID + " = D." + SOURCE + " AND R." + VERSION
+				+ " = D." + VERSION + ")";
+	}
+
+	/** Estimates the size in bytes of the rows matching the condition */
+	private long measure(String table, Map<String, Integer> columns, String condition, Object... parameters)
+			throws SQLException {
+		StringBuilder size = new StringBuilder();
+		for (Map.Entry<String, Integer> column : columns.entrySet()) {
+			if (size.length() > 0) {
+				size.append(" + ");
+			}
+			size.append(getSizeExpression(column.getKey(), column.getValue()));
+		}
+		String query = "SELECT SUM(" + size + ") FROM " + table + " D WHERE " + condition;
+		try (PreparedStatement statement = prepare(query, parameters); ResultSet result = statement.executeQuery()) {
+			return result.next() ? result.getLong(1) : 0;
+		}
+	}
+
+	private String getSizeExpression(String column, int type) {
+		switch (type) {
+		case Types.CHAR:
+		case Types.VARCHAR:
+		case Types.LONGVARCHAR:
+		case Types.NCHAR:
+		case Types.NVARCHAR:
+		case Types.LONGNVARCHAR:
+		case Types.CLOB:
+		case Types.NCLOB:
+			return "COALESCE(LENGTH(D." + column + "), 0)";
+		case Types.BIT:
+		case Types.BOOLEAN:
+		case Types.TINYINT:
+			return "1";
+		case Types.SMALLINT:
+			return "2";
+		case Types.INTEGER:
+		case Types.REAL:
+			return "4";
+		default:
+			return Integer.toString(DEFAULT_VALUE_SIZE);
+		}
+	}
+
+	private int delete(String table, String condition, Object... parameters) throws SQLException {
+		try (PreparedStatement statement = prepare("DELETE FROM " + table + " D WHERE " + condition, parameters)) {
+			return statement.executeUpdate();
+		}
+	}
+
+	private PreparedStatement prepare(String query, Object... parameters) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement(query);
+		for (int i = 0; i < parameters.length; i++) {
+			statement.setObject(i + 1, parameters[i]);
+		}
+		return statement;
+	}
+
+	/**
+	 * Returns the class table a list table belongs to, list tables are named
+	 * after their class table followed by the feature name.
+	 */
+	private String getOwner(String listTable, Set<String> classTables) {
+		String owner = null;
+		for (String classTable : classTables) {
+			if (listTable.startsWith(classTable + "_")
+					&& (owner == null || classTable.length() > owner.length())) {
+				owner = classTable;
+			}
+		}
+		return owner;
+	}
+}
@@ -1,7 +1,10 @@
 package com.specmate.cdoserver.internal;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.emf.cdo.server.CDOServerUtil;
 import org.eclipse.emf.cdo.server.IRepository;
@@ -29,6 +32,7 @@ import com.specmate.common.exception.SpecmateInternalException;
 import com.specmate.dbprovider.api.DBConfigChangedCallback;
 import com.specmate.dbprovider.api.IDBProvider;
 import com.specmate.migration.api.IMigratorService;
+import com.specmate.migration.api.MigrationPlan;
 import com.specmate.model.administration.ErrorCode;
 
 @Component(immediate = true, configurationPid = SpecmateCDOServerConfig.PID, configurationPolicy = ConfigurationPolicy.REQUIRE)
@@ -62,6 +66,12 @@ public class SpecmateCDOServer implements DBConfigChangedCallback, ICDOServer {
 
 	private boolean active = false;
 
+	/** Revisions revised more than this many days ago are pruned, 0 disables pruning */
+	private int retentionDays;
+
+	/** Number of versions per object that are never pruned */
+	private int retentionKeepVersions;
+
 	@Activate
 	public void activate(Map<String, Object> properties) throws SpecmateException {
 		readConfig(properties);
@@ -100,10 +110,38 @@ public class SpecmateCDOServer implements DBConfigChangedCallback, ICDOServer {
 		if (StringUtil.isEmpty(this.cdoPassword)) {
 			throw new SpecmateInternalException(ErrorCode.CONFIGURATION, "No CDO password given");
 		}
+
+		this.retentionDays = getInt(properties, SpecmateCDOServerConfig.KEY_RETENTION_DAYS,
+				SpecmateCDOServerConfig.DEFAULT_RETENTION_DAYS);
+		this.retentionKeepVersions = getInt(properties, SpecmateCDOServerConfig.KEY_RETENTION_KEEP_VERSIONS,
+				SpecmateCDOServerConfig.DEFAULT_RETENTION_KEEP_VERSIONS);
+	}
+
+	private int getInt(Map<String, Object> properties, String key, int defaultValue) {
+		Object value = properties.get(key);
+		return value instanceof Integer ? (Integer) value : defaultValue;
+	}
+
+	/**
+	 * Removes historical revisions that are older than the retention period,
+	 * keeping the most recent versions of each object. Must only be called
+	 * while the repository is not running.
+	 */
+	private void pruneRevisions() {
+		long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays);
+		try (Connection connection = dbProviderService.borrowConnection()) {
+			RevisionPruner.Report report = new RevisionPruner(connection).prune(cutoff, retentionKeepVersions);
+			logService.log(LogService.LOG_INFO, report.toString());
+		} catch (SpecmateException | SQLException e) {
+			logService.log(LogService.LOG_ERROR, "Pruning of old revisions failed.", e);
+		}
 	}
 
 	/**
-	 * Starts the CDO server, performs the migration if necessary.
+	 * Starts the CDO server, performs the migration if necessary, creates
+	 * missing lookup indexes and prunes old revisions if a retention period is
+	 * configured. If only a dry run of a pending migration is configured, the
+	 * migration is planned and the server is not started.
 	 */
 	@Override
 	public void start() throws SpecmateException {
@@ -111,8 +149,18 @@ public class SpecmateCDOServer implements DBConfigChangedCallback, ICDOServer {
 			return;
 		}
 		if (migrationService.needsMigration()) {
+			if (migrationService.isDryRun()) {
+				MigrationPlan plan = migrationService.dryRunMigration();
+				logService.log(LogService.LOG_INFO, plan + " The server is not started while the migration is "
+						+ "pending, disable the dry run in the configuration to migrate.");
+				return;
+			}
 			migrationService.doMigration();
 		}
+		migrationService.ensureIndexes();
+		if (retentionDays > 0 && !dbProviderService.isVirginDB()) {
+			pruneRevisions();
+		}
 		createServer();
 		active = true;
 	}
@@ -0,0 +1,221 @@
+package com.specmate.cdoserver.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.cdo.common.commit.CDOCommitInfo;
+import org.eclipse.emf.cdo.eresource.CDOResource;
+import org.eclipse.emf.cdo.net4j.CDONet4jSessionConfiguration;
+import org.eclipse.emf.cdo.net4j.CDONet4jUtil;
+import org.eclipse.emf.cdo.server.CDOServerUtil;
+import org.eclipse.emf.cdo.server.IRepository;
+import org.eclipse.emf.cdo.server.db.CDODBUtil;
+import org.eclipse.emf.cdo.server.net4j.CDONet4jServerUtil;
+import org.eclipse.emf.cdo.session.CDOSession;
+import org.eclipse.emf.cdo.transaction.CDOTransaction;
+import org.eclipse.emf.cdo.util.CDOUtil;
+import org.eclipse.emf.cdo.util.CommitException;
+import org.eclipse.emf.cdo.view.CDOView;
+import org.eclipse.net4j.Net4jUtil;
+import org.eclipse.net4j.acceptor.IAcceptor;
+import org.eclipse.net4j.db.DBUtil;
+import org.eclipse.net4j.db.h2.H2Adapter;
+import org.eclipse.net4j.tcp.TCPUtil;
+import org.eclipse.net4j.util.container.ContainerUtil;
+import org.eclipse.net4j.util.container.IManagedContainer;
+import org.eclipse.net4j.util.lifecycle.LifecycleUtil;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.specmate.cdoserver.internal.RevisionPruner;
+import com.specmate.model.base.BaseFactory;
+import com.specmate.model.base.Folder;
+
+/**
+ * Tests the pruning against the tables of a CDO repository that is stopped for
+ * pruning and started again afterwards, the same way the server prunes on
+ * start.
+ */
+public class RevisionPrunerRepositoryTest {
+
+	private static final String REPOSITORY = "pruner";
+
+	private static final String URL = "jdbc:h2:mem:prunerrepository;DB_CLOSE_DELAY=-1";
+
+	private static final int VERSIONS = 10;
+
+	private static final int KEEP_VERSIONS = 3;
+
+	private IManagedContainer container;
+
+	private IAcceptor acceptor;
+
+	private IRepository repository;
+
+	private String hostAndPort;
+
+	/** Keeps the in-memory database open while the repository is stopped */
+	private Connection connection;
+
+	@Before
+	public void setUp() throws Exception {
+		connection = DriverManager.getConnection(URL, "", "");
+		container = ContainerUtil.createContainer();
+		Net4jUtil.prepareContainer(container);
+		TCPUtil.prepareContainer(container);
+		CDONet4jUtil.prepareContainer(container);
+		CDONet4jServerUtil.prepareContainer(container);
+		container.activate();
+		hostAndPort = "localhost:" + getFreePort();
+		acceptor = TCPUtil.getAcceptor(container, hostAndPort);
+		startRepository();
+	}
+
+	@After
+	public void tearDown() throws SQLException {
+		LifecycleUtil.deactivate(repository);
+		LifecycleUtil.deactivate(acceptor);
+		LifecycleUtil.deactivate(container);
+		execute("DROP ALL OBJECTS");
+		connection.close();
+	}
+
+	@Test
+	public void testPrunesRevisionsOfStoppedRepository() throws Exception {
+		List<Long> commitTimes = new ArrayList<>();
+		CDOSession session = openSession();
+		CDOTransaction transaction = session.openTransaction();
+		CDOResource resource = transaction.getOrCreateResource("resource");
+		Folder folder = BaseFactory.eINSTANCE.createFolder();
+		folder.setId("folder");
+		resource.getContents().add(folder);
+		for (int version = 1; version <= VERSIONS; version++) {
+			folder.setName("version " + version);
+			Folder child = BaseFactory.eINSTANCE.createFolder();
+			child.setId("child" + version);
+			folder.getContents().add(child);
+			commitTimes.add(commit(transaction));
+		}
+		int commits = getCommitInfos(session).size();
+		session.close();
+
+		createChangeLog();
+		stopRepository();
+		RevisionPruner.Report report = new RevisionPruner(connection).prune(System.currentTimeMillis(),
+				KEEP_VERSIONS);
+		startRepository();
+
+		// Versions 1 to 7 of the folder with their 1 + 2 + ... + 7 list entries
+		assertFalse(report.isSkipped());
+		assertEquals(Integer.valueOf(VERSIONS - KEEP_VERSIONS), report.getRemovedRows().get("FOLDER"));
+		assertEquals(Integer.valueOf(28), report.getRemovedRows().get("FOLDER_CONTENTS_LIST"));
+		assertTrue(report.getReclaimedBytes() > 0);
+
+		session = openSession();
+		assertEquals(commits, getCommitInfos(session).size());
+
+		CDOView current = session.openView();
+		Folder currentFolder = (Folder) current.getResource("resource").getContents().get(0);
+		assertEquals("version " + VERSIONS, currentFolder.getName());
+		assertEquals(VERSIONS, currentFolder.getContents().size());
+
+		// The kept versions can still be read with their list contents
+		int oldestKept = VERSIONS - KEEP_VERSIONS + 1;
+		CDOView kept = session.openView(commitTimes.get(oldestKept - 1));
+		Folder keptFolder = (Folder) kept.getObject(CDOUtil.getCDOObject(currentFolder).cdoID());
+		assertEquals("version " + oldestKept, keptFolder.getName());
+		assertEquals(oldestKept, keptFolder.getContents().size());
+
+		// The pruned versions are gone
+		CDOView pruned = session.openView(commitTimes.get(oldestKept - 2));
+		assertNull(pruned.getRevision(CDOUtil.getCDOObject(currentFolder).cdoID()));
+		session.close();
+	}
+
+	@Test
+	public void testSkipsPruningWithoutChangeLog() throws Exception {
+		CDOSession session = openSession();
+		CDOTransaction transaction = session.openTransaction();
+		Folder folder = BaseFactory.eINSTANCE.createFolder();
+		transaction.getOrCreateResource("resource").getContents().add(folder);
+		for (int version = 1; version <= VERSIONS; version++) {
+			folder.setName("version " + version);
+			commit(transaction);
+		}
+		session.close();
+
+		stopRepository();
+		RevisionPruner.Report report = new RevisionPruner(connection).prune(System.currentTimeMillis(), 1);
+		startRepository();
+
+		assertTrue(report.isSkipped());
+		assertEquals(0, report.getTotalRemovedRows());
+	}
+
+	private void startRepository() {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL(URL);
+		Map<String, String> props = new HashMap<>();
+		props.put(IRepository.Props.OVERRIDE_UUID, REPOSITORY);
+		props.put(IRepository.Props.SUPPORTING_AUDITS, "true");
+		props.put(IRepository.Props.SUPPORTING_BRANCHES, "false");
+		repository = CDOServerUtil.createRepository(REPOSITORY,
+				CDODBUtil.createStore(CDODBUtil.createHorizontalMappingStrategy(true, false), new H2Adapter(),
+						DBUtil.createConnectionProvider(dataSource)),
+				props);
+		CDOServerUtil.addRepository(container, repository);
+	}
+
+	private void stopRepository() {
+		LifecycleUtil.deactivate(repository);
+	}
+
+	private CDOSession openSession() {
+		CDONet4jSessionConfiguration configuration = CDONet4jUtil.createNet4jSessionConfiguration();
+		configuration.setConnector(TCPUtil.getConnector(container, hostAndPort));
+		configuration.setRepositoryName(REPOSITORY);
+		return configuration.openNet4jSession();
+	}
+
+	private long commit(CDOTransaction transaction) throws CommitException {
+		return transaction.commit().getTimeStamp();
+	}
+
+	private List<CDOCommitInfo> getCommitInfos(CDOSession session) {
+		List<CDOCommitInfo> commits = new ArrayList<>();
+		session.getCommitInfoManager().getCommitInfos(null, 0, session.getLastUpdateTime(), commits::add);
+		return commits;
+	}
+
+	/** Creates the change log table, which the history creates on its first start */
+	private void createChangeLog() throws SQLException {
+		execute("CREATE TABLE SPECMATE_CHANGELOG (COMMIT_TIME BIGINT)");
+	}
+
+	private void execute(String sql) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute(sql);
+		}
+	}
+
+	private int getFreePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}
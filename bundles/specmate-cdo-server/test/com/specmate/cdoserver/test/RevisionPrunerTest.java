@@ -0,0 +1,129 @@
+package com.specmate.cdoserver.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.specmate.cdoserver.internal.RevisionPruner;
+
+/**
+ * Tests the pruning against an embedded H2 database with the table layout of
+ * the audited horizontal mapping of CDO.
+ */
+public class RevisionPrunerTest {
+
+	private static final long DAY = 24L * 60 * 60 * 1000;
+
+	private Connection connection;
+
+	@Before
+	public void setUp() throws SQLException {
+		connection = DriverManager.getConnection("jdbc:h2:mem:pruner", "", "");
+		execute("CREATE TABLE FOLDER (CDO_ID BIGINT, CDO_VERSION INT, CDO_CREATED BIGINT, "
+				+ "CDO_REVISED BIGINT, NAME VARCHAR(255))");
+		execute("CREATE TABLE FOLDER_CONTENTS_LIST (CDO_SOURCE BIGINT, CDO_VERSION INT, CDO_IDX INT, "
+				+ "CDO_VALUE BIGINT)");
+		execute("CREATE TABLE CDO_COMMIT_INFOS (COMMIT_TIME BIGINT, COMMIT_COMMENT VARCHAR(255))");
+		execute("CREATE TABLE SPECMATE_CHANGELOG (COMMIT_TIME BIGINT)");
+	}
+
+	@After
+	public void tearDown() throws SQLException {
+		connection.close();
+	}
+
+	@Test
+	public void testPrunesOldRevisionsKeepingRecentVersions() throws Exception {
+		// Object 1: ten versions, the first eight revised long ago
+		for (int version = 1; version <= 10; version++) {
+			long created = version * DAY;
+			long revised = version == 10 ? 0 : created + DAY;
+			insertRevision(1, version, created, revised);
+		}
+		// Object 2: two old versions only
+		insertRevision(2, 1, DAY, 2 * DAY);
+		insertRevision(2, 2, 2 * DAY, 0);
+
+		RevisionPruner.Report report = new RevisionPruner(connection).prune(8 * DAY, 3);
+
+		// Versions 1 to 6 of object 1 are old enough and not among the last three
+		assertEquals(Integer.valueOf(6), report.getRemovedRows().get("FOLDER"));
+		assertEquals(Integer.valueOf(12), report.getRemovedRows().get("FOLDER_CONTENTS_LIST"));
+		assertEquals(18, report.getTotalRemovedRows());
+		// Six revisions of 29 bytes and twelve list entries of 24 bytes
+		assertEquals(6 * 29 + 12 * 24, report.getReclaimedBytes());
+		assertEquals(listOf(7, 8, 9, 10), versions(1, "FOLDER", "CDO_ID"));
+		assertEquals(listOf(7, 7, 8, 8, 9, 9, 10, 10), versions(1, "FOLDER_CONTENTS_LIST", "CDO_SOURCE"));
+		assertEquals(listOf(1, 2), versions(2, "FOLDER", "CDO_ID"));
+	}
+
+	@Test
+	public void testKeepsRevisionsWithinRetentionPeriod() throws Exception {
+		for (int version = 1; version <= 5; version++) {
+			insertRevision(1, version, version * DAY, version == 5 ? 0 : (version + 1) * DAY);
+		}
+
+		RevisionPruner.Report report = new RevisionPruner(connection).prune(DAY, 1);
+
+		assertEquals(0, report.getTotalRemovedRows());
+		assertEquals(listOf(1, 2, 3, 4, 5), versions(1, "FOLDER", "CDO_ID"));
+	}
+
+	@Test
+	public void testKeepsDetachedObjectVersions() throws Exception {
+		insertRevision(1, 1, DAY, 2 * DAY);
+		insertRevision(1, 2, 2 * DAY, 3 * DAY);
+		// Detached in version 3, which counts as the most recent version
+		insertRevision(1, -3, 3 * DAY, 0);
+
+		new RevisionPruner(connection).prune(10 * DAY, 2);
+
+		assertEquals(listOf(-3, 2), versions(1, "FOLDER", "CDO_ID"));
+	}
+
+	private void insertRevision(long id, int version, long created, long revised) throws SQLException {
+		execute("INSERT INTO FOLDER VALUES (" + id + ", " + version + ", " + created + ", " + revised + ", 'f')");
+		if (version > 0) {
+			for (int index = 0; index < 2; index++) {
+				execute("INSERT INTO FOLDER_CONTENTS_LIST VALUES (" + id + ", " + version + ", " + index
+						+ ", 100)");
+			}
+		}
+	}
+
+	private List<Integer> versions(long id, String table, String idColumn) throws SQLException {
+		List<Integer> versions = new ArrayList<>();
+		try (Statement statement = connection.createStatement();
+				ResultSet result = statement.executeQuery("SELECT CDO_VERSION FROM " + table + " WHERE " + idColumn
+						+ " = " + id + " ORDER BY CDO_VERSION")) {
+			while (result.next()) {
+				versions.add(result.getInt(1));
+			}
+		}
+		return versions;
+	}
+
+	private List<Integer> listOf(int... values) {
+		List<Integer> list = new ArrayList<>();
+		for (int value : values) {
+			list.add(value);
+		}
+		return list;
+	}
+
+	private void execute(String sql) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute(sql);
+		}
+	}
+}
@@ -30,6 +30,9 @@ public interface IProjectConfigService {
 	/** The configuration key for the library name */
 	public static final String KEY_PROJECT_LIBRARY_NAME = ".name";
 
+	/** The configuration key for the language of the content of a project, de or en */
+	public static final String KEY_PROJECT_LANGUAGE = ".language";
+
 	/** The configuration key for the library description */
 	public static final String KEY_PROJECT_LIBRARY_DESCRIPTION = ".description";
 
@@ -67,7 +67,7 @@ public class ConnectorService {
 				try {
 					SchedulerTask connectorRunnable = new ConnectorTask(requirementsSources, transaction, logService);
 					connectorRunnable.run();
-					modelSearchService.startReIndex();
+					modelSearchService.startIncrementalReIndex();
 					Scheduler scheduler = new Scheduler();
 					scheduler.schedule(connectorRunnable, SchedulerIteratorFactory.create(schedule));
 				} catch (SpecmateException e) {
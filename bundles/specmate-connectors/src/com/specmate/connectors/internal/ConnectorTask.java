@@ -8,7 +8,6 @@ import java.util.List;
 import java.util.Map.Entry;
 
 import org.apache.commons.lang3.StringUtils;
-import org.eclipse.emf.common.util.TreeIterator;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.osgi.service.log.LogService;
@@ -20,9 +19,11 @@ import com.specmate.model.base.Folder;
 import com.specmate.model.base.IContainer;
 import com.specmate.model.base.IContentElement;
 import com.specmate.model.requirements.Requirement;
+import com.specmate.model.requirements.RequirementsPackage;
 import com.specmate.model.support.util.SpecmateEcoreUtil;
 import com.specmate.persistency.IChange;
 import com.specmate.persistency.ITransaction;
+import com.specmate.persistency.ObjectQuery;
 import com.specmate.scheduler.SchedulerTask;
 
 public class ConnectorTask extends SchedulerTask {
@@ -72,9 +73,11 @@ public class ConnectorTask extends SchedulerTask {
 
 				IContainer localRootContainer = getOrCreateLocalRootContainer(resource, source.getId());
 				// Build hashset (extid -> requirement) for local requirements
-				TreeIterator<EObject> localIterator = localRootContainer.eAllContents();
+				List<Requirement> localRequirements = transaction
+						.find(ObjectQuery.of(Requirement.class, RequirementsPackage.Literals.REQUIREMENT)
+								.inProject(localRootContainer.getId()));
 				HashMap<String, EObject> localRequirementsMap = new HashMap<>();
-				buildExtIdMap(localIterator, localRequirementsMap);
+				buildExtIdMap(localRequirements.iterator(), localRequirementsMap);
 
 				Requirement[] reqArray = requirements.toArray(new Requirement[0]);
 				int greatestUnhandledIndex = 0;
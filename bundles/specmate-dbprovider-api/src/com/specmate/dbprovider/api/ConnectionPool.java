@@ -0,0 +1,304 @@
+package com.specmate.dbprovider.api;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.osgi.service.log.LogService;
+
+import com.specmate.common.exception.SpecmateException;
+import com.specmate.common.exception.SpecmateInternalException;
+import com.specmate.metrics.ICounter;
+import com.specmate.metrics.IGauge;
+import com.specmate.metrics.IHistogram;
+import com.specmate.metrics.ITimer;
+import com.specmate.model.administration.ErrorCode;
+
+/**
+ * A bounded pool of JDBC connections.
+ *
+ * Borrowed connections are handed out as proxies, closing the proxy returns
+ * the physical connection to the pool. Idle connections are validated before
+ * they are handed out again, either with the validation query or, if none is
+ * configured, with {@link Connection#isValid(int)}. Connections that are held
+ * longer than the leak detection threshold are logged together with the stack
+ * of the borrowing thread.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+	/** Opens new physical connections */
+	@FunctionalInterface
+	public interface IConnectionFactory {
+		Connection open() throws SQLException;
+	}
+
+	/** Seconds to wait for a connection to answer the validation */
+	private static final int VALIDATION_TIMEOUT = 5;
+
+	/** A borrowed connection */
+	private static class Lease {
+		private final long borrowed = System.currentTimeMillis();
+		private final Throwable origin = new Throwable("Connection borrowed here");
+		private boolean reported;
+	}
+
+	private final IConnectionFactory factory;
+	private final String validationQuery;
+	private final long maxWaitMillis;
+	private final long leakThresholdMillis;
+	private final LogService logService;
+
+	private final Semaphore permits;
+	private final Deque<Connection> idle = new ArrayDeque<>();
+	private final Map<Connection, Lease> leases = new ConcurrentHashMap<>();
+	private ScheduledExecutorService leakDetector;
+	private volatile boolean closed;
+
+	private IHistogram waitTime;
+	private IGauge activeConnections;
+	private ICounter leakedConnections;
+
+	/**
+	 * Creates a new pool.
+	 *
+	 * @param maxSize
+	 *            the maximal number of connections
+	 * @param validationQuery
+	 *            the query to validate idle connections, or <code>null</code>
+	 * @param maxWaitMillis
+	 *            the time to wait for a free connection before failing
+	 * @param leakThresholdMillis
+	 *            the time after which a borrowed connection is reported as
+	 *            leaked, 0 disables the leak detection
+	 */
+	public ConnectionPool(IConnectionFactory factory, int maxSize, String validationQuery, long maxWaitMillis,
+			long leakThresholdMillis, LogService logService) {
+		this.factory = factory;
+		this.validationQuery = validationQuery == null || validationQuery.trim().isEmpty() ? null : validationQuery;
+		this.maxWaitMillis = maxWaitMillis;
+		this.leakThresholdMillis = leakThresholdMillis;
+		this.logService = logService;
+		this.permits = new Semaphore(Math.max(1, maxSize), true);
+		if (leakThresholdMillis > 0) {
+			long period = Math.max(1000L, leakThresholdMillis / 2);
+			leakDetector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "specmate-connection-leak-detector");
+				thread.setDaemon(true);
+				return thread;
+			});
+			leakDetector.scheduleWithFixedDelay(this::detectLeaks, period, period, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Sets the metrics of the pool: the time spent waiting for a connection,
+	 * the number of borrowed connections and the number of detected leaks.
+	 */
+	public void setMetrics(IHistogram waitTime, IGauge activeConnections, ICounter leakedConnections) {
+		this.waitTime = waitTime;
+		this.activeConnections = activeConnections;
+		this.leakedConnections = leakedConnections;
+	}
+
+	/**
+	 * Borrows a connection. The connection must be closed to return it to the
+	 * pool.
+	 */
+	public Connection borrow() throws SpecmateException {
+		if (closed) {
+			throw new SpecmateInternalException(ErrorCode.PERSISTENCY, "The connection pool is closed.");
+		}
+		ITimer timer = waitTime != null ? waitTime.startTimer() : null;
+		Connection physical;
+		try {
+			if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+				throw new SpecmateInternalException(ErrorCode.PERSISTENCY,
+						"No database connection available after " + maxWaitMillis + " ms.");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SpecmateInternalException(ErrorCode.PERSISTENCY, "Interrupted while waiting for a connection.",
+					e);
+		} finally {
+			if (timer != null) {
+				timer.observeDuration();
+			}
+		}
+		try {
+			physical = takeValidConnection();
+		} catch (SQLException e) {
+			permits.release();
+			throw new SpecmateInternalException(ErrorCode.PERSISTENCY, "Could not open a database connection.", e);
+		}
+		leases.put(physical, new Lease());
+		updateActive();
+		return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, new PooledConnection(physical));
+	}
+
+	/** Returns the number of currently borrowed connections */
+	public int getActiveCount() {
+		return leases.size();
+	}
+
+	/** Returns the number of idle connections */
+	public synchronized int getIdleCount() {
+		return idle.size();
+	}
+
+	/**
+	 * Closes the pool and all idle connections. Borrowed connections are closed
+	 * when they are returned.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		if (leakDetector != null) {
+			leakDetector.shutdownNow();
+		}
+		synchronized (this) {
+			while (!idle.isEmpty()) {
+				closeQuietly(idle.poll());
+			}
+		}
+	}
+
+	private Connection takeValidConnection() throws SQLException {
+		while (true) {
+			Connection connection;
+			synchronized (this) {
+				connection = idle.poll();
+			}
+			if (connection == null) {
+				return factory.open();
+			}
+			if (isValid(connection)) {
+				return connection;
+			}
+			closeQuietly(connection);
+		}
+	}
+
+	private boolean isValid(Connection connection) {
+		try {
+			if (validationQuery == null) {
+				return connection.isValid(VALIDATION_TIMEOUT);
+			}
+			try (Statement statement = connection.createStatement()) {
+				statement.setQueryTimeout(VALIDATION_TIMEOUT);
+				statement.execute(validationQuery);
+			}
+			return true;
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private void release(Connection physical) {
+		leases.remove(physical);
+		updateActive();
+		boolean reusable = !closed;
+		try {
+			if (reusable && physical.isClosed()) {
+				reusable = false;
+			} else if (reusable && !physical.getAutoCommit()) {
+				// Do not hand out pending changes of the previous client
+				physical.rollback();
+				physical.setAutoCommit(true);
+			}
+		} catch (SQLException e) {
+			reusable = false;
+		}
+		if (reusable) {
+			synchronized (this) {
+				idle.push(physical);
+			}
+		} else {
+			closeQuietly(physical);
+		}
+		permits.release();
+	}
+
+	private void detectLeaks() {
+		long now = System.currentTimeMillis();
+		for (Lease lease : leases.values()) {
+			if (!lease.reported && now - lease.borrowed > leakThresholdMillis) {
+				lease.reported = true;
+				if (leakedConnections != null) {
+					leakedConnections.inc();
+				}
+				if (logService != null) {
+					logService.log(LogService.LOG_WARNING, "Database connection borrowed " + (now - lease.borrowed)
+							+ " ms ago has not been returned to the pool.", lease.origin);
+				}
+			}
+		}
+	}
+
+	private void updateActive() {
+		if (activeConnections != null) {
+			activeConnections.set(leases.size());
+		}
+	}
+
+	private void closeQuietly(Connection connection) {
+		try {
+			connection.close();
+		} catch (SQLException e) {
+			// connection is discarded anyway
+		}
+	}
+
+	/** Forwards to the physical connection until closed */
+	private class PooledConnection implements InvocationHandler {
+		private final Connection physical;
+		private volatile boolean returned;
+
+		public PooledConnection(Connection physical) {
+			this.physical = physical;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+			case "close":
+				synchronized (this) {
+					if (!returned) {
+						returned = true;
+						release(physical);
+					}
+				}
+				return null;
+			case "isClosed":
+				return returned || physical.isClosed();
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "Pooled " + physical;
+			default:
+				if (returned) {
+					throw new SQLException("Connection has been returned to the pool.");
+				}
+				try {
+					return method.invoke(physical, args);
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+			}
+		}
+	}
+}
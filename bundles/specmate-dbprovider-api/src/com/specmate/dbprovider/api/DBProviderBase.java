@@ -1,18 +1,40 @@
 package com.specmate.dbprovider.api;
 
 import java.sql.Connection;
-import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+
+import org.osgi.service.log.LogService;
 
 import com.specmate.common.exception.SpecmateException;
 import com.specmate.common.exception.SpecmateInternalException;
+import com.specmate.dbprovider.api.ConnectionPool.IConnectionFactory;
+import com.specmate.metrics.IMetricsService;
 import com.specmate.model.administration.ErrorCode;
 
 public abstract class DBProviderBase implements IDBProvider {
-	protected Connection connection;
+	/** Config key for the maximal number of pooled connections */
+	public static final String KEY_POOL_MAX_SIZE = "db.pool.maxSize";
+	/** Config key for the query validating idle pooled connections */
+	public static final String KEY_POOL_VALIDATION_QUERY = "db.pool.validationQuery";
+	/** Config key for the milliseconds to wait for a pooled connection */
+	public static final String KEY_POOL_MAX_WAIT = "db.pool.maxWaitMillis";
+	/** Config key for the milliseconds after which a borrowed connection is reported as leaked */
+	public static final String KEY_POOL_LEAK_THRESHOLD = "db.pool.leakDetectionMillis";
+	/** All pool config keys */
+	public static final String[] POOL_KEYS = { KEY_POOL_MAX_SIZE, KEY_POOL_VALIDATION_QUERY, KEY_POOL_MAX_WAIT,
+			KEY_POOL_LEAK_THRESHOLD };
+
+	private static final int DEFAULT_POOL_MAX_SIZE = 8;
+	private static final long DEFAULT_POOL_MAX_WAIT = 30000;
+	private static final long DEFAULT_POOL_LEAK_THRESHOLD = 60000;
+
 	protected String jdbcConnection;
 	protected List<DBConfigChangedCallback> cbRegister = new ArrayList<>();
+	protected ConnectionPool pool;
+	protected IMetricsService metricsService;
+	protected LogService logService;
 
 	@Override
 	public void registerDBConfigChangedCallback(DBConfigChangedCallback cb) {
@@ -24,14 +46,64 @@ public abstract class DBProviderBase implements IDBProvider {
 		cbRegister.remove(cb);
 	}
 
-	protected void closeConnection() throws SpecmateException {
-		if (this.connection != null) {
-			try {
-				connection.close();
-				connection = null;
-			} catch (SQLException e) {
-				throw new SpecmateInternalException(ErrorCode.PERSISTENCY, "Could not close connection.", e);
-			}
+	@Override
+	public Connection borrowConnection() throws SpecmateException {
+		ConnectionPool currentPool = this.pool;
+		if (currentPool == null) {
+			throw new SpecmateInternalException(ErrorCode.PERSISTENCY, "No connection pool configured.");
+		}
+		return currentPool.borrow();
+	}
+
+	/**
+	 * Creates the connection pool from the pool settings in the given
+	 * configuration.
+	 *
+	 * @param defaultValidationQuery
+	 *            the validation query used if none is configured
+	 */
+	protected void createPool(Map<String, Object> properties, IConnectionFactory factory,
+			String defaultValidationQuery) throws SpecmateException {
+		int maxSize = getNumber(properties, KEY_POOL_MAX_SIZE, DEFAULT_POOL_MAX_SIZE).intValue();
+		long maxWait = getNumber(properties, KEY_POOL_MAX_WAIT, DEFAULT_POOL_MAX_WAIT).longValue();
+		long leakThreshold = getNumber(properties, KEY_POOL_LEAK_THRESHOLD, DEFAULT_POOL_LEAK_THRESHOLD)
+				.longValue();
+		String validationQuery = (String) properties.get(KEY_POOL_VALIDATION_QUERY);
+		if (validationQuery == null) {
+			validationQuery = defaultValidationQuery;
+		}
+		this.pool = new ConnectionPool(factory, maxSize, validationQuery, maxWait, leakThreshold, logService);
+		if (metricsService != null) {
+			this.pool.setMetrics(
+					metricsService.createHistogram("db_connection_wait_time",
+							"Time spent waiting for a pooled database connection"),
+					metricsService.createGauge("db_connections_active", "Number of borrowed database connections"),
+					metricsService.createCounter("db_connection_leaks",
+							"Number of database connections held longer than the leak detection threshold"));
+		}
+	}
+
+	private Number getNumber(Map<String, Object> properties, String key, Number defaultValue)
+			throws SpecmateException {
+		Object value = properties.get(key);
+		if (value == null) {
+			return defaultValue;
+		}
+		if (value instanceof Number) {
+			return (Number) value;
+		}
+		try {
+			return Long.parseLong(value.toString().trim());
+		} catch (NumberFormatException e) {
+			throw new SpecmateInternalException(ErrorCode.CONFIGURATION, "Invalid value for " + key + ": " + value, e);
+		}
+	}
+
+	/** Closes the connection pool and its idle connections */
+	protected void closePool() {
+		if (this.pool != null) {
+			this.pool.close();
+			this.pool = null;
 		}
 	}
 }
@@ -15,11 +15,11 @@ import com.specmate.dbprovider.api.migration.IObjectToSQLMapper;
 public interface IDBProvider {
 
 	/**
-	 * Opens an SQL connection. Clients must not close the connection.
-	 * Implementations must make sure that only one connection is created and
-	 * eventually closed.
+	 * Borrows a connection from the connection pool of the provider. The
+	 * connection is not shared with other clients and must be closed to return
+	 * it to the pool.
 	 */
-	public Connection getConnection() throws SpecmateException;
+	public Connection borrowConnection() throws SpecmateException;
 
 	/**
 	 * Register a client callback that can be called when the database
@@ -34,7 +34,8 @@ public interface IDBProvider {
 
 	/**
 	 * Creates a new, database specific, store object. CDO is responsible for
-	 * releasing the resource.
+	 * releasing the resource. The store opens its own connections, as CDO keeps
+	 * them open for its store accessors, which would exhaust the pool.
 	 */
 	public IStore createStore() throws SpecmateException;
 
@@ -45,17 +46,19 @@ public interface IDBProvider {
 
 	/**
 	 * Creates a new, database specific, attribute to SQL mapper that provides
-	 * convenience functions for database migrations.
+	 * convenience functions for database migrations. The mapper works on the
+	 * given connection, which is borrowed by the caller.
 	 */
-	public IAttributeToSQLMapper getAttributeToSQLMapper(String packageName, String sourceVersion, String targetVersion)
-			throws SpecmateException;
+	public IAttributeToSQLMapper getAttributeToSQLMapper(Connection connection, String packageName,
+			String sourceVersion, String targetVersion) throws SpecmateException;
 
 	/**
 	 * Creates a new, database specific, object to SQL mapper that provides
-	 * convenience functions for database migrations.
+	 * convenience functions for database migrations. The mapper works on the
+	 * given connection, which is borrowed by the caller.
 	 */
-	public IObjectToSQLMapper getObjectToSQLMapper(String packageName, String sourceVersion, String targetVersion)
-			throws SpecmateException;
+	public IObjectToSQLMapper getObjectToSQLMapper(Connection connection, String packageName, String sourceVersion,
+			String targetVersion) throws SpecmateException;
 
 	/**
 	 * Creates the db specific literal for TRUE
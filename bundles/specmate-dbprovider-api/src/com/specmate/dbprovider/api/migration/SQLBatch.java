@@ -0,0 +1,198 @@
+package com.specmate.dbprovider.api.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.specmate.common.exception.SpecmateException;
+import com.specmate.common.exception.SpecmateInternalException;
+import com.specmate.model.administration.ErrorCode;
+
+/**
+ * Groups the statements of a migration into JDBC batches that run in one
+ * explicit transaction.
+ *
+ * Statements without parameters are collected in a plain statement batch.
+ * Statements with parameters, such as the per-row rewrites of data, use one
+ * prepared statement per SQL string that is reused for all rows. A batch is
+ * sent to the database when the batch size is reached or when the next
+ * statement belongs to another batch, such that the statements run in the
+ * order in which they were added. The transaction is committed by
+ * {@link #commit()}, closing an uncommitted batch rolls it back.
+ *
+ * <pre>
+ * try (SQLBatch batch = new SQLBatch(connection, "Could not update folders.")) {
+ * 	for (Integer id : ids) {
+ * 		batch.add("UPDATE FOLDER SET LIBRARY = ? WHERE CDO_ID = ?", true, id);
+ * 	}
+ * 	batch.commit();
+ * }
+ * </pre>
+ *
+ * While {@link SQLUtil#startRecording()} is active, the statements are recorded
+ * instead of executed.
+ */
+public class SQLBatch implements AutoCloseable {
+
+	/** The default number of statements sent to the database at once */
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+
+	private final Connection connection;
+	private final int batchSize;
+	private final String failmsg;
+	private final List<String> recorded;
+
+	private boolean autoCommit;
+	private Statement statement;
+	private Map<String, PreparedStatement> preparedStatements = new LinkedHashMap<>();
+	private Statement current;
+	private int pending;
+	private boolean finished;
+
+	public SQLBatch(Connection connection, String failmsg) throws SpecmateException {
+		this(connection, DEFAULT_BATCH_SIZE, failmsg);
+	}
+
+	public SQLBatch(Connection connection, int batchSize, String failmsg) throws SpecmateException {
+		if (batchSize < 1) {
+			throw new SpecmateInternalException(ErrorCode.MIGRATION, "Invalid batch size " + batchSize + ".");
+		}
+		this.connection = connection;
+		this.batchSize = batchSize;
+		this.failmsg = failmsg;
+		this.recorded = SQLUtil.getRecordedStatements();
+		if (recorded == null) {
+			try {
+				this.autoCommit = connection.getAutoCommit();
+				connection.setAutoCommit(false);
+			} catch (SQLException e) {
+				throw new SpecmateInternalException(ErrorCode.PERSISTENCY, failmsg, e);
+			}
+		}
+	}
+
+	/** Adds a statement without parameters */
+	public SQLBatch add(String sql) throws SpecmateException {
+		if (recorded != null) {
+			recorded.add(sql);
+			return this;
+		}
+		try {
+			if (statement == null) {
+				statement = connection.createStatement();
+			}
+			switchTo(statement);
+			statement.addBatch(sql);
+		} catch (SQLException e) {
+			throw fail(e);
+		}
+		return added();
+	}
+
+	/**
+	 * Adds a statement with the given values for its parameters. Statements with
+	 * the same SQL string share one prepared statement.
+	 */
+	public SQLBatch add(String sql, Object... parameters) throws SpecmateException {
+		if (recorded != null) {
+			recorded.add(sql);
+			return this;
+		}
+		try {
+			PreparedStatement prepared = preparedStatements.get(sql);
+			if (prepared == null) {
+				prepared = connection.prepareStatement(sql);
+				preparedStatements.put(sql, prepared);
+			}
+			switchTo(prepared);
+			for (int i = 0; i < parameters.length; i++) {
+				prepared.setObject(i + 1, parameters[i]);
+			}
+			prepared.addBatch();
+		} catch (SQLException e) {
+			throw fail(e);
+		}
+		return added();
+	}
+
+	/** Sends the pending statements to the database */
+	public void flush() throws SpecmateException {
+		if (pending == 0) {
+			return;
+		}
+		try {
+			current.executeBatch();
+		} catch (SQLException e) {
+			throw fail(e);
+		}
+		pending = 0;
+	}
+
+	/** Sends the pending statements and commits the transaction */
+	public void commit() throws SpecmateException {
+		flush();
+		if (recorded == null) {
+			try {
+				connection.commit();
+			} catch (SQLException e) {
+				throw fail(e);
+			}
+		}
+		finished = true;
+	}
+
+	/**
+	 * Rolls the transaction back if it was not committed and restores the auto
+	 * commit mode of the connection
+	 */
+	@Override
+	public void close() throws SpecmateException {
+		if (recorded != null) {
+			return;
+		}
+		try {
+			if (!finished) {
+				connection.rollback();
+			}
+			if (statement != null) {
+				statement.close();
+			}
+			for (PreparedStatement prepared : preparedStatements.values()) {
+				prepared.close();
+			}
+			connection.setAutoCommit(autoCommit);
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.PERSISTENCY, failmsg, e);
+		}
+	}
+
+	/** Sends the pending statements of another batch first */
+	private void switchTo(Statement next) throws SpecmateException {
+		if (current != next) {
+			flush();
+			current = next;
+		}
+	}
+
+	private SQLBatch added() throws SpecmateException {
+		pending++;
+		if (pending >= batchSize) {
+			flush();
+		}
+		return this;
+	}
+
+	private SpecmateException fail(SQLException e) {
+		try {
+			connection.rollback();
+		} catch (SQLException f) {
+			e.setNextException(f);
+		}
+		finished = true;
+		return new SpecmateInternalException(ErrorCode.PERSISTENCY, failmsg, e);
+	}
+}
@@ -1,14 +1,31 @@
 package com.specmate.dbprovider.api.migration;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 
 import com.specmate.common.exception.SpecmateException;
+import com.specmate.common.exception.SpecmateInternalException;
+import com.specmate.model.administration.ErrorCode;
 
+/**
+ * Base of the mappers that translate the changes of a migration step to SQL.
+ *
+ * A failed migration is resumed with the step that failed, and DDL statements
+ * are committed one by one. Hence the mappers check the schema before
+ * changing it and skip the changes that are already in place. Data changes that
+ * cannot be repeated are run with {@link #executeOnce}.
+ */
 public abstract class SQLMapper {
 	protected static final String SPECMATE_URL = "http://specmate.com/";
+
+	/** Table with the keys of the data changes that have been run */
+	static final String ONCE_TABLE = "SPECMATE_MIGRATION_ONCE";
 	protected Connection connection;
 	protected String packageName;
 	protected String sourceVersion;
@@ -27,9 +44,7 @@ public abstract class SQLMapper {
 
 	protected String insertExternalAttributeReference(String objectName, String attributeName)
 			throws SpecmateException {
-
-		String attributeUri = getBaseURI(objectName) + "/" + attributeName;
-		return getInsertExternalReferenceQuery(attributeUri, getLatestId() - 1);
+		return getInsertExternalReferenceQuery(getAttributeURI(objectName, attributeName), getLatestId() - 1);
 	}
 
 	protected String renameExternalReference(String objectName, String oldAttributeName, String newAttributeName)
@@ -54,6 +69,107 @@ public abstract class SQLMapper {
 		return SPECMATE_URL + targetVersion + "/" + packageName + "#//" + objectName;
 	}
 
+	protected String getObjectURI(String objectName) {
+		return getBaseURI(objectName);
+	}
+
+	protected String getAttributeURI(String objectName, String attributeName) {
+		return getBaseURI(objectName) + "/" + attributeName;
+	}
+
+	/** Returns whether the table exists */
+	protected boolean hasTable(String table) throws SpecmateException {
+		try (ResultSet result = connection.getMetaData().getTables(null, null, toIdentifier(table), null)) {
+			return result.next();
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.MIGRATION, "Could not read table " + table + ".", e);
+		}
+	}
+
+	/** Returns whether the table has the column */
+	protected boolean hasColumn(String table, String column) throws SpecmateException {
+		try (ResultSet result = connection.getMetaData().getColumns(null, null, toIdentifier(table),
+				toIdentifier(column))) {
+			return result.next();
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.MIGRATION, "Could not read table " + table + ".", e);
+		}
+	}
+
+	/** Returns whether the table has a primary key */
+	protected boolean hasPrimaryKey(String table) throws SpecmateException {
+		try (ResultSet result = connection.getMetaData().getPrimaryKeys(null, null, toIdentifier(table))) {
+			return result.next();
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.MIGRATION, "Could not read table " + table + ".", e);
+		}
+	}
+
+	/** Returns whether the table has an index starting with the column */
+	protected boolean hasIndex(String table, String column, boolean unique) throws SpecmateException {
+		try (ResultSet result = connection.getMetaData().getIndexInfo(null, null, toIdentifier(table), unique,
+				true)) {
+			while (result.next()) {
+				if (result.getShort("ORDINAL_POSITION") == 1
+						&& toIdentifier(column).equals(result.getString("COLUMN_NAME"))) {
+					return true;
+				}
+			}
+			return false;
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.MIGRATION, "Could not read table " + table + ".", e);
+		}
+	}
+
+	/** Returns whether CDO knows the model element with the given URI */
+	protected boolean hasExternalReference(String uri) throws SpecmateException {
+		try (PreparedStatement select = connection
+				.prepareStatement("SELECT ID FROM CDO_EXTERNAL_REFS WHERE URI = ?")) {
+			select.setString(1, uri);
+			try (ResultSet result = select.executeQuery()) {
+				return result.next();
+			}
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.MIGRATION, "Could not read reference " + uri + ".", e);
+		}
+	}
+
+	/**
+	 * Runs a data change of this migration step that must not be repeated, such
+	 * as shifting values. The change and its key are committed together, a
+	 * change whose key has been committed before is skipped.
+	 */
+	protected void executeOnce(String key, String query, String failmsg) throws SpecmateException {
+		String stepKey = sourceVersion + "/" + targetVersion + "/" + key;
+		boolean exists = hasTable(ONCE_TABLE);
+		if (exists) {
+			try (PreparedStatement select = connection
+					.prepareStatement("SELECT ONCE_KEY FROM " + ONCE_TABLE + " WHERE ONCE_KEY = ?")) {
+				select.setString(1, stepKey);
+				try (ResultSet result = select.executeQuery()) {
+					if (result.next()) {
+						return;
+					}
+				}
+			} catch (SQLException e) {
+				throw new SpecmateInternalException(ErrorCode.MIGRATION, failmsg, e);
+			}
+		} else {
+			SQLUtil.executeStatement("CREATE TABLE " + ONCE_TABLE + " (ONCE_KEY VARCHAR(255) NOT NULL PRIMARY KEY)",
+					connection, failmsg);
+		}
+		try (SQLBatch batch = new SQLBatch(connection, failmsg)) {
+			batch.add(query);
+			batch.add("INSERT INTO " + ONCE_TABLE + " (ONCE_KEY) VALUES (?)", stepKey);
+			batch.commit();
+		}
+	}
+
+	/** Returns the name of an unquoted identifier as stored by the database */
+	private String toIdentifier(String name) {
+		return name.toUpperCase(Locale.ROOT);
+	}
+
 	protected boolean hasDefault(Object defaultValue) {
 		return defaultValue != null ? true : false;
 	}
@@ -61,13 +177,17 @@ public abstract class SQLMapper {
 	protected void executeChange(String alterString, String objectName, String attributeName, boolean setDefault) throws SpecmateException {
 		String failmsg = "Migration: Could not add column " + attributeName + " to table " + objectName + ".";
 		List<String> queries = new ArrayList<>();
-		queries.add(alterString);
+		if (!hasColumn(objectName, attributeName)) {
+			queries.add(alterString);
+		}
 	
 		if (setDefault) {
 			queries.add("UPDATE " + objectName + " SET " + attributeName + " = DEFAULT");
 		}
 	
-		queries.add(insertExternalAttributeReference(objectName, attributeName));
+		if (!hasExternalReference(getAttributeURI(objectName, attributeName))) {
+			queries.add(insertExternalAttributeReference(objectName, attributeName));
+		}
 		SQLUtil.executeStatements(queries, connection, failmsg);
 	}
 }
@@ -15,6 +15,32 @@ import com.specmate.model.administration.ErrorCode;
 public class SQLUtil {
 	private static int seqId = 0;
 
+	/** Changing statements recorded instead of executed, per thread */
+	private static final ThreadLocal<List<String>> recordedStatements = new ThreadLocal<>();
+
+	/**
+	 * Records the changing statements of the current thread instead of executing
+	 * them, until {@link #stopRecording()} is called. Queries are still executed.
+	 */
+	public static void startRecording() {
+		recordedStatements.set(new ArrayList<>());
+	}
+
+	/**
+	 * Returns the list the statements of the current thread are recorded to, or
+	 * <code>null</code> if they are executed
+	 */
+	static List<String> getRecordedStatements() {
+		return recordedStatements.get();
+	}
+
+	/** Stops recording and returns the recorded statements */
+	public static List<String> stopRecording() {
+		List<String> statements = recordedStatements.get();
+		recordedStatements.remove();
+		return statements != null ? statements : new ArrayList<>();
+	}
+
 	public static void executeStatement(String query, Connection connection, String failmsg) throws SpecmateException {
 		List<String> queries = new ArrayList<>();
 		queries.add(query);
@@ -23,30 +49,11 @@ public class SQLUtil {
 
 	public static void executeStatements(List<String> queries, Connection connection, String failmsg)
 			throws SpecmateException {
-		List<PreparedStatement> statements = new ArrayList<>();
-
-		try {
-			connection.setAutoCommit(false);
+		try (SQLBatch batch = new SQLBatch(connection, failmsg)) {
 			for (String query : queries) {
-				statements.add(executeStatement(query, connection));
-			}
-			connection.commit();
-		} catch (SQLException e) {
-			try {
-				connection.rollback();
-			} catch (SQLException f) {
-				e.setNextException(f);
-				throw new SpecmateInternalException(ErrorCode.PERSISTENCY, failmsg, e);
-			}
-
-			throw new SpecmateInternalException(ErrorCode.PERSISTENCY, failmsg, e);
-		} finally {
-			try {
-				closePreparedStatements(statements);
-				connection.setAutoCommit(true);
-			} catch (SQLException e) {
-				throw new SpecmateInternalException(ErrorCode.PERSISTENCY, failmsg, e);
+				batch.add(query);
 			}
+			batch.commit();
 		}
 	}
 
@@ -0,0 +1,125 @@
+package com.specmate.dbprovider.api.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.specmate.common.exception.SpecmateException;
+import com.specmate.dbprovider.api.ConnectionPool;
+
+public class ConnectionPoolTest {
+
+	private static final String URL = "jdbc:h2:mem:pool";
+
+	/** Keeps the in-memory database alive */
+	private Connection keepAlive;
+
+	private List<Connection> opened = new ArrayList<>();
+
+	private ConnectionPool pool;
+
+	@Before
+	public void setUp() throws SQLException {
+		keepAlive = DriverManager.getConnection(URL, "", "");
+		try (Statement statement = keepAlive.createStatement()) {
+			statement.execute("CREATE TABLE ITEM (ID INT)");
+		}
+		pool = new ConnectionPool(() -> {
+			Connection connection = DriverManager.getConnection(URL, "", "");
+			opened.add(connection);
+			return connection;
+		}, 2, "SELECT 1", 200, 0, null);
+	}
+
+	@After
+	public void tearDown() throws SQLException {
+		pool.close();
+		keepAlive.close();
+	}
+
+	@Test
+	public void testConnectionsAreReused() throws Exception {
+		Connection first = pool.borrow();
+		assertEquals(1, pool.getActiveCount());
+		first.close();
+		try (Connection connection = pool.borrow()) {
+			assertFalse(connection.isClosed());
+		}
+		assertEquals(1, opened.size());
+		assertEquals(0, pool.getActiveCount());
+		assertEquals(1, pool.getIdleCount());
+	}
+
+	@Test
+	public void testConcurrentClientsGetSeparateConnections() throws Exception {
+		try (Connection first = pool.borrow(); Connection second = pool.borrow()) {
+			assertNotSame(first, second);
+			assertEquals(2, opened.size());
+			try {
+				pool.borrow();
+				fail("Pool should be exhausted");
+			} catch (SpecmateException e) {
+				// expected
+			}
+		}
+		assertEquals(2, pool.getIdleCount());
+	}
+
+	@Test
+	public void testClosedConnectionCannotBeUsed() throws Exception {
+		Connection connection = pool.borrow();
+		connection.close();
+		assertTrue(connection.isClosed());
+		try {
+			connection.createStatement();
+			fail("Returned connection should not be usable");
+		} catch (SQLException e) {
+			// expected
+		}
+		// Closing twice must not return the connection twice
+		connection.close();
+		assertEquals(1, pool.getIdleCount());
+	}
+
+	@Test
+	public void testUncommittedChangesAreRolledBack() throws Exception {
+		try (Connection connection = pool.borrow()) {
+			connection.setAutoCommit(false);
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("INSERT INTO ITEM VALUES (1)");
+			}
+		}
+		try (Connection connection = pool.borrow()) {
+			assertTrue(connection.getAutoCommit());
+			try (Statement statement = connection.createStatement();
+					ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM ITEM")) {
+				result.next();
+				assertEquals(0, result.getInt(1));
+			}
+		}
+	}
+
+	@Test
+	public void testInvalidConnectionsAreReplaced() throws Exception {
+		pool.borrow().close();
+		opened.get(0).close();
+		try (Connection connection = pool.borrow()) {
+			assertFalse(connection.isClosed());
+		}
+		assertEquals(2, opened.size());
+	}
+}
@@ -0,0 +1,150 @@
+package com.specmate.dbprovider.api.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.specmate.common.exception.SpecmateException;
+import com.specmate.dbprovider.api.migration.SQLBatch;
+import com.specmate.dbprovider.api.migration.SQLUtil;
+
+public class SQLBatchTest {
+
+	private static final String INSERT = "INSERT INTO FOLDER (CDO_ID, NAME, LIBRARY) VALUES (?, ?, FALSE)";
+
+	private Connection connection;
+
+	@Before
+	public void setUp() throws SQLException {
+		connection = DriverManager.getConnection("jdbc:h2:mem:batch", "", "");
+		execute("CREATE TABLE FOLDER (CDO_ID BIGINT PRIMARY KEY, NAME VARCHAR(255), LIBRARY BOOLEAN)");
+	}
+
+	@After
+	public void tearDown() throws SQLException {
+		connection.close();
+	}
+
+	@Test
+	public void testRunsStatementsInOrder() throws Exception {
+		try (SQLBatch batch = new SQLBatch(connection, 2, "Could not migrate.")) {
+			batch.add("ALTER TABLE FOLDER ADD COLUMN SOURCE VARCHAR(255)");
+			for (int i = 0; i < 5; i++) {
+				batch.add("INSERT INTO FOLDER (CDO_ID, NAME, LIBRARY) VALUES (?, ?, ?)", i, "Folder " + i, false);
+			}
+			batch.add("UPDATE FOLDER SET SOURCE = 'jira'");
+			batch.add("UPDATE FOLDER SET LIBRARY = ? WHERE CDO_ID = ?", true, 3);
+			batch.commit();
+		}
+		assertTrue(connection.getAutoCommit());
+		assertEquals(5, count("SELECT COUNT(*) FROM FOLDER WHERE SOURCE = 'jira'"));
+		assertEquals(1, count("SELECT COUNT(*) FROM FOLDER WHERE LIBRARY"));
+	}
+
+	@Test
+	public void testRollsBackOnFailure() throws Exception {
+		try (SQLBatch batch = new SQLBatch(connection, "Could not migrate.")) {
+			batch.add("INSERT INTO FOLDER (CDO_ID, NAME) VALUES (?, ?)", 1, "Folder");
+			batch.add("INSERT INTO FOLDER (CDO_ID, NAME) VALUES (?, ?)", 1, "Duplicate");
+			batch.commit();
+			fail();
+		} catch (SpecmateException e) {
+			// expected
+		}
+		try (SQLBatch batch = new SQLBatch(connection, "Could not migrate.")) {
+			batch.add("INSERT INTO FOLDER (CDO_ID, NAME) VALUES (?, ?)", 2, "Uncommitted");
+			batch.flush();
+		}
+		assertTrue(connection.getAutoCommit());
+		assertEquals(0, count("SELECT COUNT(*) FROM FOLDER"));
+	}
+
+	@Test
+	public void testRecordsInsteadOfExecuting() throws Exception {
+		SQLUtil.startRecording();
+		try (SQLBatch batch = new SQLBatch(connection, "Could not migrate.")) {
+			batch.add("INSERT INTO FOLDER (CDO_ID, NAME) VALUES (?, ?)", 1, "Folder");
+			batch.add("DELETE FROM FOLDER");
+			batch.commit();
+		}
+		SQLUtil.executeStatement("DROP TABLE FOLDER", connection, "Could not drop.");
+		List<String> statements = SQLUtil.stopRecording();
+		assertEquals(3, statements.size());
+		assertEquals(0, count("SELECT COUNT(*) FROM FOLDER"));
+	}
+
+	@Test
+	public void testFlushesAtBatchSize() throws Exception {
+		try (SQLBatch batch = new SQLBatch(connection, 3, "Could not insert.")) {
+			for (int i = 0; i < 7; i++) {
+				batch.add(INSERT, i, "Folder " + i);
+				// Flushed rows are visible within the transaction
+				assertEquals((i + 1) / 3 * 3, count("SELECT COUNT(*) FROM FOLDER"));
+			}
+			batch.flush();
+			assertEquals(7, count("SELECT COUNT(*) FROM FOLDER"));
+			batch.commit();
+		}
+	}
+
+	@Test
+	public void testFlushesWhenStatementChanges() throws Exception {
+		try (SQLBatch batch = new SQLBatch(connection, 100, "Could not migrate.")) {
+			batch.add(INSERT, 1, "Folder 1");
+			batch.add(INSERT, 2, "Folder 2");
+			assertEquals(0, count("SELECT COUNT(*) FROM FOLDER"));
+
+			batch.add("UPDATE FOLDER SET LIBRARY = TRUE");
+			assertEquals(2, count("SELECT COUNT(*) FROM FOLDER"));
+			assertEquals(0, count("SELECT COUNT(*) FROM FOLDER WHERE LIBRARY"));
+
+			batch.add(INSERT, 3, "Folder 3");
+			assertEquals(2, count("SELECT COUNT(*) FROM FOLDER WHERE LIBRARY"));
+			assertEquals(2, count("SELECT COUNT(*) FROM FOLDER"));
+			batch.commit();
+		}
+		assertEquals(3, count("SELECT COUNT(*) FROM FOLDER"));
+	}
+
+	@Test
+	public void testDefaultBatchSize() throws Exception {
+		try (SQLBatch batch = new SQLBatch(connection, "Could not insert.")) {
+			for (int i = 1; i < SQLBatch.DEFAULT_BATCH_SIZE; i++) {
+				batch.add(INSERT, i, "Folder " + i);
+			}
+			assertEquals(0, count("SELECT COUNT(*) FROM FOLDER"));
+			batch.add(INSERT, 0, "Folder 0");
+			assertEquals(SQLBatch.DEFAULT_BATCH_SIZE, count("SELECT COUNT(*) FROM FOLDER"));
+			batch.commit();
+		}
+	}
+
+	@Test(expected = SpecmateException.class)
+	public void testRejectsInvalidBatchSize() throws Exception {
+		new SQLBatch(connection, 0, "Could not insert.");
+	}
+
+	private int count(String query) throws SQLException {
+		try (Statement statement = connection.createStatement(); ResultSet result = statement.executeQuery(query)) {
+			result.next();
+			return result.getInt(1);
+		}
+	}
+
+	private void execute(String sql) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute(sql);
+		}
+	}
+}
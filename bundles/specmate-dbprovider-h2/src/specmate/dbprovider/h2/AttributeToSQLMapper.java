@@ -112,17 +112,26 @@ public class AttributeToSQLMapper extends SQLMapper implements IAttributeToSQLMa
 		String failmsg = "Migration: Could not add column " + attributeName + " to table " + objectName + ".";
 		String tableNameList = objectName + "_" + attributeName + "_LIST";
 		List<String> queries = new ArrayList<>();
-		queries.add("ALTER TABLE " + objectName + " ADD COLUMN " + attributeName + " INTEGER");
+		if (!hasColumn(objectName, attributeName)) {
+			queries.add("ALTER TABLE " + objectName + " ADD COLUMN " + attributeName + " INTEGER");
+		}
 
-		queries.add("CREATE TABLE " + tableNameList + " (" + "CDO_SOURCE BIGINT NOT NULL, "
-				+ "CDO_VERSION INTEGER NOT NULL, " + "CDO_IDX INTEGER NOT NULL, " + "CDO_VALUE " + type + ")");
+		if (!hasTable(tableNameList)) {
+			queries.add("CREATE TABLE " + tableNameList + " (" + "CDO_SOURCE BIGINT NOT NULL, "
+					+ "CDO_VERSION INTEGER NOT NULL, " + "CDO_IDX INTEGER NOT NULL, " + "CDO_VALUE " + type + ")");
+		}
 
-		queries.add("CREATE UNIQUE INDEX " + SQLUtil.createTimebasedIdentifier("PK", H2ProviderConfig.MAX_ID_LENGTH)
-				+ " ON " + tableNameList + " (CDO_SOURCE ASC, CDO_VERSION ASC, CDO_IDX ASC)");
+		if (!hasIndex(tableNameList, "CDO_SOURCE", true)) {
+			queries.add("CREATE UNIQUE INDEX "
+					+ SQLUtil.createTimebasedIdentifier("PK", H2ProviderConfig.MAX_ID_LENGTH) + " ON " + tableNameList
+					+ " (CDO_SOURCE ASC, CDO_VERSION ASC, CDO_IDX ASC)");
+		}
 
-		queries.add("ALTER TABLE " + tableNameList + " ADD CONSTRAINT "
-				+ SQLUtil.createTimebasedIdentifier("C", H2ProviderConfig.MAX_ID_LENGTH)
-				+ " PRIMARY KEY (CDO_SOURCE, CDO_VERSION, CDO_IDX)");
+		if (!hasPrimaryKey(tableNameList)) {
+			queries.add("ALTER TABLE " + tableNameList + " ADD CONSTRAINT "
+					+ SQLUtil.createTimebasedIdentifier("C", H2ProviderConfig.MAX_ID_LENGTH)
+					+ " PRIMARY KEY (CDO_SOURCE, CDO_VERSION, CDO_IDX)");
+		}
 
 		SQLUtil.executeStatements(queries, connection, failmsg);
 	}
@@ -132,8 +141,10 @@ public class AttributeToSQLMapper extends SQLMapper implements IAttributeToSQLMa
 			throws SpecmateException {
 		String failmsg = "Migration: Could not rename column " + oldAttributeName + " in table " + objectName + ".";
 		List<String> queries = new ArrayList<>();
-		queries.add(
-				"ALTER TABLE " + objectName + " ALTER COLUMN " + oldAttributeName + " RENAME TO " + newAttributeName);
+		if (hasColumn(objectName, oldAttributeName)) {
+			queries.add("ALTER TABLE " + objectName + " ALTER COLUMN " + oldAttributeName + " RENAME TO "
+					+ newAttributeName);
+		}
 		queries.add(renameExternalReference(objectName, oldAttributeName, newAttributeName));
 		SQLUtil.executeStatements(queries, connection, failmsg);
 	}
@@ -188,6 +199,6 @@ public class AttributeToSQLMapper extends SQLMapper implements IAttributeToSQLMa
 	public void adaptContainingFeatureIndex(String objectName, int i) throws SpecmateException {
 		String failmsg = "Migration: The containg feature index in object " + objectName + " could not be migrated.";
 		String query = "Update " + objectName + " set CDO_FEATURE=CDO_FEATURE-" + i + " WHERE CDO_FEATURE<0";
-		SQLUtil.executeStatement(query, connection, failmsg);
+		executeOnce("containingFeature/" + objectName, query, failmsg);
 	}
 }
\ No newline at end of file
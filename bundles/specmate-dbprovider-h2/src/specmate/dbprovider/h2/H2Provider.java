@@ -4,7 +4,6 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Map;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.eclipse.emf.cdo.server.IStore;
@@ -21,6 +20,8 @@ import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.log.LogService;
 
 import com.specmate.common.exception.SpecmateException;
 import com.specmate.common.exception.SpecmateInternalException;
@@ -29,6 +30,7 @@ import com.specmate.dbprovider.api.DBProviderBase;
 import com.specmate.dbprovider.api.IDBProvider;
 import com.specmate.dbprovider.api.migration.IAttributeToSQLMapper;
 import com.specmate.dbprovider.api.migration.IObjectToSQLMapper;
+import com.specmate.metrics.IMetricsService;
 import com.specmate.model.administration.ErrorCode;
 
 import specmate.dbprovider.h2.config.H2ProviderConfig;
@@ -37,12 +39,10 @@ import specmate.dbprovider.h2.config.H2ProviderConfig;
 		"service.ranking:Integer=2" })
 public class H2Provider extends DBProviderBase {
 
-	private boolean isVirginDB;
 	private Pattern databaseNotFoundPattern = Pattern.compile(".*Database \\\".*\\\" not found.*", Pattern.DOTALL);
 
 	@Activate
 	public void activate(Map<String, Object> properties) throws SpecmateException {
-		this.isVirginDB = false;
 		readConfig(properties);
 
 		try {
@@ -50,13 +50,14 @@ public class H2Provider extends DBProviderBase {
 		} catch (SQLException e) {
 			throw new SpecmateInternalException(ErrorCode.PERSISTENCY, "Could not register H2 JDBC driver.", e);
 		}
+		createPool(properties);
 	}
 
 	@Modified
 	public void modified(Map<String, Object> properties) throws SpecmateException {
-		closeConnection();
-		this.isVirginDB = false;
+		closePool();
 		readConfig(properties);
+		createPool(properties);
 		for (DBConfigChangedCallback cb : this.cbRegister) {
 			cb.configurationChanged();
 		}
@@ -64,7 +65,7 @@ public class H2Provider extends DBProviderBase {
 
 	@Deactivate
 	public void deactivate() throws SpecmateException {
-		closeConnection();
+		closePool();
 	}
 
 	private void readConfig(Map<String, Object> properties) throws SpecmateException {
@@ -75,40 +76,34 @@ public class H2Provider extends DBProviderBase {
 		}
 	}
 
-	@Override
-	public Connection getConnection() throws SpecmateException {
-		if (this.connection == null) {
-			try {
-				initiateDBConnection();
-				// In development, when specmate or the tests are run for the
-				// first time, no database exists (neither on the
-				// file system, nor in memory). There is no sane way to check if
-				// a database exists, except by connecting
-				// to it. In case it does not exist, an SQL exception is thrown.
-				// While in all other possible error cases
-				// we want the client to handle the error, in the situation that
-				// the database does not exist, we want
-				// specmate to continue, without performing a migration, because
-				// the next step CDO performs is to create the database.
-			} catch (SpecmateException e) {
-				Matcher matcher = this.databaseNotFoundPattern.matcher(e.getCause().getMessage());
-				if (matcher.matches()) {
-					this.isVirginDB = true;
-				} else {
-					throw e;
-				}
-			}
-		}
-
-		return this.connection;
+	private void createPool(Map<String, Object> properties) throws SpecmateException {
+		String url = this.jdbcConnection + ";IFEXISTS=TRUE";
+		createPool(properties, () -> DriverManager.getConnection(url, "", ""), "SELECT 1");
 	}
 
 	@Override
 	public boolean isVirginDB() throws SpecmateException {
-		if (this.connection == null) {
-			getConnection();
+		// In development, when specmate or the tests are run for the first
+		// time, no database exists (neither on the file system, nor in memory).
+		// There is no sane way to check if a database exists, except by
+		// connecting to it. In case it does not exist, an SQL exception is
+		// thrown. While in all other possible error cases we want the client to
+		// handle the error, in the situation that the database does not exist,
+		// we want specmate to continue, without performing a migration, because
+		// the next step CDO performs is to create the database.
+		try {
+			borrowConnection().close();
+			return false;
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.PERSISTENCY, "Could not close connection.", e);
+		} catch (SpecmateException e) {
+			Throwable cause = e.getCause();
+			if (cause != null && cause.getMessage() != null
+					&& this.databaseNotFoundPattern.matcher(cause.getMessage()).matches()) {
+				return true;
+			}
+			throw e;
 		}
-		return this.isVirginDB;
 	}
 
 	@Override
@@ -122,29 +117,29 @@ public class H2Provider extends DBProviderBase {
 	}
 
 	@Override
-	public IAttributeToSQLMapper getAttributeToSQLMapper(String packageName, String sourceVersion, String targetVersion)
-			throws SpecmateException {
-		return new AttributeToSQLMapper(getConnection(), packageName, sourceVersion, targetVersion);
+	public IAttributeToSQLMapper getAttributeToSQLMapper(Connection connection, String packageName,
+			String sourceVersion, String targetVersion) throws SpecmateException {
+		return new AttributeToSQLMapper(connection, packageName, sourceVersion, targetVersion);
 	}
 
 	@Override
-	public IObjectToSQLMapper getObjectToSQLMapper(String packageName, String sourceVersion, String targetVersion)
-			throws SpecmateException {
-		return new ObjectToSQLMapper(getConnection(), packageName, sourceVersion, targetVersion);
-	}
-
-	private void initiateDBConnection() throws SpecmateException {
-		try {
-			this.connection = DriverManager.getConnection(this.jdbcConnection + ";IFEXISTS=TRUE", "", "");
-			this.isVirginDB = false;
-		} catch (SQLException e) {
-			throw new SpecmateInternalException(ErrorCode.PERSISTENCY,
-					"Could not connect to the H2 database using the connection: " + this.jdbcConnection + ".", e);
-		}
+	public IObjectToSQLMapper getObjectToSQLMapper(Connection connection, String packageName, String sourceVersion,
+			String targetVersion) throws SpecmateException {
+		return new ObjectToSQLMapper(connection, packageName, sourceVersion, targetVersion);
 	}
 
 	@Override
 	public String getTrueLiteral() {
 		return "true";
 	}
+
+	@Reference
+	public void setMetricsService(IMetricsService metricsService) {
+		this.metricsService = metricsService;
+	}
+
+	@Reference
+	public void setLogService(LogService logService) {
+		this.logService = logService;
+	}
 }
@@ -22,21 +22,32 @@ public class ObjectToSQLMapper extends SQLMapper implements IObjectToSQLMapper {
 		String failmsg = "Migration: Could not add table " + tableName + ".";
 		List<String> queries = new ArrayList<>();
 
-		queries.add("CREATE TABLE " + tableName + "(" + "CDO_ID BIGINT NOT NULL, " + "CDO_VERSION INTEGER NOT NULL, "
-				+ "CDO_CREATED BIGINT NOT NULL, " + "CDO_REVISED BIGINT NOT NULL, " + "CDO_RESOURCE BIGINT NOT NULL, "
-				+ "CDO_CONTAINER BIGINT NOT NULL, " + "CDO_FEATURE INTEGER NOT NULL)");
-
-		queries.add("CREATE UNIQUE INDEX " + SQLUtil.createTimebasedIdentifier("PK", H2ProviderConfig.MAX_ID_LENGTH)
-				+ " ON " + tableName + " (CDO_ID ASC, CDO_VERSION ASC)");
-
-		queries.add("CREATE INDEX " + SQLUtil.createTimebasedIdentifier("I", H2ProviderConfig.MAX_ID_LENGTH) + " ON "
-				+ tableName + " (CDO_REVISED ASC)");
-
-		queries.add("ALTER TABLE " + tableName + " ADD CONSTRAINT "
-				+ SQLUtil.createTimebasedIdentifier("C", H2ProviderConfig.MAX_ID_LENGTH)
-				+ " PRIMARY KEY (CDO_ID, CDO_VERSION)");
-
-		queries.add(insertExternalObjectReference(tableName));
+		if (!hasTable(tableName)) {
+			queries.add("CREATE TABLE " + tableName + "(" + "CDO_ID BIGINT NOT NULL, "
+					+ "CDO_VERSION INTEGER NOT NULL, " + "CDO_CREATED BIGINT NOT NULL, "
+					+ "CDO_REVISED BIGINT NOT NULL, " + "CDO_RESOURCE BIGINT NOT NULL, "
+					+ "CDO_CONTAINER BIGINT NOT NULL, " + "CDO_FEATURE INTEGER NOT NULL)");
+		}
+
+		if (!hasIndex(tableName, "CDO_ID", true)) {
+			queries.add("CREATE UNIQUE INDEX " + SQLUtil.createTimebasedIdentifier("PK",
+					H2ProviderConfig.MAX_ID_LENGTH) + " ON " + tableName + " (CDO_ID ASC, CDO_VERSION ASC)");
+		}
+
+		if (!hasIndex(tableName, "CDO_REVISED", false)) {
+			queries.add("CREATE INDEX " + SQLUtil.createTimebasedIdentifier("I", H2ProviderConfig.MAX_ID_LENGTH)
+					+ " ON " + tableName + " (CDO_REVISED ASC)");
+		}
+
+		if (!hasPrimaryKey(tableName)) {
+			queries.add("ALTER TABLE " + tableName + " ADD CONSTRAINT "
+					+ SQLUtil.createTimebasedIdentifier("C", H2ProviderConfig.MAX_ID_LENGTH)
+					+ " PRIMARY KEY (CDO_ID, CDO_VERSION)");
+		}
+
+		if (!hasExternalReference(getObjectURI(tableName))) {
+			queries.add(insertExternalObjectReference(tableName));
+		}
 		SQLUtil.executeStatements(queries, connection, failmsg);
 	}
 }
@@ -12,6 +12,7 @@ import org.osgi.service.log.LogService;
 import com.specmate.common.OSGiUtil;
 import com.specmate.common.exception.SpecmateException;
 import com.specmate.config.api.IConfigService;
+import com.specmate.dbprovider.api.DBProviderBase;
 
 @Component
 public class H2ProviderConfig {
@@ -33,6 +34,13 @@ public class H2ProviderConfig {
 			properties.put(KEY_JDBC_CONNECTION, specmateJDBCConnection);
 		}
 
+		for (String key : DBProviderBase.POOL_KEYS) {
+			String value = configService.getConfigurationProperty(key);
+			if (value != null) {
+				properties.put(key, value);
+			}
+		}
+
 		logService.log(LogService.LOG_DEBUG, "Configuring CDO with:\n" + OSGiUtil.configDictionaryToString(properties));
 
 		OSGiUtil.configureService(configurationAdmin, PID, properties);
@@ -0,0 +1,122 @@
+package specmate.dbprovider.h2.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.specmate.common.exception.SpecmateException;
+
+import specmate.dbprovider.h2.AttributeToSQLMapper;
+import specmate.dbprovider.h2.ObjectToSQLMapper;
+
+/**
+ * Tests that a migration step that failed half-way can be run again, as the
+ * migrator does when it resumes a failed migration.
+ */
+public class MigrationResumeTest {
+
+	private static final String PACKAGE = "base";
+
+	private Connection connection;
+
+	private AttributeToSQLMapper attributeMapper;
+
+	private ObjectToSQLMapper objectMapper;
+
+	@Before
+	public void setUp() throws SQLException {
+		connection = DriverManager.getConnection("jdbc:h2:mem:resume", "", "");
+		execute("CREATE TABLE CDO_EXTERNAL_REFS (ID BIGINT NOT NULL, URI VARCHAR(255) NOT NULL, COMMITTIME BIGINT)");
+		execute("INSERT INTO CDO_EXTERNAL_REFS VALUES (-1, 'http://specmate.com/20200101/base#//Folder', 0)");
+		execute("CREATE TABLE FOLDER (CDO_ID BIGINT NOT NULL, CDO_FEATURE INTEGER NOT NULL)");
+		execute("INSERT INTO FOLDER VALUES (1, -1)");
+		execute("INSERT INTO FOLDER VALUES (2, 5)");
+		attributeMapper = new AttributeToSQLMapper(connection, PACKAGE, "20200101", "20200102");
+		objectMapper = new ObjectToSQLMapper(connection, PACKAGE, "20200101", "20200102");
+	}
+
+	@After
+	public void tearDown() throws SQLException {
+		execute("DROP ALL OBJECTS");
+		connection.close();
+	}
+
+	@Test
+	public void testResumeAfterFailedStep() throws Exception {
+		try {
+			runStep();
+			fail("The step should fail on the missing table");
+		} catch (SpecmateException e) {
+			// The changes before the failure are in place
+		}
+		assertTrue(hasColumn("FOLDER", "HIDDEN"));
+
+		// The operator fixes the cause, the migrator runs the step again
+		execute("CREATE TABLE MISSING (CDO_ID BIGINT NOT NULL)");
+		runStep();
+
+		assertTrue(hasColumn("FOLDER", "HIDDEN"));
+		assertTrue(hasColumn("FOLDER", "LINKS"));
+		assertTrue(hasColumn("MISSING", "FLAG"));
+		assertEquals(1, count("SELECT COUNT(*) FROM CDO_EXTERNAL_REFS WHERE URI LIKE '%//Folder/hidden'"));
+		assertEquals(1, count("SELECT COUNT(*) FROM CDO_EXTERNAL_REFS WHERE URI LIKE '%//Page'"));
+		assertEquals(1, count("SELECT COUNT(*) FROM INFORMATION_SCHEMA.CONSTRAINTS "
+				+ "WHERE TABLE_NAME = 'FOLDER_LINKS_LIST' AND CONSTRAINT_TYPE = 'PRIMARY KEY'"));
+		assertEquals(1, count("SELECT COUNT(*) FROM INFORMATION_SCHEMA.CONSTRAINTS "
+				+ "WHERE TABLE_NAME = 'PAGE' AND CONSTRAINT_TYPE = 'PRIMARY KEY'"));
+
+		// The containing feature is shifted once, the other features are kept
+		assertEquals(-3, count("SELECT CDO_FEATURE FROM FOLDER WHERE CDO_ID = 1"));
+		assertEquals(5, count("SELECT CDO_FEATURE FROM FOLDER WHERE CDO_ID = 2"));
+	}
+
+	@Test
+	public void testRepeatedStepChangesNothing() throws Exception {
+		execute("CREATE TABLE MISSING (CDO_ID BIGINT NOT NULL)");
+		runStep();
+		int references = count("SELECT COUNT(*) FROM CDO_EXTERNAL_REFS");
+
+		runStep();
+
+		assertEquals(references, count("SELECT COUNT(*) FROM CDO_EXTERNAL_REFS"));
+		assertEquals(-3, count("SELECT CDO_FEATURE FROM FOLDER WHERE CDO_ID = 1"));
+	}
+
+	private void runStep() throws SpecmateException {
+		attributeMapper.migrateNewBooleanAttribute("Folder", "hidden", false);
+		attributeMapper.adaptContainingFeatureIndex("Folder", 2);
+		attributeMapper.migrateNewObjectReference("Folder", "links");
+		objectMapper.newObject("Page");
+		attributeMapper.migrateNewBooleanAttribute("Missing", "flag", null);
+	}
+
+	private boolean hasColumn(String table, String column) throws SQLException {
+		try (ResultSet result = connection.getMetaData().getColumns(null, null, table, column)) {
+			return result.next();
+		}
+	}
+
+	private int count(String query) throws SQLException {
+		try (Statement statement = connection.createStatement();
+				ResultSet result = statement.executeQuery(query)) {
+			result.next();
+			return result.getInt(1);
+		}
+	}
+
+	private void execute(String sql) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute(sql);
+		}
+	}
+}
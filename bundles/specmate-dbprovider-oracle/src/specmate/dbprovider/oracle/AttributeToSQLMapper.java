@@ -123,15 +123,26 @@ public class AttributeToSQLMapper extends SQLMapper implements IAttributeToSQLMa
 		String tableNameList = getListTableName(objectName, attributeName);
 		List<String> queries = new ArrayList<>();
 
-		queries.add("ALTER TABLE " + objectName + " ADD " + attributeName + " NUMBER");
-		queries.add("CREATE TABLE " + tableNameList + " (" + "CDO_SOURCE NUMBER NOT NULL, "
-				+ "CDO_VERSION NUMBER NOT NULL, " + "CDO_IDX NUMBER NOT NULL, " + "CDO_VALUE " + type + ")");
-		queries.add("CREATE UNIQUE INDEX " + SQLUtil.createTimebasedIdentifier("PK", OracleProviderConfig.MAX_ID_LENGTH)
-				+ " ON " + tableNameList + " (CDO_SOURCE ASC, CDO_VERSION ASC, CDO_IDX ASC)");
-		queries.add("ALTER TABLE " + tableNameList + " ADD CONSTRAINT "
-				+ SQLUtil.createTimebasedIdentifier("C", OracleProviderConfig.MAX_ID_LENGTH)
-				+ " PRIMARY KEY (CDO_SOURCE, CDO_VERSION, CDO_IDX)");
-		queries.add(insertExternalAttributeReference(objectName, attributeName));
+		if (!hasColumn(objectName, attributeName)) {
+			queries.add("ALTER TABLE " + objectName + " ADD " + attributeName + " NUMBER");
+		}
+		if (!hasTable(tableNameList)) {
+			queries.add("CREATE TABLE " + tableNameList + " (" + "CDO_SOURCE NUMBER NOT NULL, "
+					+ "CDO_VERSION NUMBER NOT NULL, " + "CDO_IDX NUMBER NOT NULL, " + "CDO_VALUE " + type + ")");
+		}
+		if (!hasIndex(tableNameList, "CDO_SOURCE", true)) {
+			queries.add("CREATE UNIQUE INDEX "
+					+ SQLUtil.createTimebasedIdentifier("PK", OracleProviderConfig.MAX_ID_LENGTH) + " ON "
+					+ tableNameList + " (CDO_SOURCE ASC, CDO_VERSION ASC, CDO_IDX ASC)");
+		}
+		if (!hasPrimaryKey(tableNameList)) {
+			queries.add("ALTER TABLE " + tableNameList + " ADD CONSTRAINT "
+					+ SQLUtil.createTimebasedIdentifier("C", OracleProviderConfig.MAX_ID_LENGTH)
+					+ " PRIMARY KEY (CDO_SOURCE, CDO_VERSION, CDO_IDX)");
+		}
+		if (!hasExternalReference(getAttributeURI(objectName, attributeName))) {
+			queries.add(insertExternalAttributeReference(objectName, attributeName));
+		}
 		SQLUtil.executeStatements(queries, connection, failmsg);
 	}
 
@@ -158,7 +169,10 @@ public class AttributeToSQLMapper extends SQLMapper implements IAttributeToSQLMa
 
 		String failmsg = "Migration: Could not rename column " + oldAttributeName + " in table " + objectName + ".";
 		List<String> queries = new ArrayList<>();
-		queries.add("ALTER TABLE " + objectName + " RENAME COLUMN " + oldAttributeName + " TO " + newAttributeName);
+		if (hasColumn(objectName, oldAttributeName)) {
+			queries.add(
+					"ALTER TABLE " + objectName + " RENAME COLUMN " + oldAttributeName + " TO " + newAttributeName);
+		}
 		queries.add(renameExternalReference(objectName, oldAttributeName, newAttributeName));
 		SQLUtil.executeStatements(queries, connection, failmsg);
 	}
@@ -173,6 +187,6 @@ public class AttributeToSQLMapper extends SQLMapper implements IAttributeToSQLMa
 	public void adaptContainingFeatureIndex(String objectName, int i) throws SpecmateException {
 		String failmsg = "Migration: The containg feature index in object " + objectName + " could not be migrated.";
 		String query = "Update " + objectName + " set CDO_FEATURE=CDO_FEATURE-" + i + " WHERE CDO_FEATURE<0";
-		SQLUtil.executeStatement(query, connection, failmsg);
+		executeOnce("containingFeature/" + objectName, query, failmsg);
 	}
 }
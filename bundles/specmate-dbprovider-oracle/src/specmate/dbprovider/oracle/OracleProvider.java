@@ -19,6 +19,8 @@ import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.log.LogService;
 
 import com.specmate.common.exception.SpecmateException;
 import com.specmate.common.exception.SpecmateInternalException;
@@ -27,6 +29,7 @@ import com.specmate.dbprovider.api.DBProviderBase;
 import com.specmate.dbprovider.api.IDBProvider;
 import com.specmate.dbprovider.api.migration.IAttributeToSQLMapper;
 import com.specmate.dbprovider.api.migration.IObjectToSQLMapper;
+import com.specmate.metrics.IMetricsService;
 import com.specmate.model.administration.ErrorCode;
 
 import oracle.jdbc.pool.OracleDataSource;
@@ -42,12 +45,14 @@ public class OracleProvider extends DBProviderBase {
 	@Activate
 	public void activate(Map<String, Object> properties) throws SpecmateException {
 		readConfig(properties);
+		createPool(properties);
 	}
 
 	@Modified
 	public void modified(Map<String, Object> properties) throws SpecmateException {
-		closeConnection();
+		closePool();
 		readConfig(properties);
+		createPool(properties);
 		for (DBConfigChangedCallback cb : this.cbRegister) {
 			cb.configurationChanged();
 		}
@@ -55,16 +60,15 @@ public class OracleProvider extends DBProviderBase {
 
 	@Deactivate
 	public void deactivate() throws SpecmateException {
-		closeConnection();
+		closePool();
 	}
 
-	@Override
-	public Connection getConnection() throws SpecmateException {
-		if (this.connection == null) {
-			initiateDBConnection();
-		}
-
-		return this.connection;
+	private void createPool(Map<String, Object> properties) throws SpecmateException {
+		registerDriver();
+		String url = this.jdbcConnection;
+		String user = this.username;
+		String pwd = this.password;
+		createPool(properties, () -> DriverManager.getConnection(url, user, pwd), "SELECT 1 FROM DUAL");
 	}
 
 	private void readConfig(Map<String, Object> properties) throws SpecmateInternalException {
@@ -109,9 +113,8 @@ public class OracleProvider extends DBProviderBase {
 
 	@Override
 	public boolean isVirginDB() throws SpecmateException {
-		Connection connection = getConnection();
-		try {
-			PreparedStatement stmt = connection.prepareStatement("select * from CDO_PACKAGE_INFOS");
+		try (Connection connection = borrowConnection();
+				PreparedStatement stmt = connection.prepareStatement("select * from CDO_PACKAGE_INFOS")) {
 			stmt.execute();
 		} catch (SQLException e) {
 			return true;
@@ -121,34 +124,37 @@ public class OracleProvider extends DBProviderBase {
 	}
 
 	@Override
-	public IAttributeToSQLMapper getAttributeToSQLMapper(String packageName, String sourceVersion, String targetVersion)
-			throws SpecmateException {
-		return new AttributeToSQLMapper(this.connection, packageName, sourceVersion, targetVersion);
+	public IAttributeToSQLMapper getAttributeToSQLMapper(Connection connection, String packageName,
+			String sourceVersion, String targetVersion) throws SpecmateException {
+		return new AttributeToSQLMapper(connection, packageName, sourceVersion, targetVersion);
 	}
 
 	@Override
-	public IObjectToSQLMapper getObjectToSQLMapper(String packageName, String sourceVersion, String targetVersion)
-			throws SpecmateException {
-		return new ObjectToSQLMapper(this.connection, packageName, sourceVersion, targetVersion);
+	public IObjectToSQLMapper getObjectToSQLMapper(Connection connection, String packageName, String sourceVersion,
+			String targetVersion) throws SpecmateException {
+		return new ObjectToSQLMapper(connection, packageName, sourceVersion, targetVersion);
 	}
 
-	private void initiateDBConnection() throws SpecmateException {
+	private void registerDriver() throws SpecmateException {
 		try {
 			DriverManager.registerDriver(new oracle.jdbc.OracleDriver());
 		} catch (SQLException e) {
 			throw new SpecmateInternalException(ErrorCode.PERSISTENCY, "Could not register Oracle driver.", e);
 		}
-
-		try {
-			this.connection = DriverManager.getConnection(this.jdbcConnection, this.username, this.password);
-		} catch (SQLException e) {
-			throw new SpecmateInternalException(ErrorCode.PERSISTENCY,
-					"Could not connect to the Oracle database using the connection: " + this.jdbcConnection + ".", e);
-		}
 	}
 
 	@Override
 	public String getTrueLiteral() {
 		return "1";
 	}
+
+	@Reference
+	public void setMetricsService(IMetricsService metricsService) {
+		this.metricsService = metricsService;
+	}
+
+	@Reference
+	public void setLogService(LogService logService) {
+		this.logService = logService;
+	}
 }
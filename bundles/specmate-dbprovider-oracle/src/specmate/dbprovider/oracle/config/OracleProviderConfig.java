@@ -12,6 +12,7 @@ import org.osgi.service.log.LogService;
 import com.specmate.common.OSGiUtil;
 import com.specmate.common.exception.SpecmateException;
 import com.specmate.config.api.IConfigService;
+import com.specmate.dbprovider.api.DBProviderBase;
 
 @Component
 public class OracleProviderConfig {
@@ -37,6 +38,13 @@ public class OracleProviderConfig {
 			properties.put(KEY_JDBC_CONNECTION, specmateJDBCConnection);
 		}
 
+		for (String key : DBProviderBase.POOL_KEYS) {
+			String value = configService.getConfigurationProperty(key);
+			if (value != null) {
+				properties.put(key, value);
+			}
+		}
+
 		logService.log(LogService.LOG_DEBUG, "Configuring CDO with:\n" + OSGiUtil.configDictionaryToString(properties));
 
 		// Don't log username/password
@@ -172,8 +172,8 @@ public class EMFJsonSerializer {
 	}
 
 	/**
-	 * Serializes a value. EObjects and Lists are handled recursively, any other
-	 * type of object is serialized as String.
+	 * Serializes a value. EObjects and Lists are handled recursively, JSON
+	 * objects are kept and any other type of object is serialized as String.
 	 *
 	 * @param value
 	 *            The value to serialize
@@ -189,6 +189,8 @@ public class EMFJsonSerializer {
 			return value;
 		} else if (value instanceof Boolean) {
 			return value;
+		} else if (value instanceof JSONObject) {
+			return value;
 		} else {
 			return value.toString();
 		}
@@ -0,0 +1,96 @@
+package com.specmate.emfrest.crud;
+
+import java.io.InputStream;
+import java.util.List;
+
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import org.eclipse.emf.ecore.EObject;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+import com.specmate.common.exception.SpecmateException;
+import com.specmate.emfrest.api.IRestService;
+import com.specmate.emfrest.api.RestServiceBase;
+import com.specmate.model.base.ModelImage;
+import com.specmate.model.processes.Process;
+import com.specmate.model.requirements.CEGModel;
+import com.specmate.model.support.util.SpecmateEcoreUtil;
+import com.specmate.persistency.BlobReference;
+import com.specmate.persistency.IBlobStore;
+import com.specmate.rest.RestResult;
+
+/**
+ * Streams the image of a model from the blob store.
+ *
+ * The hash of the image is sent as entity tag. If the request names the hash
+ * of the current image with the <code>v</code> parameter, the response may be
+ * cached forever, as the content of a hash never changes.
+ */
+@Component(immediate = true, service = IRestService.class)
+public class ModelImageDataService extends RestServiceBase {
+
+	/** Query parameter with the hash of the requested image version */
+	private static final String VERSION_PARAM = "v";
+
+	private static final int ONE_YEAR = 365 * 24 * 60 * 60;
+
+	private IBlobStore blobStore;
+
+	@Override
+	public String getServiceName() {
+		return "modelImageData";
+	}
+
+	@Override
+	public boolean canGet(Object target) {
+		return (target instanceof CEGModel || target instanceof Process);
+	}
+
+	@Override
+	public RestResult<?> get(Object target, MultivaluedMap<String, String> queryParams, String token)
+			throws SpecmateException {
+		List<EObject> children = SpecmateEcoreUtil.getChildren(target);
+		List<ModelImage> images = SpecmateEcoreUtil.pickInstancesOf(children, ModelImage.class);
+		if (images.isEmpty()) {
+			return new RestResult<>(Response.Status.NOT_FOUND);
+		}
+		BlobReference reference = BlobReference.parse(images.get(0).getImageData());
+		if (reference == null) {
+			// Stored before the blob store existed, will be offloaded on the next update
+			return new RestResult<>(Response.Status.NOT_FOUND);
+		}
+		InputStream content = blobStore.open(reference.getHash());
+		if (content == null) {
+			return new RestResult<>(Response.Status.NOT_FOUND);
+		}
+
+		CacheControl cacheControl = new CacheControl();
+		cacheControl.setPrivate(true);
+		if (reference.getHash().equals(queryParams.getFirst(VERSION_PARAM))) {
+			cacheControl.setMaxAge(ONE_YEAR);
+		} else {
+			cacheControl.setNoCache(true);
+		}
+		StreamingOutput output = stream -> {
+			try (InputStream input = content) {
+				byte[] buffer = new byte[8192];
+				int read;
+				while ((read = input.read(buffer)) >= 0) {
+					stream.write(buffer, 0, read);
+				}
+			}
+		};
+		return new RestResult<>(Response.ok(output, reference.getContentType())
+				.tag(new EntityTag(reference.getHash())).cacheControl(cacheControl).build());
+	}
+
+	@Reference
+	public void setBlobStore(IBlobStore blobStore) {
+		this.blobStore = blobStore;
+	}
+}
@@ -1,25 +1,48 @@
 package com.specmate.emfrest.crud;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Base64;
 import java.util.List;
 
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 
 import org.eclipse.emf.ecore.EObject;
+import org.json.JSONObject;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
 
 import com.specmate.common.exception.SpecmateException;
+import com.specmate.common.exception.SpecmateInternalException;
+import com.specmate.emfjson.EMFJsonSerializer;
 import com.specmate.emfrest.api.IRestService;
 import com.specmate.emfrest.api.RestServiceBase;
+import com.specmate.model.administration.ErrorCode;
+import com.specmate.model.base.BasePackage;
 import com.specmate.model.base.ModelImage;
 import com.specmate.model.processes.Process;
 import com.specmate.model.requirements.CEGModel;
 import com.specmate.model.support.util.SpecmateEcoreUtil;
+import com.specmate.persistency.BlobReference;
+import com.specmate.persistency.IBlobStore;
 import com.specmate.rest.RestResult;
+import com.specmate.urihandler.IURIFactory;
 
+/**
+ * Returns the image of a model. Images in the blob store are resolved to the
+ * data URL the client sent, such that the response is the same as before the
+ * blob store existed. Clients that can load the image separately use
+ * {@link ModelImageDataService} instead.
+ */
 @Component(immediate = true, service = IRestService.class)
 public class ModelImageService extends RestServiceBase {
 
+	private IBlobStore blobStore;
+
+	private IURIFactory uriFactory;
+
 	@Override
 	public String getServiceName() {
 		return "listModelImage";
@@ -36,8 +59,47 @@ public class ModelImageService extends RestServiceBase {
 		List<EObject> children = SpecmateEcoreUtil.getChildren(target);
 		List<ModelImage> images = SpecmateEcoreUtil.pickInstancesOf(children, ModelImage.class);
 		if (images.size() > 0) {
-			return new RestResult<>(Response.Status.OK, images.get(0));
+			ModelImage image = images.get(0);
+			BlobReference reference = BlobReference.parse(image.getImageData());
+			if (reference == null) {
+				return new RestResult<>(Response.Status.OK, image);
+			}
+			JSONObject json = new EMFJsonSerializer(uriFactory).serialize(image);
+			json.put(BasePackage.Literals.MODEL_IMAGE__IMAGE_DATA.getName(), toDataURL(reference));
+			return new RestResult<>(Response.Status.OK, json);
 		}
 		return new RestResult<>(Response.Status.OK, null);
 	}
+
+	/** Reads the referenced image into a base64 encoded data URL */
+	private String toDataURL(BlobReference reference) throws SpecmateException {
+		InputStream content = blobStore.open(reference.getHash());
+		if (content == null) {
+			throw new SpecmateInternalException(ErrorCode.PERSISTENCY,
+					"Image " + reference.getHash() + " is missing in the blob store.");
+		}
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		try (InputStream input = content) {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = input.read(buffer)) >= 0) {
+				data.write(buffer, 0, read);
+			}
+		} catch (IOException e) {
+			throw new SpecmateInternalException(ErrorCode.PERSISTENCY,
+					"Could not read image " + reference.getHash() + ".", e);
+		}
+		return "data:" + reference.getContentType() + ";base64,"
+				+ Base64.getEncoder().encodeToString(data.toByteArray());
+	}
+
+	@Reference
+	public void setBlobStore(IBlobStore blobStore) {
+		this.blobStore = blobStore;
+	}
+
+	@Reference
+	public void setUriFactory(IURIFactory uriFactory) {
+		this.uriFactory = uriFactory;
+	}
 }
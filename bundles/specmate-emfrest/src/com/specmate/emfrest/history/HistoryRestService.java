@@ -1,5 +1,9 @@
 package com.specmate.emfrest.history;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 
@@ -9,19 +13,28 @@ import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 
 import com.specmate.common.exception.SpecmateException;
+import com.specmate.common.exception.SpecmateInternalException;
 import com.specmate.common.exception.SpecmateValidationException;
 import com.specmate.emfrest.api.IRestService;
 import com.specmate.emfrest.api.RestServiceBase;
+import com.specmate.model.administration.ErrorCode;
+import com.specmate.model.history.History;
 import com.specmate.persistency.IHistoryProvider;
 import com.specmate.rest.RestResult;
 
 @Component(immediate = true, service = IRestService.class)
 public class HistoryRestService extends RestServiceBase {
 	private final String HPARAM = "type";
+	private final String ASYNCPARAM = "async";
+	private final String OFFSETPARAM = "offset";
+	private final String LIMITPARAM = "limit";
 	public static final String HSINGLE = "single";
 	public static final String HCONTAINER = "container";
 	public static final String HRECURSIVE = "recursive";
 
+	/** Seconds after which clients should retry an asynchronous request */
+	private static final int RETRY_AFTER = 1;
+
 	private IHistoryProvider historyProvider;
 
 	@Override
@@ -42,21 +55,76 @@ public class HistoryRestService extends RestServiceBase {
 			throw new SpecmateValidationException("No history type defined.");
 		}
 
+		if (Boolean.parseBoolean(queryParams.getFirst(ASYNCPARAM))) {
+			return getAsync(type, (EObject) object);
+		}
+
 		if (type.equals(HSINGLE)) {
 			return new RestResult<>(Response.Status.OK, historyProvider.getHistory((EObject) object));
 		}
 
+		int offset = getIntParam(queryParams, OFFSETPARAM, 0);
+		int limit = getIntParam(queryParams, LIMITPARAM, Integer.MAX_VALUE);
+
 		if (type.equals(HCONTAINER)) {
-			return new RestResult<>(Response.Status.OK, historyProvider.getContainerHistory((EObject) object));
+			return new RestResult<>(Response.Status.OK,
+					historyProvider.getContainerHistory((EObject) object, offset, limit));
 		}
 
 		if (type.equals(HRECURSIVE)) {
-			return new RestResult<>(Response.Status.OK, historyProvider.getRecursiveHistory((EObject) object));
+			return new RestResult<>(Response.Status.OK,
+					historyProvider.getRecursiveHistory((EObject) object, offset, limit));
 		}
 
 		throw new SpecmateValidationException("Invalid history type defined.");
 	}
 
+	private int getIntParam(MultivaluedMap<String, String> queryParams, String name, int defaultValue)
+			throws SpecmateValidationException {
+		String value = queryParams.getFirst(name);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			int result = Integer.parseInt(value);
+			if (result < 0) {
+				throw new SpecmateValidationException("Negative value for parameter " + name + ".");
+			}
+			return result;
+		} catch (NumberFormatException e) {
+			throw new SpecmateValidationException("Invalid value for parameter " + name + ".", e);
+		}
+	}
+
+	/**
+	 * Returns the history if it is already loaded and otherwise answers with
+	 * status 202 (accepted) right away. The loading continues in the
+	 * background, such that the client can retry without blocking a request
+	 * thread in the meantime.
+	 */
+	private RestResult<?> getAsync(String type, EObject object) throws SpecmateException {
+		CompletableFuture<History> history;
+		if (type.equals(HSINGLE)) {
+			history = historyProvider.getHistoryAsync(object);
+		} else if (type.equals(HCONTAINER)) {
+			history = historyProvider.getContainerHistoryAsync(object);
+		} else if (type.equals(HRECURSIVE)) {
+			history = historyProvider.getRecursiveHistoryAsync(object);
+		} else {
+			throw new SpecmateValidationException("Invalid history type defined.");
+		}
+
+		if (!history.isDone()) {
+			return new RestResult<>(
+					Response.status(Response.Status.ACCEPTED).header(HttpHeaders.RETRY_AFTER, RETRY_AFTER).build());
+		}
+		try {
+			return new RestResult<>(Response.Status.OK, history.get());
+		} catch (InterruptedException | ExecutionException e) {
+			throw new SpecmateInternalException(ErrorCode.PERSISTENCY, "Could not load history.", e);
+		}
+	}
+
 	@Reference
 	public void setHistoryProvider(IHistoryProvider historyProvider) {
 		this.historyProvider = historyProvider;
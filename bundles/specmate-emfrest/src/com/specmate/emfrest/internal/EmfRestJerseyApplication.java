@@ -6,14 +6,15 @@ import com.specmate.emfrest.internal.auth.AuthenticationFilter;
 import com.specmate.emfrest.internal.metrics.MetricsDynamicFeature;
 import com.specmate.emfrest.internal.rest.JsonEObjectWriter;
 import com.specmate.emfrest.internal.rest.JsonListWriter;
+import com.specmate.emfrest.internal.rest.JsonObjectWriter;
 import com.specmate.emfrest.internal.rest.JsonReader;
 import com.specmate.emfrest.internal.rest.RootResource;
 
 class EmfRestJerseyApplication extends ResourceConfig {
 
 	public EmfRestJerseyApplication() {
-		registerClasses(RootResource.class, JsonEObjectWriter.class, JsonListWriter.class, JsonReader.class,
-				AuthenticationFilter.class, MetricsDynamicFeature.class);
+		registerClasses(RootResource.class, JsonEObjectWriter.class, JsonListWriter.class, JsonObjectWriter.class,
+				JsonReader.class, AuthenticationFilter.class, MetricsDynamicFeature.class);
 
 	}
 }
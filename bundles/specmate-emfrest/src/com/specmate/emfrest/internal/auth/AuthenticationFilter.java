@@ -7,6 +7,7 @@ import java.util.regex.Pattern;
 
 import javax.inject.Inject;
 import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.HttpMethod;
 import javax.ws.rs.container.ContainerRequestFilter;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MultivaluedMap;
@@ -21,6 +22,8 @@ import com.specmate.common.exception.SpecmateException;
 import com.specmate.emfrest.authentication.Login;
 import com.specmate.emfrest.authentication.Logout;
 import com.specmate.emfrest.authentication.ProjectNames;
+import com.specmate.emfrest.search.ConsistencyService;
+import com.specmate.emfrest.search.ReindexService;
 import com.specmate.model.administration.AdministrationFactory;
 import com.specmate.model.administration.ErrorCode;
 import com.specmate.model.administration.ProblemDetail;
@@ -28,13 +31,14 @@ import com.specmate.model.administration.ProblemDetail;
 @Secured
 @Provider
 public class AuthenticationFilter implements ContainerRequestFilter {
-	private static final String REINDEX_SERVICE_NAME = "reindex";
 	private final String HEARTBEAT_PARAMETER = "heartbeat";
 	private final String REST_URL = ".+services/rest/";
 	private Pattern loginPattern = Pattern.compile(REST_URL + Login.SERVICE_NAME);
 	private Pattern logoutPattern = Pattern.compile(REST_URL + Logout.SERVICE_NAME);
 	private Pattern projectNamesPattern = Pattern.compile(REST_URL + ProjectNames.SERVICE_NAME);
-	private Pattern reindexPattern = Pattern.compile(REST_URL + REINDEX_SERVICE_NAME);
+	private Pattern adminPattern = Pattern
+			.compile(REST_URL + "(" + ReindexService.SERVICE_NAME + "|" + ConsistencyService.SERVICE_NAME + ")");
+	private Pattern repairPattern = Pattern.compile(REST_URL + ".+/" + ConsistencyService.SERVICE_NAME);
 
 	@Inject
 	IAuthenticationService authService;
@@ -66,7 +70,14 @@ public class AuthenticationFilter implements ContainerRequestFilter {
 		try {
 			String path = requestContext.getUriInfo().getAbsolutePath().getPath();
 			boolean refresh = !isHeartBeat(requestContext);
-			authService.validateToken(token, path, refresh);
+			// Services on the root span all projects, hence no project session is
+			// authorized for them, but the sessions of administrators. The same
+			// holds for repairs of the search index of a project.
+			if (isAdminService(requestContext)) {
+				authService.validateAdminToken(token, refresh);
+			} else {
+				authService.validateToken(token, path, refresh);
+			}
 		} catch (SpecmateException e) {
 			logService.log(LogService.LOG_INFO, e.getMessage());
 			abortWithUnauthorized(requestContext);
@@ -101,13 +112,19 @@ public class AuthenticationFilter implements ContainerRequestFilter {
 				.entity(pd).build());
 	}
 
+	private boolean isAdminService(ContainerRequestContext requestContext) {
+		String path = requestContext.getUriInfo().getAbsolutePath().toString();
+		if (adminPattern.matcher(path).matches()) {
+			return true;
+		}
+		return HttpMethod.POST.equals(requestContext.getMethod()) && repairPattern.matcher(path).matches();
+	}
+
 	private boolean isNotSecured(ContainerRequestContext requestContext) {
 		String path = requestContext.getUriInfo().getAbsolutePath().toString();
 		Matcher matcherLogin = loginPattern.matcher(path);
 		Matcher matcherLogout = logoutPattern.matcher(path);
 		Matcher matcherProjectNames = projectNamesPattern.matcher(path);
-		Matcher matcherReindex = reindexPattern.matcher(path);
-		return matcherLogin.matches() || matcherLogout.matches() || matcherProjectNames.matches()
-				|| matcherReindex.matches();
+		return matcherLogin.matches() || matcherLogout.matches() || matcherProjectNames.matches();
 	}
 }
@@ -0,0 +1,52 @@
+package com.specmate.emfrest.internal.rest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import org.json.JSONObject;
+import org.osgi.service.log.LogService;
+
+import com.specmate.common.ISerializationConfiguration;
+import com.specmate.urihandler.IURIFactory;
+
+/** MessageBodyWriter for JSON objects assembled by the services */
+@Provider
+public class JsonObjectWriter implements MessageBodyWriter<JSONObject> {
+
+	/** The wrapped JsonWriter */
+	private JsonWriter writer;
+
+	/** constructor */
+	public JsonObjectWriter(@Context LogService logService, @Context IURIFactory factory,
+			@Context ISerializationConfiguration serializationConfig) {
+		this.writer = new JsonWriter(logService, factory, serializationConfig);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long getSize(JSONObject obj, Class<?> clazz, Type type, Annotation[] annotation, MediaType mediaType) {
+		return writer.getSize(obj, clazz, type, annotation, mediaType);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean isWriteable(Class<?> clazz, Type type, Annotation[] annotation, MediaType mediaType) {
+		return JSONObject.class.isAssignableFrom(clazz) && writer.isWriteable(clazz, type, annotation, mediaType);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void writeTo(JSONObject obj, Class<?> clazz, Type type, Annotation[] annotations, MediaType mediaType,
+			MultivaluedMap<String, Object> headers, OutputStream stream) throws IOException, WebApplicationException {
+		writer.writeTo(obj, clazz, type, annotations, mediaType, headers, stream);
+	}
+}
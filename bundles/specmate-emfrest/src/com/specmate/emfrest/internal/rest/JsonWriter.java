@@ -12,6 +12,7 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 
 import org.eclipse.emf.ecore.EObject;
+import org.json.JSONObject;
 import org.osgi.service.log.LogService;
 
 import com.specmate.common.ISerializationConfiguration;
@@ -45,7 +46,8 @@ public class JsonWriter {
 	/** {@inheritDoc} */
 	public boolean isWriteable(Class<?> clazz, Type type, Annotation[] annotation, MediaType mediaType) {
 		return mediaType.toString().equals(MEDIA_TYPE)
-				&& (EObject.class.isAssignableFrom(clazz) || List.class.isAssignableFrom(clazz));
+				&& (EObject.class.isAssignableFrom(clazz) || List.class.isAssignableFrom(clazz)
+						|| JSONObject.class.isAssignableFrom(clazz));
 	}
 
 	/**
@@ -71,6 +73,8 @@ public class JsonWriter {
 				logService.log(LogService.LOG_ERROR, "Could not serialize object.", e);
 				throw new WebApplicationException(e);
 			}
+		} else if (obj instanceof JSONObject) {
+			result = obj.toString();
 		} else {
 			throw new WebApplicationException("Cannot serialize " + clazz);
 		}
@@ -0,0 +1,140 @@
+package com.specmate.emfrest.search;
+
+import java.util.List;
+
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+import com.specmate.common.exception.SpecmateException;
+import com.specmate.emfrest.api.IRestService;
+import com.specmate.emfrest.api.RestServiceBase;
+import com.specmate.model.support.util.SpecmateEcoreUtil;
+import com.specmate.rest.RestResult;
+import com.specmate.search.api.ConsistencyReport;
+import com.specmate.search.api.IModelSearchService;
+import com.specmate.search.api.ProjectConsistency;
+
+/**
+ * Service for checking the search index of all projects, or of a single
+ * project if called on its folder, against the model. The check finds the
+ * model objects without document, the outdated documents and the documents
+ * without model object. A GET starts a check in the background, a POST starts
+ * a check that also adds, updates or deletes these documents. With the
+ * parameter <code>progress=true</code>, a GET starts no check.
+ *
+ * The report of the running or latest check is returned, with status
+ * <code>202 Accepted</code> if the request started a check. No check is
+ * started while a reindex or another check is running. The service on the
+ * root spans all projects and requires the session of a user configured in
+ * <code>auth.adminUsers</code>, as does a POST on a project.
+ */
+@Component(immediate = true, service = IRestService.class)
+public class ConsistencyService extends RestServiceBase {
+
+	/** The name of the service */
+	public static final String SERVICE_NAME = "consistency";
+
+	/** Parameter to only return the report */
+	private static final String PARAM_PROGRESS = "progress";
+
+	private IModelSearchService searchService;
+
+	@Override
+	public String getServiceName() {
+		return SERVICE_NAME;
+	}
+
+	@Override
+	public boolean canGet(Object target) {
+		return isCheckable(target);
+	}
+
+	@Override
+	public RestResult<?> get(Object target, MultivaluedMap<String, String> queryParams, String token)
+			throws SpecmateException {
+		boolean started = false;
+		if (!Boolean.parseBoolean(queryParams.getFirst(PARAM_PROGRESS))) {
+			started = searchService.startConsistencyCheck(getProject(target), false);
+		}
+		return getResult(started);
+	}
+
+	@Override
+	public boolean canPost(Object target, Object object) {
+		return isCheckable(target);
+	}
+
+	@Override
+	public RestResult<?> post(Object target, Object object, String token) throws SpecmateException {
+		return getResult(searchService.startConsistencyCheck(getProject(target), true));
+	}
+
+	private boolean isCheckable(Object target) {
+		return (target instanceof Resource)
+				|| (target instanceof EObject && SpecmateEcoreUtil.isProject((EObject) target));
+	}
+
+	private String getProject(Object target) {
+		return target instanceof EObject ? SpecmateEcoreUtil.getProjectId((EObject) target) : null;
+	}
+
+	private RestResult<JSONObject> getResult(boolean started) {
+		ConsistencyReport report = searchService.getConsistencyReport();
+		return new RestResult<>(started ? Response.Status.ACCEPTED : Response.Status.OK, toJSON(report));
+	}
+
+	private JSONObject toJSON(ConsistencyReport report) {
+		JSONObject json = new JSONObject();
+		if (report.getProject() != null) {
+			json.put("project", report.getProject());
+		}
+		json.put("repaired", report.isRepaired());
+		json.put("running", report.isRunning());
+		json.put("failed", report.isFailed());
+		json.put("started", report.getStarted());
+		json.put("finished", report.getFinished());
+		json.put("consistent", report.isConsistent());
+		json.put("missing", report.getMissing());
+		json.put("stale", report.getStale());
+		json.put("orphaned", report.getOrphaned());
+		JSONArray projects = new JSONArray();
+		for (ProjectConsistency project : report.getProjects()) {
+			projects.put(toJSON(project));
+		}
+		json.put("projects", projects);
+		return json;
+	}
+
+	private JSONObject toJSON(ProjectConsistency project) {
+		JSONObject json = new JSONObject();
+		json.put("project", project.getProject());
+		json.put("checked", project.getChecked());
+		json.put("missing", project.getMissing());
+		json.put("stale", project.getStale());
+		json.put("orphaned", project.getOrphaned());
+		json.put("missingIds", toJSON(project.getMissingIds()));
+		json.put("staleIds", toJSON(project.getStaleIds()));
+		json.put("orphanedIds", toJSON(project.getOrphanedIds()));
+		return json;
+	}
+
+	private JSONArray toJSON(List<String> ids) {
+		JSONArray json = new JSONArray();
+		for (String id : ids) {
+			json.put(id);
+		}
+		return json;
+	}
+
+	@Reference
+	public void setSearchService(IModelSearchService searchService) {
+		this.searchService = searchService;
+	}
+}
@@ -0,0 +1,94 @@
+package com.specmate.emfrest.search;
+
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.json.JSONObject;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+import com.specmate.common.exception.SpecmateException;
+import com.specmate.emfrest.api.IRestService;
+import com.specmate.emfrest.api.RestServiceBase;
+import com.specmate.model.support.util.SpecmateEcoreUtil;
+import com.specmate.rest.RestResult;
+import com.specmate.search.api.IModelSearchService;
+import com.specmate.search.api.ReindexProgress;
+
+/**
+ * Service for reindexing the search index of all projects, or of a single
+ * project if called on its folder. By default, only changed, missing and
+ * orphaned documents are updated. With the parameter <code>full=true</code>,
+ * the index is rebuilt in the background and replaces the current index when
+ * it is complete. With <code>progress=true</code>, no reindex is started.
+ *
+ * The progress of the running or latest reindex is returned, with status
+ * <code>202 Accepted</code> if the request started a reindex. The service on
+ * the root spans all projects and requires the session of a user configured
+ * in <code>auth.adminUsers</code>.
+ */
+@Component(immediate = true, service = IRestService.class)
+public class ReindexService extends RestServiceBase {
+
+	/** The name of the service */
+	public static final String SERVICE_NAME = "reindex";
+
+	/** Parameter to rebuild the index instead of updating it */
+	private static final String PARAM_FULL = "full";
+
+	/** Parameter to only return the progress */
+	private static final String PARAM_PROGRESS = "progress";
+
+	private IModelSearchService searchService;
+
+	@Override
+	public String getServiceName() {
+		return SERVICE_NAME;
+	}
+
+	@Override
+	public boolean canGet(Object target) {
+		return (target instanceof Resource)
+				|| (target instanceof EObject && SpecmateEcoreUtil.isProject((EObject) target));
+	}
+
+	@Override
+	public RestResult<?> get(Object target, MultivaluedMap<String, String> queryParams, String token)
+			throws SpecmateException {
+		String project = target instanceof EObject ? SpecmateEcoreUtil.getProjectId((EObject) target) : null;
+		boolean started = false;
+		if (!Boolean.parseBoolean(queryParams.getFirst(PARAM_PROGRESS))) {
+			boolean full = Boolean.parseBoolean(queryParams.getFirst(PARAM_FULL));
+			if (project == null) {
+				started = full ? searchService.startReIndex() : searchService.startIncrementalReIndex();
+			} else {
+				started = full ? searchService.startReIndex(project) : searchService.startIncrementalReIndex(project);
+			}
+		}
+		ReindexProgress progress = searchService.getReindexProgress();
+		return new RestResult<>(started ? Response.Status.ACCEPTED : Response.Status.OK, toJSON(progress));
+	}
+
+	private JSONObject toJSON(ReindexProgress progress) {
+		JSONObject json = new JSONObject();
+		if (progress.getProject() != null) {
+			json.put("project", progress.getProject());
+		}
+		json.put("full", progress.isFull());
+		json.put("running", progress.isRunning());
+		json.put("failed", progress.isFailed());
+		json.put("started", progress.getStarted());
+		json.put("finished", progress.getFinished());
+		json.put("checked", progress.getChecked());
+		json.put("updated", progress.getUpdated());
+		json.put("deleted", progress.getDeleted());
+		return json;
+	}
+
+	@Reference
+	public void setSearchService(IModelSearchService searchService) {
+		this.searchService = searchService;
+	}
+}
@@ -2,6 +2,7 @@ package com.specmate.emfrest.search;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -9,6 +10,7 @@ import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 
 import org.eclipse.emf.ecore.EObject;
+import org.json.JSONObject;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
@@ -21,10 +23,51 @@ import com.specmate.emfrest.api.RestServiceBase;
 import com.specmate.model.support.util.SpecmateEcoreUtil;
 import com.specmate.rest.RestResult;
 import com.specmate.search.api.IModelSearchService;
+import com.specmate.search.api.SearchHit;
+import com.specmate.search.api.SearchMode;
+import com.specmate.search.api.SearchPage;
 
+/**
+ * Service for searching the model objects of a project. With the parameter
+ * <code>lightweight=true</code>, the hits are built from the search index
+ * without loading the model objects.
+ *
+ * With the parameters <code>offset</code> and <code>limit</code>, a page of
+ * the results is returned, ordered by relevance. The number of all matches is
+ * returned in the header <code>X-Total-Count</code>, such that clients can
+ * load further pages lazily. Lightweight hits carry their score and HTML
+ * snippets of name and description with the matches enclosed in
+ * <code>&lt;em&gt;</code> tags.
+ *
+ * The parameter <code>type</code>, which may be repeated, restricts the search
+ * to objects of the given classes, e.g. <code>type=CEGNode</code>.
+ *
+ * The parameter <code>mode</code> selects how the query is matched:
+ * <code>standard</code> (default) with the query syntax, <code>prefix</code>
+ * with the beginnings of the words of names and of external ids, or
+ * <code>fuzzy</code> with words that contain typos.
+ */
 @Component(immediate = true, service = IRestService.class)
 public class SearchService extends RestServiceBase {
 
+	/** Parameter to return lightweight hits instead of model objects */
+	private static final String PARAM_LIGHTWEIGHT = "lightweight";
+
+	/** Parameter for the classes of the objects to search for */
+	private static final String PARAM_TYPE = "type";
+
+	/** Parameter for how the query is matched */
+	private static final String PARAM_MODE = "mode";
+
+	/** Parameter for the number of results to skip */
+	private static final String PARAM_OFFSET = "offset";
+
+	/** Parameter for the maximal number of results to return */
+	private static final String PARAM_LIMIT = "limit";
+
+	/** Header with the number of all matches of a paged search */
+	private static final String HEADER_TOTAL_COUNT = "X-Total-Count";
+
 	private LogService logService;
 	private IModelSearchService searchService;
 
@@ -50,15 +93,85 @@ public class SearchService extends RestServiceBase {
 		if (queryString == null) {
 			throw new SpecmateValidationException("Missing parameter: query");
 		}
-		Set<EObject> searchResult;
+		String project = SpecmateEcoreUtil.getProjectId((EObject) target);
+		boolean lightweight = Boolean.parseBoolean(queryParams.getFirst(PARAM_LIGHTWEIGHT));
+		List<String> types = queryParams.get(PARAM_TYPE);
+		SearchMode mode = getMode(queryParams);
+		boolean paged = queryParams.containsKey(PARAM_OFFSET) || queryParams.containsKey(PARAM_LIMIT)
+				|| types != null || mode != SearchMode.STANDARD;
+		int offset = getIntParam(queryParams, PARAM_OFFSET, 0);
+		int limit = getIntParam(queryParams, PARAM_LIMIT, Integer.MAX_VALUE);
+		if (offset < 0 || limit < 1) {
+			throw new SpecmateValidationException("Invalid paging parameters: offset " + offset + ", limit " + limit);
+		}
 		try {
-			String project = SpecmateEcoreUtil.getProjectId((EObject) target);
-			searchResult = this.searchService.search(queryString, project);
+			if (lightweight) {
+				SearchPage<SearchHit> page = this.searchService.searchHits(queryString, project, types, mode, offset,
+						limit);
+				return toResult(page, toJSON(page.getResults()));
+			}
+			if (paged) {
+				SearchPage<EObject> page = this.searchService.search(queryString, project, types, mode, offset, limit);
+				return toResult(page, page.getResults());
+			}
+			Set<EObject> searchResult = this.searchService.search(queryString, project);
+			return new RestResult<>(Response.Status.OK, new ArrayList<>(searchResult));
 		} catch (SpecmateValidationException e) {
 			// Act robust against wrong query syntax
 			return new RestResult<>(Response.Status.OK, Collections.emptyList());
 		}
-		return new RestResult<>(Response.Status.OK, new ArrayList<>(searchResult));
+	}
+
+	private SearchMode getMode(MultivaluedMap<String, String> queryParams) throws SpecmateValidationException {
+		String value = queryParams.getFirst(PARAM_MODE);
+		if (value == null) {
+			return SearchMode.STANDARD;
+		}
+		try {
+			return SearchMode.parse(value);
+		} catch (IllegalArgumentException e) {
+			throw new SpecmateValidationException("Invalid parameter " + PARAM_MODE + ": " + value, e);
+		}
+	}
+
+	private int getIntParam(MultivaluedMap<String, String> queryParams, String name, int defaultValue)
+			throws SpecmateValidationException {
+		String value = queryParams.getFirst(name);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new SpecmateValidationException("Invalid parameter " + name + ": " + value, e);
+		}
+	}
+
+	/** Returns the results of a page with the number of all matches as header */
+	private RestResult<?> toResult(SearchPage<?> page, List<?> results) {
+		return new RestResult<>(Response.status(Response.Status.OK).entity(results)
+				.header(HEADER_TOTAL_COUNT, page.getTotalHits()).build());
+	}
+
+	/**
+	 * Serializes the hits with the keys of serialized model objects where
+	 * available, such that clients can treat them as object proxies
+	 */
+	private List<JSONObject> toJSON(List<SearchHit> hits) {
+		List<JSONObject> result = new ArrayList<>(hits.size());
+		for (SearchHit hit : hits) {
+			JSONObject json = new JSONObject();
+			json.put("id", hit.getId());
+			json.put("url", hit.getUrl());
+			json.put("className", hit.getClassName());
+			json.put("name", hit.getName());
+			json.put("project", hit.getProject());
+			json.put("highlightedName", hit.getHighlightedName());
+			json.put("snippet", hit.getSnippet());
+			json.put("score", hit.getScore());
+			result.add(json);
+		}
+		return result;
 	}
 
 	@Reference
@@ -0,0 +1,90 @@
+package com.specmate.emfrest.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+
+import org.eclipse.emf.ecore.EObject;
+import org.json.JSONObject;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+import com.specmate.common.exception.SpecmateException;
+import com.specmate.common.exception.SpecmateValidationException;
+import com.specmate.emfrest.api.IRestService;
+import com.specmate.emfrest.api.RestServiceBase;
+import com.specmate.model.support.util.SpecmateEcoreUtil;
+import com.specmate.rest.RestResult;
+import com.specmate.search.api.IModelSearchService;
+
+/**
+ * Service for completing a search query as the user types. Returns the names
+ * of objects of the project in which each word of the parameter
+ * <code>query</code> starts a word, ordered by relevance. The parameter
+ * <code>limit</code> sets the maximal number of names.
+ */
+@Component(immediate = true, service = IRestService.class)
+public class SuggestService extends RestServiceBase {
+
+	/** Parameter for the maximal number of names to return */
+	private static final String PARAM_LIMIT = "limit";
+
+	/** Number of names returned without limit parameter */
+	private static final int DEFAULT_LIMIT = 10;
+
+	private IModelSearchService searchService;
+
+	@Override
+	public String getServiceName() {
+		return "suggest";
+	}
+
+	@Override
+	public boolean canGet(Object target) {
+		return (target instanceof EObject) && SpecmateEcoreUtil.isProject((EObject) target);
+	}
+
+	@Override
+	public RestResult<?> get(Object target, MultivaluedMap<String, String> queryParams, String token)
+			throws SpecmateException {
+		String prefix = queryParams.getFirst("query");
+		if (prefix == null) {
+			throw new SpecmateValidationException("Missing parameter: query");
+		}
+		String project = SpecmateEcoreUtil.getProjectId((EObject) target);
+		int limit = DEFAULT_LIMIT;
+		String limitParam = queryParams.getFirst(PARAM_LIMIT);
+		if (limitParam != null) {
+			try {
+				limit = Integer.parseInt(limitParam);
+			} catch (NumberFormatException e) {
+				throw new SpecmateValidationException("Invalid parameter " + PARAM_LIMIT + ": " + limitParam, e);
+			}
+			if (limit < 1) {
+				throw new SpecmateValidationException("Invalid parameter " + PARAM_LIMIT + ": " + limitParam);
+			}
+		}
+		List<String> names;
+		try {
+			names = this.searchService.suggest(prefix, project, limit);
+		} catch (SpecmateValidationException e) {
+			// Nothing to suggest for a query without words
+			names = Collections.emptyList();
+		}
+		List<JSONObject> result = new ArrayList<>(names.size());
+		for (String name : names) {
+			JSONObject json = new JSONObject();
+			json.put("name", name);
+			result.add(json);
+		}
+		return new RestResult<>(Response.Status.OK, result);
+	}
+
+	@Reference
+	public void setSearchService(IModelSearchService searchService) {
+		this.searchService = searchService;
+	}
+}
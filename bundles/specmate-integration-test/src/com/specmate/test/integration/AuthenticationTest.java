@@ -4,6 +4,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Map;
+
 import javax.ws.rs.core.Response.Status;
 
 import org.json.JSONObject;
@@ -115,4 +117,38 @@ public class AuthenticationTest extends EmfRestTest {
 
 		resetSelectedProject();
 	}
+
+	@Test
+	public void testRootServicesRequireAdmin() throws SpecmateException {
+		Map<String, String> params = Map.of("progress", "true");
+		UserSession session = authenticationService.authenticate("resttest", "resttest", projectAName);
+		RestClient clientProjectA = new RestClient(REST_ENDPOINT, EAuthType.TOKEN, session.getId(), logService);
+		RestClient adminClient = createAdminClient();
+
+		for (String service : new String[] { "reindex", "consistency" }) {
+			RestResult<JSONObject> result = clientProjectA.get(buildRootUrl(service), params);
+			assertEquals(Status.UNAUTHORIZED.getStatusCode(), result.getResponse().getStatus());
+			result.getResponse().close();
+
+			result = adminClient.get(buildRootUrl(service), params);
+			assertEquals(Status.OK.getStatusCode(), result.getResponse().getStatus());
+			result.getResponse().close();
+		}
+	}
+
+	@Test
+	public void testProjectRepairRequiresAdmin() throws SpecmateException {
+		UserSession session = authenticationService.authenticate("resttest", "resttest", projectAName);
+		RestClient clientProjectA = new RestClient(REST_ENDPOINT, EAuthType.TOKEN, session.getId(), logService);
+
+		// The check is read-only, the repair changes the index
+		RestResult<JSONObject> result = clientProjectA.get(buildProjectUrl("consistency"),
+				Map.of("progress", "true"));
+		assertEquals(Status.OK.getStatusCode(), result.getResponse().getStatus());
+		result.getResponse().close();
+
+		result = clientProjectA.post(buildProjectUrl("consistency"), null);
+		assertEquals(Status.UNAUTHORIZED.getStatusCode(), result.getResponse().getStatus());
+		result.getResponse().close();
+	}
 }
@@ -0,0 +1,141 @@
+package com.specmate.test.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Dictionary;
+import java.util.Hashtable;
+
+import org.junit.Test;
+import org.osgi.util.tracker.ServiceTracker;
+
+import com.specmate.auth.api.ISessionService;
+import com.specmate.auth.config.SessionServiceConfig;
+import com.specmate.common.OSGiUtil;
+import com.specmate.dbprovider.api.IDBProvider;
+import com.specmate.usermodel.AccessRights;
+import com.specmate.usermodel.UserSession;
+
+/**
+ * Tests the session store in a database table against the database of the
+ * running server. The store is configured by the test, since the other tests
+ * use the sessions of the in-memory store that authorize all paths.
+ */
+public class DatabaseSessionServiceTest extends IntegrationTestBase {
+
+	private static final String PID = "com.specmate.auth.DatabaseSessionService";
+
+	private static final String FILTER = "(&(objectClass=" + ISessionService.class.getName() + ")(impl=database))";
+
+	private static final String BASE_URL = "/services/rest/";
+
+	private static IDBProvider dbProvider;
+
+	public DatabaseSessionServiceTest() throws Exception {
+		super();
+		if (dbProvider == null) {
+			dbProvider = waitForService(IDBProvider.class.getName(), null);
+			configureSessionService();
+		}
+	}
+
+	@Test
+	public void testSessionIsStoredInTable() throws Exception {
+		ISessionService sessionService = getSessionService();
+		String project = getSelectedProjectName();
+		long commitsBefore = getLastCommitTime();
+
+		UserSession session = sessionService.create(AccessRights.ALL, AccessRights.NONE, "dbsession", "pass",
+				project);
+		String token = session.getId();
+		assertTrue(exists(token));
+		assertTrue(sessionService.isAuthorizedPath(token, BASE_URL + project + "/resource"));
+		assertFalse(sessionService.isAuthorizedPath(token, BASE_URL + "other/resource"));
+		assertEquals("dbsession", sessionService.getUserName(token));
+		assertFalse(sessionService.isExpired(token));
+		sessionService.refresh(token);
+
+		sessionService.delete(token);
+		assertFalse(sessionService.isAuthorizedPath(token, BASE_URL + project + "/resource"));
+
+		// Sessions are not model objects, hence they are not committed
+		assertEquals(commitsBefore, getLastCommitTime());
+	}
+
+	@Test
+	public void testDeletedSessionsArePurgedOnActivation() throws Exception {
+		ISessionService sessionService = getSessionService();
+		String project = getSelectedProjectName();
+		String deleted = sessionService.create(AccessRights.ALL, AccessRights.NONE, "purged", "pass", project)
+				.getId();
+		String current = sessionService.create(AccessRights.ALL, AccessRights.NONE, "purged", "pass", project)
+				.getId();
+		sessionService.delete(deleted);
+		setLastActive(deleted, 1000);
+
+		// Reconfiguring restarts the service, which purges the table
+		configureSessionService();
+		sessionService = getSessionService();
+
+		assertFalse(exists(deleted));
+		assertTrue(exists(current));
+		assertTrue(sessionService.isAuthorizedPath(current, BASE_URL + project + "/resource"));
+	}
+
+	private void configureSessionService() throws Exception {
+		Dictionary<String, Object> properties = new Hashtable<>();
+		properties.put(SessionServiceConfig.SESSION_MAX_IDLE_MINUTES, 5);
+		// A changed property makes the configuration admin update the service
+		properties.put("test.configured", System.nanoTime());
+		OSGiUtil.configureService(configAdmin, PID, properties);
+		// Allow time for the service to be restarted
+		Thread.sleep(1000);
+	}
+
+	private ISessionService getSessionService() throws Exception {
+		return waitForService(ISessionService.class.getName(), FILTER);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T waitForService(String className, String filter) throws Exception {
+		ServiceTracker<T, T> tracker = filter == null ? new ServiceTracker<>(context, className, null)
+				: new ServiceTracker<>(context, context.createFilter(filter), null);
+		tracker.open();
+		T service = tracker.waitForService(10000);
+		assertNotNull(service);
+		return service;
+	}
+
+	private long getLastCommitTime() throws Exception {
+		try (Connection connection = dbProvider.borrowConnection();
+				PreparedStatement select = connection.prepareStatement("SELECT MAX(COMMIT_TIME) FROM CDO_COMMIT_INFOS");
+				ResultSet result = select.executeQuery()) {
+			return result.next() ? result.getLong(1) : 0;
+		}
+	}
+
+	private void setLastActive(String token, long lastActive) throws Exception {
+		try (Connection connection = dbProvider.borrowConnection();
+				PreparedStatement update = connection
+						.prepareStatement("UPDATE SPECMATE_SESSION SET LAST_ACTIVE = ? WHERE ID = ?")) {
+			update.setLong(1, lastActive);
+			update.setString(2, token);
+			update.executeUpdate();
+		}
+	}
+
+	private boolean exists(String token) throws Exception {
+		try (Connection connection = dbProvider.borrowConnection();
+				PreparedStatement select = connection.prepareStatement("SELECT 1 FROM SPECMATE_SESSION WHERE ID = ?")) {
+			select.setString(1, token);
+			try (ResultSet result = select.executeQuery()) {
+				return result.next();
+			}
+		}
+	}
+}
@@ -2,6 +2,8 @@ package com.specmate.test.integration;
 
 import static org.junit.Assert.assertNotNull;
 
+import java.util.Dictionary;
+import java.util.Hashtable;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -10,10 +12,14 @@ import javax.ws.rs.core.Response.Status;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.junit.Assert;
+import org.osgi.framework.Constants;
+import org.osgi.framework.Filter;
 import org.osgi.service.log.LogService;
 import org.osgi.util.tracker.ServiceTracker;
 
 import com.specmate.auth.api.IAuthenticationService;
+import com.specmate.common.OSGiUtil;
+import com.specmate.common.exception.SpecmateException;
 import com.specmate.connectors.api.IProjectService;
 import com.specmate.emfjson.EMFJsonSerializer;
 import com.specmate.model.base.BasePackage;
@@ -24,6 +30,10 @@ import com.specmate.model.testspecification.TestspecificationPackage;
 import com.specmate.persistency.IView;
 import com.specmate.rest.RestClient;
 import com.specmate.rest.RestResult;
+import com.specmate.search.api.IModelSearchService;
+import com.specmate.search.config.LuceneBasedSearchServiceConfig;
+import com.specmate.test.integration.support.DummyProject;
+import com.specmate.test.integration.support.DummyProjectService;
 import com.specmate.usermodel.UserSession;
 
 public abstract class EmfRestTest extends IntegrationTestBase {
@@ -32,6 +42,8 @@ public abstract class EmfRestTest extends IntegrationTestBase {
 	static final String NSURI_KEY = EMFJsonSerializer.KEY_NSURI;
 	static final String ECLASS = EMFJsonSerializer.KEY_ECLASS;
 	static final String URL = EMFJsonSerializer.KEY_URI;
+	/** The administrator configured in the test configuration */
+	static final String ADMIN_USER = "admin";
 	static IView view;
 	static LogService logService;
 	static RestClient restClient;
@@ -39,9 +51,16 @@ public abstract class EmfRestTest extends IntegrationTestBase {
 	static UserSession session;
 	static IProjectService projectService;
 
+	/** Property that marks the search service of the latest configuration */
+	private static final String SEARCH_CONFIGURATION_KEY = "test.configuration";
+
 	private static int counter = 0;
 	private static boolean firstTestRun = true;
 
+	/** The test class whose configuration the search service has */
+	private static Class<?> searchConfiguredFor;
+	private static int searchConfiguration = 0;
+
 	public EmfRestTest() throws Exception {
 		super();
 
@@ -97,6 +116,37 @@ public abstract class EmfRestTest extends IntegrationTestBase {
 		return projectService;
 	}
 
+	/**
+	 * Configures the search service with the properties of the test class,
+	 * unless it already has them, and waits until the service with this
+	 * configuration is registered
+	 */
+	protected IModelSearchService getConfiguredSearchService() throws Exception {
+		if (searchConfiguredFor != getClass()) {
+			Dictionary<String, Object> properties = getSearchServiceProperties();
+			properties.put(SEARCH_CONFIGURATION_KEY, ++searchConfiguration);
+			OSGiUtil.configureService(configAdmin, LuceneBasedSearchServiceConfig.PID, properties);
+			searchConfiguredFor = getClass();
+		}
+		// The service of the previous configuration may still be registered
+		Filter filter = context.createFilter("(&(" + Constants.OBJECTCLASS + "=" + IModelSearchService.class.getName()
+				+ ")(" + SEARCH_CONFIGURATION_KEY + "=" + searchConfiguration + "))");
+		ServiceTracker<IModelSearchService, IModelSearchService> searchServiceTracker = new ServiceTracker<>(context,
+				filter, null);
+		searchServiceTracker.open();
+		IModelSearchService searchService = searchServiceTracker.waitForService(10000);
+		assertNotNull(searchService);
+		return searchService;
+	}
+
+	protected Dictionary<String, Object> getSearchServiceProperties() {
+		Dictionary<String, Object> properties = new Hashtable<>();
+		properties.put(LuceneBasedSearchServiceConfig.KEY_ALLOWED_FIELDS, "extId, type, name, description");
+		properties.put(LuceneBasedSearchServiceConfig.KEY_LUCENE_DB_LOCATION, "./database/lucene");
+		properties.put(LuceneBasedSearchServiceConfig.KEY_MAX_SEARCH_RESULTS, 500);
+		return properties;
+	}
+
 	protected void updateUrlFromParent(JSONObject parent, JSONObject child) {
 		if (parent == null) {
 			child.put(EmfRestTestUtil.URL_KEY, child.get(ID_KEY));
@@ -333,6 +383,19 @@ public abstract class EmfRestTest extends IntegrationTestBase {
 		return builder.toString() + "/" + service;
 	}
 
+	/**
+	 * Logs in the administrator to the selected project and returns a client with
+	 * its session, which is authorized for the services on the root.
+	 */
+	protected RestClient createAdminClient() throws SpecmateException {
+		String project = getSelectedProjectName();
+		if (projectService instanceof DummyProjectService) {
+			((DummyProjectService) projectService).addProject(new DummyProject(project));
+		}
+		UserSession adminSession = authenticationService.authenticate(ADMIN_USER, ADMIN_USER, project);
+		return new RestClient(REST_ENDPOINT, RestClient.EAuthType.TOKEN, adminSession.getId(), logService);
+	}
+
 	protected String getId(JSONObject requirement) {
 		return requirement.getString(ID_KEY);
 	}
@@ -6,6 +6,8 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.Map;
 
+import javax.ws.rs.core.Response.Status;
+
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.junit.Test;
@@ -47,6 +49,36 @@ public class HistoryTest extends EmfRestTest {
 		checkSequence(getEntries(HistoryRestService.HRECURSIVE, requirementId), newName, numChangeNames);
 	}
 
+	/**
+	 * Tests that clients that retry an asynchronous history request get the
+	 * history once it is loaded.
+	 */
+	@Test
+	public void testAsyncHistory() throws InterruptedException {
+		JSONObject requirement = postRequirementToRoot();
+		String requirementId = getId(requirement);
+		String newName = "asyncName";
+		int numChangeNames = 3;
+		for (int i = 0; i < numChangeNames; i++) {
+			requirement.put(BasePackage.Literals.INAMED__NAME.getName(), newName + i);
+			updateObject(requirement, requirementId);
+		}
+
+		String historyUrl = buildUrl("history", requirementId);
+		RestResult<JSONObject> result = null;
+		for (int i = 0; i < 30; i++) {
+			result = restClient.get(historyUrl, Map.of("type", HistoryRestService.HSINGLE, "async", "true"));
+			result.getResponse().close();
+			if (result.getResponse().getStatus() != Status.ACCEPTED.getStatusCode()) {
+				break;
+			}
+			Thread.sleep(1000);
+		}
+		assertEquals(Status.OK.getStatusCode(), result.getResponse().getStatus());
+		checkSequence(result.getPayload().getJSONArray(HistoryPackage.Literals.HISTORY__ENTRIES.getName()), newName,
+				numChangeNames);
+	}
+
 	private void checkSequence(JSONArray entries, String newName, int numChangeNames) {
 		assertEquals(numChangeNames + 1, entries.length());
 		for (int i = 0, j = numChangeNames - 1; i < numChangeNames; i++, j--) {
@@ -0,0 +1,84 @@
+package com.specmate.test.integration;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.specmate.model.base.BaseFactory;
+import com.specmate.model.base.BasePackage;
+import com.specmate.model.base.Folder;
+import com.specmate.model.requirements.Requirement;
+import com.specmate.model.requirements.RequirementsFactory;
+import com.specmate.model.requirements.RequirementsPackage;
+import com.specmate.model.support.util.SpecmateEcoreUtil;
+import com.specmate.persistency.ITransaction;
+import com.specmate.persistency.IView;
+import com.specmate.persistency.ObjectQuery;
+
+public class ObjectQueryTest extends IntegrationTestBase {
+
+	public ObjectQueryTest() throws Exception {
+		super();
+	}
+
+	@Test
+	public void testFindRequirementByExtIdAndSource() throws Exception {
+		ITransaction transaction = persistency.openTransaction();
+		transaction.enableValidators(false);
+		transaction.doAndCommit(() -> {
+			for (int i = 0; i < integrationTestProjects.length; i++) {
+				Folder topFolder = (Folder) SpecmateEcoreUtil.getEObjectWithId(integrationTestTopFolders[i],
+						((Folder) SpecmateEcoreUtil.getEObjectWithId(integrationTestProjects[i],
+								transaction.getResource().getContents())).getContents());
+				topFolder.getContents().add(createRequirement("req" + i, "4711", "jira"));
+				topFolder.getContents().add(createRequirement("other" + i, "4712", "jira"));
+				Folder subFolder = BaseFactory.eINSTANCE.createFolder();
+				subFolder.setId("sub" + i);
+				subFolder.setName("sub" + i);
+				subFolder.getContents().add(createRequirement("deep" + i, "4713", "jira"));
+				topFolder.getContents().add(subFolder);
+			}
+			return null;
+		});
+		transaction.close();
+
+		IView view = persistency.openView();
+		ObjectQuery<Requirement> query = ObjectQuery.of(Requirement.class, RequirementsPackage.Literals.REQUIREMENT)
+				.where(BasePackage.Literals.IEXTERNAL__EXT_ID, "4711")
+				.where(BasePackage.Literals.IEXTERNAL__SOURCE, "jira");
+		Assert.assertEquals(2, view.find(query).size());
+
+		List<Requirement> inProject = view.find(query.inProject(integrationTestProjects[1]));
+		Assert.assertEquals(1, inProject.size());
+		Assert.assertEquals("req1", inProject.get(0).getId());
+
+		// The project is found at any depth
+		inProject = view.find(ObjectQuery.of(Requirement.class, RequirementsPackage.Literals.REQUIREMENT)
+				.where(BasePackage.Literals.IEXTERNAL__EXT_ID, "4713").inProject(integrationTestProjects[0]));
+		Assert.assertEquals(1, inProject.size());
+		Assert.assertEquals("deep0", inProject.get(0).getId());
+		List<Folder> projectFolder = view.find(ObjectQuery.of(Folder.class, BasePackage.Literals.FOLDER)
+				.where(BasePackage.Literals.IID__ID, integrationTestProjects[0]).inProject(integrationTestProjects[0]));
+		Assert.assertEquals(1, projectFolder.size());
+		Assert.assertTrue(view.find(query.inProject("unknown-project")).isEmpty());
+
+		query = ObjectQuery.of(Requirement.class, RequirementsPackage.Literals.REQUIREMENT)
+				.where(BasePackage.Literals.IEXTERNAL__EXT_ID, "'; DROP TABLE Requirement; --");
+		Assert.assertTrue(view.find(query).isEmpty());
+
+		// Abstract classes find the instances of their concrete subclasses
+		Assert.assertEquals(6, view.find(ObjectQuery.of(Requirement.class, BasePackage.Literals.IEXTERNAL)
+				.where(BasePackage.Literals.IEXTERNAL__SOURCE, "jira")).size());
+		view.close();
+	}
+
+	private Requirement createRequirement(String id, String extId, String source) {
+		Requirement requirement = RequirementsFactory.eINSTANCE.createRequirement();
+		requirement.setId(id);
+		requirement.setName(id);
+		requirement.setExtId(extId);
+		requirement.setSource(source);
+		return requirement;
+	}
+}
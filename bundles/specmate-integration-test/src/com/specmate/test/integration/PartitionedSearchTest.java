@@ -0,0 +1,51 @@
+package com.specmate.test.integration;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Dictionary;
+import java.util.Map;
+
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.specmate.model.base.BasePackage;
+import com.specmate.search.config.LuceneBasedSearchServiceConfig;
+
+/**
+ * Runs the search tests with an own index per project.
+ */
+public class PartitionedSearchTest extends SearchTest {
+
+	private static final String LOCATION = "./database/lucene-partitioned";
+
+	public PartitionedSearchTest() throws Exception {
+		super();
+	}
+
+	@Override
+	protected Dictionary<String, Object> getSearchServiceProperties() {
+		Dictionary<String, Object> properties = super.getSearchServiceProperties();
+		properties.put(LuceneBasedSearchServiceConfig.KEY_LUCENE_DB_LOCATION, LOCATION);
+		properties.put(LuceneBasedSearchServiceConfig.KEY_PARTITION_BY_PROJECT, true);
+		return properties;
+	}
+
+	@Test
+	public void testProjectHasOwnIndex() throws Exception {
+		JSONObject requirement = createTestRequirement();
+		requirement.put(BasePackage.Literals.IDESCRIBED__DESCRIPTION.getName(), "TEST SPLORP");
+		postObject(requirement);
+		awaitSearch(Map.of("query", "splorp"), 1);
+
+		String project = URLEncoder.encode(getSelectedProjectName(), StandardCharsets.UTF_8.name());
+		Assert.assertTrue(Files.isDirectory(Paths.get(LOCATION, "projects", project)));
+
+		// The other project has its own index, without the object
+		nextProject();
+		awaitSearch(Map.of("query", "splorp"), 0);
+		resetSelectedProject();
+	}
+}
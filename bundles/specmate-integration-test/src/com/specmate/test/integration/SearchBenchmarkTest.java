@@ -0,0 +1,159 @@
+package com.specmate.test.integration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.specmate.common.exception.SpecmateException;
+import com.specmate.model.base.BasePackage;
+import com.specmate.search.api.IModelSearchService;
+import com.specmate.search.api.SearchMode;
+
+/**
+ * Measures the latency of the search modes and of suggestions on a generated
+ * corpus of requirements and checks it against the budget of each mode. The
+ * latency is measured at the search service, without the REST layer.
+ *
+ * The budgets depend on the machine, hence the benchmark is not part of the
+ * Test-Cases of the integration tests. To run it on demand, add it to the
+ * Test-Cases in bnd.bnd.
+ */
+public class SearchBenchmarkTest extends EmfRestTest {
+
+	/** Number of requirements in the corpus */
+	private static final int CORPUS_SIZE = 500;
+
+	/** Number of measured queries per mode */
+	private static final int QUERIES = 200;
+
+	/** Number of queries per mode before measuring */
+	private static final int WARMUP_QUERIES = 50;
+
+	/** Budgets of the 95th percentile of the latency in ms */
+	private static final long STANDARD_BUDGET = 50;
+	private static final long PREFIX_BUDGET = 50;
+	private static final long FUZZY_BUDGET = 150;
+	private static final long SUGGEST_BUDGET = 30;
+
+	/** Word contained in the description of every requirement of the corpus */
+	private static final String MARKER = "benchmarkcorpus";
+
+	private static final String[] WORDS = { "account", "address", "alarm", "approval", "archive", "battery",
+			"billing", "calculation", "calendar", "certificate", "configuration", "connection", "customer",
+			"dashboard", "database", "delivery", "device", "discount", "document", "download", "encryption",
+			"export", "firmware", "gateway", "history", "import", "installation", "interface", "invoice", "language",
+			"license", "location", "maintenance", "measurement", "message", "monitoring", "notification", "order",
+			"password", "payment", "permission", "printer", "priority", "profile", "protocol", "report", "request",
+			"schedule", "sensor", "session", "settings", "signature", "storage", "subscription", "supplier",
+			"temperature", "timeout", "transaction", "upload", "validation", "vehicle", "warning", "workflow" };
+
+	private static IModelSearchService searchService;
+
+	private final Random random = new Random(42);
+
+	public SearchBenchmarkTest() throws Exception {
+		super();
+		searchService = getConfiguredSearchService();
+	}
+
+	@Test
+	public void testLatencyBudgets() throws Exception {
+		searchService.clear();
+		for (int i = 0; i < CORPUS_SIZE; i++) {
+			JSONObject requirement = createTestRequirement();
+			requirement.put(BasePackage.Literals.INAMED__NAME.getName(), randomText(3));
+			requirement.put(BasePackage.Literals.IDESCRIBED__DESCRIPTION.getName(), randomText(15) + " " + MARKER);
+			requirement.put(BasePackage.Literals.IEXTERNAL__EXT_ID.getName(), "REQ-" + (10000 + i));
+			postObject(requirement);
+		}
+		awaitCorpusIndexed();
+
+		String project = getSelectedProjectName();
+		StringBuilder report = new StringBuilder("Search latency (p50/p95 in ms):");
+		StringBuilder failures = new StringBuilder();
+		measure("standard", STANDARD_BUDGET, report, failures,
+				() -> searchService.searchHits(randomWord(), project, null, SearchMode.STANDARD, 0, 10));
+		measure("prefix", PREFIX_BUDGET, report, failures,
+				() -> searchService.searchHits(randomPrefix(), project, null, SearchMode.PREFIX, 0, 10));
+		measure("fuzzy", FUZZY_BUDGET, report, failures,
+				() -> searchService.searchHits(randomTypo(), project, null, SearchMode.FUZZY, 0, 10));
+		measure("suggest", SUGGEST_BUDGET, report, failures,
+				() -> searchService.suggest(randomPrefix(), project, 10));
+		Assert.assertTrue("Latency budgets exceeded:" + failures + "\n" + report, failures.length() == 0);
+	}
+
+	/** Waits until all requirements of the corpus are searchable */
+	private void awaitCorpusIndexed() throws Exception {
+		String project = getSelectedProjectName();
+		long indexed = 0;
+		for (int i = 0; i < 60 && indexed < CORPUS_SIZE; i++) {
+			Thread.sleep(1000);
+			indexed = searchService.searchHits(MARKER, project, null, SearchMode.STANDARD, 0, 1).getTotalHits();
+		}
+		Assert.assertEquals(CORPUS_SIZE, indexed);
+	}
+
+	/**
+	 * Runs the search after some warm-up queries and appends its latency to
+	 * the report, and to the failures if it exceeds the budget
+	 */
+	private void measure(String mode, long budget, StringBuilder report, StringBuilder failures,
+			SearchCall search) throws SpecmateException {
+		for (int i = 0; i < WARMUP_QUERIES; i++) {
+			search.run();
+		}
+		List<Long> latencies = new ArrayList<>(QUERIES);
+		for (int i = 0; i < QUERIES; i++) {
+			long start = System.nanoTime();
+			search.run();
+			latencies.add((System.nanoTime() - start) / 1000000);
+		}
+		Collections.sort(latencies);
+		long median = latencies.get(QUERIES / 2);
+		long p95 = latencies.get(QUERIES * 95 / 100);
+		report.append("\n").append(mode).append(": ").append(median).append("/").append(p95);
+		if (p95 > budget) {
+			failures.append("\n").append(mode).append(": p95 ").append(p95).append(" ms, budget ").append(budget)
+					.append(" ms");
+		}
+	}
+
+	private String randomWord() {
+		return WORDS[random.nextInt(WORDS.length)];
+	}
+
+	private String randomText(int words) {
+		String[] text = new String[words];
+		for (int i = 0; i < words; i++) {
+			text[i] = randomWord();
+		}
+		return String.join(" ", text);
+	}
+
+	/** Returns the first three to five letters of a word */
+	private String randomPrefix() {
+		String word = randomWord();
+		return word.substring(0, 3 + random.nextInt(3));
+	}
+
+	/** Returns a word with two adjacent letters after the first one swapped */
+	private String randomTypo() {
+		char[] word = randomWord().toCharArray();
+		int position = 1 + random.nextInt(word.length - 2);
+		char letter = word[position];
+		word[position] = word[position + 1];
+		word[position + 1] = letter;
+		return new String(word);
+	}
+
+	/** A search whose result is not needed */
+	@FunctionalInterface
+	private interface SearchCall {
+		Object run() throws SpecmateException;
+	}
+}
@@ -0,0 +1,117 @@
+package com.specmate.test.integration;
+
+import java.util.Dictionary;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.ws.rs.core.Response.Status;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.specmate.model.base.BasePackage;
+import com.specmate.rest.RestResult;
+import com.specmate.search.api.IModelSearchService;
+import com.specmate.search.config.LuceneBasedSearchServiceConfig;
+
+/**
+ * Checks the ranking of searches over a small corpus of German and English
+ * requirements, whose languages are detected from their text. Each query
+ * names the requirement that has to be the best hit.
+ */
+public class SearchRelevanceTest extends EmfRestTest {
+
+	/** Name and description of the requirements of the corpus */
+	private static final String[][] CORPUS = {
+			{ "Input validation", "The system validates the user input before it is saved." },
+			{ "Password reset", "The user can reset the password with a link that is sent by email." },
+			{ "Report export", "Reports are exported as PDF files on request." },
+			{ "Temperaturüberwachung",
+					"Das System zeigt eine Warnung an, wenn der Temperatursensor einen zu hohen Wert liefert." },
+			{ "Benutzeranmeldung", "Der Benutzer meldet sich mit seinem Namen und seinem Passwort an." },
+			{ "Datenexport", "Die Berichte werden als Tabellen für die Auswertung exportiert." } };
+
+	/** Queries and the index of the requirement that has to be the best hit */
+	private static final Object[][] EXPECTED_BEST_HITS = {
+			// exact matches
+			{ "validation", 0 }, { "Passwort", 4 },
+			// English stems
+			{ "validating", 0 }, { "exporting reports", 2 }, { "resets", 1 },
+			// German stems
+			{ "Warnungen", 3 }, { "Tabelle", 5 },
+			// parts of German compound words
+			{ "Sensor", 3 }, { "Anmeldung", 4 }, { "Temperatur", 3 } };
+
+	private static IModelSearchService searchService;
+
+	public SearchRelevanceTest() throws Exception {
+		super();
+		searchService = getConfiguredSearchService();
+	}
+
+	@Override
+	protected Dictionary<String, Object> getSearchServiceProperties() {
+		Dictionary<String, Object> properties = super.getSearchServiceProperties();
+		properties.put(LuceneBasedSearchServiceConfig.KEY_DEFAULT_LANGUAGE, "en");
+		return properties;
+	}
+
+	@Test
+	public void testRanking() throws Exception {
+		// Only the corpus is ranked, other tests may have used the project before
+		searchService.clear(getSelectedProjectName());
+		Map<String, Integer> corpusIndex = new HashMap<>();
+		for (int i = 0; i < CORPUS.length; i++) {
+			JSONObject requirement = createTestRequirement();
+			requirement.put(BasePackage.Literals.INAMED__NAME.getName(), CORPUS[i][0]);
+			requirement.put(BasePackage.Literals.IDESCRIBED__DESCRIPTION.getName(), CORPUS[i][1]);
+			postObject(requirement);
+			corpusIndex.put(getId(requirement), i);
+		}
+
+		awaitIndexed(CORPUS.length);
+
+		StringBuilder failures = new StringBuilder();
+		for (Object[] expected : EXPECTED_BEST_HITS) {
+			String query = (String) expected[0];
+			int expectedIndex = (int) expected[1];
+			JSONArray hits = search(query);
+			Integer bestIndex = hits.length() > 0 ? corpusIndex.get(hits.getJSONObject(0).getString("id")) : null;
+			if (bestIndex == null || bestIndex != expectedIndex) {
+				failures.append("\n").append(query).append(": expected '").append(CORPUS[expectedIndex][0])
+						.append("', found ").append(bestIndex == null ? "nothing" : "'" + CORPUS[bestIndex][0] + "'");
+			}
+		}
+		Assert.assertTrue("Unexpected best hits:" + failures, failures.length() == 0);
+	}
+
+	/** Waits until the given number of requirements of the project is searchable */
+	private void awaitIndexed(int expected) throws InterruptedException {
+		int indexed = countRequirements();
+		for (int i = 0; i < 100 && indexed != expected; i++) {
+			Thread.sleep(100);
+			indexed = countRequirements();
+		}
+		Assert.assertEquals(expected, indexed);
+	}
+
+	private int countRequirements() {
+		RestResult<JSONArray> result = restClient.getList(buildProjectUrl("search"),
+				Map.of("query", "type:Requirement", "lightweight", "true", "limit", "1"));
+		Assert.assertEquals(Status.OK.getStatusCode(), result.getResponse().getStatus());
+		String total = result.getResponse().getHeaderString("X-Total-Count");
+		result.getResponse().close();
+		return Integer.parseInt(total);
+	}
+
+	private JSONArray search(String query) {
+		String searchUrl = buildProjectUrl("search");
+		RestResult<JSONArray> result = restClient.getList(searchUrl,
+				Map.of("query", query, "lightweight", "true", "limit", "5"));
+		Assert.assertEquals(Status.OK.getStatusCode(), result.getResponse().getStatus());
+		result.getResponse().close();
+		return result.getPayload();
+	}
+}
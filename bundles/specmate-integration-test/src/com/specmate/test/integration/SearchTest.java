@@ -2,9 +2,9 @@ package com.specmate.test.integration;
 
 import static com.specmate.test.integration.EmfRestTestUtil.matches;
 
-import java.util.Dictionary;
-import java.util.Hashtable;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import javax.ws.rs.core.Response.Status;
 
@@ -13,64 +13,108 @@ import org.json.JSONObject;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
-import org.osgi.util.tracker.ServiceTracker;
 
-import com.specmate.common.OSGiUtil;
 import com.specmate.common.exception.SpecmateException;
 import com.specmate.model.base.BasePackage;
+import com.specmate.model.requirements.NodeType;
+import com.specmate.model.testspecification.TestspecificationPackage;
+import com.specmate.rest.RestClient;
 import com.specmate.rest.RestResult;
 import com.specmate.search.api.IModelSearchService;
-import com.specmate.search.config.LuceneBasedSearchServiceConfig;
 
 public class SearchTest extends EmfRestTest {
 	private static IModelSearchService searchService;
+	private static RestClient adminClient;
+	private static int counter = 0;
 
 	public SearchTest() throws Exception {
 		super();
-		if (searchService == null) {
-			configureSearch();
+		searchService = getConfiguredSearchService();
+		if (adminClient == null) {
+			adminClient = createAdminClient();
 		}
-		searchService = getSearchService();
 	}
 
-	private void configureSearch() throws SpecmateException, InterruptedException {
-		OSGiUtil.configureService(configAdmin, LuceneBasedSearchServiceConfig.PID, getSearchServiceProperties());
+	private JSONArray performSearch(String query) {
+		return performSearch(Map.of("query", query));
+	}
+
+	private JSONArray performSearch(Map<String, String> params) {
+		String searchUrl = buildProjectUrl("search");
+		RestResult<JSONArray> result = restClient.getList(searchUrl, params);
+		Assert.assertEquals(Status.OK.getStatusCode(), result.getResponse().getStatus());
+		result.getResponse().close();
+		JSONArray foundObjects = result.getPayload();
+		return foundObjects;
+	}
 
-		// allow for the search service to start
-		Thread.sleep(2000);
+	/**
+	 * Repeats the search until it finds the expected number of objects, as the
+	 * index is updated and refreshed in the background
+	 */
+	protected JSONArray awaitSearch(Map<String, String> params, int expected) throws InterruptedException {
+		JSONArray foundObjects = performSearch(params);
+		for (int i = 0; i < 100 && foundObjects.length() != expected; i++) {
+			Thread.sleep(100);
+			foundObjects = performSearch(params);
+		}
+		Assert.assertEquals(expected, foundObjects.length());
+		return foundObjects;
 	}
 
-	protected Dictionary<String, Object> getSearchServiceProperties() {
-		Dictionary<String, Object> properties = new Hashtable<>();
-		properties.put(LuceneBasedSearchServiceConfig.KEY_ALLOWED_FIELDS, "extId, type, name, description");
-		properties.put(LuceneBasedSearchServiceConfig.KEY_LUCENE_DB_LOCATION, "./database/lucene");
-		properties.put(LuceneBasedSearchServiceConfig.KEY_MAX_SEARCH_RESULTS, 500);
-		return properties;
+	private JSONObject performReindex() throws InterruptedException {
+		return performReindex(Map.of());
 	}
 
-	private IModelSearchService getSearchService() throws InterruptedException {
-		ServiceTracker<IModelSearchService, IModelSearchService> searchServiceTracker = new ServiceTracker<>(context,
-				IModelSearchService.class.getName(), null);
-		searchServiceTracker.open();
-		IModelSearchService searchService = searchServiceTracker.waitForService(10000);
-		Assert.assertNotNull(searchService);
-		return searchService;
+	/** Starts a reindex and returns its progress when it is finished */
+	private JSONObject performReindex(Map<String, String> params) throws InterruptedException {
+		return awaitReindex(startReindex(params));
 	}
 
-	private JSONArray performSearch(String query) {
-		String searchUrl = buildProjectUrl("search");
-		RestResult<JSONArray> result = restClient.getList(searchUrl, Map.of("query", query));
-		Assert.assertEquals(Status.OK.getStatusCode(), result.getResponse().getStatus());
+	private JSONObject startReindex(Map<String, String> params) {
+		return startReindex(adminClient, buildRootUrl("reindex"), params);
+	}
+
+	private JSONObject startReindex(RestClient client, String url, Map<String, String> params) {
+		RestResult<JSONObject> result = client.get(url, params);
+		Assert.assertEquals(Status.ACCEPTED.getStatusCode(), result.getResponse().getStatus());
 		result.getResponse().close();
-		JSONArray foundObjects = result.getPayload();
-		return foundObjects;
+		return result.getPayload();
+	}
+
+	private JSONObject awaitReindex(JSONObject progress) throws InterruptedException {
+		for (int i = 0; i < 60 && progress.getBoolean("running"); i++) {
+			Thread.sleep(1000);
+			RestResult<JSONObject> result = adminClient.get(buildRootUrl("reindex"), Map.of("progress", "true"));
+			Assert.assertEquals(Status.OK.getStatusCode(), result.getResponse().getStatus());
+			result.getResponse().close();
+			progress = result.getPayload();
+		}
+		Assert.assertFalse(progress.getBoolean("running"));
+		Assert.assertFalse(progress.getBoolean("failed"));
+		return progress;
 	}
 
-	private void performReindex() {
-		String reindexUrl = buildRootUrl("reindex");
-		RestResult<JSONObject> result = restClient.get(reindexUrl);
-		Assert.assertEquals(Status.NO_CONTENT.getStatusCode(), result.getResponse().getStatus());
+	/**
+	 * Checks the index of the selected project against the model, repairing it
+	 * with a POST of the administrator, and returns the report when the check is finished
+	 */
+	private JSONObject checkConsistency(boolean repair) throws InterruptedException {
+		String url = buildProjectUrl("consistency");
+		RestResult<JSONObject> result = repair ? adminClient.post(url, null) : restClient.get(url);
+		Assert.assertEquals(Status.ACCEPTED.getStatusCode(), result.getResponse().getStatus());
 		result.getResponse().close();
+		JSONObject report = result.getPayload();
+		for (int i = 0; i < 60 && report.getBoolean("running"); i++) {
+			Thread.sleep(500);
+			result = restClient.get(url, Map.of("progress", "true"));
+			Assert.assertEquals(Status.OK.getStatusCode(), result.getResponse().getStatus());
+			result.getResponse().close();
+			report = result.getPayload();
+		}
+		Assert.assertFalse(report.getBoolean("running"));
+		Assert.assertFalse(report.getBoolean("failed"));
+		return report;
 	}
 
 	private JSONArray queryRelatedRequirements(String... segments) {
@@ -131,8 +175,8 @@ public class SearchTest extends EmfRestTest {
 		retrievedCEGNode.put(BasePackage.Literals.INAMED__NAME.getName(), "Update");
 		updateObject(retrievedCEGNode, requirementId, cegModelId, cegNodeId);
 
-		// Allow time to commit to search index
-		Thread.sleep(35000);
+		// The changes are indexed in order, hence the others are searchable with the last one
+		awaitSearch(Map.of("query", "name:update"), 1);
 
 		// Check if search on name field works
 		JSONArray foundObjects = performSearch("blup");
@@ -192,9 +236,9 @@ public class SearchTest extends EmfRestTest {
 		foundObjects = performSearch("bla -");
 		Assert.assertEquals(0, foundObjects.length());
 
-		// check that forbidden objects such as CEGNodes not found
+		// check that CEG nodes are found
 		foundObjects = performSearch("+(type:CEGNode*)");
-		Assert.assertEquals(0, foundObjects.length());
+		Assert.assertEquals(1, foundObjects.length());
 
 		// check that deleted objects are not found
 		deleteObject(requirementId);
@@ -203,6 +247,183 @@ public class SearchTest extends EmfRestTest {
 
 	}
 
+	/**
+	 * Changes an object right after creating it and searches at once. The index
+	 * must reflect the last commit, even though its view is on a read session.
+	 */
+	@Test
+	public void testSearchAfterCommit() throws InterruptedException {
+		JSONObject requirement = createTestRequirement();
+		requirement.put(BasePackage.Literals.IDESCRIBED__DESCRIPTION.getName(), "TEST GRONK");
+		postObject(requirement);
+		String requirementId = getId(requirement);
+		requirement.put(BasePackage.Literals.IDESCRIBED__DESCRIPTION.getName(), "TEST GRUNK");
+		updateObject(requirement, requirementId);
+
+		JSONArray hits = awaitSearch(Map.of("query", "grunk", "lightweight", "true"), 1);
+		Assert.assertEquals(requirementId, hits.getJSONObject(0).getString("id"));
+		Assert.assertEquals(0, performSearch("gronk").length());
+	}
+
+	@Test
+	public void testLightweightHits() throws InterruptedException {
+		JSONObject requirement = createTestRequirement();
+		requirement.put(BasePackage.Literals.INAMED__NAME.getName(), "Lightweight Requirement");
+		requirement.put(BasePackage.Literals.IDESCRIBED__DESCRIPTION.getName(), "Found without loading");
+		postObject(requirement);
+		String requirementId = getId(requirement);
+
+		JSONArray hits = awaitSearch(Map.of("query", "lightweight", "lightweight", "true"), 1);
+		JSONObject hit = hits.getJSONObject(0);
+		Assert.assertEquals(requirementId, hit.getString("id"));
+		Assert.assertEquals("Requirement", hit.getString("className"));
+		Assert.assertEquals("Lightweight Requirement", hit.getString("name"));
+		Assert.assertEquals("<em>Lightweight</em> Requirement", hit.getString("highlightedName"));
+		Assert.assertEquals("Found without loading", hit.getString("snippet"));
+		Assert.assertTrue(hit.getString("url").endsWith("/" + requirementId));
+		Assert.assertTrue(hit.getDouble("score") > 0);
+	}
+
+	@Test
+	public void testPrefixSearch() throws InterruptedException {
+		JSONObject requirement = createTestRequirement();
+		requirement.put(BasePackage.Literals.INAMED__NAME.getName(), "Authentication Timeout");
+		requirement.put(BasePackage.Literals.IEXTERNAL__EXT_ID.getName(), "REQ-4711");
+		postObject(requirement);
+		String requirementId = getId(requirement);
+
+		JSONArray hits = awaitSearch(Map.of("query", "authent time", "mode", "prefix", "lightweight", "true"), 1);
+		Assert.assertEquals(0, performSearch(Map.of("query", "timeo", "lightweight", "true")).length());
+		Assert.assertEquals(requirementId, hits.getJSONObject(0).getString("id"));
+		Assert.assertEquals("<em>Authentication</em> <em>Timeout</em>",
+				hits.getJSONObject(0).getString("highlightedName"));
+		hits = performSearch(Map.of("query", "req-47", "mode", "prefix", "lightweight", "true"));
+		Assert.assertEquals(1, hits.length());
+		Assert.assertEquals(0, performSearch(Map.of("query", "thentication", "mode", "prefix")).length());
+	}
+
+	@Test
+	public void testFuzzySearch() throws InterruptedException {
+		JSONObject requirement = createTestRequirement();
+		requirement.put(BasePackage.Literals.INAMED__NAME.getName(), "Temperature Sensor");
+		requirement.put(BasePackage.Literals.IDESCRIBED__DESCRIPTION.getName(), "Raises an alarm when overheated");
+		postObject(requirement);
+		String requirementId = getId(requirement);
+
+		JSONArray hits = awaitSearch(
+				Map.of("query", "temperatur alram", "mode", "fuzzy", "lightweight", "true"), 1);
+		Assert.assertEquals(0, performSearch(Map.of("query", "temperatur alram", "lightweight", "true")).length());
+		Assert.assertEquals(requirementId, hits.getJSONObject(0).getString("id"));
+		Assert.assertEquals("<em>Temperature</em> Sensor", hits.getJSONObject(0).getString("highlightedName"));
+		// Short words must match exactly
+		Assert.assertEquals(0, performSearch(Map.of("query", "an", "mode", "fuzzy")).length());
+	}
+
+	@Test
+	public void testSuggest() throws InterruptedException {
+		for (String name : new String[] { "Export Report", "export report", "Exporter Settings", "Import Report" }) {
+			JSONObject requirement = createTestRequirement();
+			requirement.put(BasePackage.Literals.INAMED__NAME.getName(), name);
+			requirement.put(BasePackage.Literals.IDESCRIBED__DESCRIPTION.getName(), "Suggestion source");
+			postObject(requirement);
+		}
+		awaitSearch(Map.of("query", "suggestion", "lightweight", "true"), 4);
+
+		RestResult<JSONArray> result = restClient.getList(buildProjectUrl("suggest"), Map.of("query", "expo"));
+		Assert.assertEquals(Status.OK.getStatusCode(), result.getResponse().getStatus());
+		result.getResponse().close();
+		JSONArray suggestions = result.getPayload();
+		// Names are distinct ignoring case
+		Assert.assertEquals(2, suggestions.length());
+		Set<String> names = new HashSet<>();
+		for (int i = 0; i < suggestions.length(); i++) {
+			names.add(suggestions.getJSONObject(i).getString("name").toLowerCase());
+		}
+		Assert.assertEquals(Set.of("export report", "exporter settings"), names);
+
+		result = restClient.getList(buildProjectUrl("suggest"), Map.of("query", "rep", "limit", "1"));
+		result.getResponse().close();
+		Assert.assertEquals(1, result.getPayload().length());
+	}
+
+	@Test
+	public void testSearchNodesAndSteps() throws InterruptedException {
+		JSONObject requirement = postRequirement();
+		String requirementId = getId(requirement);
+		JSONObject cegModel = postCEG(requirementId);
+		String cegModelId = getId(cegModel);
+		postObject(createTestCegNode("Temperature", "is above 30 degrees", NodeType.AND.getLiteral()), requirementId,
+				cegModelId);
+
+		JSONObject testSpecification = postObject(createTestTestSpecification(), requirementId);
+		String testSpecificationId = getId(testSpecification);
+		JSONObject testProcedure = postObject(createTestProcedure(), requirementId, testSpecificationId);
+		String testProcedureId = getId(testProcedure);
+		postObject(createTestStep("Heat the sensor", "The temperature warning appears", 0), requirementId,
+				testSpecificationId, testProcedureId);
+
+		JSONArray hits = awaitSearch(Map.of("query", "temperature", "lightweight", "true"), 2);
+
+		hits = performSearch(Map.of("query", "temperature", "lightweight", "true", "type", "CEGNode"));
+		Assert.assertEquals(1, hits.length());
+		Assert.assertEquals("CEGNode", hits.getJSONObject(0).getString("className"));
+
+		hits = performSearch(Map.of("query", "warning", "lightweight", "true"));
+		Assert.assertEquals(1, hits.length());
+		Assert.assertEquals(testProcedureId, hits.getJSONObject(0).getString("id"));
+	}
+
+	private JSONObject createTestProcedure() {
+		String id = "TestProcedure" + counter++;
+		JSONObject testProcedure = new JSONObject();
+		testProcedure.put(NSURI_KEY, TestspecificationPackage.eNS_URI);
+		testProcedure.put(ECLASS, TestspecificationPackage.Literals.TEST_PROCEDURE.getName());
+		testProcedure.put(BasePackage.Literals.IID__ID.getName(), id);
+		testProcedure.put(BasePackage.Literals.INAMED__NAME.getName(), id);
+		testProcedure.put(BasePackage.Literals.IRECYCLED__RECYCLED.getName(), false);
+		testProcedure.put(BasePackage.Literals.IRECYCLED__HAS_RECYCLED_CHILDREN.getName(), false);
+		return testProcedure;
+	}
+
+	private JSONObject createTestStep(String action, String expectedOutcome, int position) {
+		String id = "TestStep" + counter++;
+		JSONObject testStep = new JSONObject();
+		testStep.put(NSURI_KEY, TestspecificationPackage.eNS_URI);
+		testStep.put(ECLASS, TestspecificationPackage.Literals.TEST_STEP.getName());
+		testStep.put(BasePackage.Literals.IID__ID.getName(), id);
+		testStep.put(BasePackage.Literals.INAMED__NAME.getName(), id);
+		testStep.put(BasePackage.Literals.IDESCRIBED__DESCRIPTION.getName(), action);
+		testStep.put(TestspecificationPackage.Literals.TEST_STEP__EXPECTED_OUTCOME.getName(), expectedOutcome);
+		testStep.put(BasePackage.Literals.IPOSITIONABLE__POSITION.getName(), position);
+		testStep.put(BasePackage.Literals.IRECYCLED__RECYCLED.getName(), false);
+		testStep.put(BasePackage.Literals.IRECYCLED__HAS_RECYCLED_CHILDREN.getName(), false);
+		return testStep;
+	}
+
+	@Test
+	public void testPagedSearch() throws InterruptedException {
+		for (int i = 0; i < 3; i++) {
+			JSONObject requirement = createTestRequirement();
+			requirement.put(BasePackage.Literals.INAMED__NAME.getName(), "Paged " + i);
+			requirement.put(BasePackage.Literals.IDESCRIBED__DESCRIPTION.getName(), "Paged search");
+			postObject(requirement);
+		}
+
+		awaitSearch(Map.of("query", "paged", "lightweight", "true"), 3);
+		String searchUrl = buildProjectUrl("search");
+		RestResult<JSONArray> result = restClient.getList(searchUrl,
+				Map.of("query", "paged", "lightweight", "true", "limit", "2"));
+		Assert.assertEquals(Status.OK.getStatusCode(), result.getResponse().getStatus());
+		Assert.assertEquals("3", result.getResponse().getHeaderString("X-Total-Count"));
+		result.getResponse().close();
+		JSONArray firstPage = result.getPayload();
+		Assert.assertEquals(2, firstPage.length());
+		Assert.assertTrue(firstPage.getJSONObject(0).getDouble("score") >= firstPage.getJSONObject(1).getDouble("score"));
+
+		JSONArray secondPage = performSearch(Map.of("query", "paged", "offset", "2", "limit", "2"));
+		Assert.assertEquals(1, secondPage.length());
+	}
+
 	@Test
 	public void testSearchScopedOnProject() throws InterruptedException {
 		JSONObject requirement1 = createTestRequirement();
@@ -219,8 +440,8 @@ public class SearchTest extends EmfRestTest {
 		postObject(requirement2);
 		String requirementId2 = getId(requirement2);
 
-		// Allow time to commit to search index
-		Thread.sleep(35000);
+		// The requirement of the first project was indexed before
+		awaitSearch(Map.of("query", "blup"), 1);
 
 		resetSelectedProject();
 
@@ -237,7 +458,7 @@ public class SearchTest extends EmfRestTest {
 
 	@Test
 	public void testReIndexing() throws InterruptedException {
-		getSearchService().disableIndexing();
+		searchService.disableIndexing();
 
 		JSONObject folder = createTestFolder();
 		folder.put(BasePackage.Literals.INAMED__NAME.getName(), "Test");
@@ -264,9 +485,8 @@ public class SearchTest extends EmfRestTest {
 		JSONArray foundObjects = performSearch("blup");
 		Assert.assertEquals(0, foundObjects.length());
 
-		getSearchService().enableIndexing();
+		searchService.enableIndexing();
 		performReindex();
-		Thread.sleep(35000);
 
 		// Check if search finds something, hence reindexing worked
 		foundObjects = performSearch("blup");
@@ -278,6 +498,130 @@ public class SearchTest extends EmfRestTest {
 
 	}
 
+	@Test
+	public void testIncrementalReIndexing() throws InterruptedException {
+		JSONObject requirement = createTestRequirement();
+		requirement.put(BasePackage.Literals.IDESCRIBED__DESCRIPTION.getName(), "TEST ZORP");
+		postObject(requirement);
+		String requirementId = getId(requirement);
+		JSONObject requirement2 = createTestRequirement();
+		requirement2.put(BasePackage.Literals.IDESCRIBED__DESCRIPTION.getName(), "TEST ZORP");
+		postObject(requirement2);
+		String requirementId2 = getId(requirement2);
+
+		// Bring the index up to date, afterwards nothing needs to be updated
+		JSONObject progress = performReindex();
+		Assert.assertTrue(progress.getLong("checked") >= 2);
+		progress = performReindex();
+		Assert.assertEquals(0, progress.getLong("updated"));
+		Assert.assertEquals(0, progress.getLong("deleted"));
+
+		// Change and delete objects without updating the index
+		searchService.disableIndexing();
+		requirement.put(BasePackage.Literals.IDESCRIBED__DESCRIPTION.getName(), "TEST ZAP");
+		updateObject(requirement, requirementId);
+		deleteObject(requirementId2);
+		searchService.enableIndexing();
+		Assert.assertEquals(2, performSearch(Map.of("query", "zorp", "lightweight", "true")).length());
+
+		progress = performReindex();
+		Assert.assertEquals(1, progress.getLong("updated"));
+		Assert.assertEquals(1, progress.getLong("deleted"));
+		Assert.assertEquals(0, performSearch("zorp").length());
+		Assert.assertEquals(1, performSearch("zap").length());
+	}
+
+	@Test
+	public void testFullReIndexing() throws InterruptedException {
+		searchService.disableIndexing();
+		JSONObject requirement = createTestRequirement();
+		requirement.put(BasePackage.Literals.IDESCRIBED__DESCRIPTION.getName(), "TEST GLORP");
+		postObject(requirement);
+		searchService.enableIndexing();
+		Assert.assertEquals(0, performSearch("glorp").length());
+
+		// Changes during the rebuild are applied to the rebuilt index
+		JSONObject progress = startReindex(Map.of("full", "true"));
+		Assert.assertTrue(progress.getBoolean("full"));
+		JSONObject requirement2 = createTestRequirement();
+		requirement2.put(BasePackage.Literals.IDESCRIBED__DESCRIPTION.getName(), "TEST GLORP");
+		postObject(requirement2);
+
+		progress = awaitReindex(progress);
+		Assert.assertTrue(progress.getLong("updated") >= 1);
+		awaitSearch(Map.of("query", "glorp"), 2);
+	}
+
+	@Test
+	public void testProjectReIndexing() throws InterruptedException {
+		searchService.disableIndexing();
+		JSONObject requirement = createTestRequirement();
+		requirement.put(BasePackage.Literals.IDESCRIBED__DESCRIPTION.getName(), "TEST FRUMP");
+		postObject(requirement);
+		String project = getSelectedProjectName();
+		nextProject();
+		JSONObject requirement2 = createTestRequirement();
+		requirement2.put(BasePackage.Literals.IDESCRIBED__DESCRIPTION.getName(), "TEST FRUMP");
+		postObject(requirement2);
+		searchService.enableIndexing();
+
+		// Only the objects of the reindexed project are indexed
+		resetSelectedProject();
+		JSONObject progress = awaitReindex(startReindex(restClient, buildProjectUrl("reindex"), Map.of()));
+		Assert.assertEquals(project, progress.getString("project"));
+		Assert.assertEquals(1, performSearch("frump").length());
+		nextProject();
+		Assert.assertEquals(0, performSearch("frump").length());
+
+		progress = awaitReindex(startReindex(restClient, buildProjectUrl("reindex"), Map.of("full", "true")));
+		Assert.assertTrue(progress.getBoolean("full"));
+		awaitSearch(Map.of("query", "frump"), 1);
+		resetSelectedProject();
+	}
+
+	@Test
+	public void testConsistencyCheck() throws InterruptedException {
+		JSONObject requirement = createTestRequirement();
+		requirement.put(BasePackage.Literals.IDESCRIBED__DESCRIPTION.getName(), "TEST BLURP");
+		postObject(requirement);
+		String requirementId = getId(requirement);
+		JSONObject requirement2 = createTestRequirement();
+		postObject(requirement2);
+		String requirementId2 = getId(requirement2);
+
+		// Bring the index up to date, afterwards it is consistent
+		checkConsistency(true);
+		JSONObject report = checkConsistency(false);
+		Assert.assertTrue(report.getBoolean("consistent"));
+		Assert.assertEquals(getSelectedProjectName(), report.getString("project"));
+
+		// Add, change and delete objects without updating the index
+		searchService.disableIndexing();
+		JSONObject requirement3 = createTestRequirement();
+		postObject(requirement3);
+		requirement.put(BasePackage.Literals.IDESCRIBED__DESCRIPTION.getName(), "TEST BLAP");
+		updateObject(requirement, requirementId);
+		deleteObject(requirementId2);
+		searchService.enableIndexing();
+
+		report = checkConsistency(false);
+		Assert.assertFalse(report.getBoolean("consistent"));
+		Assert.assertEquals(1, report.getLong("missing"));
+		Assert.assertEquals(1, report.getLong("stale"));
+		Assert.assertEquals(1, report.getLong("orphaned"));
+		JSONObject projectReport = report.getJSONArray("projects").getJSONObject(0);
+		Assert.assertEquals(getId(requirement3), projectReport.getJSONArray("missingIds").getString(0));
+		Assert.assertEquals(requirementId, projectReport.getJSONArray("staleIds").getString(0));
+		Assert.assertEquals(requirementId2, projectReport.getJSONArray("orphanedIds").getString(0));
+		Assert.assertEquals(1, performSearch("blurp").length());
+
+		report = checkConsistency(true);
+		Assert.assertTrue(report.getBoolean("repaired"));
+		Assert.assertTrue(checkConsistency(false).getBoolean("consistent"));
+		Assert.assertEquals(0, performSearch("blurp").length());
+		Assert.assertEquals(1, performSearch("blap").length());
+	}
+
 	@Test
 	public void testRelatedRequirements() {
 		JSONObject requirement = postRequirement();
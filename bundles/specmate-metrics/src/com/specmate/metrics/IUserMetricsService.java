@@ -1,9 +1,28 @@
 package com.specmate.metrics;
 
+import com.specmate.common.exception.SpecmateException;
 import com.specmate.persistency.IView;
 
 public interface IUserMetricsService {
 
+	/** Counts the distinct users that were active after a given time */
+	@FunctionalInterface
+	interface IActiveUsers {
+		int countActiveAfter(long time) throws SpecmateException;
+	}
+
 	void loginCounter(IView sessionView, String userName);
 
+	/**
+	 * Counts a login of a user whose sessions are not stored in the model, given
+	 * the time the user was last active before, or 0 if never.
+	 */
+	void loginCounter(String userName, long lastActive);
+
+	/**
+	 * Sets the counters from the users of sessions that are not stored in the
+	 * model, replacing the values read from the model at startup.
+	 */
+	void initializeLoginCounters(IActiveUsers activeUsers) throws SpecmateException;
+
 }
@@ -12,6 +12,7 @@ import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.log.LogService;
 
 import com.specmate.scheduler.*;
 import com.specmate.common.exception.SpecmateException;
@@ -27,6 +28,7 @@ public class UserMetricService implements IUserMetricsService {
 
 	private IPersistencyService persistencyService;
 	private IMetricsService metricsService;
+	private LogService logService;
 	private IView sessionView;
 	
 	private IGauge specmate_current_day;
@@ -46,7 +48,11 @@ public class UserMetricService implements IUserMetricsService {
 		this.specmate_current_year = metricsService.
 				createGauge("login_counter_current_year", "Number of users logged in at the current year");
 		createSchedulers();
-		initializeAfterResart();
+		try {
+			initializeLoginCounters(this::countActiveSessionUsers);
+		} catch (SpecmateException e) {
+			logService.log(LogService.LOG_ERROR, "Could not initialize the login counters.", e);
+		}
 	}
 	
 	@Deactivate
@@ -58,13 +64,14 @@ public class UserMetricService implements IUserMetricsService {
 	}
 	
 	/**
-	 * 	initialize counter after restart with the currently active sessions
+	 * 	initialize counter after restart with the users that were active in the respective period
 	 * */
-	private void initializeAfterResart() {
-		initializeGaugeCurrentDay();
-		initializeGaugeCurrentWeek();
-		initializeGaugeCurrentMonth();
-		initializeGaugeCurrentYear();
+	@Override
+	public void initializeLoginCounters(IActiveUsers activeUsers) throws SpecmateException {
+		initializeGauge(activeUsers.countActiveAfter(TimeUtil.getDiffDay()), CounterType.CURRENTDAY);
+		initializeGauge(activeUsers.countActiveAfter(TimeUtil.getDiffWeek()), CounterType.CURRENTWEEK);
+		initializeGauge(activeUsers.countActiveAfter(TimeUtil.getDiffMonth()), CounterType.CURRENTMONTH);
+		initializeGauge(activeUsers.countActiveAfter(TimeUtil.getDiffYear()), CounterType.CURRENTYEAR);
 	}
 	
 	/**
@@ -149,6 +156,21 @@ public class UserMetricService implements IUserMetricsService {
 		}
 	}
 	
+	public void loginCounter(String userName, long lastActive) {
+		if (lastActive <= TimeUtil.getDiffDay()) {
+			specmate_current_day.inc();
+		}
+		if (lastActive <= TimeUtil.getDiffWeek()) {
+			specmate_current_week.inc();
+		}
+		if (lastActive <= TimeUtil.getDiffMonth()) {
+			specmate_current_month.inc();
+		}
+		if (lastActive <= TimeUtil.getDiffYear()) {
+			specmate_current_year.inc();
+		}
+	}
+
 	/**
 	 * 
 	 * @param sessionView
@@ -195,38 +217,19 @@ public class UserMetricService implements IUserMetricsService {
 	}
 	
 	/**
-	 * Use the session view to identify how many session existed before startup of system and set 
-	 * the counter correspondingly
+	 * Use the session view to identify how many users had sessions in the model after the given time
 	 * */
-	private void initializeGauge(long difference, IGauge gauge) {
+	private int countActiveSessionUsers(long difference) {
 		 
 		String sqlQuery = "SELECT DISTINCT username FROM UserSession WHERE lastActive>:time";
 
 		List<Object> results = sessionView.querySQL(sqlQuery,
 				UsermodelFactory.eINSTANCE.getUsermodelPackage().getUserSession(), difference);
-		int numberOfSessions = results.size();
-	 
-		gauge.set(numberOfSessions);
-	}
-	
-	private void initializeGaugeCurrentDay() {
-		IGauge gauge = getCurrentGauge(CounterType.CURRENTDAY);
-		initializeGauge(TimeUtil.getDiffDay(), gauge);
-	}
-	
-	private void initializeGaugeCurrentWeek() {
-		IGauge gauge = getCurrentGauge(CounterType.CURRENTWEEK);
-		initializeGauge(TimeUtil.getDiffWeek(), gauge);
+		return results.size();
 	}
 	
-	private void initializeGaugeCurrentMonth() {
-		IGauge gauge = getCurrentGauge(CounterType.CURRENTMONTH);
-		initializeGauge(TimeUtil.getDiffMonth(), gauge);
-	}
-	
-	private void initializeGaugeCurrentYear() {
-		IGauge gauge = getCurrentGauge(CounterType.CURRENTYEAR);
-		initializeGauge(TimeUtil.getDiffYear(), gauge);
+	private void initializeGauge(int numberOfUsers, CounterType counterType) {
+		getCurrentGauge(counterType).set(numberOfUsers);
 	}
 	 
 	private IGauge getCurrentGauge(CounterType counterType) {
@@ -257,4 +260,9 @@ public class UserMetricService implements IUserMetricsService {
 	public void setPersistencyService(IPersistencyService persistencyService) {
 		this.persistencyService = persistencyService;
 	}
+
+	@Reference
+	public void setLogService(LogService logService) {
+		this.logService = logService;
+	}
 }
\ No newline at end of file
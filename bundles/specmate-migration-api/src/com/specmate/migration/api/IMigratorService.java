@@ -7,4 +7,21 @@ public interface IMigratorService {
 	boolean needsMigration() throws SpecmateException;
 
 	void doMigration() throws SpecmateException;
+
+	/**
+	 * Tells whether a pending migration should only be planned with
+	 * {@link #dryRunMigration()} instead of being performed
+	 */
+	boolean isDryRun();
+
+	/**
+	 * Runs the migration without changing the database and logs the statements
+	 * of each step with the estimated number of affected rows
+	 *
+	 * @return the recorded statements of each step with their estimates
+	 */
+	MigrationPlan dryRunMigration() throws SpecmateException;
+
+	/** Creates the missing secondary indexes of frequently queried columns */
+	void ensureIndexes() throws SpecmateException;
 }
@@ -0,0 +1,101 @@
+package com.specmate.migration.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The statements a pending migration would execute, as recorded by a dry run,
+ * with the estimated number of rows each statement changes.
+ */
+public class MigrationPlan {
+
+	/** Estimate of a statement whose changed rows cannot be estimated */
+	public static final long UNKNOWN = -1;
+
+	private List<Step> steps = new ArrayList<>();
+
+	/** Adds a migration step in the order of execution */
+	public Step addStep(String name) {
+		Step step = new Step(name);
+		steps.add(step);
+		return step;
+	}
+
+	/** Returns the migration steps in the order of execution */
+	public List<Step> getSteps() {
+		return Collections.unmodifiableList(steps);
+	}
+
+	/** Returns the estimated number of changed rows of all known estimates */
+	public long getTotalRows() {
+		return steps.stream().mapToLong(Step::getRows).sum();
+	}
+
+	/** Returns the number of statements and failed steps without an estimate */
+	public int getUnknownCount() {
+		return steps.stream().mapToInt(Step::getUnknownCount).sum();
+	}
+
+	@Override
+	public String toString() {
+		int unknown = getUnknownCount();
+		return "Dry run of the migration: " + getTotalRows() + " rows would be changed"
+				+ (unknown > 0 ? ", the changes of " + unknown + " statements or steps are unknown." : ".");
+	}
+
+	/** A migration step with its recorded statements */
+	public static class Step {
+		private String name;
+		private List<String> statements = new ArrayList<>();
+		private List<Long> estimates = new ArrayList<>();
+		private boolean failed;
+
+		private Step(String name) {
+			this.name = name;
+		}
+
+		/** Adds a statement with its estimated changed rows or {@link #UNKNOWN} */
+		public void addStatement(String statement, long rows) {
+			statements.add(statement);
+			estimates.add(rows);
+		}
+
+		/** Marks the step as failed, its changes cannot be estimated */
+		public void setFailed() {
+			failed = true;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public List<String> getStatements() {
+			return Collections.unmodifiableList(statements);
+		}
+
+		/** Returns the estimated changed rows per statement */
+		public List<Long> getEstimates() {
+			return Collections.unmodifiableList(estimates);
+		}
+
+		public boolean isFailed() {
+			return failed;
+		}
+
+		/** Returns the estimated number of changed rows of all known estimates */
+		public long getRows() {
+			return estimates.stream().filter(rows -> rows != UNKNOWN).mapToLong(Long::longValue).sum();
+		}
+
+		private int getUnknownCount() {
+			return (int) estimates.stream().filter(rows -> rows == UNKNOWN).count() + (failed ? 1 : 0);
+		}
+
+		@Override
+		public String toString() {
+			return name + ": " + statements.size() + " statements, " + getRows() + " rows"
+					+ (failed ? ", failed" : "");
+		}
+	}
+}
@@ -75,7 +75,7 @@ public class TestMigratorImpl implements IMigrator {
 	}
 
 	private void migrateAttributeAdded(Connection connection) throws SpecmateException {
-		IAttributeToSQLMapper aAdded = dbProvider.getAttributeToSQLMapper(packageName, getSourceVersion(),
+		IAttributeToSQLMapper aAdded = dbProvider.getAttributeToSQLMapper(connection, packageName, getSourceVersion(),
 				getTargetVersion());
 
 		String folder = com.specmate.migration.test.attributeadded.testmodel.base.BasePackage.Literals.FOLDER.getName();
@@ -99,7 +99,7 @@ public class TestMigratorImpl implements IMigrator {
 	}
 
 	private void migrateSeveralAttributesAdded(Connection connection) throws SpecmateException {
-		IAttributeToSQLMapper aAdded = dbProvider.getAttributeToSQLMapper(packageName, getSourceVersion(),
+		IAttributeToSQLMapper aAdded = dbProvider.getAttributeToSQLMapper(connection, packageName, getSourceVersion(),
 				getTargetVersion());
 
 		String folder = com.specmate.migration.test.severalattributesadded.testmodel.base.BasePackage.Literals.FOLDER
@@ -147,11 +147,11 @@ public class TestMigratorImpl implements IMigrator {
 		String contents = com.specmate.migration.test.objectadded.testmodel.base.BasePackage.Literals.ICONTAINER__CONTENTS
 				.getName();
 
-		IObjectToSQLMapper oAdded = dbProvider.getObjectToSQLMapper(packageName, getSourceVersion(),
+		IObjectToSQLMapper oAdded = dbProvider.getObjectToSQLMapper(connection, packageName, getSourceVersion(),
 				getTargetVersion());
 		oAdded.newObject(document);
 
-		IAttributeToSQLMapper aAdded = dbProvider.getAttributeToSQLMapper(packageName, getSourceVersion(),
+		IAttributeToSQLMapper aAdded = dbProvider.getAttributeToSQLMapper(connection, packageName, getSourceVersion(),
 				getTargetVersion());
 		aAdded.migrateNewStringAttribute(document, id, "");
 		aAdded.migrateNewBooleanAttribute(document, tested, false);
@@ -161,7 +161,7 @@ public class TestMigratorImpl implements IMigrator {
 	}
 
 	private void migrateAttributeRenamed(Connection connection) throws SpecmateException {
-		IAttributeToSQLMapper aRenamed = dbProvider.getAttributeToSQLMapper(packageName, getSourceVersion(),
+		IAttributeToSQLMapper aRenamed = dbProvider.getAttributeToSQLMapper(connection, packageName, getSourceVersion(),
 				getTargetVersion());
 
 		String diagram = com.specmate.migration.test.attributerenamed.testmodel.artefact.ArtefactPackage.Literals.DIAGRAM
@@ -178,8 +178,8 @@ public class TestMigratorImpl implements IMigrator {
 	}
 
 	private void migrateTypesChanged(Connection connection) throws SpecmateException {
-		IAttributeToSQLMapper aTypeChanged = dbProvider.getAttributeToSQLMapper(packageName, getSourceVersion(),
-				getTargetVersion());
+		IAttributeToSQLMapper aTypeChanged = dbProvider.getAttributeToSQLMapper(connection, packageName,
+				getSourceVersion(), getTargetVersion());
 
 		String sketch = com.specmate.migration.test.changedtypes.testmodel.artefact.ArtefactPackage.Literals.SKETCH
 				.getName();
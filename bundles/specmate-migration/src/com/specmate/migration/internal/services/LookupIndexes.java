@@ -0,0 +1,185 @@
+package com.specmate.migration.internal.services;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EPackage;
+
+import com.specmate.common.exception.SpecmateException;
+import com.specmate.common.exception.SpecmateInternalException;
+import com.specmate.model.administration.ErrorCode;
+
+/**
+ * Secondary indexes on the columns of frequently queried attributes.
+ *
+ * The DB store of CDO only indexes its own columns. With the horizontal
+ * mapping, each concrete class has a table named after the class with a column
+ * per single-valued attribute, hence a declared index is created on every
+ * class table that maps all of its attributes. The revision end is added as
+ * last column, as lookups only ask for current revisions. An index is only
+ * created if the table has no index starting with the same columns, such that
+ * maintaining the indexes is idempotent. Indexes are named after the table and
+ * the declared columns, shortened to the identifier limit of Oracle.
+ */
+public class LookupIndexes {
+
+	private static final String REVISED = "CDO_REVISED";
+
+	private static final String INDEX_PREFIX = "IX_";
+
+	/** Maximum length of identifiers in Oracle before 12.2 */
+	private static final int MAX_NAME_LENGTH = 30;
+
+	private List<List<EAttribute>> declarations = new ArrayList<>();
+
+	/** Declares an index on the given attributes, in that order */
+	public LookupIndexes declare(EAttribute... attributes) {
+		declarations.add(Arrays.asList(attributes));
+		return this;
+	}
+
+	/**
+	 * Creates the declared indexes on the class tables of the given packages
+	 * that do not have them yet. Tables that do not exist yet are skipped.
+	 *
+	 * @return the names of the created indexes
+	 */
+	public List<String> ensure(Connection connection, Collection<? extends EPackage> packages)
+			throws SpecmateException {
+		List<String> created = new ArrayList<>();
+		try {
+			DatabaseMetaData metaData = connection.getMetaData();
+			for (EClass eClass : getConcreteClasses(packages)) {
+				String table = eClass.getName().toUpperCase(Locale.ENGLISH);
+				Set<String> columns = getColumns(metaData, table);
+				if (columns.isEmpty()) {
+					continue;
+				}
+				Collection<List<String>> indexes = null;
+				for (List<EAttribute> declaration : declarations) {
+					List<String> indexColumns = getColumns(eClass, declaration);
+					if (indexColumns == null || !columns.containsAll(indexColumns)) {
+						continue;
+					}
+					if (indexes == null) {
+						indexes = getIndexes(metaData, table);
+					}
+					if (isIndexed(indexes, indexColumns)) {
+						continue;
+					}
+					String name = getIndexName(table, indexColumns);
+					indexColumns.add(REVISED);
+					try (Statement statement = connection.createStatement()) {
+						statement.execute("CREATE INDEX " + name + " ON " + table + " ("
+								+ String.join(", ", indexColumns) + ")");
+					}
+					indexes.add(indexColumns);
+					created.add(name);
+				}
+			}
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.MIGRATION, "Could not create lookup indexes.", e);
+		}
+		return created;
+	}
+
+	/**
+	 * Returns the name of the index on the columns of the table. Names that
+	 * exceed the identifier limit are cut and end with a checksum of the full
+	 * name, such that different indexes keep different names.
+	 */
+	/* package */static String getIndexName(String table, List<String> columns) {
+		String name = INDEX_PREFIX + table + "_" + String.join("_", columns);
+		if (name.length() <= MAX_NAME_LENGTH) {
+			return name;
+		}
+		CRC32 checksum = new CRC32();
+		checksum.update(name.getBytes(StandardCharsets.UTF_8));
+		String suffix = String.format("_%08X", checksum.getValue());
+		return name.substring(0, MAX_NAME_LENGTH - suffix.length()) + suffix;
+	}
+
+	/**
+	 * Returns the columns of the attributes in the table of the class, or
+	 * <code>null</code> if the class does not map all attributes to columns
+	 */
+	private List<String> getColumns(EClass eClass, List<EAttribute> attributes) {
+		List<String> columns = new ArrayList<>();
+		for (EAttribute attribute : attributes) {
+			if (!eClass.getEAllAttributes().contains(attribute) || attribute.isMany()) {
+				return null;
+			}
+			columns.add(attribute.getName().toUpperCase(Locale.ENGLISH));
+		}
+		return columns;
+	}
+
+	private boolean isIndexed(Collection<List<String>> indexes, List<String> columns) {
+		for (List<String> index : indexes) {
+			if (index.size() >= columns.size() && index.subList(0, columns.size()).equals(columns)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private List<EClass> getConcreteClasses(Collection<? extends EPackage> packages) {
+		List<EClass> classes = new ArrayList<>();
+		for (EPackage ePackage : packages) {
+			for (EClassifier classifier : ePackage.getEClassifiers()) {
+				if (classifier instanceof EClass && !((EClass) classifier).isAbstract()
+						&& !((EClass) classifier).isInterface()) {
+					classes.add((EClass) classifier);
+				}
+			}
+		}
+		return classes;
+	}
+
+	private Set<String> getColumns(DatabaseMetaData metaData, String table) throws SQLException {
+		Set<String> columns = new HashSet<>();
+		try (ResultSet result = metaData.getColumns(null, null, table, null)) {
+			while (result.next()) {
+				columns.add(result.getString("COLUMN_NAME").toUpperCase(Locale.ENGLISH));
+			}
+		}
+		return columns;
+	}
+
+	/** Returns the columns of the existing indexes of the table */
+	private Collection<List<String>> getIndexes(DatabaseMetaData metaData, String table) throws SQLException {
+		Map<String, Map<Short, String>> indexes = new TreeMap<>();
+		try (ResultSet result = metaData.getIndexInfo(null, null, table, false, true)) {
+			while (result.next()) {
+				String index = result.getString("INDEX_NAME");
+				String column = result.getString("COLUMN_NAME");
+				if (index != null && column != null) {
+					indexes.computeIfAbsent(index, i -> new TreeMap<>()).put(result.getShort("ORDINAL_POSITION"),
+							column.toUpperCase(Locale.ENGLISH));
+				}
+			}
+		}
+		List<List<String>> columns = new ArrayList<>();
+		for (Map<Short, String> index : indexes.values()) {
+			columns.add(new ArrayList<>(index.values()));
+		}
+		return columns;
+	}
+}
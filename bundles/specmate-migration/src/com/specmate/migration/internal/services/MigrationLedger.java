@@ -0,0 +1,142 @@
+package com.specmate.migration.internal.services;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import com.specmate.common.exception.SpecmateException;
+import com.specmate.common.exception.SpecmateInternalException;
+import com.specmate.model.administration.ErrorCode;
+
+/**
+ * Records the completion of the single steps of a migration in a table of the
+ * database.
+ *
+ * The model version stored by CDO only changes once all steps succeeded. If a
+ * migration fails, the steps that completed before are skipped when the
+ * migration is restarted. Once the whole migration succeeded, its steps are
+ * marked as applied, such that the table keeps the history of migrations.
+ */
+public class MigrationLedger {
+
+	/** The table of the ledger */
+	static final String LEDGER_TABLE = "SPECMATE_MIGRATION";
+
+	/** The step is running or has been interrupted */
+	public static final String RUNNING = "RUNNING";
+
+	/** The step failed */
+	public static final String FAILED = "FAILED";
+
+	/** The step completed, but the migration has not yet completed */
+	public static final String COMPLETED = "COMPLETED";
+
+	/** The step is part of a completed migration */
+	public static final String APPLIED = "APPLIED";
+
+	private static final int MAX_MESSAGE_LENGTH = 4000;
+
+	private final Connection connection;
+
+	public MigrationLedger(Connection connection) {
+		this.connection = connection;
+	}
+
+	/** Creates the table of the ledger if it does not exist */
+	public void initialize() throws SpecmateException {
+		try {
+			boolean exists;
+			try (ResultSet tables = connection.getMetaData().getTables(null, null, LEDGER_TABLE, null)) {
+				exists = tables.next();
+			}
+			if (!exists) {
+				try (Statement statement = connection.createStatement()) {
+					statement.execute("CREATE TABLE " + LEDGER_TABLE + " (SOURCE_VERSION VARCHAR(64) NOT NULL, "
+							+ "TARGET_VERSION VARCHAR(64) NOT NULL, STATUS VARCHAR(16) NOT NULL, "
+							+ "STARTED NUMBER(19), FINISHED NUMBER(19), MESSAGE VARCHAR(" + MAX_MESSAGE_LENGTH
+							+ "), PRIMARY KEY (SOURCE_VERSION, TARGET_VERSION))");
+				}
+			}
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.MIGRATION, "Could not create the migration ledger.", e);
+		}
+	}
+
+	/** Returns whether the step completed in a previous, unfinished migration */
+	public boolean isCompleted(String sourceVersion, String targetVersion) throws SpecmateException {
+		return COMPLETED.equals(getStatus(sourceVersion, targetVersion));
+	}
+
+	/** Returns the recorded status of a step, or <code>null</code> */
+	public String getStatus(String sourceVersion, String targetVersion) throws SpecmateException {
+		try (PreparedStatement select = connection.prepareStatement("SELECT STATUS FROM " + LEDGER_TABLE
+				+ " WHERE SOURCE_VERSION = ? AND TARGET_VERSION = ?")) {
+			select.setString(1, sourceVersion);
+			select.setString(2, targetVersion);
+			try (ResultSet result = select.executeQuery()) {
+				return result.next() ? result.getString(1) : null;
+			}
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.MIGRATION, "Could not read the migration ledger.", e);
+		}
+	}
+
+	/** Records that a step started */
+	public void started(String sourceVersion, String targetVersion) throws SpecmateException {
+		try (PreparedStatement delete = connection.prepareStatement(
+				"DELETE FROM " + LEDGER_TABLE + " WHERE SOURCE_VERSION = ? AND TARGET_VERSION = ?");
+				PreparedStatement insert = connection.prepareStatement("INSERT INTO " + LEDGER_TABLE
+						+ " (SOURCE_VERSION, TARGET_VERSION, STATUS, STARTED) VALUES (?, ?, ?, ?)")) {
+			delete.setString(1, sourceVersion);
+			delete.setString(2, targetVersion);
+			delete.executeUpdate();
+			insert.setString(1, sourceVersion);
+			insert.setString(2, targetVersion);
+			insert.setString(3, RUNNING);
+			insert.setLong(4, System.currentTimeMillis());
+			insert.executeUpdate();
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.MIGRATION, "Could not write the migration ledger.", e);
+		}
+	}
+
+	/** Records that a step completed */
+	public void completed(String sourceVersion, String targetVersion) throws SpecmateException {
+		finished(sourceVersion, targetVersion, COMPLETED, null);
+	}
+
+	/** Records that a step failed */
+	public void failed(String sourceVersion, String targetVersion, String message) throws SpecmateException {
+		finished(sourceVersion, targetVersion, FAILED, message);
+	}
+
+	/** Marks the completed steps as applied, once the whole migration succeeded */
+	public void applied() throws SpecmateException {
+		try (PreparedStatement update = connection
+				.prepareStatement("UPDATE " + LEDGER_TABLE + " SET STATUS = ? WHERE STATUS = ?")) {
+			update.setString(1, APPLIED);
+			update.setString(2, COMPLETED);
+			update.executeUpdate();
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.MIGRATION, "Could not write the migration ledger.", e);
+		}
+	}
+
+	private void finished(String sourceVersion, String targetVersion, String status, String message)
+			throws SpecmateException {
+		try (PreparedStatement update = connection.prepareStatement("UPDATE " + LEDGER_TABLE
+				+ " SET STATUS = ?, FINISHED = ?, MESSAGE = ? WHERE SOURCE_VERSION = ? AND TARGET_VERSION = ?")) {
+			update.setString(1, status);
+			update.setLong(2, System.currentTimeMillis());
+			update.setString(3, message != null && message.length() > MAX_MESSAGE_LENGTH
+					? message.substring(0, MAX_MESSAGE_LENGTH) : message);
+			update.setString(4, sourceVersion);
+			update.setString(5, targetVersion);
+			update.executeUpdate();
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.MIGRATION, "Could not write the migration ledger.", e);
+		}
+	}
+}
@@ -36,19 +36,19 @@ public class Migrator20180126 implements IMigrator {
 		updateExternalRefs(connection);
 
 		// new attribute expected outcome
-		IAttributeToSQLMapper expOutcomeAdded = dbProvider.getAttributeToSQLMapper("model/processes",
+		IAttributeToSQLMapper expOutcomeAdded = dbProvider.getAttributeToSQLMapper(connection, "model/processes",
 				getSourceVersion(), getTargetVersion());
 
 		expOutcomeAdded.migrateNewStringAttribute("ProcessStep", "expectedOutcome", "");
 
 		// new object status
 		String objectName = "Status";
-		IObjectToSQLMapper oAdded = dbProvider.getObjectToSQLMapper("model/administration", getSourceVersion(),
-				getTargetVersion());
+		IObjectToSQLMapper oAdded = dbProvider.getObjectToSQLMapper(connection, "model/administration",
+				getSourceVersion(), getTargetVersion());
 		oAdded.newObject(objectName);
 
 		// new attribute value@Status
-		IAttributeToSQLMapper valueAdded = dbProvider.getAttributeToSQLMapper("model/administration",
+		IAttributeToSQLMapper valueAdded = dbProvider.getAttributeToSQLMapper(connection, "model/administration",
 				getSourceVersion(), getTargetVersion());
 		// value is a reserved term, hence cdo will use the attribute name
 		// "value0"
@@ -30,7 +30,7 @@ public class Migrator20180412 implements IMigrator {
 		String packageName = "model/user";
 		// rename attributes in user Object (since "User" is a protected term in CDO,
 		// CDO adds a "0" to the name)
-		IAttributeToSQLMapper aMapper = dbProvider.getAttributeToSQLMapper(packageName, getSourceVersion(),
+		IAttributeToSQLMapper aMapper = dbProvider.getAttributeToSQLMapper(connection, packageName, getSourceVersion(),
 				getTargetVersion());
 
 		aMapper.migrateRenameAttribute("User0", "name", "userName");
@@ -38,7 +38,7 @@ public class Migrator20180412 implements IMigrator {
 		aMapper.migrateRenameAttribute("User0", "salt", "projectName");
 
 		// Add new Object UserSession
-		IObjectToSQLMapper oMapper = dbProvider.getObjectToSQLMapper(packageName, getSourceVersion(),
+		IObjectToSQLMapper oMapper = dbProvider.getObjectToSQLMapper(connection, packageName, getSourceVersion(),
 				getTargetVersion());
 		oMapper.newObject("UserSession");
 
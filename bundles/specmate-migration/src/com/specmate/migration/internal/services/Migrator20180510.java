@@ -27,7 +27,7 @@ public class Migrator20180510 implements IMigrator {
 
 	@Override
 	public void migrate(Connection connection) throws SpecmateException {
-		IAttributeToSQLMapper aMapper = dbProvider.getAttributeToSQLMapper("model/user", getSourceVersion(),
+		IAttributeToSQLMapper aMapper = dbProvider.getAttributeToSQLMapper(connection, "model/user", getSourceVersion(),
 				getTargetVersion());
 
 		aMapper.migrateRenameAttribute("UserSession", "accessRights", "PPMRights");
@@ -27,7 +27,7 @@ public class Migrator20180529 implements IMigrator {
 
 	@Override
 	public void migrate(Connection connection) throws SpecmateException {
-		IAttributeToSQLMapper aMapper = dbProvider.getAttributeToSQLMapper("model/user", getSourceVersion(),
+		IAttributeToSQLMapper aMapper = dbProvider.getAttributeToSQLMapper(connection, "model/user", getSourceVersion(),
 				getTargetVersion());
 
 		aMapper.migrateNewStringAttribute("UserSession", "userName", "");
@@ -27,7 +27,7 @@ public class Migrator20180616 implements IMigrator {
 
 	@Override
 	public void migrate(Connection connection) throws SpecmateException {
-		IAttributeToSQLMapper aMapper = dbProvider.getAttributeToSQLMapper("model/testspecification",
+		IAttributeToSQLMapper aMapper = dbProvider.getAttributeToSQLMapper(connection, "model/testspecification",
 				getSourceVersion(), getTargetVersion());
 
 		aMapper.migrateNewBooleanAttribute("TestCase", "consistent", true);
@@ -27,7 +27,7 @@ public class Migrator20180720 implements IMigrator {
 
 	@Override
 	public void migrate(Connection connection) throws SpecmateException {
-		IAttributeToSQLMapper aMapper = dbProvider.getAttributeToSQLMapper("model/user",
+		IAttributeToSQLMapper aMapper = dbProvider.getAttributeToSQLMapper(connection, "model/user",
 				getSourceVersion(), getTargetVersion());
 
 		aMapper.migrateNewStringReference("UserSession", "libraryFolders");
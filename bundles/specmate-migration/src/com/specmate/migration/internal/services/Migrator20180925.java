@@ -30,12 +30,12 @@ public class Migrator20180925 implements IMigrator {
 	public void migrate(Connection connection) throws SpecmateException {
 		String objectName = "Export";
 		String packageName = "model/testspecification";
-		IObjectToSQLMapper oMapper = dbProvider.getObjectToSQLMapper(packageName, getSourceVersion(),
+		IObjectToSQLMapper oMapper = dbProvider.getObjectToSQLMapper(connection, packageName, getSourceVersion(),
 				getTargetVersion());
 
 		oMapper.newObject(objectName);
 
-		IAttributeToSQLMapper aMapper = dbProvider.getAttributeToSQLMapper(packageName, getSourceVersion(),
+		IAttributeToSQLMapper aMapper = dbProvider.getAttributeToSQLMapper(connection, packageName, getSourceVersion(),
 				getTargetVersion());
 		aMapper.migrateNewStringAttribute(objectName, "name", "");
 		// "language" seems to be a reserved term, hence CDO uses "language0"
@@ -1,8 +1,6 @@
 package com.specmate.migration.internal.services;
 
 import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -17,6 +15,7 @@ import com.specmate.config.api.IConfigService;
 import com.specmate.connectors.api.IProjectConfigService;
 import com.specmate.dbprovider.api.IDBProvider;
 import com.specmate.dbprovider.api.migration.IAttributeToSQLMapper;
+import com.specmate.dbprovider.api.migration.SQLBatch;
 import com.specmate.dbprovider.api.migration.SQLUtil;
 import com.specmate.migration.api.IMigrator;
 import com.specmate.model.administration.ErrorCode;
@@ -40,13 +39,15 @@ public class Migrator20181108 implements IMigrator {
 
 	@Override
 	public void migrate(Connection connection) throws SpecmateException {
-		IAttributeToSQLMapper aMapper = this.dbProvider.getAttributeToSQLMapper("model/base", getSourceVersion(),
-				getTargetVersion());
+		IAttributeToSQLMapper aMapper = this.dbProvider.getAttributeToSQLMapper(connection, "model/base",
+				getSourceVersion(), getTargetVersion());
 		aMapper.migrateNewBooleanAttribute("Folder", "library", false);
 
 		String[] projectsIDs = this.configService.getConfigurationPropertyArray(IProjectConfigService.KEY_PROJECT_IDS);
+		String sql = "UPDATE FOLDER set library = " + this.dbProvider.getTrueLiteral() + " WHERE CDO_ID = ?";
 
-		try {
+		try (SQLBatch batch = new SQLBatch(connection, MigratorService.getBatchSize(this.configService),
+				"Could not add isLibrary attribute to Folder table.")) {
 			if (projectsIDs != null) {
 				for (int i = 0; i < projectsIDs.length; i++) {
 					String projectID = projectsIDs[i];
@@ -62,19 +63,12 @@ public class Migrator20181108 implements IMigrator {
 									"Failed to retrieve library folder for project " + projectID);
 						}
 						for (Integer cdo_id : foldersToUpdate) {
-							String trueLiteral = this.dbProvider.getTrueLiteral();
-							String sql = "UPDATE FOLDER set library = " + trueLiteral + " WHERE CDO_ID = '" + cdo_id
-									+ "'";
-							PreparedStatement stmt = connection.prepareStatement(sql);
-							stmt.execute();
-							stmt.close();
+							batch.add(sql, cdo_id);
 						}
 					}
 				}
 			}
-		} catch (SQLException e) {
-			throw new SpecmateInternalException(ErrorCode.MIGRATION,
-					"Could not add isLibrary attribute to Folder table.", e);
+			batch.commit();
 		}
 
 	}
@@ -28,28 +28,28 @@ public class Migrator20181210 implements IMigrator {
 
 	@Override
 	public void migrate(Connection connection) throws SpecmateException {
-		createProblemDetailClass();
-		createModelRequirementAttribute();
+		createProblemDetailClass(connection);
+		createModelRequirementAttribute(connection);
 	}
 
-	private void createProblemDetailClass() throws SpecmateException {
+	private void createProblemDetailClass(Connection connection) throws SpecmateException {
 		String packageName = "model/administration";
 		String objectName = "ProblemDetail";
 
-		IObjectToSQLMapper oMapper = this.dbProvider.getObjectToSQLMapper(packageName, getSourceVersion(),
-				getTargetVersion());
+		IObjectToSQLMapper oMapper = this.dbProvider.getObjectToSQLMapper(connection, packageName,
+				getSourceVersion(), getTargetVersion());
 		oMapper.newObject(objectName);
 
-		IAttributeToSQLMapper aMapper = this.dbProvider.getAttributeToSQLMapper(packageName, getSourceVersion(),
-				getTargetVersion());
+		IAttributeToSQLMapper aMapper = this.dbProvider.getAttributeToSQLMapper(connection, packageName,
+				getSourceVersion(), getTargetVersion());
 		aMapper.migrateNewIntegerAttribute(objectName, "ecode", null);
 		aMapper.migrateNewIntegerAttribute(objectName, "status", null);
 		aMapper.migrateNewStringAttribute(objectName, "detail", null);
 		aMapper.migrateNewStringAttribute(objectName, "instance", null);
 	}
 
-	private void createModelRequirementAttribute() throws SpecmateException {
-		IAttributeToSQLMapper aMapper = this.dbProvider.getAttributeToSQLMapper("model/requirements",
+	private void createModelRequirementAttribute(Connection connection) throws SpecmateException {
+		IAttributeToSQLMapper aMapper = this.dbProvider.getAttributeToSQLMapper(connection, "model/requirements",
 				getSourceVersion(), getTargetVersion());
 
 		aMapper.migrateNewStringAttribute("CEGModel", "modelRequirements", "");
@@ -27,17 +27,18 @@ public class Migrator20190125 implements IMigrator {
 
 	@Override
 	public void migrate(Connection connection) throws SpecmateException {
-		createWidthHeightAttributes("model/base", "IModelNode");
-		createWidthHeightAttributes("model/requirements", "CEGNode");
-		createWidthHeightAttributes("model/processes", "ProcessDecision");
-		createWidthHeightAttributes("model/processes", "ProcessEnd");
-		createWidthHeightAttributes("model/processes", "ProcessStart");
-		createWidthHeightAttributes("model/processes", "ProcessStep");
+		createWidthHeightAttributes(connection, "model/base", "IModelNode");
+		createWidthHeightAttributes(connection, "model/requirements", "CEGNode");
+		createWidthHeightAttributes(connection, "model/processes", "ProcessDecision");
+		createWidthHeightAttributes(connection, "model/processes", "ProcessEnd");
+		createWidthHeightAttributes(connection, "model/processes", "ProcessStart");
+		createWidthHeightAttributes(connection, "model/processes", "ProcessStep");
 	}
 
-	private void createWidthHeightAttributes(String packageName, String objectName) throws SpecmateException {
+	private void createWidthHeightAttributes(Connection connection, String packageName, String objectName)
+			throws SpecmateException {
 
-		IAttributeToSQLMapper aMapper = dbProvider.getAttributeToSQLMapper(packageName, getSourceVersion(),
+		IAttributeToSQLMapper aMapper = dbProvider.getAttributeToSQLMapper(connection, packageName, getSourceVersion(),
 				getTargetVersion());
 		aMapper.migrateNewDoubleAttribute(objectName, "width", 0.0);
 		aMapper.migrateNewDoubleAttribute(objectName, "height", 0.0);
@@ -27,12 +27,13 @@ public class Migrator20190902 implements IMigrator {
 
 	@Override
 	public void migrate(Connection connection) throws SpecmateException {
-		createLabelXYAttributes("model/processes", "ProcessConnection"); 
+		createLabelXYAttributes(connection, "model/processes", "ProcessConnection"); 
 	}
 
-	private void createLabelXYAttributes(String packageName, String objectName) throws SpecmateException {
+	private void createLabelXYAttributes(Connection connection, String packageName, String objectName)
+			throws SpecmateException {
 
-		IAttributeToSQLMapper aMapper = dbProvider.getAttributeToSQLMapper(packageName, getSourceVersion(),
+		IAttributeToSQLMapper aMapper = dbProvider.getAttributeToSQLMapper(connection, packageName, getSourceVersion(),
 				getTargetVersion());
 		aMapper.migrateNewDoubleAttribute(objectName, "labelX", 0.0);
 		aMapper.migrateNewDoubleAttribute(objectName, "labelY", 0.0);
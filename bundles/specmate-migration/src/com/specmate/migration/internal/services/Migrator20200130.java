@@ -28,23 +28,23 @@ public class Migrator20200130 implements IMigrator {
 
 	@Override
 	public void migrate(Connection connection) throws SpecmateException {
-		migrateExportObject();
-		migrateUserSessionDeletedFlag();
+		migrateExportObject(connection);
+		migrateUserSessionDeletedFlag(connection);
 	}
 
-	private void migrateUserSessionDeletedFlag() throws SpecmateException {
-		IAttributeToSQLMapper aMapper = dbProvider.getAttributeToSQLMapper("model/user", getSourceVersion(),
+	private void migrateUserSessionDeletedFlag(Connection connection) throws SpecmateException {
+		IAttributeToSQLMapper aMapper = dbProvider.getAttributeToSQLMapper(connection, "model/user", getSourceVersion(),
 				getTargetVersion());
 		aMapper.migrateNewBooleanAttribute("usersession", "isdeleted", true);
 	}
 
-	private void migrateExportObject() throws SpecmateException {
-		IObjectToSQLMapper oMapper = dbProvider.getObjectToSQLMapper("model/export", getSourceVersion(),
+	private void migrateExportObject(Connection connection) throws SpecmateException {
+		IObjectToSQLMapper oMapper = dbProvider.getObjectToSQLMapper(connection, "model/export", getSourceVersion(),
 				getTargetVersion());
 		oMapper.newObject("Export");
 
-		IAttributeToSQLMapper aMapper = dbProvider.getAttributeToSQLMapper("model/export", getSourceVersion(),
-				getTargetVersion());
+		IAttributeToSQLMapper aMapper = dbProvider.getAttributeToSQLMapper(connection, "model/export",
+				getSourceVersion(), getTargetVersion());
 		aMapper.migrateNewStringAttribute("export", "type", "");
 		aMapper.migrateNewStringAttribute("export", "content", "");
 		aMapper.migrateNewStringAttribute("export", "name", "");
@@ -28,29 +28,30 @@ public class Migrator20200228 implements IMigrator {
 
 	@Override
 	public void migrate(Connection connection) throws SpecmateException {
-		createRecycledAttributes("model/base", "Folder");
-		createRecycledAttributes("model/base", "IModelConnection");
-		createRecycledAttributes("model/base", "IModelNode");
-		createRecycledAttributes("model/requirements", "Requirement");
-		createRecycledAttributes("model/requirements", "CEGModel");
-		createRecycledAttributes("model/requirements", "CEGNode");
-		createRecycledAttributes("model/requirements", "CEGConnection");
-		createRecycledAttributes("model/testspecification", "TestSpecification");
-		createRecycledAttributes("model/testspecification", "TestParameter");
-		createRecycledAttributes("model/testspecification", "TestCase");
-		createRecycledAttributes("model/testspecification", "ParameterAssignment");
-		createRecycledAttributes("model/testspecification", "TestProcedure");
-		createRecycledAttributes("model/testspecification", "TestStep");
-		createRecycledAttributes("model/processes", "Process");
-		createRecycledAttributes("model/processes", "ProcessStep");
-		createRecycledAttributes("model/processes", "ProcessDecision");
-		createRecycledAttributes("model/processes", "ProcessConnection");
-		createRecycledAttributes("model/processes", "ProcessStart");
-		createRecycledAttributes("model/processes", "ProcessEnd");
+		createRecycledAttributes(connection, "model/base", "Folder");
+		createRecycledAttributes(connection, "model/base", "IModelConnection");
+		createRecycledAttributes(connection, "model/base", "IModelNode");
+		createRecycledAttributes(connection, "model/requirements", "Requirement");
+		createRecycledAttributes(connection, "model/requirements", "CEGModel");
+		createRecycledAttributes(connection, "model/requirements", "CEGNode");
+		createRecycledAttributes(connection, "model/requirements", "CEGConnection");
+		createRecycledAttributes(connection, "model/testspecification", "TestSpecification");
+		createRecycledAttributes(connection, "model/testspecification", "TestParameter");
+		createRecycledAttributes(connection, "model/testspecification", "TestCase");
+		createRecycledAttributes(connection, "model/testspecification", "ParameterAssignment");
+		createRecycledAttributes(connection, "model/testspecification", "TestProcedure");
+		createRecycledAttributes(connection, "model/testspecification", "TestStep");
+		createRecycledAttributes(connection, "model/processes", "Process");
+		createRecycledAttributes(connection, "model/processes", "ProcessStep");
+		createRecycledAttributes(connection, "model/processes", "ProcessDecision");
+		createRecycledAttributes(connection, "model/processes", "ProcessConnection");
+		createRecycledAttributes(connection, "model/processes", "ProcessStart");
+		createRecycledAttributes(connection, "model/processes", "ProcessEnd");
 	}
 
-	private void createRecycledAttributes(String packageName, String objectName) throws SpecmateException {
-		IAttributeToSQLMapper aMapper = dbProvider.getAttributeToSQLMapper(packageName, getSourceVersion(),
+	private void createRecycledAttributes(Connection connection, String packageName, String objectName)
+			throws SpecmateException {
+		IAttributeToSQLMapper aMapper = dbProvider.getAttributeToSQLMapper(connection, packageName, getSourceVersion(),
 				getTargetVersion());
 		aMapper.migrateNewBooleanAttribute(objectName, BasePackage.Literals.IRECYCLED__RECYCLED.getName(), false);
 		aMapper.migrateNewBooleanAttribute(objectName, BasePackage.Literals.IRECYCLED__HAS_RECYCLED_CHILDREN.getName(),
@@ -30,13 +30,13 @@ public class Migrator20200309 implements IMigrator {
 	public void migrate(Connection connection) throws SpecmateException {
 		String objectName = "ModelImage";
 		String packageName = "model/base";
-		IObjectToSQLMapper oMapper = dbProvider.getObjectToSQLMapper(packageName, getSourceVersion(),
+		IObjectToSQLMapper oMapper = dbProvider.getObjectToSQLMapper(connection, packageName, getSourceVersion(),
 				getTargetVersion());
 
 		oMapper.newObject(objectName);
 
 		// Add attributes
-		IAttributeToSQLMapper aMapper = dbProvider.getAttributeToSQLMapper(packageName, getSourceVersion(),
+		IAttributeToSQLMapper aMapper = dbProvider.getAttributeToSQLMapper(connection, packageName, getSourceVersion(),
 				getTargetVersion());
 		aMapper.migrateNewStringAttribute(objectName, "id", "");
 		aMapper.migrateNewStringAttribute(objectName, "name", "");
@@ -5,7 +5,9 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -20,16 +22,28 @@ import org.osgi.framework.InvalidSyntaxException;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.osgi.service.log.LogService;
 import org.osgi.util.tracker.ServiceTracker;
 
 import com.specmate.common.exception.SpecmateException;
 import com.specmate.common.exception.SpecmateInternalException;
+import com.specmate.config.api.IConfigService;
 import com.specmate.dbprovider.api.IDBProvider;
+import com.specmate.dbprovider.api.migration.SQLBatch;
+import com.specmate.dbprovider.api.migration.SQLUtil;
+import com.specmate.metrics.IGauge;
+import com.specmate.metrics.IHistogram;
+import com.specmate.metrics.IMetricsService;
+import com.specmate.metrics.ITimer;
 import com.specmate.migration.api.IMigrator;
 import com.specmate.migration.api.IMigratorService;
+import com.specmate.migration.api.MigrationPlan;
 import com.specmate.model.administration.ErrorCode;
+import com.specmate.model.base.BasePackage;
 import com.specmate.persistency.IPackageProvider;
+import com.specmate.usermodel.UsermodelPackage;
 
 @Component
 public class MigratorService implements IMigratorService {
@@ -39,11 +53,30 @@ public class MigratorService implements IMigratorService {
 	private static final String TABLE_PACKAGE_INFOS = "CDO_PACKAGE_INFOS";
 	private static final String TABLE_EXTERNAL_REFS = "CDO_EXTERNAL_REFS";
 
+	/** Configuration key to only estimate the changes of a migration */
+	private static final String KEY_DRY_RUN = "migration.dryRun";
+
+	/** Configuration key for the number of statements sent to the database at once */
+	/* package */static final String KEY_BATCH_SIZE = "migration.batchSize";
+
 	private LogService logService;
 	private IDBProvider dbProviderService;
+	private IConfigService configService;
+	private IMetricsService metricsService;
 
 	private Pattern versionPattern = Pattern.compile("http://specmate.com/(\\d+)/.*");
 
+	/**
+	 * Indexes for the lookups by id, by external id and source, and for the
+	 * session lookups by token and by user of the login metrics
+	 */
+	private LookupIndexes lookupIndexes = new LookupIndexes()
+			.declare(BasePackage.Literals.IID__ID)
+			.declare(BasePackage.Literals.IEXTERNAL__EXT_ID, BasePackage.Literals.IEXTERNAL__SOURCE)
+			.declare(UsermodelPackage.Literals.USER_SESSION__ID)
+			.declare(UsermodelPackage.Literals.USER_SESSION__USER_NAME,
+					UsermodelPackage.Literals.USER_SESSION__LAST_ACTIVE);
+
 	private IPackageProvider packageProvider;
 	private BundleContext context;
 
@@ -58,7 +91,12 @@ public class MigratorService implements IMigratorService {
 			return false;
 		}
 
-		String currentVersion = getCurrentModelVersion();
+		String currentVersion;
+		try (Connection connection = this.dbProviderService.borrowConnection()) {
+			currentVersion = getCurrentModelVersion(connection);
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.MIGRATION, "Could not close connection.", e);
+		}
 		if (currentVersion == null) {
 			throw new SpecmateInternalException(ErrorCode.MIGRATION,
 					"Could not determine currently deployed model version.");
@@ -80,23 +118,91 @@ public class MigratorService implements IMigratorService {
 		return needsMigration;
 	}
 
+	@Override
+	public boolean isDryRun() {
+		return Boolean.parseBoolean(this.configService.getConfigurationProperty(KEY_DRY_RUN, "false"));
+	}
+
 	@Override
 	public void doMigration() throws SpecmateException {
-		String currentVersion = getCurrentModelVersion();
-		try {
-			performMigration(currentVersion);
-			updatePackageUnits();
+		// All steps of the migration work on the same connection
+		try (Connection connection = this.dbProviderService.borrowConnection()) {
+			String currentVersion = getCurrentModelVersion(connection);
+			MigrationLedger ledger = new MigrationLedger(connection);
+			ledger.initialize();
+			performMigration(connection, currentVersion, ledger);
+			updatePackageUnits(connection);
+			ledger.applied();
 			this.logService.log(LogService.LOG_INFO, "Migration succeeded.");
 		} catch (SpecmateException e) {
 			this.logService.log(LogService.LOG_ERROR, "Migration failed.", e);
 			// TODO: handle failed migration
 			// rollback
 			throw e;
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.MIGRATION, "Could not close connection.", e);
+		}
+	}
+
+	@Override
+	public MigrationPlan dryRunMigration() throws SpecmateException {
+		try (Connection connection = this.dbProviderService.borrowConnection()) {
+			return dryRunMigration(connection);
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.MIGRATION, "Could not close connection.", e);
 		}
 	}
 
-	private String getCurrentModelVersion() throws SpecmateException {
-		Connection connection = this.dbProviderService.getConnection();
+	private MigrationPlan dryRunMigration(Connection connection) throws SpecmateException {
+		Map<String, IMigrator> steps = getMigrationSteps(getCurrentModelVersion(connection));
+		RowEstimator estimator = new RowEstimator(connection);
+		MigrationPlan plan = new MigrationPlan();
+		int number = 0;
+		for (IMigrator migrator : steps.values()) {
+			number++;
+			MigrationPlan.Step step = plan.addStep(describe(migrator));
+			List<String> statements = new ArrayList<>();
+			SQLUtil.startRecording();
+			try {
+				migrator.migrate(RecordingConnection.wrap(connection, statements));
+			} catch (SpecmateException | RuntimeException e) {
+				this.logService.log(LogService.LOG_WARNING, "Dry run of migration step " + describe(migrator)
+						+ " failed, its changes cannot be estimated.", e);
+				step.setFailed();
+				continue;
+			} finally {
+				statements.addAll(SQLUtil.stopRecording());
+			}
+			for (String statement : statements) {
+				long estimate = estimator.estimate(statement);
+				step.addStatement(statement, estimate);
+				this.logService.log(LogService.LOG_INFO, "Dry run: " + statement + " -> "
+						+ (estimate == MigrationPlan.UNKNOWN ? "unknown" : String.valueOf(estimate)) + " rows");
+			}
+			this.logService.log(LogService.LOG_INFO,
+					"Dry run of migration step " + number + " of " + steps.size() + " (" + step + ").");
+		}
+		this.logService.log(LogService.LOG_INFO, plan.toString());
+		return plan;
+	}
+
+	@Override
+	public void ensureIndexes() throws SpecmateException {
+		if (this.dbProviderService.isVirginDB()) {
+			return;
+		}
+		List<String> created;
+		try (Connection connection = this.dbProviderService.borrowConnection()) {
+			created = lookupIndexes.ensure(connection, this.packageProvider.getPackages());
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.MIGRATION, "Could not close connection.", e);
+		}
+		if (!created.isEmpty()) {
+			this.logService.log(LogService.LOG_INFO, "Created lookup indexes " + created + ".");
+		}
+	}
+
+	private String getCurrentModelVersion(Connection connection) throws SpecmateException {
 		PreparedStatement stmt = null;
 		try {
 			stmt = connection.prepareStatement("select * from CDO_PACKAGE_INFOS");
@@ -140,101 +246,126 @@ public class MigratorService implements IMigratorService {
 		return null;
 	}
 
-	private void updatePackageUnits() throws SpecmateException {
-		removeOldPackageUnits();
-		writeCurrentPackageUnits();
-		updateExternalRefs();
-	}
-
-	private void updateExternalRefs() throws SpecmateException {
-		Connection connection = this.dbProviderService.getConnection();
-		PreparedStatement stmt;
-		try {
-			stmt = connection.prepareStatement(
-					"update " + TABLE_EXTERNAL_REFS + " set URI=REGEXP_REPLACE(URI,'http://specmate.com/\\d+',"
-							+ "'http://specmate.com/" + getTargetModelVersion() + "')");
-			stmt.execute();
-			stmt.close();
-		} catch (SQLException e) {
-			throw new SpecmateInternalException(ErrorCode.MIGRATION, "Could not update external references table.", e);
+	/**
+	 * Replaces the package units of the old model version by the current ones
+	 * in one transaction
+	 */
+	private void updatePackageUnits(Connection connection) throws SpecmateException {
+		try (SQLBatch batch = new SQLBatch(connection, getBatchSize(configService),
+				"Could not update package units.")) {
+			removeOldPackageUnits(batch);
+			writeCurrentPackageUnits(batch);
+			updateExternalRefs(batch);
+			batch.commit();
 		}
+	}
 
+	/** Returns the configured number of statements sent to the database at once */
+	/* package */static int getBatchSize(IConfigService configService) {
+		int batchSize = configService.getConfigurationPropertyInt(KEY_BATCH_SIZE, SQLBatch.DEFAULT_BATCH_SIZE);
+		return batchSize > 0 ? batchSize : SQLBatch.DEFAULT_BATCH_SIZE;
 	}
 
-	private void removeOldPackageUnits() throws SpecmateException {
-		try {
-			Connection connection = this.dbProviderService.getConnection();
-			PreparedStatement stmt = connection.prepareStatement(
-					"delete from " + TABLE_PACKAGE_UNITS + " where substr(ID,0,19)='http://specmate.com'");
-			stmt.execute();
-			stmt.close();
-			stmt = connection.prepareStatement(
-					"delete from " + TABLE_PACKAGE_INFOS + " where substr(URI,0,19)='http://specmate.com'");
-			stmt.execute();
-			stmt.close();
+	private void updateExternalRefs(SQLBatch batch) throws SpecmateException {
+		batch.add("update " + TABLE_EXTERNAL_REFS + " set URI=REGEXP_REPLACE(URI,'http://specmate.com/\\d+',"
+				+ "'http://specmate.com/" + getTargetModelVersion() + "')");
+	}
 
-		} catch (SQLException e) {
-			throw new SpecmateInternalException(ErrorCode.MIGRATION, "Could not delete old package units.", e);
-		}
+	private void removeOldPackageUnits(SQLBatch batch) throws SpecmateException {
+		batch.add("delete from " + TABLE_PACKAGE_UNITS + " where substr(ID,0,19)='http://specmate.com'");
+		batch.add("delete from " + TABLE_PACKAGE_INFOS + " where substr(URI,0,19)='http://specmate.com'");
 	}
 
-	private void writeCurrentPackageUnits() throws SpecmateException {
-		Connection connection = this.dbProviderService.getConnection();
+	private void writeCurrentPackageUnits(SQLBatch batch) throws SpecmateException {
 		Registry registry = new EPackageRegistryImpl();
 		long timestamp = System.currentTimeMillis();
-		PreparedStatement unitsStatement = null;
-		PreparedStatement infosStatement = null;
-		try {
-			unitsStatement = connection.prepareStatement("insert into " + TABLE_PACKAGE_UNITS
-					+ " (ID, ORIGINAL_TYPE, TIME_STAMP, PACKAGE_DATA) values (?, 0, " + timestamp + ",?)");
-			infosStatement = connection
-					.prepareStatement("insert into " + TABLE_PACKAGE_INFOS + " (URI, UNIT) values (?, ?)");
-			for (EPackage pkg : this.packageProvider.getPackages()) {
-				byte[] packageBytes = EMFUtil.getEPackageBytes(pkg, true, registry);
-				StringBuilder sb = new StringBuilder();
-				for (byte b : packageBytes) {
-					sb.append(String.format("%02X ", b));
-				}
-				unitsStatement.setString(1, pkg.getNsURI());
-				unitsStatement.setBytes(2, packageBytes);
-				unitsStatement.addBatch();
-				infosStatement.setString(1, pkg.getNsURI());
-				infosStatement.setString(2, pkg.getNsURI());
-				infosStatement.addBatch();
-			}
-			infosStatement.executeBatch();
-			unitsStatement.executeBatch();
-		} catch (SQLException e) {
-			throw new SpecmateInternalException(ErrorCode.MIGRATION, "Could not write package units.", e);
-		} finally {
-			try {
-				if (unitsStatement != null) {
-					unitsStatement.close();
+		for (EPackage pkg : this.packageProvider.getPackages()) {
+			byte[] packageBytes = EMFUtil.getEPackageBytes(pkg, true, registry);
+			batch.add("insert into " + TABLE_PACKAGE_UNITS
+					+ " (ID, ORIGINAL_TYPE, TIME_STAMP, PACKAGE_DATA) values (?, 0, " + timestamp + ", ?)",
+					pkg.getNsURI(), packageBytes);
+		}
+		for (EPackage pkg : this.packageProvider.getPackages()) {
+			batch.add("insert into " + TABLE_PACKAGE_INFOS + " (URI, UNIT) values (?, ?)", pkg.getNsURI(),
+					pkg.getNsURI());
+		}
+	}
+
+	/**
+	 * Runs the migration steps that did not complete in a previous attempt and
+	 * records each step in the ledger
+	 */
+	private void performMigration(Connection connection, String fromVersion, MigrationLedger ledger)
+			throws SpecmateException {
+		Map<String, IMigrator> steps = getMigrationSteps(fromVersion);
+		IGauge completedGauge = null;
+		IHistogram durations = null;
+		if (this.metricsService != null) {
+			this.metricsService.createGauge("migration_steps_total", "Number of steps of the running migration")
+					.set(steps.size());
+			completedGauge = this.metricsService.createGauge("migration_steps_completed",
+					"Number of completed steps of the running migration");
+			completedGauge.set(0);
+			durations = this.metricsService.createHistogram("migration_step_duration",
+					"Time for a single step of a migration");
+		}
+
+		int step = 0;
+		for (IMigrator migrator : steps.values()) {
+			step++;
+			String source = migrator.getSourceVersion();
+			String target = migrator.getTargetVersion();
+			if (ledger.isCompleted(source, target)) {
+				this.logService.log(LogService.LOG_INFO, "Migration step " + step + " of " + steps.size() + " ("
+						+ describe(migrator) + ") completed in a previous attempt, resuming after it.");
+			} else {
+				this.logService.log(LogService.LOG_INFO,
+						"Migration step " + step + " of " + steps.size() + " (" + describe(migrator) + ") started.");
+				long start = System.currentTimeMillis();
+				ITimer timer = durations != null ? durations.startTimer() : null;
+				ledger.started(source, target);
+				try {
+					migrator.migrate(connection);
+				} catch (SpecmateException | RuntimeException e) {
+					ledger.failed(source, target, e.getMessage());
+					throw e;
 				}
-				if (infosStatement != null) {
-					infosStatement.close();
+				ledger.completed(source, target);
+				if (timer != null) {
+					timer.observeDuration();
 				}
-			} catch (SQLException e) {
-				throw new SpecmateInternalException(ErrorCode.MIGRATION, "Could not close statement.", e);
+				this.logService.log(LogService.LOG_INFO, "Migration step " + step + " of " + steps.size() + " ("
+						+ describe(migrator) + ") completed in " + (System.currentTimeMillis() - start) + "ms.");
+			}
+			if (completedGauge != null) {
+				completedGauge.set(step);
 			}
 		}
-
 	}
 
-	private void performMigration(String fromVersion) throws SpecmateException {
+	/**
+	 * Returns the migrators from the given to the target version by their
+	 * source version, in the order in which they have to run
+	 */
+	private Map<String, IMigrator> getMigrationSteps(String fromVersion) throws SpecmateException {
 		String currentModelVersion = fromVersion;
 		String targetModelVersion = getTargetModelVersion();
+		Map<String, IMigrator> steps = new LinkedHashMap<>();
 
 		while (!currentModelVersion.equals(targetModelVersion)) {
 			IMigrator migrator = getMigratorForVersion(currentModelVersion);
-			if (migrator == null) {
+			if (migrator == null || steps.containsKey(currentModelVersion)) {
 				throw new SpecmateInternalException(ErrorCode.MIGRATION,
 						"Could not find migrator for model version " + currentModelVersion + ".");
 			}
-			migrator.migrate(this.dbProviderService.getConnection());
+			steps.put(currentModelVersion, migrator);
 			currentModelVersion = migrator.getTargetVersion();
 		}
+		return steps;
+	}
 
+	private String describe(IMigrator migrator) {
+		return migrator.getSourceVersion() + " -> " + migrator.getTargetVersion();
 	}
 
 	private IMigrator getMigratorForVersion(String currentModelVersion) {
@@ -266,4 +397,18 @@ public class MigratorService implements IMigratorService {
 		this.dbProviderService = dbProviderService;
 	}
 
+	@Reference
+	public void setConfigService(IConfigService configService) {
+		this.configService = configService;
+	}
+
+	@Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+	public void setMetricsService(IMetricsService metricsService) {
+		this.metricsService = metricsService;
+	}
+
+	public void unsetMetricsService(IMetricsService metricsService) {
+		this.metricsService = null;
+	}
+
 }
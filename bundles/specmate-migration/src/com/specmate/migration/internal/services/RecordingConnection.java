@@ -0,0 +1,119 @@
+package com.specmate.migration.internal.services;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Wraps a connection such that changing statements are recorded instead of
+ * executed, while queries are still answered by the database. Used for dry
+ * runs of migrations.
+ */
+public class RecordingConnection {
+
+	private final Connection connection;
+
+	private final List<String> statements;
+
+	private RecordingConnection(Connection connection, List<String> statements) {
+		this.connection = connection;
+		this.statements = statements;
+	}
+
+	/**
+	 * Returns a connection that adds the changing statements to the given list
+	 */
+	public static Connection wrap(Connection connection, List<String> statements) {
+		RecordingConnection recording = new RecordingConnection(connection, statements);
+		return (Connection) Proxy.newProxyInstance(RecordingConnection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, (proxy, method, args) -> recording.onConnection(method, args));
+	}
+
+	/** Returns whether the statement only reads */
+	public static boolean isQuery(String sql) {
+		String start = sql.trim().toUpperCase(Locale.ENGLISH);
+		return start.startsWith("SELECT") || start.startsWith("WITH");
+	}
+
+	private Object onConnection(Method method, Object[] args) throws Throwable {
+		switch (method.getName()) {
+		case "setAutoCommit":
+		case "commit":
+		case "rollback":
+		case "close":
+			return null;
+		case "prepareStatement":
+			String sql = (String) args[0];
+			if (isQuery(sql)) {
+				return invoke(connection, method, args);
+			}
+			return Proxy.newProxyInstance(RecordingConnection.class.getClassLoader(),
+					new Class<?>[] { PreparedStatement.class },
+					(proxy, statementMethod, statementArgs) -> onPreparedStatement(sql, statementMethod));
+		case "createStatement":
+			Statement statement = (Statement) invoke(connection, method, args);
+			return Proxy.newProxyInstance(RecordingConnection.class.getClassLoader(),
+					new Class<?>[] { Statement.class },
+					(proxy, statementMethod, statementArgs) -> onStatement(statement, statementMethod, statementArgs));
+		default:
+			return invoke(connection, method, args);
+		}
+	}
+
+	private Object onPreparedStatement(String sql, Method method) {
+		switch (method.getName()) {
+		case "execute":
+			statements.add(sql);
+			return false;
+		case "executeUpdate":
+		case "addBatch":
+			statements.add(sql);
+			return defaultValue(method);
+		case "executeBatch":
+			return new int[0];
+		default:
+			return defaultValue(method);
+		}
+	}
+
+	private Object onStatement(Statement statement, Method method, Object[] args) throws Throwable {
+		String name = method.getName();
+		if (args != null && args.length > 0 && args[0] instanceof String
+				&& (name.equals("execute") || name.equals("executeUpdate") || name.equals("addBatch"))
+				&& !isQuery((String) args[0])) {
+			statements.add((String) args[0]);
+			return name.equals("execute") ? Boolean.FALSE : defaultValue(method);
+		}
+		if (name.equals("executeBatch")) {
+			return new int[0];
+		}
+		return invoke(statement, method, args);
+	}
+
+	private Object defaultValue(Method method) {
+		Class<?> type = method.getReturnType();
+		if (type == boolean.class) {
+			return false;
+		}
+		if (type == int.class) {
+			return 0;
+		}
+		if (type == long.class) {
+			return 0L;
+		}
+		return null;
+	}
+
+	private Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
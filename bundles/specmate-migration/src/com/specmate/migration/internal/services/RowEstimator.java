@@ -0,0 +1,81 @@
+package com.specmate.migration.internal.services;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.specmate.migration.api.MigrationPlan;
+
+/**
+ * Estimates the number of rows a changing statement affects, by counting the
+ * rows it would touch in the current database.
+ */
+public class RowEstimator {
+
+	/** Returned if the rows of a statement cannot be estimated */
+	public static final long UNKNOWN = MigrationPlan.UNKNOWN;
+
+	private static final int FLAGS = Pattern.CASE_INSENSITIVE | Pattern.DOTALL;
+
+	/** Adding, changing or dropping a column rewrites every row */
+	private static final Pattern ALTER = Pattern.compile("\\s*ALTER\\s+TABLE\\s+(\\w+)\\b.*", FLAGS);
+
+	private static final Pattern UPDATE = Pattern.compile("\\s*UPDATE\\s+(\\w+)\\s+SET\\s+.*?(\\s+WHERE\\s+.*)?",
+			FLAGS);
+
+	private static final Pattern DELETE = Pattern.compile("\\s*DELETE\\s+FROM\\s+(\\w+)(\\s+WHERE\\s+.*)?", FLAGS);
+
+	private static final Pattern INSERT_SELECT = Pattern
+			.compile("\\s*INSERT\\s+INTO\\s+\\w+\\s*(\\([^)]*\\))?\\s*(SELECT\\s+.*)", FLAGS);
+
+	private static final Pattern INSERT_VALUES = Pattern.compile("\\s*INSERT\\s+INTO\\s+.*VALUES\\s*\\(.*", FLAGS);
+
+	private final Connection connection;
+
+	public RowEstimator(Connection connection) {
+		this.connection = connection;
+	}
+
+	/**
+	 * Returns the estimated number of rows the statement changes, or
+	 * {@link #UNKNOWN}. Statements that only change the schema, such as
+	 * creating tables or indexes, change no rows.
+	 */
+	public long estimate(String sql) {
+		Matcher matcher;
+		if ((matcher = ALTER.matcher(sql)).matches()) {
+			return count("SELECT COUNT(*) FROM " + matcher.group(1));
+		}
+		if ((matcher = UPDATE.matcher(sql)).matches() || (matcher = DELETE.matcher(sql)).matches()) {
+			String where = matcher.group(2) != null ? matcher.group(2) : "";
+			return count("SELECT COUNT(*) FROM " + matcher.group(1) + where);
+		}
+		if ((matcher = INSERT_SELECT.matcher(sql)).matches()) {
+			return count("SELECT COUNT(*) FROM (" + matcher.group(2) + ") S");
+		}
+		if (INSERT_VALUES.matcher(sql).matches()) {
+			return 1;
+		}
+		if (sql.trim().toUpperCase(Locale.ROOT).startsWith("CREATE")) {
+			return 0;
+		}
+		return UNKNOWN;
+	}
+
+	private long count(String query) {
+		if (query.contains("?")) {
+			// Statement with parameters, the values are not known
+			return UNKNOWN;
+		}
+		try (Statement statement = connection.createStatement(); ResultSet result = statement.executeQuery(query)) {
+			return result.next() ? result.getLong(1) : UNKNOWN;
+		} catch (SQLException e) {
+			// e.g. a table created by an earlier step of the dry run
+			return UNKNOWN;
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package com.specmate.migration.internal.services;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+
+import com.specmate.common.exception.SpecmateException;
+import com.specmate.model.base.BasePackage;
+import com.specmate.model.requirements.RequirementsPackage;
+
+/**
+ * Benchmark of the lookup of requirements by external id and source on an
+ * embedded H2 database, before and after the lookup indexes are created.
+ * Without the index, each lookup scans the whole table.
+ *
+ * Not part of the unit tests, run on demand with the test classpath and the
+ * number of requirements and lookups as optional arguments, e.g.
+ * <code>java com.specmate.migration.internal.services.LookupIndexesBenchmark 100000 200</code>
+ */
+public class LookupIndexesBenchmark {
+
+	private static final int WARM_UP = 20;
+
+	private final Connection connection;
+
+	private final int requirements;
+
+	public LookupIndexesBenchmark(Connection connection, int requirements) {
+		this.connection = connection;
+		this.requirements = requirements;
+	}
+
+	public static void main(String[] args) throws SQLException, SpecmateException {
+		int requirements = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+		try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:benchmark", "", "")) {
+			LookupIndexesBenchmark benchmark = new LookupIndexesBenchmark(connection, requirements);
+			benchmark.fill();
+			benchmark.lookup(WARM_UP);
+			long before = benchmark.lookup(lookups);
+			new LookupIndexes().declare(BasePackage.Literals.IID__ID)
+					.declare(BasePackage.Literals.IEXTERNAL__EXT_ID, BasePackage.Literals.IEXTERNAL__SOURCE)
+					.ensure(connection, Collections.singletonList(RequirementsPackage.eINSTANCE));
+			benchmark.lookup(WARM_UP);
+			long after = benchmark.lookup(lookups);
+			System.out.println(lookups + " lookups by extId and source among " + requirements + " requirements: "
+					+ before + " ms without index, " + after + " ms with index");
+		}
+	}
+
+	/** Creates the requirement table of CDO and fills it */
+	private void fill() throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE REQUIREMENT (CDO_ID BIGINT NOT NULL, CDO_VERSION INTEGER NOT NULL, "
+					+ "CDO_CREATED BIGINT NOT NULL, CDO_REVISED BIGINT NOT NULL, ID VARCHAR(255), NAME VARCHAR(255), "
+					+ "EXTID VARCHAR(255), SOURCE VARCHAR(255), PRIMARY KEY (CDO_ID, CDO_VERSION))");
+		}
+		connection.setAutoCommit(false);
+		try (PreparedStatement insert = connection
+				.prepareStatement("INSERT INTO REQUIREMENT VALUES (?, 1, 0, 0, ?, ?, ?, 'jira')")) {
+			for (int i = 0; i < requirements; i++) {
+				insert.setLong(1, i);
+				insert.setString(2, "Requirement-" + i);
+				insert.setString(3, "Requirement " + i);
+				insert.setString(4, "SPEM-" + i);
+				insert.addBatch();
+				if (i % 1000 == 999) {
+					insert.executeBatch();
+				}
+			}
+			insert.executeBatch();
+		}
+		connection.commit();
+		connection.setAutoCommit(true);
+	}
+
+	/** Returns the time for the given number of lookups in ms */
+	private long lookup(int count) throws SQLException {
+		long start = System.nanoTime();
+		try (PreparedStatement select = connection.prepareStatement(
+				"SELECT CDO_ID FROM REQUIREMENT WHERE EXTID = ? AND SOURCE = ? AND CDO_REVISED = 0")) {
+			for (int i = 0; i < count; i++) {
+				select.setString(1, "SPEM-" + (i * 499 % requirements));
+				select.setString(2, "jira");
+				try (ResultSet result = select.executeQuery()) {
+					if (!result.next()) {
+						throw new IllegalStateException("Requirement SPEM-" + (i * 499 % requirements) + " not found");
+					}
+				}
+			}
+		}
+		return (System.nanoTime() - start) / 1000000;
+	}
+}
@@ -0,0 +1,126 @@
+package com.specmate.migration.internal.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.specmate.model.base.BasePackage;
+import com.specmate.model.requirements.RequirementsPackage;
+
+/**
+ * Tests the lookup indexes against an embedded H2 database with the table
+ * layout of the audited horizontal mapping of CDO.
+ */
+public class LookupIndexesTest {
+
+	private Connection connection;
+
+	private LookupIndexes indexes = new LookupIndexes().declare(BasePackage.Literals.IID__ID)
+			.declare(BasePackage.Literals.IEXTERNAL__EXT_ID, BasePackage.Literals.IEXTERNAL__SOURCE);
+
+	@Before
+	public void setUp() throws SQLException {
+		connection = DriverManager.getConnection("jdbc:h2:mem:indexes", "", "");
+		execute("CREATE TABLE REQUIREMENT (CDO_ID BIGINT NOT NULL, CDO_VERSION INTEGER NOT NULL, "
+				+ "CDO_CREATED BIGINT NOT NULL, CDO_REVISED BIGINT NOT NULL, ID VARCHAR(255), NAME VARCHAR(255), "
+				+ "EXTID VARCHAR(255), SOURCE VARCHAR(255), PRIMARY KEY (CDO_ID, CDO_VERSION))");
+		execute("CREATE INDEX REQUIREMENT_REVISED ON REQUIREMENT (CDO_REVISED)");
+	}
+
+	@After
+	public void tearDown() throws SQLException {
+		connection.close();
+	}
+
+	@Test
+	public void testCreatesIndexesOnce() throws Exception {
+		List<String> created = indexes.ensure(connection, Collections.singletonList(RequirementsPackage.eINSTANCE));
+		assertEquals(2, created.size());
+		assertTrue(indexes.ensure(connection, Collections.singletonList(RequirementsPackage.eINSTANCE)).isEmpty());
+	}
+
+	@Test
+	public void testKeepsExistingIndexes() throws Exception {
+		execute("CREATE INDEX EXISTING ON REQUIREMENT (EXTID, SOURCE)");
+		List<String> created = indexes.ensure(connection, Collections.singletonList(RequirementsPackage.eINSTANCE));
+		assertEquals(1, created.size());
+	}
+
+	@Test
+	public void testIndexNamesNameTableAndColumns() throws Exception {
+		List<String> created = indexes.ensure(connection, Collections.singletonList(RequirementsPackage.eINSTANCE));
+		assertEquals(Arrays.asList("IX_REQUIREMENT_ID", "IX_REQUIREMENT_EXTID_SOURCE"), created);
+
+		String longName = LookupIndexes.getIndexName("PROCESSCONNECTION", Arrays.asList("EXTID", "SOURCE"));
+		String otherName = LookupIndexes.getIndexName("PROCESSCONNECTION", Arrays.asList("EXTID", "SOURCEX"));
+		assertEquals(30, longName.length());
+		assertTrue(longName, longName.startsWith("IX_PROCESSCONNECTION_"));
+		assertEquals(longName, LookupIndexes.getIndexName("PROCESSCONNECTION", Arrays.asList("EXTID", "SOURCE")));
+		assertNotEquals(longName, otherName);
+	}
+
+	@Test
+	public void testIndexesHaveRevisionAsLastColumn() throws Exception {
+		indexes.ensure(connection, Collections.singletonList(RequirementsPackage.eINSTANCE));
+
+		Collection<List<String>> created = getIndexes("REQUIREMENT");
+		assertTrue(created.contains(Arrays.asList("ID", "CDO_REVISED")));
+		assertTrue(created.contains(Arrays.asList("EXTID", "SOURCE", "CDO_REVISED")));
+	}
+
+	@Test
+	public void testLookupUsesIndex() throws Exception {
+		String lookup = "SELECT CDO_ID FROM REQUIREMENT WHERE EXTID = 'SPEM-1' AND SOURCE = 'jira' AND CDO_REVISED = 0";
+		assertFalse(explain(lookup).contains("IX_REQUIREMENT_"));
+
+		List<String> created = indexes.ensure(connection, Collections.singletonList(RequirementsPackage.eINSTANCE));
+
+		String plan = explain(lookup);
+		assertTrue(plan, created.stream().anyMatch(index -> plan.contains("/* PUBLIC." + index + ":")));
+	}
+
+	/** Returns the columns of the indexes of the table by index name */
+	private Collection<List<String>> getIndexes(String table) throws SQLException {
+		Map<String, List<String>> indexes = new TreeMap<>();
+		try (ResultSet result = connection.getMetaData().getIndexInfo(null, null, table, false, false)) {
+			while (result.next()) {
+				indexes.computeIfAbsent(result.getString("INDEX_NAME"), index -> new ArrayList<>())
+						.add(result.getString("COLUMN_NAME"));
+			}
+		}
+		return indexes.values();
+	}
+
+	/** Returns the query plan of the statement */
+	private String explain(String sql) throws SQLException {
+		try (Statement statement = connection.createStatement();
+				ResultSet result = statement.executeQuery("EXPLAIN " + sql)) {
+			assertTrue(result.next());
+			return result.getString(1);
+		}
+	}
+
+	private void execute(String sql) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute(sql);
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package com.specmate.migration.internal.services;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.specmate.dbprovider.api.migration.SQLUtil;
+import com.specmate.migration.api.MigrationPlan;
+
+/**
+ * Tests recording the statements of a migration and estimating their affected
+ * rows against an embedded H2 database.
+ */
+public class MigrationDryRunTest {
+
+	private Connection connection;
+
+	@Before
+	public void setUp() throws SQLException {
+		connection = DriverManager.getConnection("jdbc:h2:mem:dryrun", "", "");
+		execute("CREATE TABLE REQUIREMENT (CDO_ID BIGINT, CDO_REVISED BIGINT, NAME VARCHAR(255))");
+		for (int i = 0; i < 10; i++) {
+			execute("INSERT INTO REQUIREMENT VALUES (" + i + ", " + (i < 4 ? 0 : 1) + ", 'Requirement')");
+		}
+	}
+
+	@After
+	public void tearDown() throws SQLException {
+		connection.close();
+	}
+
+	@Test
+	public void testRecordsChangingStatements() throws Exception {
+		List<String> statements = new ArrayList<>();
+		Connection recording = RecordingConnection.wrap(connection, statements);
+
+		recording.setAutoCommit(false);
+		try (PreparedStatement alter = recording
+				.prepareStatement("ALTER TABLE REQUIREMENT ADD COLUMN PLATFORM VARCHAR(255)")) {
+			alter.execute();
+		}
+		try (Statement statement = recording.createStatement()) {
+			statement.executeUpdate("UPDATE REQUIREMENT SET NAME = 'R' WHERE CDO_REVISED = 0");
+			try (ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM REQUIREMENT")) {
+				result.next();
+				assertEquals(10, result.getInt(1));
+			}
+		}
+		recording.commit();
+
+		SQLUtil.startRecording();
+		SQLUtil.executeStatement("DELETE FROM REQUIREMENT", connection, "Could not delete.");
+		statements.addAll(SQLUtil.stopRecording());
+
+		assertEquals(3, statements.size());
+		assertEquals(3, columnCount());
+		assertEquals(10, countRows());
+	}
+
+	@Test
+	public void testEstimatesAffectedRows() throws Exception {
+		RowEstimator estimator = new RowEstimator(connection);
+		assertEquals(10, estimator.estimate("alter table requirement add column platform varchar(255)"));
+		assertEquals(4, estimator.estimate("UPDATE REQUIREMENT SET NAME = 'R' WHERE CDO_REVISED = 0"));
+		assertEquals(10, estimator.estimate("UPDATE REQUIREMENT SET NAME = 'R'"));
+		assertEquals(6, estimator.estimate("DELETE FROM REQUIREMENT WHERE CDO_REVISED > 0"));
+		assertEquals(4, estimator.estimate(
+				"INSERT INTO REQUIREMENT (CDO_ID, CDO_REVISED) SELECT CDO_ID, 1 FROM REQUIREMENT WHERE CDO_REVISED = 0"));
+		assertEquals(1, estimator.estimate("INSERT INTO REQUIREMENT VALUES (11, 0, 'New')"));
+		assertEquals(0, estimator.estimate("CREATE INDEX IX ON REQUIREMENT (NAME)"));
+		for (String unknown : Arrays.asList("UPDATE REQUIREMENT SET NAME = ? WHERE CDO_ID = ?",
+				"UPDATE MISSING SET NAME = 'R'", "DROP TABLE REQUIREMENT")) {
+			assertEquals(RowEstimator.UNKNOWN, estimator.estimate(unknown));
+		}
+	}
+
+	@Test
+	public void testPlanCountsUnknownChanges() {
+		MigrationPlan plan = new MigrationPlan();
+		MigrationPlan.Step first = plan.addStep("first");
+		first.addStatement("UPDATE REQUIREMENT SET NAME = 'R'", 10);
+		first.addStatement("UPDATE REQUIREMENT SET NAME = ? WHERE CDO_ID = ?", MigrationPlan.UNKNOWN);
+		plan.addStep("second").addStatement("DELETE FROM REQUIREMENT WHERE CDO_REVISED > 0", 6);
+		plan.addStep("third").setFailed();
+
+		assertEquals(10, first.getRows());
+		assertEquals(16, plan.getTotalRows());
+		assertEquals(2, plan.getUnknownCount());
+		assertEquals("Dry run of the migration: 16 rows would be changed, the changes of 2 statements or steps "
+				+ "are unknown.", plan.toString());
+	}
+
+	private int columnCount() throws SQLException {
+		try (ResultSet result = connection.getMetaData().getColumns(null, null, "REQUIREMENT", null)) {
+			int columns = 0;
+			while (result.next()) {
+				columns++;
+			}
+			return columns;
+		}
+	}
+
+	private int countRows() throws SQLException {
+		try (Statement statement = connection.createStatement();
+				ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM REQUIREMENT")) {
+			result.next();
+			return result.getInt(1);
+		}
+	}
+
+	private void execute(String sql) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute(sql);
+		}
+	}
+}
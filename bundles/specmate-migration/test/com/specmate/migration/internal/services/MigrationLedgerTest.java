@@ -0,0 +1,66 @@
+package com.specmate.migration.internal.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the migration ledger against an embedded H2 database.
+ */
+public class MigrationLedgerTest {
+
+	private Connection connection;
+
+	private MigrationLedger ledger;
+
+	@Before
+	public void setUp() throws Exception {
+		connection = DriverManager.getConnection("jdbc:h2:mem:ledger", "", "");
+		ledger = new MigrationLedger(connection);
+		ledger.initialize();
+	}
+
+	@After
+	public void tearDown() throws SQLException {
+		connection.close();
+	}
+
+	@Test
+	public void testInitializeIsIdempotent() throws Exception {
+		assertNull(ledger.getStatus("1", "2"));
+		ledger.started("1", "2");
+		ledger.initialize();
+		assertEquals(MigrationLedger.RUNNING, ledger.getStatus("1", "2"));
+	}
+
+	@Test
+	public void testResumesAfterCompletedSteps() throws Exception {
+		ledger.started("1", "2");
+		ledger.completed("1", "2");
+		ledger.started("2", "3");
+		ledger.failed("2", "3", "Could not add column.");
+
+		// a restarted migration skips the first step and retries the second
+		assertTrue(ledger.isCompleted("1", "2"));
+		assertFalse(ledger.isCompleted("2", "3"));
+		assertEquals(MigrationLedger.FAILED, ledger.getStatus("2", "3"));
+
+		ledger.started("2", "3");
+		assertEquals(MigrationLedger.RUNNING, ledger.getStatus("2", "3"));
+		ledger.completed("2", "3");
+		ledger.applied();
+
+		assertEquals(MigrationLedger.APPLIED, ledger.getStatus("1", "2"));
+		assertEquals(MigrationLedger.APPLIED, ledger.getStatus("2", "3"));
+		assertFalse(ledger.isCompleted("1", "2"));
+	}
+}
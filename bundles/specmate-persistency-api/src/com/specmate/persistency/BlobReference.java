@@ -0,0 +1,60 @@
+package com.specmate.persistency;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reference to content in the {@link IBlobStore}, stored in place of the
+ * content in a string attribute of the model. The textual form is
+ * <code>blob:sha256:&lt;hash&gt;;&lt;content type&gt;</code>.
+ */
+public class BlobReference {
+
+	private static final String PREFIX = "blob:sha256:";
+
+	private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+	private static final Pattern REFERENCE = Pattern.compile(Pattern.quote(PREFIX) + "(" + HASH.pattern() + ");(.+)");
+
+	private final String hash;
+
+	private final String contentType;
+
+	public BlobReference(String hash, String contentType) {
+		this.hash = hash;
+		this.contentType = contentType;
+	}
+
+	/**
+	 * Parses a reference, returns <code>null</code> if the value is not a
+	 * reference
+	 */
+	public static BlobReference parse(String value) {
+		if (value == null || !value.startsWith(PREFIX)) {
+			return null;
+		}
+		Matcher matcher = REFERENCE.matcher(value);
+		if (!matcher.matches()) {
+			return null;
+		}
+		return new BlobReference(matcher.group(1), matcher.group(2));
+	}
+
+	/** Returns whether the given string is a well-formed content hash */
+	public static boolean isHash(String hash) {
+		return hash != null && HASH.matcher(hash).matches();
+	}
+
+	public String getHash() {
+		return hash;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	@Override
+	public String toString() {
+		return PREFIX + hash + ";" + contentType;
+	}
+}
@@ -0,0 +1,31 @@
+package com.specmate.persistency;
+
+import java.io.InputStream;
+import java.util.Set;
+
+import com.specmate.common.exception.SpecmateException;
+
+/**
+ * Stores binary content outside of the model, addressed by the SHA-256 hash of
+ * the content. Equal content is stored only once.
+ */
+public interface IBlobStore {
+
+	/** Stores the content and returns its hash */
+	String put(byte[] content) throws SpecmateException;
+
+	/**
+	 * Opens the content with the given hash, or returns <code>null</code> if no
+	 * such content is stored
+	 */
+	InputStream open(String hash) throws SpecmateException;
+
+	/** Returns whether content with the given hash is stored */
+	boolean contains(String hash);
+
+	/**
+	 * Removes the content that is not among the given hashes and was last stored
+	 * before the given time, returns the number of removed blobs
+	 */
+	int removeUnreferenced(Set<String> referenced, long storedBefore) throws SpecmateException;
+}
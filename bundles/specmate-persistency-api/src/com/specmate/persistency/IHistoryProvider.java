@@ -1,5 +1,7 @@
 package com.specmate.persistency;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.eclipse.emf.ecore.EObject;
 
 import com.specmate.common.exception.SpecmateException;
@@ -12,4 +14,44 @@ public interface IHistoryProvider {
 
 	History getRecursiveHistory(EObject object) throws SpecmateException;
 
+	/**
+	 * Returns a page of the history of the object and its direct children,
+	 * newest entries first.
+	 *
+	 * @param offset
+	 *            the number of entries to skip
+	 * @param limit
+	 *            the maximal number of entries to return
+	 */
+	History getContainerHistory(EObject object, int offset, int limit) throws SpecmateException;
+
+	/**
+	 * Returns a page of the history of the object and all its contents, newest
+	 * entries first.
+	 *
+	 * @param offset
+	 *            the number of entries to skip
+	 * @param limit
+	 *            the maximal number of entries to return
+	 */
+	History getRecursiveHistory(EObject object, int offset, int limit) throws SpecmateException;
+
+	/**
+	 * Returns a future that is completed with the history of the object once
+	 * the commits of the object have been loaded.
+	 */
+	CompletableFuture<History> getHistoryAsync(EObject object);
+
+	/**
+	 * Returns a future that is completed with the history of the object and its
+	 * direct children once their commits have been loaded.
+	 */
+	CompletableFuture<History> getContainerHistoryAsync(EObject object);
+
+	/**
+	 * Returns a future that is completed with the history of the object and all
+	 * its contents once their commits have been loaded.
+	 */
+	CompletableFuture<History> getRecursiveHistoryAsync(EObject object);
+
 }
@@ -31,6 +31,15 @@ public interface IPersistencyService {
 	 */
 	public IView openView() throws SpecmateException;
 
+	/**
+	 * Opens a read only view for read-heavy clients. If read sessions are
+	 * configured, the view belongs to one of them and does not compete with
+	 * the commits of the transactions. Changes become visible in the view
+	 * shortly after they have been committed. Without read sessions, this is
+	 * the same as {@link #openView()}.
+	 */
+	public IView openReadOnlyView() throws SpecmateException;
+
 	public void shutdown();
 
 	public void start() throws SpecmateException;
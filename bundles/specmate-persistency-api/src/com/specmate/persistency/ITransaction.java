@@ -42,7 +42,7 @@ public interface ITransaction extends IView {
 	 */
 	public boolean isActive();
 
-	public void addValidator(IChangeListener v);
+	public void addValidator(IValidator v);
 
 	public void removeValidator(String clazz);
 
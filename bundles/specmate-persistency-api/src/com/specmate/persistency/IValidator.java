@@ -0,0 +1,39 @@
+package com.specmate.persistency;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * A validator that checks the changes of a transaction before they are
+ * committed. Validators are registered as services and instantiated per
+ * transaction.
+ */
+public interface IValidator extends IChangeListener {
+
+	/**
+	 * The classes this validator applies to. Only changes of objects that are
+	 * instances of one of these classes are passed to the validator. An empty list
+	 * means that the validator applies to all objects.
+	 */
+	List<EClass> getApplicableClasses();
+
+	/**
+	 * Called before the changes of a commit are passed to the validator. Validators
+	 * that keep state for a single commit reset it here.
+	 */
+	void beginCommit();
+
+	/**
+	 * Called when the given objects were changed by another transaction, or when
+	 * the changes of this transaction to them were rolled back. Validators that
+	 * keep state across commits discard the state that depends on these objects.
+	 *
+	 * @param objects
+	 *            The changed objects, null if the state of all objects is to be
+	 *            discarded
+	 */
+	void invalidate(Collection<? extends EObject> objects);
+}
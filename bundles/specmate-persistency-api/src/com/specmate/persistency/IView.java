@@ -12,6 +12,12 @@ public interface IView {
 	/** Retrieves an object by its id */
 	public EObject getObjectById(Object originId);
 
+	/**
+	 * Retrieves the current instances matching the query, with SQL if the
+	 * store supports it and with OCL otherwise
+	 */
+	<T extends EObject> List<T> find(ObjectQuery<T> query);
+
 	/** Retreives objects by a ocl query */
 	List<Object> query(String queryString, Object context);
 	
@@ -19,5 +25,13 @@ public interface IView {
 	
 	List<Object> querySQLWithName(String queryString, Object context, String userName, long lastActive);
 
+	/**
+	 * Waits until the view shows the commits of all model events posted so far.
+	 * Views on read sessions receive changes after the events are posted.
+	 *
+	 * @return false if the view is still behind after the timeout
+	 */
+	public boolean waitForUpdate(long timeoutMillis);
+
 	public void close();
 }
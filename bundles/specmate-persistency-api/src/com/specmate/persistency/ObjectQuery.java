@@ -0,0 +1,108 @@
+package com.specmate.persistency;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.Enumerator;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * Query for the current instances of a class with given attribute values,
+ * optionally restricted to a project. Run with {@link IView#find(ObjectQuery)}.
+ *
+ * Example: <code>ObjectQuery.of(UserSession.class, USER_SESSION).where(USER_SESSION__ID, token)</code>
+ */
+public class ObjectQuery<T extends EObject> {
+
+	private final Class<T> type;
+
+	private final EClass eClass;
+
+	private final Map<EAttribute, Object> conditions = new LinkedHashMap<>();
+
+	private String projectId;
+
+	private ObjectQuery(Class<T> type, EClass eClass) {
+		this.type = type;
+		this.eClass = eClass;
+	}
+
+	/** Creates a query for the instances of a class */
+	public static <T extends EObject> ObjectQuery<T> of(Class<T> type, EClass eClass) {
+		return new ObjectQuery<>(type, eClass);
+	}
+
+	/**
+	 * Restricts the query to instances where the attribute has the given value,
+	 * <code>null</code> matches unset attributes
+	 */
+	public ObjectQuery<T> where(EAttribute attribute, Object value) {
+		if (!attribute.getEContainingClass().isSuperTypeOf(eClass)) {
+			throw new IllegalArgumentException(
+					"Attribute " + attribute.getName() + " is not a feature of " + eClass.getName());
+		}
+		conditions.put(attribute, value);
+		return this;
+	}
+
+	/** Restricts the query to instances contained in the given project */
+	public ObjectQuery<T> inProject(String projectId) {
+		this.projectId = projectId;
+		return this;
+	}
+
+	public Class<T> getType() {
+		return type;
+	}
+
+	public EClass getEClass() {
+		return eClass;
+	}
+
+	public Map<EAttribute, Object> getConditions() {
+		return Collections.unmodifiableMap(conditions);
+	}
+
+	public String getProjectId() {
+		return projectId;
+	}
+
+	/**
+	 * Returns the query as OCL expression, without the project restriction
+	 */
+	public String toOCL() {
+		StringBuilder ocl = new StringBuilder(eClass.getName()).append(".allInstances()");
+		if (conditions.isEmpty()) {
+			return ocl.toString();
+		}
+		ocl.append("->select(o | ");
+		boolean first = true;
+		for (Map.Entry<EAttribute, Object> condition : conditions.entrySet()) {
+			if (!first) {
+				ocl.append(" and ");
+			}
+			first = false;
+			ocl.append("o.").append(condition.getKey().getName());
+			Object value = condition.getValue();
+			if (value == null) {
+				ocl.append(".oclIsUndefined()");
+			} else {
+				ocl.append("=").append(toOCLLiteral(condition.getKey(), value));
+			}
+		}
+		return ocl.append(")").toString();
+	}
+
+	private String toOCLLiteral(EAttribute attribute, Object value) {
+		if (value instanceof Enumerator) {
+			return attribute.getEAttributeType().getName() + "::" + ((Enumerator) value).getLiteral();
+		}
+		if (value instanceof String) {
+			return "'" + ((String) value).replace("\\", "\\\\").replace("'", "\\'") + "'";
+		}
+		return String.valueOf(value);
+	}
+}
@@ -0,0 +1,121 @@
+package com.specmate.persistency.cdo.internal;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.log.LogService;
+
+import com.specmate.common.exception.SpecmateException;
+import com.specmate.config.api.IConfigService;
+import com.specmate.model.base.BasePackage;
+import com.specmate.model.base.ModelImage;
+import com.specmate.persistency.BlobReference;
+import com.specmate.persistency.IBlobStore;
+import com.specmate.persistency.IPersistencyService;
+import com.specmate.persistency.IView;
+import com.specmate.persistency.ObjectQuery;
+import com.specmate.scheduler.Scheduler;
+import com.specmate.scheduler.SchedulerIteratorFactory;
+import com.specmate.scheduler.SchedulerTask;
+
+/**
+ * Removes the blobs that are no longer referenced by a current model image,
+ * i.e. images that were replaced or deleted.
+ *
+ * Blobs stored during the last hour are kept, as they may belong to a commit
+ * that is still in progress and hence not yet visible to the collector.
+ */
+@Component(immediate = true)
+public class BlobCollector {
+
+	/** Configuration key for the schedule of the collection */
+	public static final String KEY_COLLECT_SCHEDULE = "blobstore.collectSchedule";
+
+	private static final String DEFAULT_SCHEDULE = "day 3";
+
+	private static final String DISABLED = "disabled";
+
+	private static final long GRACE_PERIOD = TimeUnit.HOURS.toMillis(1);
+
+	private IPersistencyService persistencyService;
+
+	private IBlobStore blobStore;
+
+	private IConfigService configService;
+
+	private LogService logService;
+
+	private Scheduler scheduler;
+
+	@Activate
+	public void activate() throws SpecmateException {
+		String schedule = configService.getConfigurationProperty(KEY_COLLECT_SCHEDULE, DEFAULT_SCHEDULE);
+		if (DISABLED.equalsIgnoreCase(schedule.trim())) {
+			return;
+		}
+		scheduler = new Scheduler();
+		scheduler.schedule(new SchedulerTask() {
+			@Override
+			public void run() {
+				try {
+					int removed = collect();
+					logService.log(LogService.LOG_INFO, "Removed " + removed + " unreferenced blobs.");
+				} catch (SpecmateException e) {
+					logService.log(LogService.LOG_ERROR, "Could not remove unreferenced blobs.", e);
+				}
+			}
+		}, SchedulerIteratorFactory.create(schedule));
+	}
+
+	@Deactivate
+	public void deactivate() {
+		if (scheduler != null) {
+			scheduler.cancel();
+			scheduler = null;
+		}
+	}
+
+	/** Removes the unreferenced blobs, returns the number of removed blobs */
+	public int collect() throws SpecmateException {
+		// Taken before reading the references, blobs stored afterwards are kept
+		long storedBefore = System.currentTimeMillis() - GRACE_PERIOD;
+		Set<String> referenced = new HashSet<>();
+		IView view = persistencyService.openView();
+		try {
+			for (ModelImage image : view.find(ObjectQuery.of(ModelImage.class, BasePackage.Literals.MODEL_IMAGE))) {
+				BlobReference reference = BlobReference.parse(image.getImageData());
+				if (reference != null) {
+					referenced.add(reference.getHash());
+				}
+			}
+		} finally {
+			view.close();
+		}
+		return blobStore.removeUnreferenced(referenced, storedBefore);
+	}
+
+	@Reference
+	public void setPersistencyService(IPersistencyService persistencyService) {
+		this.persistencyService = persistencyService;
+	}
+
+	@Reference
+	public void setBlobStore(IBlobStore blobStore) {
+		this.blobStore = blobStore;
+	}
+
+	@Reference
+	public void setConfigService(IConfigService configService) {
+		this.configService = configService;
+	}
+
+	@Reference
+	public void setLogService(LogService logService) {
+		this.logService = logService;
+	}
+}
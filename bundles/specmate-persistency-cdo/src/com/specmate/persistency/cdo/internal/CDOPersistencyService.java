@@ -2,15 +2,24 @@ package com.specmate.persistency.cdo.internal;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang3.StringUtils;
 import org.eclipse.emf.cdo.CDOObject;
 import org.eclipse.emf.cdo.common.CDOCommonSession.Options.PassiveUpdateMode;
+import org.eclipse.emf.cdo.common.commit.CDOCommitInfo;
 import org.eclipse.emf.cdo.common.id.CDOID;
 import org.eclipse.emf.cdo.common.revision.CDORevision;
 import org.eclipse.emf.cdo.eresource.CDOResource;
@@ -43,6 +52,8 @@ import org.eclipse.net4j.util.om.OMPlatform;
 import org.eclipse.net4j.util.om.log.PrintLogHandler;
 import org.eclipse.net4j.util.om.trace.PrintTraceHandler;
 import org.eclipse.net4j.util.security.PasswordCredentialsProvider;
+import org.osgi.service.component.ComponentConstants;
+import org.osgi.service.component.ComponentServiceObjects;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
@@ -50,6 +61,7 @@ import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.component.annotations.ReferenceScope;
 import org.osgi.service.event.EventAdmin;
 import org.osgi.service.log.LogService;
 
@@ -61,10 +73,12 @@ import com.specmate.metrics.IGauge;
 import com.specmate.metrics.IMetricsService;
 import com.specmate.model.administration.ErrorCode;
 import com.specmate.model.support.util.SpecmateEcoreUtil;
+import com.specmate.persistency.IBlobStore;
 import com.specmate.persistency.IChangeListener;
 import com.specmate.persistency.IPackageProvider;
 import com.specmate.persistency.IPersistencyService;
 import com.specmate.persistency.ITransaction;
+import com.specmate.persistency.IValidator;
 import com.specmate.persistency.IView;
 import com.specmate.persistency.event.EChangeKind;
 import com.specmate.persistency.event.ModelEvent;
@@ -82,14 +96,50 @@ public class CDOPersistencyService implements IPersistencyService, IListener {
 	/** The CDO session */
 	private CDONet4jSession session;
 
+	/** Additional sessions for read only views, may be empty */
+	private volatile List<CDONet4jSession> readSessions = Collections.emptyList();
+
+	/** The time of the last commit that was posted as model events */
+	private volatile long lastEventTime;
+
+	/** Number of read sessions to open */
+	private int readSessionCount;
+
+	/** Round robin counter to distribute views over the read sessions */
+	private AtomicInteger nextReadSession = new AtomicInteger();
+
 	private List<IChangeListener> listeners = new ArrayList<>();
 
+	/** Maximal time in ms to wait for the required validators when opening a transaction */
+	private static final long REQUIRED_VALIDATORS_TIMEOUT = 10000;
+
+	/** Factories for the registered validators, each transaction gets its own instances */
+	private List<ComponentServiceObjects<IValidator>> validatorFactories = new CopyOnWriteArrayList<>();
+
+	/** Component names of the validators without which no transaction is opened */
+	private Set<String> requiredValidators = Collections.emptySet();
+
+	/** The validator instances of the open transactions and the factories they stem from */
+	private Map<TransactionImpl, Map<IValidator, ComponentServiceObjects<IValidator>>> validatorInstances = new HashMap<>();
+
+	/** Number of threads to run validators in parallel */
+	private int validationThreads;
+
+	/** Executor to run validators of large commits in parallel */
+	private ExecutorService validationExecutor;
+
+	/** Minimal number of changes in a commit to validate in parallel */
+	private int validationParallelThreshold;
+
 	/** Flag to signal if the persistence is active */
 	private boolean active;
 
 	/** List of open views */
 	private List<ViewImpl> openViews = new ArrayList<>();
 
+	/** List of open views on the read sessions */
+	private List<ViewImpl> openReadViews = new ArrayList<>();
+
 	/** The list of open transactions */
 	private List<TransactionImpl> openTransactions = new ArrayList<>();
 
@@ -120,6 +170,12 @@ public class CDOPersistencyService implements IPersistencyService, IListener {
 	/** Reference to the status service */
 	private IStatusService statusService;
 
+	/** Reference to the change log, may be <code>null</code> */
+	private volatile ChangeLogIndex changeLog;
+
+	/** Moves image data into the blob store, null if no blob store is available */
+	private volatile ModelImageOffloader imageOffloader;
+
 	/** Reference to a package provider */
 	private IPackageProvider packageProvider;
 
@@ -133,12 +189,18 @@ public class CDOPersistencyService implements IPersistencyService, IListener {
 	public void activate(Map<String, Object> properties) throws SpecmateException {
 		readConfig(properties);
 		this.transactionGauge = metricsService.createGauge("Transactions", "The number of open transactions");
+		if (this.validationThreads > 1) {
+			this.validationExecutor = Executors.newFixedThreadPool(this.validationThreads);
+		}
 		start();
 	}
 
 	@Deactivate
 	public void deactivate() {
 		this.shutdown();
+		if (this.validationExecutor != null) {
+			this.validationExecutor.shutdown();
+		}
 	}
 
 	private void readConfig(Map<String, Object> properties) throws SpecmateException {
@@ -165,6 +227,27 @@ public class CDOPersistencyService implements IPersistencyService, IListener {
 		if (StringUtil.isEmpty(this.cdoPassword)) {
 			throw new SpecmateInternalException(ErrorCode.CONFIGURATION, "No CDO password given");
 		}
+
+		Integer validationThreads = (Integer) properties.get(CDOPersistencyServiceConfig.KEY_VALIDATION_THREADS);
+		this.validationThreads = validationThreads != null ? validationThreads
+				: CDOPersistencyServiceConfig.DEFAULT_VALIDATION_THREADS;
+		Integer parallelThreshold = (Integer) properties
+				.get(CDOPersistencyServiceConfig.KEY_VALIDATION_PARALLEL_THRESHOLD);
+		this.validationParallelThreshold = parallelThreshold != null ? parallelThreshold
+				: CDOPersistencyServiceConfig.DEFAULT_VALIDATION_PARALLEL_THRESHOLD;
+		String requiredValidators = (String) properties.get(CDOPersistencyServiceConfig.KEY_VALIDATION_REQUIRED);
+		if (requiredValidators == null) {
+			requiredValidators = CDOPersistencyServiceConfig.DEFAULT_VALIDATION_REQUIRED;
+		}
+		this.requiredValidators = new HashSet<>();
+		for (String validator : StringUtils.split(requiredValidators, ",")) {
+			if (!validator.trim().isEmpty()) {
+				this.requiredValidators.add(validator.trim());
+			}
+		}
+		Integer readSessionCount = (Integer) properties.get(CDOPersistencyServiceConfig.KEY_READ_SESSIONS);
+		this.readSessionCount = readSessionCount != null ? readSessionCount
+				: CDOPersistencyServiceConfig.DEFAULT_READ_SESSIONS;
 	}
 
 	@Override
@@ -184,6 +267,10 @@ public class CDOPersistencyService implements IPersistencyService, IListener {
 			view.update(openCDOView());
 		}
 
+		for (ViewImpl view : this.openReadViews) {
+			view.update(openCDOView(getReadSession()));
+		}
+
 		for (TransactionImpl transaction : this.openTransactions) {
 			transaction.update(openCDOTransaction());
 		}
@@ -196,6 +283,11 @@ public class CDOPersistencyService implements IPersistencyService, IListener {
 		}
 		session.removeListener(this);
 		this.active = false;
+		List<CDONet4jSession> sessions = readSessions;
+		readSessions = Collections.emptyList();
+		for (CDONet4jSession readSession : sessions) {
+			LifecycleUtil.deactivate(readSession);
+		}
 		LifecycleUtil.deactivate(session);
 		LifecycleUtil.deactivate(connector);
 	}
@@ -206,6 +298,7 @@ public class CDOPersistencyService implements IPersistencyService, IListener {
 		OMPlatform.INSTANCE.addTraceHandler(PrintTraceHandler.CONSOLE);
 		createContainer();
 		createSession();
+		createReadSessions();
 		installListener();
 	}
 
@@ -217,6 +310,28 @@ public class CDOPersistencyService implements IPersistencyService, IListener {
 	}
 
 	private void createSession() {
+		// Additions are needed to post model events with the new objects
+		session = openSession(PassiveUpdateMode.ADDITIONS);
+		registerPackages();
+		createModelResource();
+	}
+
+	/**
+	 * Opens the read sessions. They only need invalidations, as they do not
+	 * post model events.
+	 */
+	private void createReadSessions() {
+		List<CDONet4jSession> sessions = new ArrayList<>();
+		for (int i = 0; i < this.readSessionCount; i++) {
+			sessions.add(openSession(PassiveUpdateMode.INVALIDATIONS));
+		}
+		readSessions = sessions;
+		if (!sessions.isEmpty()) {
+			logService.log(LogService.LOG_INFO, "Opened " + sessions.size() + " CDO read sessions.");
+		}
+	}
+
+	private CDONet4jSession openSession(PassiveUpdateMode passiveUpdateMode) {
 		PasswordCredentialsProvider credentialsProvider = new PasswordCredentialsProvider(this.cdoUser,
 				this.cdoPassword);
 
@@ -227,8 +342,8 @@ public class CDOPersistencyService implements IPersistencyService, IListener {
 		configuration.setSignalTimeout(60000);
 		configuration.setCredentialsProvider(credentialsProvider);
 		configuration.setPassiveUpdateEnabled(true);
-		configuration.setPassiveUpdateMode(PassiveUpdateMode.ADDITIONS);
-		session = configuration.openNet4jSession();
+		configuration.setPassiveUpdateMode(passiveUpdateMode);
+		CDONet4jSession session = configuration.openNet4jSession();
 
 		session.addListener(new IListener() {
 			@Override
@@ -246,8 +361,7 @@ public class CDOPersistencyService implements IPersistencyService, IListener {
 				}
 			}
 		});
-		registerPackages();
-		createModelResource();
+		return session;
 	}
 
 	private void createModelResource() {
@@ -301,10 +415,14 @@ public class CDOPersistencyService implements IPersistencyService, IListener {
 					"Attempt to open transaction when persistency service is not active");
 		}
 		CDOTransaction cdoTransaction = openCDOTransaction();
+		Map<IValidator, ComponentServiceObjects<IValidator>> validators = createValidators();
+		ValidationPipeline validationPipeline = new ValidationPipeline(new ArrayList<>(validators.keySet()),
+				validationExecutor, validationParallelThreshold, metricsService, logService);
 		TransactionImpl transaction = new TransactionImpl(this, cdoTransaction, alterantiveResourceName, logService,
-				statusService, attachCommitListeners ? listeners : Collections.emptyList());
+				statusService, attachCommitListeners ? listeners : Collections.emptyList(), validationPipeline);
 
 		this.openTransactions.add(transaction);
+		this.validatorInstances.put(transaction, validators);
 		this.transactionGauge.inc();
 
 		return transaction;
@@ -312,9 +430,80 @@ public class CDOPersistencyService implements IPersistencyService, IListener {
 
 	public void closedTransaction(TransactionImpl transactionImpl) {
 		this.openTransactions.remove(transactionImpl);
+		releaseValidators(this.validatorInstances.remove(transactionImpl));
 		this.transactionGauge.dec();
 	}
 
+	/**
+	 * Creates new instances of all registered validators, ordered by their
+	 * component names. Waits until the required validators are registered.
+	 */
+	private Map<IValidator, ComponentServiceObjects<IValidator>> createValidators() throws SpecmateException {
+		awaitRequiredValidators();
+		List<ComponentServiceObjects<IValidator>> factories = new ArrayList<>(this.validatorFactories);
+		factories.sort(Comparator.comparing(CDOPersistencyService::getComponentName));
+		Map<IValidator, ComponentServiceObjects<IValidator>> validators = new LinkedHashMap<>();
+		for (ComponentServiceObjects<IValidator> factory : factories) {
+			IValidator validator = factory.getService();
+			if (validator != null) {
+				validators.put(validator, factory);
+			}
+		}
+		return validators;
+	}
+
+	/**
+	 * Waits until all required validators are registered, such that no
+	 * transaction commits unvalidated changes while the validators start
+	 */
+	private void awaitRequiredValidators() throws SpecmateException {
+		long deadline = System.currentTimeMillis() + REQUIRED_VALIDATORS_TIMEOUT;
+		synchronized (this.validatorFactories) {
+			Set<String> missing = getMissingValidators();
+			while (!missing.isEmpty()) {
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					throw new SpecmateInternalException(ErrorCode.PERSISTENCY,
+							"Required validators are not available: " + missing);
+				}
+				try {
+					this.validatorFactories.wait(remaining);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new SpecmateInternalException(ErrorCode.PERSISTENCY,
+							"Interrupted while waiting for validators.", e);
+				}
+				missing = getMissingValidators();
+			}
+		}
+	}
+
+	private Set<String> getMissingValidators() {
+		Set<String> missing = new HashSet<>(this.requiredValidators);
+		for (ComponentServiceObjects<IValidator> factory : this.validatorFactories) {
+			missing.remove(getComponentName(factory));
+		}
+		return missing;
+	}
+
+	private static String getComponentName(ComponentServiceObjects<IValidator> factory) {
+		Object name = factory.getServiceReference().getProperty(ComponentConstants.COMPONENT_NAME);
+		return name != null ? name.toString() : "";
+	}
+
+	private void releaseValidators(Map<IValidator, ComponentServiceObjects<IValidator>> validators) {
+		if (validators == null) {
+			return;
+		}
+		for (Entry<IValidator, ComponentServiceObjects<IValidator>> entry : validators.entrySet()) {
+			try {
+				entry.getValue().ungetService(entry.getKey());
+			} catch (IllegalStateException | IllegalArgumentException e) {
+				// The validator service has been unregistered in the meantime
+			}
+		}
+	}
+
 	@Override
 	public IView openView() throws SpecmateException {
 		if (!this.active) {
@@ -329,8 +518,27 @@ public class CDOPersistencyService implements IPersistencyService, IListener {
 		return view;
 	}
 
+	@Override
+	public IView openReadOnlyView() throws SpecmateException {
+		if (readSessions.isEmpty()) {
+			return openView();
+		}
+		if (!this.active) {
+			throw new SpecmateInternalException(ErrorCode.PERSISTENCY,
+					"Attempt to open view when persistency service is not active");
+		}
+		CDOView cdoView = openCDOView(getReadSession());
+		ViewImpl view = new ViewImpl(this, cdoView, this.resourceName, logService);
+
+		this.openReadViews.add(view);
+		this.transactionGauge.inc();
+		return view;
+	}
+
 	public void closedView(ViewImpl viewImpl) {
-		this.openViews.remove(viewImpl);
+		if (!this.openViews.remove(viewImpl)) {
+			this.openReadViews.remove(viewImpl);
+		}
 		this.transactionGauge.dec();
 	}
 
@@ -344,6 +552,10 @@ public class CDOPersistencyService implements IPersistencyService, IListener {
 	}
 
 	/* package */CDOView openCDOView() throws SpecmateException {
+		return openCDOView(session);
+	}
+
+	private CDOView openCDOView(CDONet4jSession session) {
 		CDOView view = session.openView();
 		view.options().addChangeSubscriptionPolicy(CDOAdapterPolicy.ALL);
 		view.options().setInvalidationNotificationEnabled(true);
@@ -357,6 +569,7 @@ public class CDOPersistencyService implements IPersistencyService, IListener {
 			return;
 		}
 		CDOSessionInvalidationEvent invalEvent = (CDOSessionInvalidationEvent) event;
+		lastEventTime = Math.max(lastEventTime, invalEvent.getTimeStamp());
 		CDOView localView = invalEvent.getLocalTransaction();
 		final CDOView view = localView != null ? localView : eventView;
 
@@ -391,6 +604,11 @@ public class CDOPersistencyService implements IPersistencyService, IListener {
 		return this.active;
 	}
 
+	/** Returns the time of the last commit that was posted as model events */
+	/* package */long getLastEventTime() {
+		return lastEventTime;
+	}
+
 	public void removeChangeListener(IChangeListener listener) {
 		listeners.remove(listener);
 	}
@@ -489,10 +707,43 @@ public class CDOPersistencyService implements IPersistencyService, IListener {
 		return null;
 	}
 
+	/**
+	 * Appends a commit to the change log. The commit has already happened, hence
+	 * errors are only logged.
+	 */
+	/* package */void appendToChangeLog(CDOCommitInfo commitInfo, CDOView view) {
+		ChangeLogIndex changeLog = this.changeLog;
+		if (changeLog == null) {
+			return;
+		}
+		try {
+			changeLog.append(commitInfo, view);
+		} catch (SpecmateException e) {
+			logService.log(LogService.LOG_ERROR, "Could not append commit to the change log.", e);
+		}
+	}
+
+	/* package */ModelImageOffloader getImageOffloader() {
+		return this.imageOffloader;
+	}
+
 	/* package */CDONet4jSession getSession() {
 		return this.session;
 	}
 
+	/**
+	 * Returns the next read session, or the main session if no read sessions are
+	 * configured
+	 */
+	/* package */CDONet4jSession getReadSession() {
+		List<CDONet4jSession> sessions = this.readSessions;
+		if (sessions.isEmpty()) {
+			return this.session;
+		}
+		int index = Math.floorMod(nextReadSession.getAndIncrement(), sessions.size());
+		return sessions.get(index);
+	}
+
 	public void removeModelProvider(IPackageProvider provider) {
 	}
 
@@ -516,6 +767,38 @@ public class CDOPersistencyService implements IPersistencyService, IListener {
 		listeners.add(listener);
 	}
 
+	@Reference(cardinality = ReferenceCardinality.MULTIPLE, policy = ReferencePolicy.DYNAMIC, scope = ReferenceScope.PROTOTYPE_REQUIRED)
+	public void addValidator(ComponentServiceObjects<IValidator> validatorFactory) {
+		synchronized (validatorFactories) {
+			validatorFactories.add(validatorFactory);
+			validatorFactories.notifyAll();
+		}
+	}
+
+	public void removeValidator(ComponentServiceObjects<IValidator> validatorFactory) {
+		validatorFactories.remove(validatorFactory);
+	}
+
+	@Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+	public void setChangeLog(ChangeLogIndex changeLog) {
+		this.changeLog = changeLog;
+	}
+
+	public void unsetChangeLog(ChangeLogIndex changeLog) {
+		if (this.changeLog == changeLog) {
+			this.changeLog = null;
+		}
+	}
+
+	@Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+	public void setBlobStore(IBlobStore blobStore) {
+		this.imageOffloader = new ModelImageOffloader(blobStore);
+	}
+
+	public void unsetBlobStore(IBlobStore blobStore) {
+		this.imageOffloader = null;
+	}
+
 	@Reference(cardinality = ReferenceCardinality.OPTIONAL)
 	public void setStatusService(IStatusService statusService) {
 		this.statusService = statusService;
@@ -34,6 +34,17 @@ public class CDOPersistencyServiceConfig {
 	public static final String KEY_CDO_USER = "cdo.user";
 	public static final String KEY_CDO_PASSWORD = "cdo.password";
 	public static final String KEY_SERVER_HOST_PORT = "cdo.serverHostAndPort";
+	public static final String KEY_VALIDATION_THREADS = "cdo.validation.threads";
+	public static final String KEY_VALIDATION_PARALLEL_THRESHOLD = "cdo.validation.parallelThreshold";
+	public static final int DEFAULT_VALIDATION_THREADS = 4;
+	public static final int DEFAULT_VALIDATION_PARALLEL_THRESHOLD = 500;
+	public static final String KEY_VALIDATION_REQUIRED = "cdo.validation.required";
+	public static final String DEFAULT_VALIDATION_REQUIRED = "com.specmate.persistency.validation.ConnectionValidator,"
+			+ "com.specmate.persistency.validation.IDValidator,com.specmate.persistency.validation.NameValidator,"
+			+ "com.specmate.persistency.validation.TextLengthValidator,"
+			+ "com.specmate.persistency.validation.TopLevelValidator";
+	public static final String KEY_READ_SESSIONS = "cdo.readSessions";
+	public static final int DEFAULT_READ_SESSIONS = 0;
 	private ConfigurationAdmin configurationAdmin;
 	private IConfigService configService;
 	private LogService logService;
@@ -47,6 +58,10 @@ public class CDOPersistencyServiceConfig {
 	private Configuration configuration;
 	private String cdoUser;
 	private String cdoPassword;
+	private int validationThreads;
+	private int validationParallelThreshold;
+	private String requiredValidators;
+	private int readSessions;
 
 	/**
 	 * Configures the CDO persistency service.
@@ -60,6 +75,13 @@ public class CDOPersistencyServiceConfig {
 		this.cdoUser = this.configService.getConfigurationProperty(KEY_CDO_USER);
 		this.cdoPassword = this.configService.getConfigurationProperty(KEY_CDO_PASSWORD);
 		this.host = this.configService.getConfigurationProperty(KEY_SERVER_HOST_PORT);
+		this.validationThreads = this.configService.getConfigurationPropertyInt(KEY_VALIDATION_THREADS,
+				DEFAULT_VALIDATION_THREADS);
+		this.validationParallelThreshold = this.configService
+				.getConfigurationPropertyInt(KEY_VALIDATION_PARALLEL_THRESHOLD, DEFAULT_VALIDATION_PARALLEL_THRESHOLD);
+		this.requiredValidators = this.configService.getConfigurationProperty(KEY_VALIDATION_REQUIRED,
+				DEFAULT_VALIDATION_REQUIRED);
+		this.readSessions = this.configService.getConfigurationPropertyInt(KEY_READ_SESSIONS, DEFAULT_READ_SESSIONS);
 		this.connected = false;
 		String[] hostport = StringUtils.split(this.host, ":");
 		if (hostport == null || !(hostport.length == 2)) {
@@ -121,6 +143,10 @@ public class CDOPersistencyServiceConfig {
 			properties.put(KEY_SERVER_HOST_PORT, this.host);
 			properties.put(KEY_CDO_USER, this.cdoUser);
 			properties.put(KEY_CDO_PASSWORD, this.cdoPassword);
+			properties.put(KEY_VALIDATION_THREADS, this.validationThreads);
+			properties.put(KEY_VALIDATION_PARALLEL_THRESHOLD, this.validationParallelThreshold);
+			properties.put(KEY_VALIDATION_REQUIRED, this.requiredValidators);
+			properties.put(KEY_READ_SESSIONS, this.readSessions);
 			this.logService.log(LogService.LOG_DEBUG,
 					"Configuring CDO with:\n" + OSGiUtil.configDictionaryToString(properties));
 			this.configuration = OSGiUtil.configureService(this.configurationAdmin, PID, properties);
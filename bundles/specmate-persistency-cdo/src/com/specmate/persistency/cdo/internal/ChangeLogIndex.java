@@ -0,0 +1,404 @@
+package com.specmate.persistency.cdo.internal;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.emf.cdo.CDOObject;
+import org.eclipse.emf.cdo.common.commit.CDOCommitInfo;
+import org.eclipse.emf.cdo.common.id.CDOID;
+import org.eclipse.emf.cdo.common.revision.CDOIDAndVersion;
+import org.eclipse.emf.cdo.common.revision.CDORevisionKey;
+import org.eclipse.emf.cdo.session.CDOSession;
+import org.eclipse.emf.cdo.util.ObjectNotFoundException;
+import org.eclipse.emf.cdo.view.CDOView;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.log.LogService;
+
+import com.specmate.common.exception.SpecmateException;
+import com.specmate.common.exception.SpecmateInternalException;
+import com.specmate.dbprovider.api.IDBProvider;
+import com.specmate.model.administration.ErrorCode;
+import com.specmate.model.base.INamed;
+import com.specmate.model.history.Change;
+import com.specmate.model.history.HistoryEntry;
+import com.specmate.model.history.HistoryFactory;
+import com.specmate.model.support.util.SpecmateEcoreUtil;
+import com.specmate.persistency.ITransaction;
+import com.specmate.urihandler.IURIFactory;
+
+/**
+ * Append-only log of the history entries of all projects, stored in the
+ * database next to the CDO tables.
+ *
+ * Each commit appends one entry per changed object, together with the path of
+ * the object at the time of the commit. The history of a container or a whole
+ * subtree thus becomes a range query over the log, instead of loading the
+ * commit history of every contained object from CDO. As the path is recorded
+ * at commit time, the entries of deleted objects remain part of the history of
+ * their former container. The log can be rebuilt from the audit data of CDO.
+ */
+@Component(service = ChangeLogIndex.class)
+public class ChangeLogIndex {
+
+	/** Table of the history entries, one per commit and object */
+	static final String ENTRY_TABLE = "SPECMATE_CHANGELOG";
+
+	/** Table of the changes of the history entries */
+	static final String CHANGE_TABLE = "SPECMATE_CHANGELOG_CHANGE";
+
+	/** Values longer than this are truncated in the log */
+	private static final int MAX_VALUE_LENGTH = 4000;
+
+	private static final String PATH_SEPARATOR = "/";
+
+	private static final char LIKE_ESCAPE = '!';
+
+	private IDBProvider dbProvider;
+
+	private IURIFactory uriFactory;
+
+	private LogService logService;
+
+	/** Whether the tables have been checked or created */
+	private volatile boolean initialized;
+
+	/** Whether the log is currently being rebuilt */
+	private volatile boolean rebuilding;
+
+	/**
+	 * Creates the tables of the log if they do not exist.
+	 *
+	 * @return <code>true</code> if the tables have been created, in which case
+	 *         the log needs to be rebuilt
+	 */
+	public synchronized boolean initialize() throws SpecmateException {
+		if (initialized) {
+			return false;
+		}
+		try (Connection connection = dbProvider.borrowConnection()) {
+			boolean exists;
+			try (ResultSet tables = connection.getMetaData().getTables(null, null, ENTRY_TABLE, null)) {
+				exists = tables.next();
+			}
+			if (!exists) {
+				createTables(connection);
+			}
+			initialized = true;
+			return !exists;
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.PERSISTENCY, "Could not create the change log.", e);
+		}
+	}
+
+	private void createTables(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE " + ENTRY_TABLE + " (COMMIT_TIME NUMBER(19) NOT NULL, "
+					+ "OBJECT_ID VARCHAR(255) NOT NULL, PROJECT VARCHAR(255) NOT NULL, PATH VARCHAR(2000) NOT NULL, "
+					+ "CONTAINER_PATH VARCHAR(2000), USER_NAME VARCHAR(255), COMMENT_TEXT VARCHAR(4000), "
+					+ "DELETED_OBJECTS VARCHAR(4000), PRIMARY KEY (COMMIT_TIME, OBJECT_ID))");
+			statement.execute("CREATE INDEX " + ENTRY_TABLE + "_PROJECT ON " + ENTRY_TABLE + " (PROJECT, COMMIT_TIME)");
+			statement.execute("CREATE TABLE " + CHANGE_TABLE + " (COMMIT_TIME NUMBER(19) NOT NULL, "
+					+ "OBJECT_ID VARCHAR(255) NOT NULL, POS NUMBER(10) NOT NULL, OBJECT_TYPE VARCHAR(255), "
+					+ "OBJECT_NAME VARCHAR(4000), FEATURE VARCHAR(255), NEW_VALUE VARCHAR(4000), "
+					+ "OLD_VALUE VARCHAR(4000), IS_CREATE NUMBER(1), PRIMARY KEY (COMMIT_TIME, OBJECT_ID, POS))");
+		}
+	}
+
+	/** Returns whether queries can be answered from the log */
+	public boolean isAvailable() {
+		return initialized && !rebuilding;
+	}
+
+	/**
+	 * Appends the entries of a commit to the log. Appending a commit again
+	 * replaces its entries.
+	 *
+	 * @param view
+	 *            a view on the state of the repository right after the commit
+	 */
+	public void append(CDOCommitInfo commit, CDOView view) throws SpecmateException {
+		HistoryEntryBuilder builder = new HistoryEntryBuilder((c, id) -> getName(view, id), logService);
+		List<Record> records = new ArrayList<>();
+		for (CDOIDAndVersion newObject : commit.getNewObjects()) {
+			addRecord(records, builder, commit, view, newObject.getID());
+		}
+		for (CDORevisionKey changedObject : commit.getChangedObjects()) {
+			addRecord(records, builder, commit, view, changedObject.getID());
+		}
+		write(commit.getTimeStamp(), records);
+	}
+
+	private void addRecord(List<Record> records, HistoryEntryBuilder builder, CDOCommitInfo commit, CDOView view,
+			CDOID id) throws SpecmateException {
+		CDOObject object = getObject(view, id);
+		if (object == null) {
+			return;
+		}
+		String path = uriFactory.getURI(object);
+		if (path == null || path.isEmpty()) {
+			return;
+		}
+		HistoryEntry entry = builder.build(commit, id);
+		if (entry == null) {
+			return;
+		}
+		int separator = path.lastIndexOf(PATH_SEPARATOR);
+		String containerPath = separator < 0 ? null : path.substring(0, separator);
+		String project = separator < 0 ? path : path.substring(0, path.indexOf(PATH_SEPARATOR));
+		records.add(new Record(SpecmateEcoreUtil.buildStringId(id), project, path, containerPath, entry));
+	}
+
+	private synchronized void write(long commitTime, List<Record> records) throws SpecmateException {
+		if (!initialized) {
+			return;
+		}
+		try (Connection connection = dbProvider.borrowConnection()) {
+			connection.setAutoCommit(false);
+			try {
+				deleteCommit(connection, commitTime);
+				insertRecords(connection, commitTime, records);
+				connection.commit();
+			} catch (SQLException e) {
+				connection.rollback();
+				throw e;
+			} finally {
+				connection.setAutoCommit(true);
+			}
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.PERSISTENCY,
+					"Could not write commit " + commitTime + " to the change log.", e);
+		}
+	}
+
+	private void deleteCommit(Connection connection, long commitTime) throws SQLException {
+		for (String table : new String[] { CHANGE_TABLE, ENTRY_TABLE }) {
+			try (PreparedStatement delete = connection
+					.prepareStatement("DELETE FROM " + table + " WHERE COMMIT_TIME = ?")) {
+				delete.setLong(1, commitTime);
+				delete.executeUpdate();
+			}
+		}
+	}
+
+	private void insertRecords(Connection connection, long commitTime, List<Record> records) throws SQLException {
+		if (records.isEmpty()) {
+			return;
+		}
+		try (PreparedStatement insertEntry = connection.prepareStatement("INSERT INTO " + ENTRY_TABLE
+				+ " (COMMIT_TIME, OBJECT_ID, PROJECT, PATH, CONTAINER_PATH, USER_NAME, COMMENT_TEXT, DELETED_OBJECTS)"
+				+ " VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+				PreparedStatement insertChange = connection.prepareStatement("INSERT INTO " + CHANGE_TABLE
+						+ " (COMMIT_TIME, OBJECT_ID, POS, OBJECT_TYPE, OBJECT_NAME, FEATURE, NEW_VALUE, OLD_VALUE,"
+						+ " IS_CREATE) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+			for (Record record : records) {
+				HistoryEntry entry = record.entry;
+				insertEntry.setLong(1, commitTime);
+				insertEntry.setString(2, record.objectId);
+				insertEntry.setString(3, record.project);
+				insertEntry.setString(4, record.path);
+				insertEntry.setString(5, record.containerPath);
+				insertEntry.setString(6, truncate(entry.getUser()));
+				insertEntry.setString(7, truncate(entry.getComment()));
+				insertEntry.setString(8, entry.getDeletedObjects().isEmpty() ? null
+						: truncate(String.join(ITransaction.COMMENT_FIELD_SEPARATOR, entry.getDeletedObjects())));
+				insertEntry.addBatch();
+
+				for (int i = 0; i < entry.getChanges().size(); i++) {
+					Change change = entry.getChanges().get(i);
+					insertChange.setLong(1, commitTime);
+					insertChange.setString(2, record.objectId);
+					insertChange.setInt(3, i);
+					insertChange.setString(4, change.getObjectType());
+					insertChange.setString(5, truncate(change.getObjectName()));
+					insertChange.setString(6, change.getFeature());
+					insertChange.setString(7, truncate(change.getNewValue()));
+					insertChange.setString(8, truncate(change.getOldValue()));
+					insertChange.setInt(9, change.isIsCreate() ? 1 : 0);
+					insertChange.addBatch();
+				}
+			}
+			insertEntry.executeBatch();
+			insertChange.executeBatch();
+		}
+	}
+
+	/**
+	 * Returns the entries of the object with the given path and of its children
+	 * (or of all its contents, if <code>recursive</code> is set), newest first.
+	 *
+	 * @param offset
+	 *            the number of entries to skip
+	 * @param limit
+	 *            the maximal number of entries to return
+	 */
+	public List<HistoryEntry> query(String path, boolean recursive, int offset, int limit)
+			throws SpecmateException {
+		int separator = path.indexOf(PATH_SEPARATOR);
+		String project = separator < 0 ? path : path.substring(0, separator);
+		String condition = recursive ? "E.PATH LIKE ? ESCAPE '" + LIKE_ESCAPE + "'" : "E.CONTAINER_PATH = ?";
+		String query = "SELECT E.COMMIT_TIME, E.OBJECT_ID, E.USER_NAME, E.COMMENT_TEXT, E.DELETED_OBJECTS, "
+				+ "C.OBJECT_TYPE, C.OBJECT_NAME, C.FEATURE, C.NEW_VALUE, C.OLD_VALUE, C.IS_CREATE FROM " + ENTRY_TABLE
+				+ " E LEFT JOIN " + CHANGE_TABLE
+				+ " C ON E.COMMIT_TIME = C.COMMIT_TIME AND E.OBJECT_ID = C.OBJECT_ID WHERE E.PROJECT = ? AND (E.PATH = ? OR "
+				+ condition + ") ORDER BY E.COMMIT_TIME DESC, E.OBJECT_ID, C.POS";
+
+		List<HistoryEntry> entries = new ArrayList<>();
+		try (Connection connection = dbProvider.borrowConnection();
+				PreparedStatement statement = connection.prepareStatement(query)) {
+			statement.setString(1, project);
+			statement.setString(2, path);
+			statement.setString(3, recursive ? escapeLike(path) + PATH_SEPARATOR + "%" : path);
+			try (ResultSet result = statement.executeQuery()) {
+				int skipped = 0;
+				HistoryEntry current = null;
+				String currentKey = null;
+				while (result.next()) {
+					String key = result.getLong(1) + PATH_SEPARATOR + result.getString(2);
+					if (!key.equals(currentKey)) {
+						if (current != null && skipped++ >= offset) {
+							entries.add(current);
+						}
+						if (entries.size() >= limit) {
+							current = null;
+							break;
+						}
+						currentKey = key;
+						current = readEntry(result);
+					}
+					readChange(result, current);
+				}
+				if (current != null && skipped >= offset) {
+					entries.add(current);
+				}
+			}
+		} catch (SQLException e) {
+			throw new SpecmateInternalException(ErrorCode.PERSISTENCY, "Could not query the change log.", e);
+		}
+		return entries;
+	}
+
+	private HistoryEntry readEntry(ResultSet result) throws SQLException {
+		HistoryEntry entry = HistoryFactory.eINSTANCE.createHistoryEntry();
+		entry.setTimestamp(result.getLong(1));
+		entry.setUser(result.getString(3));
+		entry.setComment(result.getString(4));
+		String deletedObjects = result.getString(5);
+		if (deletedObjects != null) {
+			for (String deletedObject : deletedObjects.split(ITransaction.COMMENT_FIELD_SEPARATOR)) {
+				entry.getDeletedObjects().add(deletedObject);
+			}
+		}
+		return entry;
+	}
+
+	private void readChange(ResultSet result, HistoryEntry entry) throws SQLException {
+		String feature = result.getString(8);
+		if (feature == null) {
+			return;
+		}
+		Change change = HistoryFactory.eINSTANCE.createChange();
+		change.setObjectType(result.getString(6));
+		change.setObjectName(result.getString(7));
+		change.setFeature(feature);
+		change.setNewValue(result.getString(9));
+		change.setOldValue(result.getString(10));
+		change.setIsCreate(result.getInt(11) == 1);
+		entry.getChanges().add(change);
+	}
+
+	/**
+	 * Rebuilds the log from the commits stored in CDO. Queries are not answered
+	 * from the log while it is rebuilt, commits happening in the meantime are
+	 * appended as usual.
+	 */
+	public void rebuild(CDOSession session) throws SpecmateException {
+		rebuilding = true;
+		try {
+			long end = session.getLastUpdateTime();
+			List<CDOCommitInfo> commits = new ArrayList<>();
+			session.getCommitInfoManager().getCommitInfos(session.getBranchManager().getMainBranch(), 0, end,
+					commits::add);
+			logService.log(LogService.LOG_INFO, "Rebuilding change log from " + commits.size() + " commits.");
+			try (HistoricalViewPool views = new HistoricalViewPool(session, 1, null)) {
+				for (CDOCommitInfo commit : commits) {
+					append(commit, views.getView(commit.getTimeStamp()));
+				}
+			}
+			logService.log(LogService.LOG_INFO, "Change log rebuilt.");
+		} finally {
+			rebuilding = false;
+		}
+	}
+
+	private CDOObject getObject(CDOView view, CDOID id) {
+		try {
+			return view.getObject(id);
+		} catch (ObjectNotFoundException e) {
+			return null;
+		}
+	}
+
+	private String getName(CDOView view, CDOID id) {
+		CDOObject object = getObject(view, id);
+		if (object instanceof INamed) {
+			return ((INamed) object).getName();
+		}
+		return null;
+	}
+
+	private String truncate(String value) {
+		if (value == null || value.length() <= MAX_VALUE_LENGTH) {
+			return value;
+		}
+		return value.substring(0, MAX_VALUE_LENGTH);
+	}
+
+	private String escapeLike(String value) {
+		StringBuilder escaped = new StringBuilder();
+		for (char c : value.toCharArray()) {
+			if (c == LIKE_ESCAPE || c == '%' || c == '_') {
+				escaped.append(LIKE_ESCAPE);
+			}
+			escaped.append(c);
+		}
+		return escaped.toString();
+	}
+
+	/** An entry of the log */
+	private static class Record {
+		private String objectId;
+		private String project;
+		private String path;
+		private String containerPath;
+		private HistoryEntry entry;
+
+		public Record(String objectId, String project, String path, String containerPath, HistoryEntry entry) {
+			this.objectId = objectId;
+			this.project = project;
+			this.path = path;
+			this.containerPath = containerPath;
+			this.entry = entry;
+		}
+	}
+
+	@Reference
+	public void setDBProvider(IDBProvider dbProvider) {
+		this.dbProvider = dbProvider;
+	}
+
+	@Reference
+	public void setUriFactory(IURIFactory uriFactory) {
+		this.uriFactory = uriFactory;
+	}
+
+	@Reference
+	public void setLogService(LogService logService) {
+		this.logService = logService;
+	}
+}
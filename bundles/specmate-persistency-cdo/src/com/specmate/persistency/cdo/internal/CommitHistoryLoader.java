@@ -0,0 +1,119 @@
+package com.specmate.persistency.cdo.internal;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.emf.cdo.CDOObject;
+import org.eclipse.emf.cdo.CDOObjectHistory;
+import org.eclipse.emf.cdo.common.commit.CDOCommitHistory;
+import org.eclipse.emf.cdo.common.commit.CDOCommitInfo;
+import org.eclipse.emf.cdo.common.revision.CDORevision;
+import org.eclipse.net4j.util.container.IContainerEvent;
+import org.eclipse.net4j.util.event.IEvent;
+import org.eclipse.net4j.util.event.IListener;
+
+/**
+ * Provides the commit history of an object as a future.
+ *
+ * CDO loads the history of an object asynchronously on a loader thread once
+ * the history is first accessed, and fires an element event for each loaded
+ * commit. On the main branch, each commit touching the object creates a new
+ * revision, hence the first page of the history is complete once it contains
+ * as many elements as the object has revisions (at most the load count of the
+ * history). Old revisions may have been pruned, such that fewer commits exist.
+ * Hence the page is also complete once CDO stops loading, which fires no
+ * event and is therefore polled.
+ */
+public class CommitHistoryLoader implements IListener {
+
+	private static final CDOCommitInfo[] EMPTY = new CDOCommitInfo[0];
+
+	/** Interval in ms in which the loading state of the history is checked */
+	private static final long POLL_INTERVAL = 100;
+
+	private final CDOObjectHistory history;
+
+	private final int expectedSize;
+
+	private final CompletableFuture<CDOCommitInfo[]> future = new CompletableFuture<>();
+
+	private ScheduledFuture<?> poll;
+
+	private CommitHistoryLoader(CDOObjectHistory history, int expectedSize) {
+		this.history = history;
+		this.expectedSize = expectedSize;
+	}
+
+	/**
+	 * Returns a future that is completed with the commits of the given object
+	 * once CDO has loaded them.
+	 *
+	 * @param scheduler
+	 *            Executor on which the end of the loading is polled
+	 */
+	public static CompletableFuture<CDOCommitInfo[]> load(CDOObject object, ScheduledExecutorService scheduler) {
+		CDOObjectHistory history = object.cdoHistory();
+		CDORevision revision = object.cdoRevision();
+		if (history == null || revision == null) {
+			return CompletableFuture.completedFuture(EMPTY);
+		}
+
+		CommitHistoryLoader loader = new CommitHistoryLoader(history,
+				Math.min(revision.getVersion(), history.getLoadCount()));
+		history.addListener(loader);
+		// The history might have been loaded before we started listening
+		loader.checkLoaded();
+		if (!loader.future.isDone()) {
+			loader.startPolling(scheduler);
+		}
+		return loader.future;
+	}
+
+	/**
+	 * Returns the elements of a history that is not loading anymore, even if
+	 * fewer elements than expected have been loaded.
+	 */
+	public static CDOCommitInfo[] getLoadedElements(CDOObject object) {
+		CDOObjectHistory history = object.cdoHistory();
+		if (history == null || history.isLoading()) {
+			return null;
+		}
+		return getElements(history);
+	}
+
+	@Override
+	public void notifyEvent(IEvent event) {
+		if (event instanceof IContainerEvent) {
+			checkLoaded();
+		}
+	}
+
+	private synchronized void startPolling(ScheduledExecutorService scheduler) {
+		if (!future.isDone()) {
+			poll = scheduler.scheduleWithFixedDelay(this::checkLoaded, POLL_INTERVAL, POLL_INTERVAL,
+					TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private synchronized void checkLoaded() {
+		if (future.isDone()) {
+			return;
+		}
+		CDOCommitInfo[] elements = getElements(history);
+		if (elements.length >= expectedSize || history.isFull() || !history.isLoading()) {
+			history.removeListener(this);
+			if (poll != null) {
+				poll.cancel(false);
+			}
+			future.complete(elements);
+		}
+	}
+
+	private static CDOCommitInfo[] getElements(CDOObjectHistory history) {
+		return Arrays.stream(history.getElements()).filter(e -> !(e instanceof CDOCommitHistory.TriggerLoadElement))
+				.toArray(CDOCommitInfo[]::new);
+	}
+}
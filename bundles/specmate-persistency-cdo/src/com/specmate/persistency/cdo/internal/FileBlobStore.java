@@ -0,0 +1,197 @@
+package com.specmate.persistency.cdo.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+import com.specmate.common.exception.SpecmateException;
+import com.specmate.common.exception.SpecmateInternalException;
+import com.specmate.config.api.IConfigService;
+import com.specmate.model.administration.ErrorCode;
+import com.specmate.persistency.BlobReference;
+import com.specmate.persistency.IBlobStore;
+
+/**
+ * Blob store on the local file system.
+ *
+ * Each blob is a file named after its hash, in a sub directory named after the
+ * first two characters of the hash. Blobs are written to a temporary file
+ * first and then moved in place, such that readers never see partial content.
+ * Blobs are never modified, hence storing content that is already present
+ * only renews the modification time of the file. The modification time tells
+ * the {@link BlobCollector} which blobs may belong to a commit in progress.
+ * Renewing or moving in a blob and checking and removing an unreferenced blob
+ * are done under one lock, such that the collector cannot remove a blob that
+ * has just been stored again.
+ */
+@Component(service = IBlobStore.class)
+public class FileBlobStore implements IBlobStore {
+
+	/** Configuration key for the directory of the blobs */
+	public static final String KEY_BLOBSTORE_LOCATION = "blobstore.location";
+
+	private static final String DEFAULT_LOCATION = "./database/blobs";
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private IConfigService configService;
+
+	private Path directory;
+
+	private final Object lock = new Object();
+
+	public FileBlobStore() {
+	}
+
+	public FileBlobStore(Path directory) {
+		this.directory = directory;
+	}
+
+	@Activate
+	public void activate() throws SpecmateException {
+		directory = Paths.get(configService.getConfigurationProperty(KEY_BLOBSTORE_LOCATION, DEFAULT_LOCATION));
+		try {
+			Files.createDirectories(directory);
+		} catch (IOException e) {
+			throw new SpecmateInternalException(ErrorCode.PERSISTENCY,
+					"Could not create blob directory " + directory + ".", e);
+		}
+	}
+
+	@Override
+	public String put(byte[] content) throws SpecmateException {
+		String hash = hash(content);
+		Path target = getPath(hash);
+		try {
+			synchronized (lock) {
+				if (renew(target)) {
+					return hash;
+				}
+			}
+			Files.createDirectories(target.getParent());
+			Path temp = Files.createTempFile(target.getParent(), hash, ".tmp");
+			try {
+				Files.write(temp, content);
+				synchronized (lock) {
+					try {
+						Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+					} catch (FileAlreadyExistsException e) {
+						// Stored concurrently with the same content
+						renew(target);
+					}
+				}
+			} finally {
+				Files.deleteIfExists(temp);
+			}
+		} catch (IOException e) {
+			throw new SpecmateInternalException(ErrorCode.PERSISTENCY, "Could not store blob " + hash + ".", e);
+		}
+		return hash;
+	}
+
+	@Override
+	public InputStream open(String hash) throws SpecmateException {
+		if (!BlobReference.isHash(hash)) {
+			return null;
+		}
+		try {
+			return Files.newInputStream(getPath(hash));
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			throw new SpecmateInternalException(ErrorCode.PERSISTENCY, "Could not read blob " + hash + ".", e);
+		}
+	}
+
+	@Override
+	public boolean contains(String hash) {
+		return BlobReference.isHash(hash) && Files.exists(getPath(hash));
+	}
+
+	@Override
+	public int removeUnreferenced(Set<String> referenced, long storedBefore) throws SpecmateException {
+		List<Path> blobs;
+		try (Stream<Path> files = Files.walk(directory, 2)) {
+			blobs = files.filter(file -> BlobReference.isHash(file.getFileName().toString()))
+					.collect(Collectors.toList());
+		} catch (IOException e) {
+			throw new SpecmateInternalException(ErrorCode.PERSISTENCY, "Could not list blobs in " + directory + ".", e);
+		}
+		int removed = 0;
+		for (Path blob : blobs) {
+			if (referenced.contains(blob.getFileName().toString())) {
+				continue;
+			}
+			try {
+				synchronized (lock) {
+					if (isExpired(blob, storedBefore) && Files.deleteIfExists(blob)) {
+						removed++;
+					}
+				}
+			} catch (NoSuchFileException e) {
+				// Removed concurrently
+			} catch (IOException e) {
+				throw new SpecmateInternalException(ErrorCode.PERSISTENCY, "Could not remove blob " + blob + ".", e);
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Tells whether the blob was last stored before the given time. Called
+	 * under the lock, right before an unreferenced blob is removed.
+	 */
+	protected boolean isExpired(Path blob, long storedBefore) throws IOException {
+		return Files.getLastModifiedTime(blob).toMillis() < storedBefore;
+	}
+
+	/** Renews the modification time of the blob, false if it does not exist */
+	private boolean renew(Path blob) throws IOException {
+		try {
+			Files.setLastModifiedTime(blob, FileTime.fromMillis(System.currentTimeMillis()));
+			return true;
+		} catch (NoSuchFileException e) {
+			return false;
+		}
+	}
+
+	private Path getPath(String hash) {
+		return directory.resolve(hash.substring(0, 2)).resolve(hash);
+	}
+
+	private String hash(byte[] content) throws SpecmateException {
+		byte[] digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256").digest(content);
+		} catch (NoSuchAlgorithmException e) {
+			throw new SpecmateInternalException(ErrorCode.INTERNAL_PROBLEM, "SHA-256 is not available.", e);
+		}
+		char[] hex = new char[digest.length * 2];
+		for (int i = 0; i < digest.length; i++) {
+			hex[2 * i] = HEX[(digest[i] >> 4) & 0xF];
+			hex[2 * i + 1] = HEX[digest[i] & 0xF];
+		}
+		return new String(hex);
+	}
+
+	@Reference
+	public void setConfigService(IConfigService configService) {
+		this.configService = configService;
+	}
+}
@@ -0,0 +1,67 @@
+package com.specmate.persistency.cdo.internal;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.emf.cdo.session.CDOSession;
+import org.eclipse.emf.cdo.view.CDOView;
+
+import com.specmate.metrics.ICounter;
+
+/**
+ * A small pool of read-only views on past states of the repository, keyed by
+ * commit timestamp.
+ *
+ * Once the pool is full, the least recently used view is moved to the
+ * requested timestamp instead of opening a new one. The pool is meant to be
+ * used for computing one history and must be closed afterwards.
+ */
+public class HistoricalViewPool implements AutoCloseable {
+
+	private final CDOSession session;
+
+	private final int maxViews;
+
+	/** Counts the views opened by all pools, may be <code>null</code> */
+	private final ICounter openedViews;
+
+	/** The views by timestamp, in access order */
+	private final LinkedHashMap<Long, CDOView> views = new LinkedHashMap<>(16, 0.75f, true);
+
+	public HistoricalViewPool(CDOSession session, int maxViews, ICounter openedViews) {
+		this.session = session;
+		this.maxViews = maxViews;
+		this.openedViews = openedViews;
+	}
+
+	/** Returns a view on the state of the repository at the given timestamp */
+	public CDOView getView(long timestamp) {
+		CDOView view = views.get(timestamp);
+		if (view != null) {
+			return view;
+		}
+
+		if (views.size() < maxViews) {
+			view = session.openView(timestamp);
+			if (openedViews != null) {
+				openedViews.inc();
+			}
+		} else {
+			Iterator<Map.Entry<Long, CDOView>> eldest = views.entrySet().iterator();
+			view = eldest.next().getValue();
+			eldest.remove();
+			view.setTimeStamp(timestamp);
+		}
+		views.put(timestamp, view);
+		return view;
+	}
+
+	@Override
+	public void close() {
+		for (CDOView view : views.values()) {
+			view.close();
+		}
+		views.clear();
+	}
+}
@@ -0,0 +1,174 @@
+package com.specmate.persistency.cdo.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.cdo.common.commit.CDOCommitInfo;
+import org.eclipse.emf.cdo.common.id.CDOID;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.osgi.service.log.LogService;
+
+import com.specmate.common.exception.SpecmateValidationException;
+import com.specmate.model.base.BasePackage;
+import com.specmate.model.history.Change;
+import com.specmate.model.history.HistoryEntry;
+import com.specmate.model.history.HistoryFactory;
+import com.specmate.model.requirements.RequirementsPackage;
+import com.specmate.persistency.ITransaction;
+import com.specmate.persistency.event.EChangeKind;
+
+/**
+ * Creates the history entry of an object for a single commit.
+ */
+public class HistoryEntryBuilder {
+
+	/** Resolves the name of an object as of a commit */
+	@FunctionalInterface
+	public interface INameResolver {
+		String getName(CDOCommitInfo commit, CDOID id);
+	}
+
+	private INameResolver names;
+
+	private LogService logService;
+
+	public HistoryEntryBuilder(INameResolver names, LogService logService) {
+		this.names = names;
+		this.logService = logService;
+	}
+
+	/**
+	 * Returns the history entry of the object with the given id, or
+	 * <code>null</code> if the commit contains no changes of the object that are
+	 * shown in the history.
+	 */
+	public HistoryEntry build(CDOCommitInfo commit, CDOID id) {
+		HistoryEntry historyEntry = HistoryFactory.eINSTANCE.createHistoryEntry();
+		HistoryDeltaProcessor deltaProcessor = new HistoryDeltaProcessor(commit, id);
+		try {
+			deltaProcessor.process();
+		} catch (SpecmateValidationException e) {
+			logService.log(LogService.LOG_ERROR, e.getMessage());
+		}
+		historyEntry.getChanges().addAll(deltaProcessor.getChanges());
+		historyEntry.setTimestamp(commit.getTimeStamp());
+		extractCommentInfo(commit, historyEntry);
+
+		if (historyEntry.getChanges().isEmpty() && historyEntry.getDeletedObjects().isEmpty()) {
+			return null;
+		}
+		return historyEntry;
+	}
+
+	private void extractCommentInfo(CDOCommitInfo cdoHistoryElement, HistoryEntry historyEntry) {
+		String comment = cdoHistoryElement.getComment();
+		if (comment == null || comment.length() == 0) {
+			return;
+		}
+
+		String[] info = comment.split(ITransaction.COMMENT_RECORD_SEPARATOR);
+		if (info.length == 0) {
+			return;
+		}
+
+		historyEntry.setUser(info[0]);
+
+		if (info.length == 2) {
+			String[] deletedObjects = info[1].split(ITransaction.COMMENT_FIELD_SEPARATOR);
+			for (int i = 0; i < deletedObjects.length; i++) {
+				historyEntry.getDeletedObjects().add(deletedObjects[i]);
+			}
+		}
+
+		if (info.length == 3) {
+			historyEntry.setComment(info[2]);
+		}
+	}
+
+	private class HistoryDeltaProcessor extends DeltaProcessor {
+
+		List<Change> changes = new ArrayList<>();
+		private CDOID cdoId;
+		private CDOCommitInfo commit;
+
+		public HistoryDeltaProcessor(CDOCommitInfo commit, CDOID id) {
+			super(commit);
+			this.cdoId = id;
+			this.commit = commit;
+		}
+
+		public List<Change> getChanges() {
+			return this.changes;
+		}
+
+		@Override
+		protected void changedObject(CDOID id, EStructuralFeature feature, EChangeKind changeKind, Object oldValue,
+				Object newValue, int index, String objectClassName) throws SpecmateValidationException {
+
+			if (!id.equals(this.cdoId)) {
+				return;
+			}
+
+			if (showChange(feature, changeKind)) {
+				String objectName = names.getName(commit, id);
+				if (objectName != null) {
+					Change change = HistoryFactory.eINSTANCE.createChange();
+
+					if (newValue != null) {
+						change.setNewValue(newValue.toString());
+					}
+					if (oldValue != null) {
+						// For some reason, when this is retrieved by CDO, the object has no type
+						// information and lands here as a plain object which we cannot read as a
+						// string. Hence, for now, the clients should ignore these values.
+						change.setOldValue(oldValue.toString());
+					}
+
+					change.setObjectType(objectClassName);
+					change.setFeature(feature.getName());
+					change.setObjectName(objectName);
+					changes.add(change);
+				}
+			}
+		}
+
+		@Override
+		protected void newObject(CDOID id, String className, Map<EStructuralFeature, Object> featureMap)
+				throws SpecmateValidationException {
+			if (!id.equals(this.cdoId)) {
+				return;
+			}
+
+			featureMap.forEach((k, v) -> {
+				// For now, we are only interested in seeing the new objects' name in the
+				// history
+				if (k.getName().equals(BasePackage.Literals.INAMED__NAME.getName())) {
+					Change change = HistoryFactory.eINSTANCE.createChange();
+					change.setIsCreate(true);
+					change.setFeature(k.getName());
+					change.setObjectType(className);
+					change.setNewValue((String) v);
+					change.setObjectName((String) v);
+					changes.add(change);
+				}
+			});
+		}
+
+		@Override
+		protected void detachedObject(CDOID id, int version) throws SpecmateValidationException {
+			// Information about deleted object is stored in transaction commits
+		}
+
+		private boolean showChange(EStructuralFeature feature, EChangeKind changeKind) {
+			String featureName = feature.getName();
+			// For now, we are only interested in seeing changes in object names,
+			// descriptions, variables and conditions
+			return changeKind.equals(EChangeKind.SET)
+					&& (featureName.equals(BasePackage.Literals.INAMED__NAME.getName())
+							|| featureName.equals(BasePackage.Literals.IDESCRIBED__DESCRIPTION.getName())
+							|| featureName.equals(RequirementsPackage.Literals.CEG_NODE__VARIABLE.getName())
+							|| featureName.equals(RequirementsPackage.Literals.CEG_NODE__CONDITION.getName()));
+		}
+	}
+}
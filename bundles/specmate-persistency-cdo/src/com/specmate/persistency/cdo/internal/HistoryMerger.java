@@ -0,0 +1,97 @@
+package com.specmate.persistency.cdo.internal;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.ToLongFunction;
+
+import com.specmate.model.history.HistoryEntry;
+
+/**
+ * Merges the commit streams of several objects into one history, newest
+ * entries first.
+ *
+ * Each stream is ordered by time already, hence the streams are merged with a
+ * priority queue holding the next commit of every stream. Entries are only
+ * created for the commits that are actually taken from the queue, so merging
+ * stops as soon as the requested page is complete. Commits with equal
+ * timestamps are taken in stream order.
+ */
+public class HistoryMerger {
+
+	/** Creates the entry of the object of a stream for a commit */
+	@FunctionalInterface
+	public interface IEntryFactory<T> {
+		/**
+		 * Returns the entry, or <code>null</code> if the commit shows no changes
+		 * of the object
+		 */
+		HistoryEntry create(int stream, T commit);
+	}
+
+	/** Position in a stream */
+	private static class Cursor<T> {
+		private final int stream;
+		private final List<T> commits;
+		private int position;
+		private long timestamp;
+
+		public Cursor(int stream, List<T> commits) {
+			this.stream = stream;
+			this.commits = commits;
+		}
+	}
+
+	/**
+	 * Merges the given streams.
+	 *
+	 * @param streams
+	 *            the commits of each object, newest first
+	 * @param timestamp
+	 *            returns the timestamp of a commit
+	 * @param factory
+	 *            creates the history entries
+	 * @param offset
+	 *            the number of entries to skip
+	 * @param limit
+	 *            the maximal number of entries to return
+	 */
+	public static <T> List<HistoryEntry> merge(List<List<T>> streams, ToLongFunction<T> timestamp,
+			IEntryFactory<T> factory, int offset, int limit) {
+		Comparator<Cursor<T>> newestFirst = (c1, c2) -> {
+			int result = Long.compare(c2.timestamp, c1.timestamp);
+			return result != 0 ? result : Integer.compare(c1.stream, c2.stream);
+		};
+		PriorityQueue<Cursor<T>> queue = new PriorityQueue<>(Math.max(1, streams.size()), newestFirst);
+		for (int i = 0; i < streams.size(); i++) {
+			List<T> commits = streams.get(i);
+			if (!commits.isEmpty()) {
+				Cursor<T> cursor = new Cursor<>(i, commits);
+				cursor.timestamp = timestamp.applyAsLong(commits.get(0));
+				queue.add(cursor);
+			}
+		}
+
+		List<HistoryEntry> entries = new ArrayList<>();
+		int skipped = 0;
+		while (!queue.isEmpty() && entries.size() < limit) {
+			Cursor<T> cursor = queue.poll();
+			HistoryEntry entry = factory.create(cursor.stream, cursor.commits.get(cursor.position));
+			if (entry != null) {
+				if (skipped < offset) {
+					skipped++;
+				} else {
+					entries.add(entry);
+				}
+			}
+
+			cursor.position++;
+			if (cursor.position < cursor.commits.size()) {
+				cursor.timestamp = timestamp.applyAsLong(cursor.commits.get(cursor.position));
+				queue.add(cursor);
+			}
+		}
+		return entries;
+	}
+}
@@ -1,69 +1,265 @@
 package com.specmate.persistency.cdo.internal;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import org.eclipse.emf.cdo.CDOObject;
-import org.eclipse.emf.cdo.CDOObjectHistory;
-import org.eclipse.emf.cdo.common.commit.CDOChangeSetData;
 import org.eclipse.emf.cdo.common.commit.CDOCommitInfo;
 import org.eclipse.emf.cdo.common.id.CDOID;
-import org.eclipse.emf.common.util.ECollections;
+import org.eclipse.emf.cdo.common.revision.CDORevisionKey;
+import org.eclipse.emf.cdo.util.ObjectNotFoundException;
+import org.eclipse.emf.cdo.view.CDOView;
 import org.eclipse.emf.common.util.TreeIterator;
 import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.EStructuralFeature;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.osgi.service.log.LogService;
 
 import com.specmate.common.exception.SpecmateException;
-import com.specmate.common.exception.SpecmateValidationException;
-import com.specmate.model.base.BasePackage;
+import com.specmate.common.exception.SpecmateInternalException;
+import com.specmate.config.api.IConfigService;
+import com.specmate.metrics.ICounter;
+import com.specmate.metrics.IHistogram;
+import com.specmate.metrics.IMetricsService;
+import com.specmate.metrics.ITimer;
+import com.specmate.model.administration.ErrorCode;
 import com.specmate.model.base.INamed;
-import com.specmate.model.history.Change;
 import com.specmate.model.history.History;
-import com.specmate.model.history.HistoryEntry;
 import com.specmate.model.history.HistoryFactory;
-import com.specmate.model.requirements.RequirementsPackage;
 import com.specmate.persistency.IHistoryProvider;
 import com.specmate.persistency.IPersistencyService;
-import com.specmate.persistency.ITransaction;
-import com.specmate.persistency.event.EChangeKind;
+import com.specmate.urihandler.IURIFactory;
 
 @Component(immediate = true)
 public class HistoryProviderImpl implements IHistoryProvider {
 
+	/** Configuration key for the maximal time to wait for a history to load */
+	public static final String KEY_HISTORY_LOAD_TIMEOUT = "history.loadTimeout";
+
+	private static final int DEFAULT_HISTORY_LOAD_TIMEOUT = 30000;
+
+	/** Number of historical views used for computing one history */
+	private static final int HISTORICAL_VIEWS = 4;
+
+	/** Number of object names at a given revision that are cached */
+	private static final int NAME_CACHE_SIZE = 10000;
+
+	/** Number of threads that build histories from loaded commits */
+	private static final int BUILDER_THREADS = 2;
+
+	/** Time in ms for which a loaded history is kept for clients that retry */
+	private static final long LOADED_HISTORY_RETENTION = 10000;
+
 	private IPersistencyService persistency;
 
+	private IConfigService configService;
+
+	private IURIFactory uriFactory;
+
+	private IMetricsService metricsService;
+
 	private LogService logService;
 
+	/** Names of objects by id and revision, revisions never change */
+	private Map<String, String> nameCache = Collections
+			.synchronizedMap(new LinkedHashMap<String, String>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+					return size() > NAME_CACHE_SIZE;
+				}
+			});
+
+	/** Counts the historical views opened for computing histories */
+	private ICounter openedViews;
+
+	/** Time for computing a history, including loading it */
+	private IHistogram latency;
+
+	/** The change log, may be <code>null</code> */
+	private volatile ChangeLogIndex changeLog;
+
+	/** Initializes the change log in the background */
+	private ExecutorService changeLogExecutor;
+
+	/** Maximal time in milliseconds to wait for the history of a request */
+	private long loadTimeout;
+
+	/** Polls the loading of histories and discards loaded histories */
+	private ScheduledExecutorService loadScheduler;
+
+	/** Builds histories off the CDO loader threads */
+	private ExecutorService builderExecutor;
+
+	/**
+	 * Histories that are loading or were loaded recently, by kind and object id,
+	 * such that retries of clients wait for the same load
+	 */
+	private Map<String, CompletableFuture<History>> asyncLoads = new ConcurrentHashMap<>();
+
+	@Activate
+	public void activate() throws SpecmateException {
+		this.loadTimeout = configService.getConfigurationPropertyInt(KEY_HISTORY_LOAD_TIMEOUT,
+				DEFAULT_HISTORY_LOAD_TIMEOUT);
+		this.openedViews = metricsService.createCounter("history_views_opened",
+				"The number of historical views opened for computing histories");
+		this.latency = metricsService.createHistogram("history_latency", "Time for computing a history");
+		this.changeLogExecutor = Executors.newSingleThreadExecutor();
+		this.loadScheduler = Executors.newSingleThreadScheduledExecutor();
+		this.builderExecutor = Executors.newFixedThreadPool(BUILDER_THREADS);
+		ChangeLogIndex changeLog = this.changeLog;
+		if (changeLog != null) {
+			initializeChangeLog(changeLog);
+		}
+	}
+
+	@Deactivate
+	public void deactivate() {
+		this.changeLogExecutor.shutdownNow();
+		this.loadScheduler.shutdownNow();
+		this.builderExecutor.shutdownNow();
+		this.asyncLoads.clear();
+	}
+
+	/** Creates the change log if needed and fills it from the CDO history */
+	private void initializeChangeLog(ChangeLogIndex changeLog) {
+		changeLogExecutor.submit(() -> {
+			try {
+				if (changeLog.initialize()) {
+					changeLog.rebuild(((CDOPersistencyService) persistency).getReadSession());
+				}
+			} catch (SpecmateException e) {
+				logService.log(LogService.LOG_ERROR, "Could not initialize the change log.", e);
+			}
+		});
+	}
+
 	@Override
 	public History getHistory(EObject object) throws SpecmateException {
-		CDOObject cdoObject = (CDOObject) object;
-		History history = HistoryFactory.eINSTANCE.createHistory();
-		return processHistory(cdoObject, history);
+		return awaitHistory(Collections.singletonList((CDOObject) object), 0, Integer.MAX_VALUE);
 	}
 
 	@Override
 	public History getContainerHistory(EObject object) throws SpecmateException {
-		History history = getHistory(object);
+		return getContainerHistory(object, 0, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public History getRecursiveHistory(EObject object) throws SpecmateException {
+		return getRecursiveHistory(object, 0, Integer.MAX_VALUE);
+	}
 
-		List<EObject> contents = object.eContents();
-		for (EObject content : contents) {
-			CDOObject cdoObject = (CDOObject) content;
-			processHistory(cdoObject, history);
+	@Override
+	public History getContainerHistory(EObject object, int offset, int limit) throws SpecmateException {
+		ChangeLogIndex changeLog = this.changeLog;
+		if (changeLog != null && changeLog.isAvailable()) {
+			return queryChangeLog(changeLog, object, false, offset, limit);
 		}
+		return awaitHistory(getContainerObjects(object), offset, limit);
+	}
 
-		sortHistory(history, false);
+	@Override
+	public History getRecursiveHistory(EObject object, int offset, int limit) throws SpecmateException {
+		ChangeLogIndex changeLog = this.changeLog;
+		if (changeLog != null && changeLog.isAvailable()) {
+			return queryChangeLog(changeLog, object, true, offset, limit);
+		}
+		return awaitHistory(getRecursiveObjects(object), offset, limit);
+	}
 
+	private History queryChangeLog(ChangeLogIndex changeLog, EObject object, boolean recursive, int offset,
+			int limit) throws SpecmateException {
+		ITimer timer = latency.startTimer();
+		History history = HistoryFactory.eINSTANCE.createHistory();
+		history.getEntries().addAll(changeLog.query(uriFactory.getURI(object), recursive, offset, limit));
+		timer.observeDuration();
 		return history;
 	}
 
 	@Override
-	public History getRecursiveHistory(EObject object) throws SpecmateException {
-		History history = getHistory(object);
+	public CompletableFuture<History> getHistoryAsync(EObject object) {
+		return getAsyncLoad("single", object, () -> Collections.singletonList((CDOObject) object));
+	}
+
+	@Override
+	public CompletableFuture<History> getContainerHistoryAsync(EObject object) {
+		ChangeLogIndex changeLog = this.changeLog;
+		if (changeLog != null && changeLog.isAvailable()) {
+			return queryChangeLogAsync(changeLog, object, false);
+		}
+		return getAsyncLoad("container", object, () -> getContainerObjects(object));
+	}
+
+	@Override
+	public CompletableFuture<History> getRecursiveHistoryAsync(EObject object) {
+		ChangeLogIndex changeLog = this.changeLog;
+		if (changeLog != null && changeLog.isAvailable()) {
+			return queryChangeLogAsync(changeLog, object, true);
+		}
+		return getAsyncLoad("recursive", object, () -> getRecursiveObjects(object));
+	}
+
+	private CompletableFuture<History> queryChangeLogAsync(ChangeLogIndex changeLog, EObject object,
+			boolean recursive) {
+		CompletableFuture<History> history = new CompletableFuture<>();
+		try {
+			history.complete(queryChangeLog(changeLog, object, recursive, 0, Integer.MAX_VALUE));
+		} catch (SpecmateException e) {
+			history.completeExceptionally(e);
+		}
+		return history;
+	}
+
+	/**
+	 * Returns the running load of the given kind of history of the object, or
+	 * starts it. A loaded history is handed out once more, to the retry of the
+	 * client that started it, or discarded after some time.
+	 */
+	private CompletableFuture<History> getAsyncLoad(String kind, EObject object,
+			Supplier<List<CDOObject>> objects) {
+		String key = kind + ":" + ((CDOObject) object).cdoID();
+		CompletableFuture<History> load = asyncLoads.computeIfAbsent(key, k -> {
+			CompletableFuture<History> started = loadHistory(objects.get());
+			started.whenComplete((history, error) -> loadScheduler.schedule(
+					() -> asyncLoads.remove(k, started), LOADED_HISTORY_RETENTION, TimeUnit.MILLISECONDS));
+			return started;
+		});
+		if (load.isDone()) {
+			asyncLoads.remove(key, load);
+		}
+		return load;
+	}
+
+	private List<CDOObject> getContainerObjects(EObject object) {
+		List<CDOObject> objects = new ArrayList<>();
+		objects.add((CDOObject) object);
+		for (EObject content : object.eContents()) {
+			objects.add((CDOObject) content);
+		}
+		return objects;
+	}
+
+	private List<CDOObject> getRecursiveObjects(EObject object) {
+		List<CDOObject> objects = new ArrayList<>();
+		objects.add((CDOObject) object);
 
 		// Get all contents recursively
 		// Note: this retrieves only existing elements, deleted elements are NOT
@@ -76,210 +272,169 @@ public class HistoryProviderImpl implements IHistoryProvider {
 
 		TreeIterator<EObject> it = object.eAllContents();
 		while (it.hasNext()) {
-			CDOObject cdoObject = (CDOObject) it.next();
-			processHistory(cdoObject, history);
+			objects.add((CDOObject) it.next());
 		}
-
-		sortHistory(history, false);
-
-		return history;
+		return objects;
 	}
 
-	private void sortHistory(History history, boolean ascending) {
-		ECollections.sort(history.getEntries(), new Comparator<HistoryEntry>() {
-			@Override
-			public int compare(HistoryEntry o1, HistoryEntry o2) {
-				if (ascending) {
-					return (int) ((int) o1.getTimestamp() - o2.getTimestamp());
-				}
-
-				return (int) (o2.getTimestamp() - o1.getTimestamp());
-			}
-		});
+	/**
+	 * Starts loading the commits of all objects at once, such that CDO loads
+	 * the histories in parallel.
+	 */
+	private List<CompletableFuture<CDOCommitInfo[]>> startLoading(List<CDOObject> objects) {
+		return objects.stream().map(object -> CommitHistoryLoader.load(object, loadScheduler))
+				.collect(Collectors.toList());
 	}
 
-	private History processHistory(CDOObject cdoObject, History history) {
-		CDOCommitInfo[] cdoHistoryElements = getCDOHistoryElements(cdoObject);
-		for (int i = 0; i < cdoHistoryElements.length; i++) {
-			CDOCommitInfo cdoHistoryElement = cdoHistoryElements[i];
-			HistoryEntry historyEntry = HistoryFactory.eINSTANCE.createHistoryEntry();
-
-			fillHistoryEntry(cdoObject, cdoHistoryElement, historyEntry);
-			if (!historyEntry.getChanges().isEmpty() || !historyEntry.getDeletedObjects().isEmpty()) {
-				history.getEntries().add(historyEntry);
-			}
+	/**
+	 * Loads the history in the background. It is built on a builder thread, not
+	 * on the CDO loader thread, and fails if it is not loaded within the load
+	 * timeout.
+	 */
+	private CompletableFuture<History> loadHistory(List<CDOObject> objects) {
+		ITimer timer = latency.startTimer();
+		List<CompletableFuture<CDOCommitInfo[]>> loads = startLoading(objects);
+		return CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[loads.size()]))
+				.orTimeout(loadTimeout, TimeUnit.MILLISECONDS).handleAsync((v, error) -> {
+					List<CDOCommitInfo[]> elements = new ArrayList<>(objects.size());
+					try {
+						for (int i = 0; i < objects.size(); i++) {
+							elements.add(awaitElements(objects.get(i), loads.get(i), 0));
+						}
+					} catch (SpecmateException e) {
+						throw new CompletionException(e);
+					}
+					History history = buildHistory(objects, elements, 0, Integer.MAX_VALUE);
+					timer.observeDuration();
+					return history;
+				}, builderExecutor);
+	}
 
+	private History awaitHistory(List<CDOObject> objects, int offset, int limit) throws SpecmateException {
+		ITimer timer = latency.startTimer();
+		List<CompletableFuture<CDOCommitInfo[]>> loads = startLoading(objects);
+		long deadline = System.currentTimeMillis() + loadTimeout;
+		List<CDOCommitInfo[]> elements = new ArrayList<>(objects.size());
+		for (int i = 0; i < objects.size(); i++) {
+			elements.add(awaitElements(objects.get(i), loads.get(i), deadline));
 		}
+		History history = buildHistory(objects, elements, offset, limit);
+		timer.observeDuration();
 		return history;
 	}
 
-	private void fillHistoryEntry(CDOObject cdoObject, CDOCommitInfo cdoHistoryElement, HistoryEntry historyEntry) {
-		HistoryDeltaProcessor deltaProcessor = new HistoryDeltaProcessor(cdoHistoryElement, cdoObject.cdoID());
+	private CDOCommitInfo[] awaitElements(CDOObject object, CompletableFuture<CDOCommitInfo[]> load, long deadline)
+			throws SpecmateException {
 		try {
-			deltaProcessor.process();
-		} catch (SpecmateValidationException e) {
-			logService.log(LogService.LOG_ERROR, e.getMessage());
+			return load.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			// CDO might have found fewer commits than the object has revisions, in
+			// which case the history is complete once CDO stops loading
+			CDOCommitInfo[] elements = CommitHistoryLoader.getLoadedElements(object);
+			if (elements != null) {
+				return elements;
+			}
+			throw new SpecmateInternalException(ErrorCode.PERSISTENCY,
+					"Timeout while loading the history of " + object.cdoID() + ".", e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SpecmateInternalException(ErrorCode.PERSISTENCY, "Interrupted while loading history.", e);
+		} catch (ExecutionException e) {
+			throw new SpecmateInternalException(ErrorCode.PERSISTENCY, "Could not load history.", e);
 		}
-		historyEntry.getChanges().addAll(deltaProcessor.getChanges());
-		historyEntry.setTimestamp(cdoHistoryElement.getTimeStamp());
-		extractCommentInfo(cdoHistoryElement, historyEntry);
-
 	}
 
-	private void extractCommentInfo(CDOCommitInfo cdoHistoryElement, HistoryEntry historyEntry) {
-		String comment = cdoHistoryElement.getComment();
-		if (comment == null || comment.length() == 0) {
-			return;
+	private History buildHistory(List<CDOObject> objects, List<CDOCommitInfo[]> elements, int offset, int limit) {
+		List<List<CDOCommitInfo>> streams = new ArrayList<>(elements.size());
+		for (CDOCommitInfo[] commits : elements) {
+			CDOCommitInfo[] sorted = commits.clone();
+			Arrays.sort(sorted, (c1, c2) -> Long.compare(c2.getTimeStamp(), c1.getTimeStamp()));
+			streams.add(Arrays.asList(sorted));
 		}
 
-		String[] info = comment.split(ITransaction.COMMENT_RECORD_SEPARATOR);
-		if (info.length == 0) {
-			return;
+		History history = HistoryFactory.eINSTANCE.createHistory();
+		try (HistoricalViewPool views = new HistoricalViewPool(((CDOPersistencyService) persistency).getReadSession(),
+				HISTORICAL_VIEWS, openedViews)) {
+			HistoryEntryBuilder builder = new HistoryEntryBuilder((commit, id) -> getObjectName(views, commit, id),
+					logService);
+			history.getEntries().addAll(HistoryMerger.merge(streams, CDOCommitInfo::getTimeStamp,
+					(stream, commit) -> builder.build(commit, objects.get(stream).cdoID()), offset, limit));
 		}
+		return history;
+	}
 
-		historyEntry.setUser(info[0]);
-
-		if (info.length == 2) {
-			String[] deletedObjects = info[1].split(ITransaction.COMMENT_FIELD_SEPARATOR);
-			for (int i = 0; i < deletedObjects.length; i++) {
-				historyEntry.getDeletedObjects().add(deletedObjects[i]);
+	/** Returns the name of the object as of the given commit */
+	private String getObjectName(HistoricalViewPool views, CDOCommitInfo commit, CDOID id) {
+		String key = getRevisionKey(commit, id);
+		if (key != null) {
+			String objectName = nameCache.get(key);
+			if (objectName != null) {
+				return objectName;
 			}
 		}
 
-		if (info.length == 3) {
-			historyEntry.setComment(info[2]);
-		}
-	}
-
-	private CDOCommitInfo[] getCDOHistoryElements(CDOObject cdoObject) {
-		CDOObjectHistory cdoHistory = cdoObject.cdoHistory();
-		if(cdoHistory == null) {
-			return new CDOCommitInfo[0];
+		String objectName = null;
+		CDOObject obj = getObject(views.getView(commit.getTimeStamp()), id);
+		if (obj instanceof INamed) {
+			objectName = ((INamed) obj).getName();
 		}
-		CDOCommitInfo[] cdoHistoryElements = cdoHistory.getElements();
-		// CDO loads the history asynchronously, hence if the history is
-		// initialized it might be empty. An empty history is a hint that the
-		// history is not loaded. We wait until the history is loaded.
-		while (cdoHistoryElements.length == 0) {
-			try {
-				Thread.sleep(100);
-			} catch (InterruptedException e) {
-				// ignore
-			}
-			cdoHistoryElements = cdoHistory.getElements();
+		if (key != null && objectName != null) {
+			nameCache.put(key, objectName);
 		}
-		return cdoHistoryElements;
+		return objectName;
 	}
 
-	private class HistoryDeltaProcessor extends DeltaProcessor {
-
-		List<Change> changes = new ArrayList<>();
-		private CDOID cdoId;
-
-		public HistoryDeltaProcessor(CDOChangeSetData data, CDOID id) {
-			super(data);
-			this.cdoId = id;
-		}
-
-		public List<Change> getChanges() {
-			return this.changes;
+	/** Returns the object in the view, null if it does not exist at the time of the view */
+	private CDOObject getObject(CDOView view, CDOID id) {
+		try {
+			return view.getObject(id);
+		} catch (ObjectNotFoundException e) {
+			return null;
 		}
+	}
 
-		@Override
-		protected void changedObject(CDOID id, EStructuralFeature feature, EChangeKind changeKind, Object oldValue,
-				Object newValue, int index, String objectClassName) throws SpecmateValidationException {
-
-			if (!id.equals(this.cdoId)) {
-				return;
-			}
-
-			if (showChange(feature, changeKind)) {
-				String objectName = getObjectName(id);
-				if (objectName != null) {
-					Change change = HistoryFactory.eINSTANCE.createChange();
-
-					if (newValue != null) {
-						change.setNewValue(newValue.toString());
-					}
-					if (oldValue != null) {
-						// For some reason, when this is retrieved by CDO, the object has no type
-						// information and lands here as a plain object which we cannot read as a
-						// string. Hence, for now, the clients should ignore these values.
-						change.setOldValue(oldValue.toString());
-					}
-
-					change.setObjectType(objectClassName);
-					change.setFeature(feature.getName());
-					change.setObjectName(objectName);
-					changes.add(change);
-				}
+	/** Identifies the revision of the object created by the commit */
+	private String getRevisionKey(CDOCommitInfo commit, CDOID id) {
+		for (CDORevisionKey changed : commit.getChangedObjects()) {
+			if (changed.getID().equals(id)) {
+				return id.toString() + ":" + (changed.getVersion() + 1);
 			}
 		}
+		return null;
+	}
 
-		@Override
-		protected void newObject(CDOID id, String className, Map<EStructuralFeature, Object> featureMap)
-				throws SpecmateValidationException {
-			if (!id.equals(this.cdoId)) {
-				return;
-			}
-
-			featureMap.forEach((k, v) -> {
-				// For now, we are only interested in seeing the new objects' name in the
-				// history
-				if (k.getName().equals(BasePackage.Literals.INAMED__NAME.getName())) {
-					Change change = HistoryFactory.eINSTANCE.createChange();
-					change.setIsCreate(true);
-					change.setFeature(k.getName());
-					change.setObjectType(className);
-					change.setNewValue((String) v);
-					change.setObjectName((String) v);
-					changes.add(change);
-				}
-			});
-		}
+	@Reference
+	public void setPersistencyService(IPersistencyService persistency) {
+		this.persistency = persistency;
+	}
 
-		@Override
-		protected void detachedObject(CDOID id, int version) throws SpecmateValidationException {
-			// Information about deleted object is stored in transaction commits
+	@Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+	public void setChangeLog(ChangeLogIndex changeLog) {
+		this.changeLog = changeLog;
+		if (changeLogExecutor != null) {
+			initializeChangeLog(changeLog);
 		}
+	}
 
-		private boolean showChange(EStructuralFeature feature, EChangeKind changeKind) {
-			String featureName = feature.getName();
-			// For now, we are only interested in seeing changes in object names,
-			// descriptions, variables and conditions
-			return changeKind.equals(EChangeKind.SET)
-					&& (featureName.equals(BasePackage.Literals.INAMED__NAME.getName())
-							|| featureName.equals(BasePackage.Literals.IDESCRIBED__DESCRIPTION.getName())
-							|| featureName.equals(RequirementsPackage.Literals.CEG_NODE__VARIABLE.getName())
-							|| featureName.equals(RequirementsPackage.Literals.CEG_NODE__CONDITION.getName()));
+	public void unsetChangeLog(ChangeLogIndex changeLog) {
+		if (this.changeLog == changeLog) {
+			this.changeLog = null;
 		}
+	}
 
-		private String getObjectName(CDOID id) {
-			ITransaction transaction = null;
-			String objectName = null;
-
-			try {
-				transaction = persistency.openTransaction();
-				CDOObject obj = ((TransactionImpl) transaction).getInternalTransaction().getObject(id);
-				if (obj != null && obj instanceof INamed) {
-					objectName = ((INamed) obj).getName();
-				}
-			} catch (SpecmateException e) {
-				logService.log(LogService.LOG_ERROR, "Could not create change object for " + id.toString(), e);
-			} finally {
-				if (transaction != null) {
-					transaction.close();
-				}
-			}
-
-			return objectName;
-		}
+	@Reference
+	public void setUriFactory(IURIFactory uriFactory) {
+		this.uriFactory = uriFactory;
+	}
 
+	@Reference
+	public void setConfigService(IConfigService configService) {
+		this.configService = configService;
 	}
 
 	@Reference
-	public void setPersistencyService(IPersistencyService persistency) {
-		this.persistency = persistency;
+	public void setMetricsService(IMetricsService metricsService) {
+		this.metricsService = metricsService;
 	}
 
 	@Reference
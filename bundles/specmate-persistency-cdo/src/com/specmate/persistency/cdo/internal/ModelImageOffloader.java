@@ -0,0 +1,64 @@
+package com.specmate.persistency.cdo.internal;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.emf.cdo.CDOObject;
+import org.eclipse.emf.cdo.transaction.CDOTransaction;
+
+import com.specmate.common.exception.SpecmateException;
+import com.specmate.model.base.ModelImage;
+import com.specmate.persistency.BlobReference;
+import com.specmate.persistency.IBlobStore;
+
+/**
+ * Moves the image data of new and changed model images into the blob store
+ * before a commit, leaving only a {@link BlobReference} in the model. Images
+ * are sent by the clients as base64 encoded data URLs, other values are left
+ * untouched.
+ */
+public class ModelImageOffloader {
+
+	private static final Pattern DATA_URL = Pattern.compile("data:([^;,]+);base64,(.*)", Pattern.DOTALL);
+
+	private IBlobStore blobStore;
+
+	public ModelImageOffloader(IBlobStore blobStore) {
+		this.blobStore = blobStore;
+	}
+
+	/** Offloads the images changed in the transaction */
+	public void offload(CDOTransaction transaction) throws SpecmateException {
+		List<CDOObject> candidates = new ArrayList<>(transaction.getNewObjects().values());
+		candidates.addAll(transaction.getDirtyObjects().values());
+		for (CDOObject object : candidates) {
+			if (object instanceof ModelImage) {
+				offload((ModelImage) object);
+			}
+		}
+	}
+
+	/** Offloads the data of a single image */
+	public void offload(ModelImage image) throws SpecmateException {
+		String data = image.getImageData();
+		if (data == null || BlobReference.parse(data) != null) {
+			return;
+		}
+		Matcher matcher = DATA_URL.matcher(data);
+		if (!matcher.matches()) {
+			return;
+		}
+		byte[] content;
+		try {
+			content = Base64.getMimeDecoder().decode(matcher.group(2));
+		} catch (IllegalArgumentException e) {
+			// Not an image we can serve, keep it as it is
+			return;
+		}
+		String hash = blobStore.put(content);
+		image.setImageData(new BlobReference(hash, matcher.group(1)).toString());
+	}
+}
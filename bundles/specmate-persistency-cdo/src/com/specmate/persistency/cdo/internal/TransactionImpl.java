@@ -1,19 +1,22 @@
 package com.specmate.persistency.cdo.internal;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 import org.eclipse.emf.cdo.CDOObject;
 import org.eclipse.emf.cdo.common.commit.CDOChangeSetData;
+import org.eclipse.emf.cdo.common.commit.CDOCommitInfo;
 import org.eclipse.emf.cdo.common.id.CDOID;
 import org.eclipse.emf.cdo.common.id.CDOIDUtil;
 import org.eclipse.emf.cdo.common.revision.CDOIDAndVersion;
 import org.eclipse.emf.cdo.transaction.CDOTransaction;
 import org.eclipse.emf.cdo.util.CommitException;
 import org.eclipse.emf.cdo.view.CDOQuery;
+import org.eclipse.emf.cdo.view.CDOViewInvalidationEvent;
+import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.net4j.util.event.IListener;
 import org.osgi.service.log.LogService;
 
 import com.specmate.administration.api.IStatusService;
@@ -27,12 +30,8 @@ import com.specmate.model.support.util.SpecmateEcoreUtil;
 import com.specmate.persistency.IChange;
 import com.specmate.persistency.IChangeListener;
 import com.specmate.persistency.ITransaction;
+import com.specmate.persistency.IValidator;
 import com.specmate.persistency.event.EChangeKind;
-import com.specmate.persistency.validation.ConnectionValidator;
-import com.specmate.persistency.validation.IDValidator;
-import com.specmate.persistency.validation.NameValidator;
-import com.specmate.persistency.validation.TextLengthValidator;
-import com.specmate.persistency.validation.TopLevelValidator;
 import com.specmate.rest.RestResult;
 
 /**
@@ -49,27 +48,41 @@ public class TransactionImpl extends ViewImpl implements ITransaction {
 	/* Listeners that are notified on commits */
 	private List<IChangeListener> changeListeners;
 
-	private List<IChangeListener> validators;
+	/* Validates the changes before they are committed */
+	private ValidationPipeline validationPipeline;
 
 	private boolean validatorsEnabled;
 
+	/* Lets the validators discard their state of objects changed by other transactions */
+	private final IListener invalidationListener = event -> {
+		if (event instanceof CDOViewInvalidationEvent) {
+			CDOViewInvalidationEvent invalidation = (CDOViewInvalidationEvent) event;
+			List<EObject> changed = new ArrayList<>(invalidation.getDirtyObjects());
+			changed.addAll(invalidation.getDetachedObjects());
+			validationPipeline.invalidate(changed);
+		}
+	};
+
 	private IStatusService statusService;
 
+	/* A change that is passed to the listeners after validation */
+	@FunctionalInterface
+	private interface INotification {
+		void send(IChangeListener listener) throws SpecmateValidationException;
+	}
+
 	public TransactionImpl(CDOPersistencyService persistency, CDOTransaction transaction, String resourceName,
-			LogService logService, IStatusService statusService, List<IChangeListener> listeners) {
+			LogService logService, IStatusService statusService, List<IChangeListener> listeners,
+			ValidationPipeline validationPipeline) {
 		super(persistency, transaction, resourceName, logService);
 		this.transaction = transaction;
 		this.logService = logService;
 		this.statusService = statusService;
 		changeListeners = listeners;
 
-		validators = new ArrayList<>();
-		validators.add(new IDValidator());
-		validators.add(new NameValidator());
-		validators.add(new TextLengthValidator());
-		validators.add(new ConnectionValidator());
-		validators.add(new TopLevelValidator());
+		this.validationPipeline = validationPipeline;
 		validatorsEnabled = true;
+		transaction.addListener(invalidationListener);
 	}
 
 	@Override
@@ -94,6 +107,11 @@ public class TransactionImpl extends ViewImpl implements ITransaction {
 		}
 		try {
 			List<CDOIDAndVersion> detachedObjects;
+			ModelImageOffloader imageOffloader = persistency.getImageOffloader();
+			if (imageOffloader != null) {
+				// Before the listeners, such that history and search see the reference
+				imageOffloader.offload(transaction);
+			}
 			try {
 				notifyListeners();
 				detachedObjects = transaction.getChangeSetData().getDetachedObjects();
@@ -101,14 +119,15 @@ public class TransactionImpl extends ViewImpl implements ITransaction {
 					SpecmateEcoreUtil.unsetAllReferences(transaction.getObject(id.getID()));
 				}
 			} catch (SpecmateValidationException s) {
-				transaction.rollback();
+				rollback();
 				logService.log(LogService.LOG_ERROR, "Error during commit due to invalid data.", s);
 				throw s;
 			}
 			setMetadata(object, detachedObjects);
-			transaction.commit();
+			CDOCommitInfo commitInfo = transaction.commit();
+			persistency.appendToChangeLog(commitInfo, transaction);
 		} catch (CommitException e) {
-			transaction.rollback();
+			rollback();
 			logService.log(LogService.LOG_DEBUG, "Error during commit, transaction rolled back.", e);
 			throw new SpecmateInternalException(ErrorCode.PERSISTENCY, "Error during commit, transaction rolled back.",
 					e);
@@ -203,8 +222,13 @@ public class TransactionImpl extends ViewImpl implements ITransaction {
 		return names.toString();
 	}
 
+	/**
+	 * Validates the changes of the transaction and, if they are valid, notifies
+	 * the listeners about them. Listeners never see changes that are rejected.
+	 */
 	private void notifyListeners() throws SpecmateValidationException {
 		CDOChangeSetData data = transaction.getChangeSetData();
+		List<INotification> notifications = new ArrayList<>();
 		DeltaProcessor processor = new DeltaProcessor(data) {
 
 			@Override
@@ -213,55 +237,50 @@ public class TransactionImpl extends ViewImpl implements ITransaction {
 				StringBuilder builder = new StringBuilder();
 				CDOIDUtil.write(builder, id);
 				String idAsString = builder.toString();
-				for (IChangeListener listener : changeListeners) {
-					listener.newObject(transaction.getObject(id), idAsString, className, featureMap);
-				}
+				CDOObject obj = transaction.getObject(id);
+				notifications.add(listener -> listener.newObject(obj, idAsString, className, featureMap));
 
 				if (validatorsEnabled) {
-					for (IChangeListener listener : validators) {
-						listener.newObject(transaction.getObject(id), idAsString, className, featureMap);
-					}
+					validationPipeline.newObject(obj, idAsString, className, featureMap);
 				}
 
 			}
 
 			@Override
 			protected void detachedObject(CDOID id, int version) throws SpecmateValidationException {
-				for (IChangeListener listener : changeListeners) {
-					listener.removedObject(transaction.getObject(id));
-				}
+				CDOObject obj = transaction.getObject(id);
+				notifications.add(listener -> listener.removedObject(obj));
 
 				if (validatorsEnabled) {
-					for (IChangeListener listener : validators) {
-						listener.removedObject(transaction.getObject(id));
-					}
+					validationPipeline.removedObject(obj);
 				}
 			}
 
 			@Override
 			public void changedObject(CDOID id, EStructuralFeature feature, EChangeKind changeKind, Object oldValue,
 					Object newValue, int index, String objectClassName) throws SpecmateValidationException {
-				if (newValue instanceof CDOID) {
-					newValue = transaction.getObject((CDOID) newValue);
-				}
-
+				Object value = newValue instanceof CDOID ? transaction.getObject((CDOID) newValue) : newValue;
 				CDOObject obj = transaction.getObject(id);
-
-				for (IChangeListener listener : changeListeners) {
-					listener.changedObject(obj, feature, changeKind, oldValue, newValue, objectClassName);
-				}
+				notifications.add(
+						listener -> listener.changedObject(obj, feature, changeKind, oldValue, value, objectClassName));
 
 				if (validatorsEnabled) {
-					for (IChangeListener listener : validators) {
-						listener.changedObject(obj, feature, changeKind, oldValue, newValue, objectClassName);
-					}
+					validationPipeline.changedObject(obj, feature, changeKind, oldValue, value, objectClassName);
 				}
 			}
 
 		};
 
+		validationPipeline.reset();
 		processor.process();
-
+		if (validatorsEnabled) {
+			validationPipeline.validate();
+		}
+		for (INotification notification : notifications) {
+			for (IChangeListener listener : changeListeners) {
+				notification.send(listener);
+			}
+		}
 	}
 
 	public CDOTransaction getInternalTransaction() {
@@ -270,8 +289,11 @@ public class TransactionImpl extends ViewImpl implements ITransaction {
 
 	@Override
 	public void rollback() {
+		List<EObject> changed = new ArrayList<>(transaction.getNewObjects().values());
+		changed.addAll(transaction.getDirtyObjects().values());
+		changed.addAll(transaction.getDetachedObjects().values());
 		transaction.rollback();
-
+		validationPipeline.invalidate(changed);
 	}
 
 	@Override
@@ -288,27 +310,23 @@ public class TransactionImpl extends ViewImpl implements ITransaction {
 	public void update(CDOTransaction transaction) {
 		super.update(transaction);
 		this.transaction = transaction;
+		transaction.addListener(invalidationListener);
+		validationPipeline.invalidate(null);
 	}
 
 	@Override
-	public void addValidator(IChangeListener v) {
-		validators.add(v);
+	public void addValidator(IValidator v) {
+		validationPipeline.addValidator(v);
 	}
 
 	@Override
 	public void removeValidator(String clazz) {
-		Iterator<IChangeListener> it = validators.iterator();
-		while (it.hasNext()) {
-			IChangeListener v = it.next();
-			if (v.getClass().getName().equals(clazz)) {
-				it.remove();
-			}
-		}
+		validationPipeline.removeValidator(clazz);
 	}
 
 	@Override
 	public void clearValidators() {
-		validators.clear();
+		validationPipeline.clearValidators();
 	}
 
 	@Override
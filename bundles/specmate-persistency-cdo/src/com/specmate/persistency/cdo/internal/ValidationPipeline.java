@@ -0,0 +1,268 @@
+package com.specmate.persistency.cdo.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.osgi.service.log.LogService;
+
+import com.specmate.common.exception.SpecmateException;
+import com.specmate.common.exception.SpecmateValidationException;
+import com.specmate.metrics.IHistogram;
+import com.specmate.metrics.IMetricsService;
+import com.specmate.metrics.ITimer;
+import com.specmate.persistency.IChangeListener;
+import com.specmate.persistency.IValidator;
+import com.specmate.persistency.event.EChangeKind;
+
+/**
+ * Runs the validators of a transaction over the changes of a commit.
+ *
+ * The changes are first collected and then handed to each validator, skipping
+ * objects the validator does not declare as applicable. Each validator runs
+ * over all of its changes in one batch, whose duration is recorded in a
+ * histogram per validator. If a commit contains at least
+ * <code>parallelThreshold</code> changes, the batches of the different
+ * validators run in parallel. In any case, the error of the first failing
+ * validator (in the order of the validators) is reported.
+ */
+public class ValidationPipeline implements IChangeListener {
+
+	/** A single check of a changed object by a validator */
+	@FunctionalInterface
+	private interface ICheck {
+		void run(IValidator validator) throws SpecmateValidationException;
+	}
+
+	/** A change that is to be validated */
+	private static class ValidationStep {
+		private EClass eClass;
+		private ICheck check;
+
+		public ValidationStep(EClass eClass, ICheck check) {
+			this.eClass = eClass;
+			this.check = check;
+		}
+	}
+
+	/** The validators, in the order in which their errors are reported */
+	private List<IValidator> validators = new CopyOnWriteArrayList<>();
+
+	/** Cache of the validators that apply to a class */
+	private Map<EClass, List<IValidator>> applicableValidators = new HashMap<>();
+
+	/** The changes of the current commit */
+	private List<ValidationStep> steps = new ArrayList<>();
+
+	/** Latency histograms, per validator class */
+	private Map<String, IHistogram> histograms = new HashMap<>();
+
+	/** Executor for parallel validation, may be <code>null</code> */
+	private ExecutorService executor;
+
+	/** Minimal number of changes to validate in parallel */
+	private int parallelThreshold;
+
+	/** The metrics service, may be <code>null</code> */
+	private IMetricsService metricsService;
+
+	/** The log service */
+	private LogService logService;
+
+	public ValidationPipeline(List<IValidator> validators, ExecutorService executor, int parallelThreshold,
+			IMetricsService metricsService, LogService logService) {
+		this.validators.addAll(validators);
+		this.executor = executor;
+		this.parallelThreshold = parallelThreshold;
+		this.metricsService = metricsService;
+		this.logService = logService;
+	}
+
+	public void addValidator(IValidator validator) {
+		validators.add(validator);
+		applicableValidators.clear();
+	}
+
+	public void removeValidator(String clazz) {
+		validators.removeIf(v -> v.getClass().getName().equals(clazz));
+		applicableValidators.clear();
+	}
+
+	public void clearValidators() {
+		validators.clear();
+		applicableValidators.clear();
+	}
+
+	public List<IValidator> getValidators() {
+		return validators;
+	}
+
+	@Override
+	public void changedObject(EObject object, EStructuralFeature feature, EChangeKind changeKind, Object oldValue,
+			Object newValue, String objectClassName) throws SpecmateValidationException {
+		steps.add(new ValidationStep(object.eClass(),
+				v -> v.changedObject(object, feature, changeKind, oldValue, newValue, objectClassName)));
+	}
+
+	@Override
+	public void removedObject(EObject object) throws SpecmateValidationException {
+		steps.add(new ValidationStep(object.eClass(), v -> v.removedObject(object)));
+	}
+
+	@Override
+	public void newObject(EObject object, String id, String className, Map<EStructuralFeature, Object> featureMap)
+			throws SpecmateValidationException {
+		steps.add(new ValidationStep(object.eClass(), v -> v.newObject(object, id, className, featureMap)));
+	}
+
+	/**
+	 * Lets the validators discard their state of the given objects, which were
+	 * changed by another transaction or rolled back
+	 *
+	 * @param objects
+	 *            The changed objects, null for all objects
+	 */
+	public void invalidate(Collection<? extends EObject> objects) {
+		for (IValidator validator : validators) {
+			validator.invalidate(objects);
+		}
+	}
+
+	/** Discards the changes collected so far */
+	public void reset() {
+		steps.clear();
+	}
+
+	/**
+	 * Validates the collected changes and discards them afterwards.
+	 *
+	 * @throws SpecmateValidationException
+	 *             if any validator rejects a change
+	 */
+	public void validate() throws SpecmateValidationException {
+		try {
+			Map<IValidator, List<ValidationStep>> batches = assignSteps();
+			if (executor != null && batches.size() > 1 && steps.size() >= parallelThreshold) {
+				validateParallel(batches);
+			} else {
+				for (Map.Entry<IValidator, List<ValidationStep>> batch : batches.entrySet()) {
+					runBatch(batch.getKey(), batch.getValue());
+				}
+			}
+		} finally {
+			steps.clear();
+		}
+	}
+
+	private Map<IValidator, List<ValidationStep>> assignSteps() {
+		Map<IValidator, List<ValidationStep>> batches = new LinkedHashMap<>();
+		for (IValidator validator : validators) {
+			batches.put(validator, new ArrayList<>());
+		}
+		for (ValidationStep step : steps) {
+			for (IValidator validator : getApplicableValidators(step.eClass)) {
+				batches.get(validator).add(step);
+			}
+		}
+		batches.values().removeIf(List::isEmpty);
+		return batches;
+	}
+
+	private List<IValidator> getApplicableValidators(EClass eClass) {
+		return applicableValidators.computeIfAbsent(eClass, c -> {
+			List<IValidator> result = new ArrayList<>();
+			for (IValidator validator : validators) {
+				List<EClass> applicableClasses = validator.getApplicableClasses();
+				if (applicableClasses.isEmpty()
+						|| applicableClasses.stream().anyMatch(applicable -> applicable.isSuperTypeOf(c))) {
+					result.add(validator);
+				}
+			}
+			return result;
+		});
+	}
+
+	private void validateParallel(Map<IValidator, List<ValidationStep>> batches)
+			throws SpecmateValidationException {
+		List<Future<Void>> futures = new ArrayList<>();
+		for (Map.Entry<IValidator, List<ValidationStep>> batch : batches.entrySet()) {
+			futures.add(executor.submit(() -> {
+				runBatch(batch.getKey(), batch.getValue());
+				return null;
+			}));
+		}
+
+		// Wait for all validators before reporting, as the transaction is rolled back
+		// on errors
+		SpecmateValidationException firstError = null;
+		RuntimeException firstFailure = null;
+		for (Future<Void> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SpecmateValidationException("Interrupted during validation.", e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof SpecmateValidationException) {
+					if (firstError == null) {
+						firstError = (SpecmateValidationException) cause;
+					}
+				} else if (firstFailure == null) {
+					firstFailure = cause instanceof RuntimeException ? (RuntimeException) cause
+							: new RuntimeException(cause);
+				}
+			}
+		}
+		if (firstError != null) {
+			throw firstError;
+		}
+		if (firstFailure != null) {
+			throw firstFailure;
+		}
+	}
+
+	private void runBatch(IValidator validator, List<ValidationStep> batch) throws SpecmateValidationException {
+		IHistogram histogram = getHistogram(validator);
+		ITimer timer = histogram != null ? histogram.startTimer() : null;
+		try {
+			validator.beginCommit();
+			for (ValidationStep step : batch) {
+				step.check.run(validator);
+			}
+		} finally {
+			if (timer != null) {
+				timer.observeDuration();
+			}
+		}
+	}
+
+	private synchronized IHistogram getHistogram(IValidator validator) {
+		if (metricsService == null) {
+			return null;
+		}
+		String className = validator.getClass().getSimpleName();
+		IHistogram histogram = histograms.get(className);
+		if (histogram == null) {
+			try {
+				histogram = metricsService.createHistogram("validator_" + className,
+						"Time spent in " + className + " per commit");
+				histograms.put(className, histogram);
+			} catch (SpecmateException e) {
+				logService.log(LogService.LOG_WARNING, "Could not create histogram for " + className, e);
+				metricsService = null;
+			}
+		}
+		return histogram;
+	}
+}
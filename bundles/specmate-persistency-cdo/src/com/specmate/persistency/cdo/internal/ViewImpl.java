@@ -1,19 +1,42 @@
 package com.specmate.persistency.cdo.internal;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.emf.cdo.common.id.CDOID;
 import org.eclipse.emf.cdo.common.id.CDOIDUtil;
+import org.eclipse.emf.cdo.util.CDOUtil;
 import org.eclipse.emf.cdo.view.CDOQuery;
 import org.eclipse.emf.cdo.view.CDOView;
+import org.eclipse.emf.common.util.Enumerator;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.osgi.service.log.LogService;
 
+import com.specmate.model.base.BasePackage;
+import com.specmate.model.support.util.SpecmateEcoreUtil;
 import com.specmate.persistency.IView;
+import com.specmate.persistency.ObjectQuery;
 
 public class ViewImpl implements IView {
 
+	/** The store type of CDO DB stores, which can answer SQL queries */
+	private static final String DB_STORE_TYPE = "db";
+
+	/** Condition for the current revisions in a class table */
+	private static final String CURRENT_REVISION = "R.CDO_REVISED = 0 AND R.CDO_VERSION > 0";
+
 	private CDOView view;
 	private String resourceName;
 	protected CDOPersistencyService persistency;
@@ -43,6 +66,11 @@ public class ViewImpl implements IView {
 		return view.getObject(id);
 	}
 
+	@Override
+	public boolean waitForUpdate(long timeoutMillis) {
+		return view.waitForUpdate(persistency.getLastEventTime(), timeoutMillis);
+	}
+
 	public String getResourceName() {
 		return resourceName;
 	}
@@ -57,6 +85,153 @@ public class ViewImpl implements IView {
 		return cdoQuery.getResult();
 	}
 	
+	@Override
+	public <T extends EObject> List<T> find(ObjectQuery<T> query) {
+		List<Object> candidates;
+		boolean sql = DB_STORE_TYPE.equals(view.getSession().getRepositoryInfo().getStoreType());
+		if (sql) {
+			candidates = findSQL(query);
+		} else {
+			candidates = query(query.toOCL(), query.getEClass());
+		}
+		List<T> result = new ArrayList<>();
+		for (Object candidate : candidates) {
+			if (!query.getType().isInstance(candidate)) {
+				continue;
+			}
+			T object = query.getType().cast(candidate);
+			// OCL has no project restriction, it is checked on the loaded candidates
+			if (sql || query.getProjectId() == null
+					|| query.getProjectId().equals(SpecmateEcoreUtil.getProjectId(object))) {
+				result.add(object);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Queries the class tables of the horizontal mapping. Each concrete class
+	 * has its own table named after the class, with a column per attribute.
+	 * The current revision of an object is the one not yet revised, detached
+	 * objects have a negative version.
+	 *
+	 * The project restriction is a recursive query that collects the containers
+	 * in the project, starting at the project folder. Candidates match if their
+	 * container is among them. The id of the project folder is part of the
+	 * statement, as H2 does not support parameters in recursive queries.
+	 */
+	private List<Object> findSQL(ObjectQuery<?> query) {
+		StringBuilder condition = new StringBuilder(" WHERE " + CURRENT_REVISION);
+		Map<String, Object> parameters = new LinkedHashMap<>();
+		for (Map.Entry<EAttribute, Object> entry : query.getConditions().entrySet()) {
+			condition.append(" AND R.").append(entry.getKey().getName());
+			Object value = entry.getValue();
+			if (value == null) {
+				condition.append(" IS NULL");
+			} else {
+				String parameter = "p" + parameters.size();
+				condition.append(" = :").append(parameter);
+				parameters.put(parameter, value instanceof Enumerator ? ((Enumerator) value).getValue() : value);
+			}
+		}
+
+		EObject project = null;
+		if (query.getProjectId() != null) {
+			project = SpecmateEcoreUtil.getEObjectWithId(query.getProjectId(), getResource().getContents());
+			// A project that is not committed yet has no stored contents
+			if (project == null || CDOUtil.getCDOObject(project).cdoID().isTemporary()) {
+				return new ArrayList<>();
+			}
+		}
+
+		StringBuilder sql = new StringBuilder();
+		for (EClass table : getConcreteClasses(query.getEClass())) {
+			if (sql.length() > 0) {
+				sql.append(" UNION ALL ");
+			}
+			sql.append("SELECT R.CDO_ID FROM ").append(table.getName()).append(" R");
+			if (project != null) {
+				sql.append(" INNER JOIN PROJECT_CONTAINERS P ON R.CDO_CONTAINER = P.CDO_ID");
+			}
+			sql.append(condition);
+		}
+		if (sql.length() == 0) {
+			return new ArrayList<>();
+		}
+		if (project != null) {
+			long projectId = CDOIDUtil.getLong(CDOUtil.getCDOObject(project).cdoID());
+			if (query.getEClass().isSuperTypeOf(project.eClass())) {
+				// The project folder is not contained in one of its containers
+				sql.append(" UNION ALL SELECT R.CDO_ID FROM ").append(project.eClass().getName()).append(" R")
+						.append(condition).append(" AND R.CDO_ID = ").append(projectId);
+			}
+			sql.insert(0, getProjectContainers(project, projectId));
+		}
+		CDOQuery cdoSQLQuery = this.view.createQuery("sql", sql.toString());
+		for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+			cdoSQLQuery.setParameter(parameter.getKey(), parameter.getValue());
+		}
+		return cdoSQLQuery.getResult();
+	}
+
+	/**
+	 * Returns the recursive query for the ids of the project folder and the
+	 * containers below it
+	 */
+	private String getProjectContainers(EObject project, long projectId) {
+		StringBuilder containers = new StringBuilder();
+		for (EClass table : getContainerClasses()) {
+			if (containers.length() > 0) {
+				containers.append(" UNION ALL ");
+			}
+			containers.append("SELECT R.CDO_ID, R.CDO_CONTAINER FROM ").append(table.getName()).append(" R WHERE ")
+					.append(CURRENT_REVISION);
+		}
+		return "WITH PROJECT_CONTAINERS (CDO_ID) AS (SELECT R.CDO_ID FROM " + project.eClass().getName()
+				+ " R WHERE " + CURRENT_REVISION + " AND R.CDO_ID = " + projectId
+				+ " UNION ALL SELECT C.CDO_ID FROM PROJECT_CONTAINERS P INNER JOIN (" + containers
+				+ ") C ON C.CDO_CONTAINER = P.CDO_ID) ";
+	}
+
+	/** Returns the classes of the containers that can occur in a project */
+	private Set<EClass> getContainerClasses() {
+		Set<EClass> containers = new LinkedHashSet<>();
+		Deque<EClass> pending = new ArrayDeque<>();
+		pending.add(BasePackage.Literals.FOLDER);
+		while (!pending.isEmpty()) {
+			for (EClass candidate : getConcreteClasses(pending.poll())) {
+				if (!candidate.getEAllContainments().isEmpty() && containers.add(candidate)) {
+					for (EReference containment : candidate.getEAllContainments()) {
+						pending.add(containment.getEReferenceType());
+					}
+				}
+			}
+		}
+		return containers;
+	}
+
+	/** Returns the class and its subclasses that have instances, hence tables */
+	private List<EClass> getConcreteClasses(EClass eClass) {
+		List<EClass> classes = new ArrayList<>();
+		for (Object value : view.getSession().getPackageRegistry().values()) {
+			if (value instanceof EPackage.Descriptor) {
+				value = ((EPackage.Descriptor) value).getEPackage();
+			}
+			if (!(value instanceof EPackage)) {
+				continue;
+			}
+			for (EClassifier classifier : ((EPackage) value).getEClassifiers()) {
+				if (classifier instanceof EClass) {
+					EClass candidate = (EClass) classifier;
+					if (!candidate.isAbstract() && !candidate.isInterface() && eClass.isSuperTypeOf(candidate)) {
+						classes.add(candidate);
+					}
+				}
+			}
+		}
+		return classes;
+	}
+
 	@Override
 	public List<Object> querySQL(String queryString, Object context, long lastActive) {
 		CDOQuery cdoSQLQuery = this.view.createQuery("sql", queryString);
@@ -1,16 +1,29 @@
 package com.specmate.persistency.validation;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
+import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EStructuralFeature;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ServiceScope;
 
 import com.specmate.common.exception.SpecmateValidationException;
+import com.specmate.model.base.BasePackage;
 import com.specmate.model.base.IModelConnection;
+import com.specmate.persistency.IValidator;
 import com.specmate.persistency.event.EChangeKind;
 
+@Component(service = IValidator.class, scope = ServiceScope.PROTOTYPE)
 public class ConnectionValidator extends ValidatorBase {
 
+	@Override
+	public List<EClass> getApplicableClasses() {
+		return Collections.singletonList(BasePackage.Literals.IMODEL_CONNECTION);
+	}
+
 	@Override
 	public void changedObject(EObject object, EStructuralFeature feature, EChangeKind changeKind, Object oldValue,
 			Object newValue, String objectClassName) throws SpecmateValidationException {
@@ -1,34 +1,61 @@
 package com.specmate.persistency.validation;
 
-import java.util.List;
+import java.util.Collection;
 import java.util.Map;
 import java.util.regex.Pattern;
 
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
 import org.eclipse.emf.ecore.EStructuralFeature;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ServiceScope;
 
 import com.specmate.common.exception.SpecmateValidationException;
 import com.specmate.model.base.BasePackage;
 import com.specmate.model.support.util.SpecmateEcoreUtil;
+import com.specmate.persistency.IValidator;
 import com.specmate.persistency.event.EChangeKind;
 
+@Component(service = IValidator.class, scope = ServiceScope.PROTOTYPE)
 public class IDValidator extends ValidatorBase {
 	/** Pattern that describes valid object ids */
 	private static Pattern idPattern = Pattern.compile("[a-zA-Z_0-9\\-]+");
 
+	/** Counts the ids of the siblings of validated objects, across the commits of the transaction */
+	private SiblingIdIndex siblingIds = new SiblingIdIndex();
+
+	@Override
+	public void invalidate(Collection<? extends EObject> objects) {
+		if (objects == null) {
+			siblingIds.clear();
+			return;
+		}
+		for (EObject object : objects) {
+			siblingIds.invalidate(object);
+		}
+	}
+
 	@Override
 	public void changedObject(EObject object, EStructuralFeature feature, EChangeKind changeKind, Object oldValue,
 			Object newValue, String objectClassName) throws SpecmateValidationException {
 
 		if (feature.getName().equals(BasePackage.Literals.IID__ID.getName())) {
 			String objectID = validateID(object, newValue);
+			siblingIds.update(object, objectID);
 			validateUniqueID(objectID, object);
+		} else if (feature instanceof EReference && ((EReference) feature).isContainment()
+				&& newValue instanceof EObject) {
+			// A child that was moved into the object
+			EObject child = (EObject) newValue;
+			siblingIds.update(child, SpecmateEcoreUtil.getID(child));
 		}
 	}
 
 	@Override
 	public void removedObject(EObject object) throws SpecmateValidationException {
-		// No validation required
+		siblingIds.remove(object);
+		// Discards the ids of the children, in case the object is a container
+		siblingIds.invalidate(object);
 	}
 
 	@Override
@@ -36,6 +63,7 @@ public class IDValidator extends ValidatorBase {
 			throws SpecmateValidationException {
 
 		String objectID = validateID(object, featureMap.get(BasePackage.Literals.IID__ID));
+		siblingIds.update(object, objectID);
 		validateUniqueID(objectID, object);
 	}
 
@@ -56,27 +84,10 @@ public class IDValidator extends ValidatorBase {
 	}
 
 	private void validateUniqueID(String id, EObject object) throws SpecmateValidationException {
-		List<EObject> contents = null;
-		EObject parent = object.eContainer();
-		if (parent != null) {
-			contents = parent.eContents();
-		} else {
-			contents = object.eResource().getContents();
-		}
-
-		int hits = 0;
-
-		for (EObject c : contents) {
-			String currentId = SpecmateEcoreUtil.getID(c);
-			if (currentId != null && currentId.equals(id)) {
-				hits++;
-			}
-			if (hits > 1) {
-				throw new SpecmateValidationException("Duplicate id: " + id + ".", getValidatorName(),
-						getObjectName(object));
-			}
+		if (siblingIds.count(object, id) > 1) {
+			throw new SpecmateValidationException("Duplicate id: " + id + ".", getValidatorName(),
+					getObjectName(object));
 		}
-
 	}
 
 }
@@ -1,26 +1,37 @@
 package com.specmate.persistency.validation;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EStructuralFeature;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ServiceScope;
 
 import com.specmate.common.exception.SpecmateValidationException;
 import com.specmate.model.base.BasePackage;
 import com.specmate.model.base.INamed;
 import com.specmate.model.support.util.SpecmateEcoreUtil;
-import com.specmate.persistency.IChangeListener;
+import com.specmate.persistency.IValidator;
 import com.specmate.persistency.event.EChangeKind;
 
-public class NameValidator extends ValidatorBase implements IChangeListener {
+@Component(service = IValidator.class, scope = ServiceScope.PROTOTYPE)
+public class NameValidator extends ValidatorBase {
 	/**
 	 * Pattern that describes invalid object names We use these characters in
 	 * transaction commits for field and data separators
 	 **/
 	private static Pattern inValidNameChars = Pattern.compile("[,;|]");
 
+	@Override
+	public List<EClass> getApplicableClasses() {
+		return Collections.singletonList(BasePackage.Literals.INAMED);
+	}
+
 	@Override
 	public void changedObject(EObject object, EStructuralFeature feature, EChangeKind changeKind, Object oldValue,
 			Object newValue, String objectClassName) throws SpecmateValidationException {
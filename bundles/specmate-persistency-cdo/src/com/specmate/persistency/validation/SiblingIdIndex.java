@@ -0,0 +1,159 @@
+package com.specmate.persistency.validation;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+
+import com.specmate.model.support.util.SpecmateEcoreUtil;
+
+/**
+ * Counts the ids of the children of the containers touched by the commits of a
+ * transaction.
+ *
+ * A container is scanned when one of its children is looked up for the first
+ * time. Afterwards, the counts are kept up to date with the changes of the
+ * transaction, such that a commit only pays for the objects it changes. The
+ * counts of a container are discarded when it or one of its children is
+ * invalidated, i.e. changed by another transaction or rolled back, and the
+ * container is scanned again on the next lookup.
+ *
+ * The index is thread-safe, as invalidations are reported by the invalidation
+ * thread of the session.
+ */
+public class SiblingIdIndex {
+
+	/** The counts of the child ids of a container */
+	private static class ContainerIds {
+
+		/** The container, an EObject or a resource */
+		private final Object container;
+
+		/** The number of children per id */
+		private final Map<String, Integer> counts = new HashMap<>();
+
+		/** The counted children and their ids, which may be null */
+		private final Map<EObject, String> children = new HashMap<>();
+
+		public ContainerIds(Object container) {
+			this.container = container;
+		}
+
+		private void add(EObject child, String id) {
+			children.put(child, id);
+			if (id != null) {
+				counts.merge(id, 1, Integer::sum);
+			}
+		}
+
+		private void remove(EObject child) {
+			String id = children.remove(child);
+			if (id != null) {
+				counts.computeIfPresent(id, (key, count) -> count > 1 ? count - 1 : null);
+			}
+		}
+	}
+
+	/** Maps a container (an EObject or a resource) to the ids of its children */
+	private Map<Object, ContainerIds> containers = new HashMap<>();
+
+	/** Maps each counted child to the ids of its container */
+	private Map<EObject, ContainerIds> containerOfChild = new HashMap<>();
+
+	/** The number of children visited by scans of containers */
+	private long scannedChildren;
+
+	/** Returns how often the given id occurs among the siblings of the object */
+	public synchronized int count(EObject object, String id) {
+		Object container = getContainer(object);
+		if (container == null) {
+			return 0;
+		}
+		ContainerIds ids = containers.get(container);
+		if (ids == null) {
+			ids = scan(container);
+		}
+		return ids.counts.getOrDefault(id, 0);
+	}
+
+	/**
+	 * Updates the index after the object was added to a container, moved or got
+	 * a new id
+	 */
+	public synchronized void update(EObject object, String id) {
+		remove(object);
+		Object container = getContainer(object);
+		ContainerIds ids = container != null ? containers.get(container) : null;
+		if (ids != null) {
+			ids.add(object, id);
+			containerOfChild.put(object, ids);
+		}
+	}
+
+	/** Updates the index after the object was removed from its container */
+	public synchronized void remove(EObject object) {
+		ContainerIds ids = containerOfChild.remove(object);
+		if (ids != null) {
+			ids.remove(object);
+		}
+	}
+
+	/**
+	 * Discards the counts of the container of the object and, if the object is a
+	 * container, of its children
+	 */
+	public synchronized void invalidate(EObject object) {
+		ContainerIds ids = containerOfChild.get(object);
+		if (ids != null) {
+			discard(ids);
+		}
+		ids = containers.get(object);
+		if (ids != null) {
+			discard(ids);
+		}
+	}
+
+	/** Discards all indexed containers */
+	public synchronized void clear() {
+		containers.clear();
+		containerOfChild.clear();
+	}
+
+	/** Returns the number of indexed containers */
+	public synchronized int size() {
+		return containers.size();
+	}
+
+	/** Returns the number of children visited by scans of containers so far */
+	public synchronized long getScannedChildren() {
+		return scannedChildren;
+	}
+
+	/** Returns the parent of the object or, for a root object, its resource */
+	private Object getContainer(EObject object) {
+		EObject parent = object.eContainer();
+		return parent != null ? parent : object.eResource();
+	}
+
+	private ContainerIds scan(Object container) {
+		List<EObject> contents = container instanceof EObject ? ((EObject) container).eContents()
+				: ((Resource) container).getContents();
+		ContainerIds ids = new ContainerIds(container);
+		for (EObject child : contents) {
+			ids.add(child, SpecmateEcoreUtil.getID(child));
+			containerOfChild.put(child, ids);
+			scannedChildren++;
+		}
+		containers.put(container, ids);
+		return ids;
+	}
+
+	private void discard(ContainerIds ids) {
+		containers.remove(ids.container);
+		for (EObject child : ids.children.keySet()) {
+			containerOfChild.remove(child);
+		}
+	}
+}
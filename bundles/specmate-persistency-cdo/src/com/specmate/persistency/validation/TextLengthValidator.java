@@ -4,11 +4,15 @@ import java.util.Map;
 
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EStructuralFeature;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ServiceScope;
 
 import com.specmate.common.exception.SpecmateValidationException;
 import com.specmate.model.base.ModelImage;
+import com.specmate.persistency.IValidator;
 import com.specmate.persistency.event.EChangeKind;
 
+@Component(service = IValidator.class, scope = ServiceScope.PROTOTYPE)
 public class TextLengthValidator extends ValidatorBase {
 	public static final int MAX_LENGTH = 4000;
 
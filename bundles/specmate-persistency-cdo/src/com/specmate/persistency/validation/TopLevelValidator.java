@@ -4,13 +4,17 @@ import java.util.Map;
 
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EStructuralFeature;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ServiceScope;
 
 import com.specmate.common.exception.SpecmateValidationException;
 import com.specmate.model.base.BasePackage;
 import com.specmate.model.base.Folder;
 import com.specmate.model.support.util.SpecmateEcoreUtil;
+import com.specmate.persistency.IValidator;
 import com.specmate.persistency.event.EChangeKind;
 
+@Component(service = IValidator.class, scope = ServiceScope.PROTOTYPE)
 public class TopLevelValidator extends ValidatorBase {
 
 	@Override
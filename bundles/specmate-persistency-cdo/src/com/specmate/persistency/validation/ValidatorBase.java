@@ -1,11 +1,32 @@
 package com.specmate.persistency.validation;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
 
 import com.specmate.model.base.INamed;
-import com.specmate.persistency.IChangeListener;
+import com.specmate.persistency.IValidator;
+
+public abstract class ValidatorBase implements IValidator {
+
+	@Override
+	public List<EClass> getApplicableClasses() {
+		// Applies to all objects by default
+		return Collections.emptyList();
+	}
 
-public abstract class ValidatorBase implements IChangeListener {
+	@Override
+	public void beginCommit() {
+		// Stateless by default
+	}
+
+	@Override
+	public void invalidate(Collection<? extends EObject> objects) {
+		// Stateless by default
+	}
 
 	public String getObjectName(EObject obj) {
 		String name = "";
@@ -0,0 +1,171 @@
+package com.specmate.persistency.cdo.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.eclipse.emf.cdo.server.IStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.specmate.common.exception.SpecmateException;
+import com.specmate.common.exception.SpecmateInternalException;
+import com.specmate.dbprovider.api.DBConfigChangedCallback;
+import com.specmate.dbprovider.api.IDBProvider;
+import com.specmate.dbprovider.api.migration.IAttributeToSQLMapper;
+import com.specmate.dbprovider.api.migration.IObjectToSQLMapper;
+import com.specmate.model.administration.ErrorCode;
+import com.specmate.model.history.HistoryEntry;
+import com.specmate.persistency.cdo.internal.ChangeLogIndex;
+
+public class ChangeLogIndexTest {
+
+	private static final String URL = "jdbc:h2:mem:changelog";
+
+	private Connection connection;
+
+	private ChangeLogIndex changeLog;
+
+	@Before
+	public void setUp() throws Exception {
+		connection = DriverManager.getConnection(URL, "", "");
+		changeLog = new ChangeLogIndex();
+		changeLog.setDBProvider(new TestDBProvider());
+	}
+
+	@After
+	public void tearDown() throws SQLException {
+		connection.close();
+	}
+
+	@Test
+	public void testInitializeCreatesTablesOnce() throws SpecmateException {
+		assertFalse(changeLog.isAvailable());
+		assertTrue(changeLog.initialize());
+		assertTrue(changeLog.isAvailable());
+
+		ChangeLogIndex other = new ChangeLogIndex();
+		other.setDBProvider(new TestDBProvider());
+		assertFalse(other.initialize());
+	}
+
+	@Test
+	public void testContainerAndRecursiveQuery() throws Exception {
+		changeLog.initialize();
+		insert(1, "a", "p/f");
+		insert(2, "b", "p/f/r1", "name", "description");
+		insert(3, "c", "p/f/r1/m1", "name");
+		insert(4, "d", "p/f_x/r2", "name");
+		insert(5, "e", "q/f/r3", "name");
+
+		List<HistoryEntry> recursive = changeLog.query("p/f", true, 0, Integer.MAX_VALUE);
+		assertEquals(3, recursive.size());
+		assertEquals(3, recursive.get(0).getTimestamp());
+		assertEquals(2, recursive.get(1).getTimestamp());
+		assertEquals(2, recursive.get(1).getChanges().size());
+		assertEquals(1, recursive.get(2).getTimestamp());
+		assertTrue(recursive.get(2).getChanges().isEmpty());
+
+		List<HistoryEntry> container = changeLog.query("p/f", false, 0, Integer.MAX_VALUE);
+		assertEquals(2, container.size());
+		assertEquals(2, container.get(0).getTimestamp());
+		assertEquals(1, container.get(1).getTimestamp());
+	}
+
+	@Test
+	public void testPaging() throws Exception {
+		changeLog.initialize();
+		for (int i = 1; i <= 10; i++) {
+			insert(i, "o" + i, "p/f/o" + i, "name", "description");
+		}
+
+		List<HistoryEntry> page = changeLog.query("p/f", true, 3, 4);
+		assertEquals(4, page.size());
+		assertEquals(7, page.get(0).getTimestamp());
+		assertEquals(4, page.get(3).getTimestamp());
+		for (HistoryEntry entry : page) {
+			assertEquals(2, entry.getChanges().size());
+		}
+
+		assertEquals(1, changeLog.query("p/f", true, 9, 4).size());
+		assertEquals(0, changeLog.query("p/f", true, 10, 4).size());
+	}
+
+	private void insert(long time, String objectId, String path, String... features) throws SQLException {
+		try (PreparedStatement entry = connection.prepareStatement("INSERT INTO SPECMATE_CHANGELOG "
+				+ "(COMMIT_TIME, OBJECT_ID, PROJECT, PATH, CONTAINER_PATH, USER_NAME) VALUES (?, ?, ?, ?, ?, ?)")) {
+			entry.setLong(1, time);
+			entry.setString(2, objectId);
+			entry.setString(3, path.substring(0, path.indexOf('/')));
+			entry.setString(4, path);
+			entry.setString(5, path.substring(0, path.lastIndexOf('/')));
+			entry.setString(6, "user");
+			entry.executeUpdate();
+		}
+		for (int i = 0; i < features.length; i++) {
+			try (PreparedStatement change = connection.prepareStatement("INSERT INTO SPECMATE_CHANGELOG_CHANGE "
+					+ "(COMMIT_TIME, OBJECT_ID, POS, FEATURE, NEW_VALUE, IS_CREATE) VALUES (?, ?, ?, ?, ?, 0)")) {
+				change.setLong(1, time);
+				change.setString(2, objectId);
+				change.setInt(3, i);
+				change.setString(4, features[i]);
+				change.setString(5, "value" + i);
+				change.executeUpdate();
+			}
+		}
+	}
+
+	private class TestDBProvider implements IDBProvider {
+
+		@Override
+		public Connection borrowConnection() throws SpecmateException {
+			try {
+				return DriverManager.getConnection(URL, "", "");
+			} catch (SQLException e) {
+				throw new SpecmateInternalException(ErrorCode.PERSISTENCY, e);
+			}
+		}
+
+		@Override
+		public void registerDBConfigChangedCallback(DBConfigChangedCallback cb) {
+		}
+
+		@Override
+		public void unregisterDBConfigChangedCallback(DBConfigChangedCallback cb) {
+		}
+
+		@Override
+		public IStore createStore() {
+			return null;
+		}
+
+		@Override
+		public boolean isVirginDB() {
+			return false;
+		}
+
+		@Override
+		public IAttributeToSQLMapper getAttributeToSQLMapper(Connection connection, String packageName,
+				String sourceVersion, String targetVersion) {
+			return null;
+		}
+
+		@Override
+		public IObjectToSQLMapper getObjectToSQLMapper(Connection connection, String packageName,
+				String sourceVersion, String targetVersion) {
+			return null;
+		}
+
+		@Override
+		public String getTrueLiteral() {
+			return "true";
+		}
+	}
+}
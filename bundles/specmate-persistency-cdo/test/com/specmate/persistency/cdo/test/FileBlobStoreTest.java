@@ -0,0 +1,158 @@
+package com.specmate.persistency.cdo.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.specmate.model.base.BaseFactory;
+import com.specmate.model.base.ModelImage;
+import com.specmate.persistency.BlobReference;
+import com.specmate.persistency.cdo.internal.FileBlobStore;
+import com.specmate.persistency.cdo.internal.ModelImageOffloader;
+
+public class FileBlobStoreTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testEqualContentIsStoredOnce() throws Exception {
+		Path directory = folder.getRoot().toPath();
+		FileBlobStore store = new FileBlobStore(directory);
+		byte[] content = "image".getBytes(StandardCharsets.UTF_8);
+
+		String hash = store.put(content);
+		assertEquals(hash, store.put(content.clone()));
+		assertTrue(BlobReference.isHash(hash));
+		assertTrue(store.contains(hash));
+		assertArrayEquals(content, read(store.open(hash)));
+		try (Stream<Path> files = Files.walk(directory)) {
+			assertEquals(1, files.filter(Files::isRegularFile).count());
+		}
+	}
+
+	@Test
+	public void testUnknownHashes() throws Exception {
+		FileBlobStore store = new FileBlobStore(folder.getRoot().toPath());
+		String unknown = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+		assertFalse(store.contains(unknown));
+		assertNull(store.open(unknown));
+		assertNull(store.open("../../etc/passwd"));
+	}
+
+	@Test
+	public void testUnreferencedBlobsAreRemoved() throws Exception {
+		Path directory = folder.getRoot().toPath();
+		FileBlobStore store = new FileBlobStore(directory);
+		String referenced = store.put("referenced".getBytes(StandardCharsets.UTF_8));
+		String unreferenced = store.put("unreferenced".getBytes(StandardCharsets.UTF_8));
+		String recent = store.put("recent".getBytes(StandardCharsets.UTF_8));
+		long storedBefore = System.currentTimeMillis() - 60000;
+		setStored(directory, referenced, storedBefore - 1000);
+		setStored(directory, unreferenced, storedBefore - 1000);
+
+		assertEquals(1, store.removeUnreferenced(Collections.singleton(referenced), storedBefore));
+		assertTrue(store.contains(referenced));
+		assertFalse(store.contains(unreferenced));
+		assertTrue(store.contains(recent));
+
+		// Storing the content again protects it from the next collection
+		setStored(directory, recent, storedBefore - 1000);
+		store.put("recent".getBytes(StandardCharsets.UTF_8));
+		assertEquals(0, store.removeUnreferenced(Collections.singleton(referenced), storedBefore));
+		assertTrue(store.contains(recent));
+	}
+
+	@Test
+	public void testBlobStoredDuringRemovalIsKept() throws Exception {
+		Path directory = folder.getRoot().toPath();
+		byte[] content = "image".getBytes(StandardCharsets.UTF_8);
+		Thread[] writer = new Thread[1];
+		Exception[] failure = new Exception[1];
+		// Stores the content again after the collector found it expired
+		FileBlobStore store = new FileBlobStore(directory) {
+			@Override
+			protected boolean isExpired(Path blob, long storedBefore) throws IOException {
+				boolean expired = super.isExpired(blob, storedBefore);
+				writer[0] = new Thread(() -> {
+					try {
+						put(content);
+					} catch (Exception e) {
+						failure[0] = e;
+					}
+				});
+				writer[0].start();
+				long deadline = System.currentTimeMillis() + 1000;
+				while (writer[0].getState() != Thread.State.BLOCKED && writer[0].isAlive()
+						&& System.currentTimeMillis() < deadline) {
+					Thread.yield();
+				}
+				return expired;
+			}
+		};
+		String hash = store.put(content);
+		long storedBefore = System.currentTimeMillis() - 60000;
+		setStored(directory, hash, storedBefore - 1000);
+
+		store.removeUnreferenced(Collections.emptySet(), storedBefore);
+		writer[0].join();
+
+		assertNull(failure[0]);
+		assertTrue(store.contains(hash));
+		assertArrayEquals(content, read(store.open(hash)));
+	}
+
+	@Test
+	public void testImageDataIsReplacedByReference() throws Exception {
+		FileBlobStore store = new FileBlobStore(folder.getRoot().toPath());
+		byte[] png = new byte[] { (byte) 0x89, 'P', 'N', 'G' };
+		ModelImage image = BaseFactory.eINSTANCE.createModelImage();
+		image.setImageData("data:image/png;base64," + Base64.getEncoder().encodeToString(png));
+
+		new ModelImageOffloader(store).offload(image);
+
+		BlobReference reference = BlobReference.parse(image.getImageData());
+		assertNotNull(reference);
+		assertEquals("image/png", reference.getContentType());
+		assertArrayEquals(png, read(store.open(reference.getHash())));
+
+		// Offloading again keeps the reference
+		String stored = image.getImageData();
+		new ModelImageOffloader(store).offload(image);
+		assertEquals(stored, image.getImageData());
+	}
+
+	private void setStored(Path directory, String hash, long time) throws IOException {
+		Files.setLastModifiedTime(directory.resolve(hash.substring(0, 2)).resolve(hash), FileTime.fromMillis(time));
+	}
+
+	private byte[] read(InputStream input) throws IOException {
+		try (InputStream in = input) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1024];
+			int read;
+			while ((read = in.read(buffer)) >= 0) {
+				out.write(buffer, 0, read);
+			}
+			return out.toByteArray();
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package com.specmate.persistency.cdo.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.specmate.model.history.HistoryEntry;
+import com.specmate.model.history.HistoryFactory;
+import com.specmate.persistency.cdo.internal.HistoryMerger;
+
+public class HistoryMergerTest {
+
+	@Test
+	public void testMergeIsExactForDistantTimestamps() {
+		long old = 1000L;
+		long recent = old + (1L << 33);
+		List<List<Long>> streams = Arrays.asList(Arrays.asList(old), Arrays.asList(recent, old - 1));
+
+		List<HistoryEntry> entries = merge(streams, 0, Integer.MAX_VALUE, new ArrayList<>());
+
+		assertEquals(3, entries.size());
+		assertEquals(recent, entries.get(0).getTimestamp());
+		assertEquals(old, entries.get(1).getTimestamp());
+		assertEquals(old - 1, entries.get(2).getTimestamp());
+	}
+
+	@Test
+	public void testMergeSkipsEmptyEntries() {
+		List<List<Long>> streams = Arrays.asList(Arrays.asList(9L, 7L, 5L), Arrays.asList(8L, 6L, -3L));
+
+		List<HistoryEntry> entries = merge(streams, 0, Integer.MAX_VALUE, new ArrayList<>());
+
+		assertEquals(5, entries.size());
+		assertEquals(Arrays.asList(9L, 8L, 7L, 6L, 5L), timestamps(entries));
+	}
+
+	@Test
+	public void testMergeStopsAtPage() {
+		List<List<Long>> streams = Arrays.asList(Arrays.asList(10L, 7L, 4L, 1L), Arrays.asList(9L, 6L, 3L),
+				Arrays.asList(8L, 5L, 2L));
+		List<Long> created = new ArrayList<>();
+
+		List<HistoryEntry> entries = merge(streams, 2, 3, created);
+
+		assertEquals(Arrays.asList(8L, 7L, 6L), timestamps(entries));
+		assertEquals(5, created.size());
+	}
+
+	@Test
+	public void testEqualTimestampsKeepStreamOrder() {
+		List<List<Long>> streams = Arrays.asList(Arrays.asList(5L), Arrays.asList(5L), Arrays.asList(5L));
+		List<Integer> order = new ArrayList<>();
+
+		HistoryMerger.<Long> merge(streams, t -> t, (stream, commit) -> {
+			order.add(stream);
+			return entry(commit);
+		}, 0, Integer.MAX_VALUE);
+
+		assertEquals(Arrays.asList(0, 1, 2), order);
+	}
+
+	/** Merges the streams, negative timestamps denote commits without entry */
+	private List<HistoryEntry> merge(List<List<Long>> streams, int offset, int limit, List<Long> created) {
+		return HistoryMerger.<Long> merge(streams, t -> Math.abs(t), (stream, commit) -> {
+			created.add(commit);
+			return commit < 0 ? null : entry(commit);
+		}, offset, limit);
+	}
+
+	private HistoryEntry entry(long timestamp) {
+		HistoryEntry entry = HistoryFactory.eINSTANCE.createHistoryEntry();
+		entry.setTimestamp(timestamp);
+		return entry;
+	}
+
+	private List<Long> timestamps(List<HistoryEntry> entries) {
+		List<Long> timestamps = new ArrayList<>();
+		for (HistoryEntry entry : entries) {
+			timestamps.add(entry.getTimestamp());
+		}
+		return timestamps;
+	}
+}
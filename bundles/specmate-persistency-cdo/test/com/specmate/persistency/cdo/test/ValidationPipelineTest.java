@@ -0,0 +1,95 @@
+package com.specmate.persistency.cdo.test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.specmate.common.exception.SpecmateValidationException;
+import com.specmate.model.base.BaseFactory;
+import com.specmate.model.base.BasePackage;
+import com.specmate.model.base.Folder;
+import com.specmate.model.requirements.CEGConnection;
+import com.specmate.model.requirements.RequirementsFactory;
+import com.specmate.persistency.IValidator;
+import com.specmate.persistency.cdo.internal.ValidationPipeline;
+import com.specmate.persistency.event.EChangeKind;
+import com.specmate.persistency.validation.NameValidator;
+import com.specmate.persistency.validation.ValidatorBase;
+
+public class ValidationPipelineTest {
+
+	/** Counts the objects it is passed, restricted to connections */
+	private static class CountingConnectionValidator extends ValidatorBase {
+		private int count = 0;
+
+		@Override
+		public List<EClass> getApplicableClasses() {
+			return Collections.singletonList(BasePackage.Literals.IMODEL_CONNECTION);
+		}
+
+		@Override
+		public void changedObject(EObject object, EStructuralFeature feature, EChangeKind changeKind,
+				Object oldValue, Object newValue, String objectClassName) throws SpecmateValidationException {
+			count++;
+		}
+
+		@Override
+		public void removedObject(EObject object) throws SpecmateValidationException {
+			count++;
+		}
+
+		@Override
+		public void newObject(EObject object, String id, String className, Map<EStructuralFeature, Object> featureMap)
+				throws SpecmateValidationException {
+			count++;
+		}
+	}
+
+	@Test
+	public void testOnlyApplicableObjectsAreValidated() throws SpecmateValidationException {
+		CountingConnectionValidator validator = new CountingConnectionValidator();
+		ValidationPipeline pipeline = new ValidationPipeline(Arrays.<IValidator> asList(validator), null, 0, null, null);
+
+		Folder folder = BaseFactory.eINSTANCE.createFolder();
+		CEGConnection connection = RequirementsFactory.eINSTANCE.createCEGConnection();
+		pipeline.newObject(folder, "folder", "Folder", Collections.emptyMap());
+		pipeline.newObject(connection, "connection", "CEGConnection", Collections.emptyMap());
+		pipeline.removedObject(folder);
+		pipeline.validate();
+
+		Assert.assertEquals(1, validator.count);
+	}
+
+	@Test
+	public void testParallelValidationReportsErrors() throws SpecmateValidationException {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			CountingConnectionValidator counter = new CountingConnectionValidator();
+			ValidationPipeline pipeline = new ValidationPipeline(Arrays.<IValidator> asList(counter, new NameValidator()),
+					executor, 1, null, null);
+
+			CEGConnection connection = RequirementsFactory.eINSTANCE.createCEGConnection();
+			connection.setName("invalid;name");
+			pipeline.newObject(connection, "connection", "CEGConnection",
+					Collections.singletonMap(BasePackage.Literals.INAMED__NAME, connection.getName()));
+			try {
+				pipeline.validate();
+				Assert.fail("Invalid name not detected");
+			} catch (SpecmateValidationException e) {
+				Assert.assertEquals(NameValidator.class.getName(), e.getValidatorName());
+			}
+			Assert.assertEquals(1, counter.count);
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
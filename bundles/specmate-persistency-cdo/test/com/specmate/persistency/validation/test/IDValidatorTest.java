@@ -0,0 +1,131 @@
+package com.specmate.persistency.validation.test;
+
+import java.util.Collections;
+
+import org.eclipse.emf.ecore.EObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.specmate.common.exception.SpecmateValidationException;
+import com.specmate.model.base.BaseFactory;
+import com.specmate.model.base.BasePackage;
+import com.specmate.model.base.Folder;
+import com.specmate.model.requirements.Requirement;
+import com.specmate.model.requirements.RequirementsFactory;
+import com.specmate.model.support.util.SpecmateEcoreUtil;
+import com.specmate.persistency.validation.IDValidator;
+import com.specmate.persistency.validation.SiblingIdIndex;
+
+public class IDValidatorTest {
+
+	@Test
+	public void testDuplicateIdIsDetected() {
+		Folder folder = createFolder(100);
+		Requirement duplicate = createRequirement("req-42");
+		folder.getContents().add(duplicate);
+
+		IDValidator validator = new IDValidator();
+		validator.beginCommit();
+		try {
+			validateNew(validator, duplicate);
+			Assert.fail("Duplicate id not detected");
+		} catch (SpecmateValidationException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testLaterCommitDetectsNewDuplicate() throws SpecmateValidationException {
+		Folder folder = createFolder(10);
+		Requirement requirement = createRequirement("new-req");
+		folder.getContents().add(requirement);
+
+		IDValidator validator = new IDValidator();
+		validator.beginCommit();
+		validateNew(validator, requirement);
+
+		// A second commit that introduces a duplicate must see the new state
+		Requirement duplicate = createRequirement("new-req");
+		folder.getContents().add(duplicate);
+		validator.beginCommit();
+		try {
+			validateNew(validator, duplicate);
+			Assert.fail("Duplicate id not detected");
+		} catch (SpecmateValidationException e) {
+			// expected
+		}
+	}
+
+	/**
+	 * Validating all children of a container in one commit scans the container
+	 * once, further commits only update the index with their changes.
+	 */
+	@Test
+	public void testContainerIsScannedOnce() throws SpecmateValidationException {
+		Folder folder = createFolder(1000);
+		SiblingIdIndex index = new SiblingIdIndex();
+		for (EObject child : folder.getContents()) {
+			Assert.assertEquals(1, index.count(child, SpecmateEcoreUtil.getID(child)));
+		}
+		Assert.assertEquals(1000, index.getScannedChildren());
+
+		Requirement added = createRequirement("req-1000");
+		folder.getContents().add(added);
+		index.update(added, added.getId());
+		Assert.assertEquals(1, index.count(added, "req-1000"));
+
+		Requirement duplicate = createRequirement("req-7");
+		folder.getContents().add(duplicate);
+		index.update(duplicate, duplicate.getId());
+		Assert.assertEquals(2, index.count(duplicate, "req-7"));
+
+		folder.getContents().remove(duplicate);
+		index.remove(duplicate);
+		Assert.assertEquals(1, index.count(added, "req-7"));
+		Assert.assertEquals(1000, index.getScannedChildren());
+	}
+
+	/** Changes of other transactions discard the counts of the affected container */
+	@Test
+	public void testInvalidatedContainerIsScannedAgain() throws SpecmateValidationException {
+		Folder folder = createFolder(100);
+		Requirement requirement = (Requirement) folder.getContents().get(0);
+		IDValidator validator = new IDValidator();
+		validator.beginCommit();
+		validateNew(validator, requirement);
+
+		// A duplicate added by another transaction, which the validator does not see
+		Requirement duplicate = createRequirement(requirement.getId());
+		folder.getContents().add(duplicate);
+		validator.invalidate(Collections.singletonList(folder));
+
+		validator.beginCommit();
+		try {
+			validateNew(validator, requirement);
+			Assert.fail("Duplicate id not detected");
+		} catch (SpecmateValidationException e) {
+			// expected
+		}
+	}
+
+	private void validateNew(IDValidator validator, Requirement requirement) throws SpecmateValidationException {
+		validator.newObject(requirement, requirement.getId(), requirement.eClass().getName(),
+				Collections.singletonMap(BasePackage.Literals.IID__ID, requirement.getId()));
+	}
+
+	private Folder createFolder(int size) {
+		Folder folder = BaseFactory.eINSTANCE.createFolder();
+		folder.setId("folder");
+		for (int i = 0; i < size; i++) {
+			folder.getContents().add(createRequirement("req-" + i));
+		}
+		return folder;
+	}
+
+	private Requirement createRequirement(String id) {
+		Requirement requirement = RequirementsFactory.eINSTANCE.createRequirement();
+		requirement.setId(id);
+		requirement.setName(id);
+		return requirement;
+	}
+}
@@ -0,0 +1,87 @@
+package com.specmate.search.api;
+
+import java.util.List;
+
+/**
+ * The result of a consistency check of the search index against the model,
+ * per project, as of the time it was requested.
+ */
+public class ConsistencyReport {
+
+	private final String project;
+	private final boolean repaired;
+	private final boolean running;
+	private final boolean failed;
+	private final long started;
+	private final long finished;
+	private final List<ProjectConsistency> projects;
+
+	public ConsistencyReport(String project, boolean repaired, boolean running, boolean failed, long started,
+			long finished, List<ProjectConsistency> projects) {
+		this.project = project;
+		this.repaired = repaired;
+		this.running = running;
+		this.failed = failed;
+		this.started = started;
+		this.finished = finished;
+		this.projects = projects;
+	}
+
+	/** The checked project, null if all projects were checked */
+	public String getProject() {
+		return project;
+	}
+
+	/** Whether the differences were repaired after the check */
+	public boolean isRepaired() {
+		return repaired;
+	}
+
+	/** Whether the check is still running */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Whether the check was aborted by an error or cancelled by a reindex, such
+	 * that the differences are incomplete
+	 */
+	public boolean isFailed() {
+		return failed;
+	}
+
+	/** The start time of the check in ms, 0 if there was no check yet */
+	public long getStarted() {
+		return started;
+	}
+
+	/** The end time of the check, including a repair, in ms, 0 while it is running */
+	public long getFinished() {
+		return finished;
+	}
+
+	/** The differences per project */
+	public List<ProjectConsistency> getProjects() {
+		return projects;
+	}
+
+	/** The number of model objects without document in all checked projects */
+	public long getMissing() {
+		return projects.stream().mapToLong(ProjectConsistency::getMissing).sum();
+	}
+
+	/** The number of stale documents in all checked projects */
+	public long getStale() {
+		return projects.stream().mapToLong(ProjectConsistency::getStale).sum();
+	}
+
+	/** The number of orphaned documents in all checked projects */
+	public long getOrphaned() {
+		return projects.stream().mapToLong(ProjectConsistency::getOrphaned).sum();
+	}
+
+	/** Whether the index matched the model in all checked projects */
+	public boolean isConsistent() {
+		return projects.stream().allMatch(ProjectConsistency::isConsistent);
+	}
+}
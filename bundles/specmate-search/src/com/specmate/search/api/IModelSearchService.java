@@ -1,5 +1,7 @@
 package com.specmate.search.api;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 import org.eclipse.emf.ecore.EObject;
@@ -23,9 +25,121 @@ public interface IModelSearchService {
 	 */
 	Set<EObject> search(String query, String project) throws SpecmateException;
 
+	/**
+	 * Searches for model objects like {@link #search(String, String)}, but
+	 * returns a page of the matching objects, ordered by relevance.
+	 *
+	 * @param types
+	 *            The names of the classes of the objects to search for, all
+	 *            indexed classes if null or empty
+	 * @param mode
+	 *            How the words of the query are matched
+	 * @param offset
+	 *            The number of matches to skip
+	 * @param limit
+	 *            The maximal number of objects to return, at most the
+	 *            configured maximal number of search results
+	 * @throws SpecmateException
+	 */
+	SearchPage<EObject> search(String query, String project, Collection<String> types, SearchMode mode, int offset,
+			int limit) throws SpecmateException;
+
+	/**
+	 * Searches for model objects like
+	 * {@link #search(String, String, Collection, SearchMode, int, int)}, but returns the hits from the
+	 * fields stored in the index without loading the model objects. The hits
+	 * carry their score and the matches highlighted in name and description.
+	 *
+	 * @throws SpecmateException
+	 */
+	SearchPage<SearchHit> searchHits(String query, String project, Collection<String> types, SearchMode mode,
+			int offset, int limit) throws SpecmateException;
+
+	/**
+	 * Returns the names of objects of the project that start with the words
+	 * typed so far, for completing a query as the user types. The names are
+	 * ordered by relevance and distinct, ignoring case.
+	 *
+	 * @param limit
+	 *            The maximal number of names to return
+	 * @throws SpecmateException
+	 */
+	List<String> suggest(String prefix, String project, int limit) throws SpecmateException;
+
 	void clear() throws SpecmateException;
 
-	void startReIndex() throws SpecmateException;
+	/**
+	 * Deletes the documents of the given project. If each project has its own
+	 * index, the index of the project is deleted.
+	 *
+	 * @throws SpecmateException
+	 */
+	void clear(String project) throws SpecmateException;
+
+	/**
+	 * Starts to rebuild the index from scratch. The new index is built in a
+	 * separate directory and replaces the current index when it is complete,
+	 * such that searches use the current index in the meantime.
+	 *
+	 * @return Whether the reindex was started, false if indexing is disabled
+	 *         or a reindex is already running
+	 * @throws SpecmateException
+	 */
+	boolean startReIndex() throws SpecmateException;
+
+	/**
+	 * Starts to rebuild the index of the given project like
+	 * {@link #startReIndex()}. If the projects share one index, the documents
+	 * of the project are updated in place instead.
+	 *
+	 * @throws SpecmateException
+	 */
+	boolean startReIndex(String project) throws SpecmateException;
+
+	/**
+	 * Starts to bring the index up to date with the model. Only objects whose
+	 * revision differs from the indexed one or that are not indexed yet are
+	 * indexed, and documents of objects that no longer exist are deleted.
+	 *
+	 * @return Whether the reindex was started, false if indexing is disabled
+	 *         or a reindex is already running
+	 * @throws SpecmateException
+	 */
+	boolean startIncrementalReIndex() throws SpecmateException;
+
+	/**
+	 * Starts to bring the index of the given project up to date like
+	 * {@link #startIncrementalReIndex()}.
+	 *
+	 * @throws SpecmateException
+	 */
+	boolean startIncrementalReIndex(String project) throws SpecmateException;
+
+	/**
+	 * Starts to compare the ids and revisions of the documents of the index
+	 * with the model objects, which finds missing, stale and orphaned documents
+	 * per project. The result of a check of all projects is also published as
+	 * metrics. Starting a reindex cancels a running check.
+	 *
+	 * @param project
+	 *            The project to check, all projects if null
+	 * @param repair
+	 *            Whether to update the missing and stale documents and delete
+	 *            the orphaned ones in place. The check finishes when they are
+	 *            searchable.
+	 * @return Whether the check was started, false if a reindex or another
+	 *         check is running
+	 */
+	boolean startConsistencyCheck(String project, boolean repair);
+
+	/**
+	 * Returns the report of the running or latest consistency check, with the
+	 * differences found so far
+	 */
+	ConsistencyReport getConsistencyReport();
+
+	/** Returns the progress of the running or latest reindex */
+	ReindexProgress getReindexProgress();
 
 	void disableIndexing();
 
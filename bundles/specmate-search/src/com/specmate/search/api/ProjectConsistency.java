@@ -0,0 +1,82 @@
+package com.specmate.search.api;
+
+import java.util.List;
+
+/**
+ * The differences between the search index and the model objects of a
+ * project, as found by a consistency check.
+ */
+public class ProjectConsistency {
+
+	private final String project;
+	private final long checked;
+	private final long missing;
+	private final long stale;
+	private final long orphaned;
+	private final List<String> missingIds;
+	private final List<String> staleIds;
+	private final List<String> orphanedIds;
+
+	/**
+	 * @param missingIds
+	 *            The ids of the objects without document, at most the
+	 *            reported number of ids per kind of difference. Likewise for
+	 *            the stale and orphaned ids.
+	 */
+	public ProjectConsistency(String project, long checked, long missing, long stale, long orphaned,
+			List<String> missingIds, List<String> staleIds, List<String> orphanedIds) {
+		this.project = project;
+		this.checked = checked;
+		this.missing = missing;
+		this.stale = stale;
+		this.orphaned = orphaned;
+		this.missingIds = missingIds;
+		this.staleIds = staleIds;
+		this.orphanedIds = orphanedIds;
+	}
+
+	/** The id of the project */
+	public String getProject() {
+		return project;
+	}
+
+	/** The number of indexed model objects of the project */
+	public long getChecked() {
+		return checked;
+	}
+
+	/** The number of model objects without document */
+	public long getMissing() {
+		return missing;
+	}
+
+	/** The number of documents whose revision differs from the one of their object */
+	public long getStale() {
+		return stale;
+	}
+
+	/** The number of documents whose object no longer exists or belongs elsewhere */
+	public long getOrphaned() {
+		return orphaned;
+	}
+
+	/** Whether the index matches the model objects of the project */
+	public boolean isConsistent() {
+		return missing == 0 && stale == 0 && orphaned == 0;
+	}
+
+	/** The ids of the objects without document, possibly not all of them */
+	public List<String> getMissingIds() {
+		return missingIds;
+	}
+
+	/** The ids of the objects with stale document, possibly not all of them */
+	public List<String> getStaleIds() {
+		return staleIds;
+	}
+
+	/** The ids of the orphaned documents, possibly not all of them */
+	public List<String> getOrphanedIds() {
+		return orphanedIds;
+	}
+}
@@ -0,0 +1,79 @@
+package com.specmate.search.api;
+
+/**
+ * The progress of the latest reindex of the search index, as of the time it
+ * was requested.
+ */
+public class ReindexProgress {
+
+	private final String project;
+	private final boolean full;
+	private final boolean running;
+	private final boolean failed;
+	private final long started;
+	private final long finished;
+	private final long checked;
+	private final long updated;
+	private final long deleted;
+
+	public ReindexProgress(String project, boolean full, boolean running, boolean failed, long started,
+			long finished, long checked, long updated, long deleted) {
+		this.project = project;
+		this.full = full;
+		this.running = running;
+		this.failed = failed;
+		this.started = started;
+		this.finished = finished;
+		this.checked = checked;
+		this.updated = updated;
+		this.deleted = deleted;
+	}
+
+	/** The reindexed project, null if all projects are reindexed */
+	public String getProject() {
+		return project;
+	}
+
+	/**
+	 * Whether the index is rebuilt from scratch, otherwise only changed,
+	 * missing and orphaned documents are updated
+	 */
+	public boolean isFull() {
+		return full;
+	}
+
+	/** Whether the reindex is still running */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/** Whether the reindex was aborted by an error */
+	public boolean isFailed() {
+		return failed;
+	}
+
+	/** The start time of the reindex in ms, 0 if there was no reindex yet */
+	public long getStarted() {
+		return started;
+	}
+
+	/** The end time of the reindex in ms, 0 while it is running */
+	public long getFinished() {
+		return finished;
+	}
+
+	/** The number of model objects compared with the index so far */
+	public long getChecked() {
+		return checked;
+	}
+
+	/** The number of documents that were added or updated so far */
+	public long getUpdated() {
+		return updated;
+	}
+
+	/** The number of orphaned documents that were deleted so far */
+	public long getDeleted() {
+		return deleted;
+	}
+}
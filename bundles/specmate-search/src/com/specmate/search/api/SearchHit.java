@@ -0,0 +1,73 @@
+package com.specmate.search.api;
+
+/**
+ * A search result that is built from the fields stored in the search index,
+ * without loading the model object.
+ */
+public class SearchHit {
+
+	private final String id;
+	private final String url;
+	private final String name;
+	private final String className;
+	private final String project;
+	private final String highlightedName;
+	private final String snippet;
+	private final float score;
+
+	public SearchHit(String id, String url, String name, String highlightedName, String className, String project,
+			String snippet, float score) {
+		this.id = id;
+		this.url = url;
+		this.name = name;
+		this.highlightedName = highlightedName;
+		this.className = className;
+		this.project = project;
+		this.snippet = snippet;
+		this.score = score;
+	}
+
+	/** The unique id of the model object */
+	public String getId() {
+		return id;
+	}
+
+	/** The url of the model object, as of its last indexing */
+	public String getUrl() {
+		return url;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * The name as HTML, with the matches of the query enclosed in
+	 * <code>&lt;em&gt;</code> tags
+	 */
+	public String getHighlightedName() {
+		return highlightedName;
+	}
+
+	/** The name of the class of the model object */
+	public String getClassName() {
+		return className;
+	}
+
+	public String getProject() {
+		return project;
+	}
+
+	/**
+	 * A fragment of the description around the first match of the query, as
+	 * HTML with the matches enclosed in <code>&lt;em&gt;</code> tags
+	 */
+	public String getSnippet() {
+		return snippet;
+	}
+
+	/** The relevance of the hit, higher scores are more relevant */
+	public float getScore() {
+		return score;
+	}
+}
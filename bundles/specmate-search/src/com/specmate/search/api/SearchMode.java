@@ -0,0 +1,35 @@
+package com.specmate.search.api;
+
+/**
+ * How the words of a search query are matched.
+ */
+public enum SearchMode {
+
+	/**
+	 * The query is parsed with the query syntax and matches whole words, their
+	 * stems and parts of compound words
+	 */
+	STANDARD,
+
+	/**
+	 * Each word of the query matches the beginning of a word of the name, and
+	 * the whole query matches the beginning of the external id
+	 */
+	PREFIX,
+
+	/**
+	 * Each word of the query matches words with a bounded number of typos,
+	 * depending on its length
+	 */
+	FUZZY;
+
+	/**
+	 * Returns the mode with the given name, ignoring case
+	 *
+	 * @throws IllegalArgumentException
+	 *             If there is no such mode
+	 */
+	public static SearchMode parse(String name) {
+		return valueOf(name.toUpperCase());
+	}
+}
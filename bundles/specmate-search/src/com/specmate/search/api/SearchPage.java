@@ -0,0 +1,52 @@
+package com.specmate.search.api;
+
+import java.util.List;
+
+/**
+ * A page of search results, ordered by relevance.
+ */
+public class SearchPage<T> {
+
+	private final List<T> results;
+	private final long totalHits;
+	private final int offset;
+	private final int nextOffset;
+
+	/**
+	 * @param nextOffset
+	 *            The offset of the next page. Matches whose objects no longer
+	 *            exist are left out of a page, such that it may have less
+	 *            results than the page size.
+	 */
+	public SearchPage(List<T> results, long totalHits, int offset, int nextOffset) {
+		this.results = results;
+		this.totalHits = totalHits;
+		this.offset = offset;
+		this.nextOffset = nextOffset;
+	}
+
+	/** The results of this page */
+	public List<T> getResults() {
+		return results;
+	}
+
+	/** The number of all matches of the query */
+	public long getTotalHits() {
+		return totalHits;
+	}
+
+	/** The position of the first result of this page among all matches */
+	public int getOffset() {
+		return offset;
+	}
+
+	/** The offset to request the next page with */
+	public int getNextOffset() {
+		return nextOffset;
+	}
+
+	/** Returns whether there are matches after this page */
+	public boolean hasMore() {
+		return nextOffset < totalHits;
+	}
+}
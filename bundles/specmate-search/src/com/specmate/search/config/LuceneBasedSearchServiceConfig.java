@@ -12,6 +12,7 @@ import org.osgi.service.log.LogService;
 import com.specmate.common.OSGiUtil;
 import com.specmate.common.exception.SpecmateException;
 import com.specmate.config.api.IConfigService;
+import com.specmate.connectors.api.IProjectConfigService;
 
 /**
  * Configuration service for the lucene based model search service. Reads a
@@ -33,6 +34,27 @@ public class LuceneBasedSearchServiceConfig {
 	/** Config key for the fields that are allowed to be searchable. */
 	public static final String KEY_ALLOWED_FIELDS = "search.allowedFields";
 
+	/** Config key for the maximal number of objects waiting to be indexed. */
+	public static final String KEY_QUEUE_CAPACITY = "search.queue.capacity";
+
+	/** Config key for the maximal number of objects indexed in one batch. */
+	public static final String KEY_QUEUE_BATCH_SIZE = "search.queue.batchSize";
+
+	/** Config key for the maximal time in ms until a change is visible to searches. */
+	public static final String KEY_REFRESH_MAX_STALE = "search.refresh.maxStaleMillis";
+
+	/** Config key for the minimal time in ms between refreshes when waiting for a change. */
+	public static final String KEY_REFRESH_MIN_STALE = "search.refresh.minStaleMillis";
+
+	/** Config key for the language of objects whose language is neither configured nor detected. */
+	public static final String KEY_DEFAULT_LANGUAGE = "search.language.default";
+
+	/** Config key for the file with the parts of German compound words. */
+	public static final String KEY_COMPOUND_DICTIONARY_DE = "search.language.de.compoundDictionary";
+
+	/** Config key for whether each project has its own index. */
+	public static final String KEY_PARTITION_BY_PROJECT = "search.partitionByProject";
+
 	/** The configuration admin intance */
 	private ConfigurationAdmin configurationAdmin;
 
@@ -61,11 +83,56 @@ public class LuceneBasedSearchServiceConfig {
 		properties.put(KEY_MAX_SEARCH_RESULTS, maxSearchResults);
 
 		properties.put(KEY_ALLOWED_FIELDS, allowedFields);
+
+		Integer queueCapacity = configService.getConfigurationPropertyInt(KEY_QUEUE_CAPACITY);
+		if (queueCapacity != null) {
+			properties.put(KEY_QUEUE_CAPACITY, queueCapacity);
+		}
+		Integer queueBatchSize = configService.getConfigurationPropertyInt(KEY_QUEUE_BATCH_SIZE);
+		if (queueBatchSize != null) {
+			properties.put(KEY_QUEUE_BATCH_SIZE, queueBatchSize);
+		}
+		Integer refreshMaxStale = configService.getConfigurationPropertyInt(KEY_REFRESH_MAX_STALE);
+		if (refreshMaxStale != null) {
+			properties.put(KEY_REFRESH_MAX_STALE, refreshMaxStale);
+		}
+		Integer refreshMinStale = configService.getConfigurationPropertyInt(KEY_REFRESH_MIN_STALE);
+		if (refreshMinStale != null) {
+			properties.put(KEY_REFRESH_MIN_STALE, refreshMinStale);
+		}
+		String defaultLanguage = configService.getConfigurationProperty(KEY_DEFAULT_LANGUAGE);
+		if (defaultLanguage != null) {
+			properties.put(KEY_DEFAULT_LANGUAGE, defaultLanguage);
+		}
+		String compoundDictionary = configService.getConfigurationProperty(KEY_COMPOUND_DICTIONARY_DE);
+		if (compoundDictionary != null) {
+			properties.put(KEY_COMPOUND_DICTIONARY_DE, compoundDictionary);
+		}
+		String partitionByProject = configService.getConfigurationProperty(KEY_PARTITION_BY_PROJECT);
+		if (partitionByProject != null) {
+			properties.put(KEY_PARTITION_BY_PROJECT, Boolean.parseBoolean(partitionByProject));
+		}
+		// The languages of the projects, with the keys of the project configuration
+		String[] projectIds = configService.getConfigurationPropertyArray(IProjectConfigService.KEY_PROJECT_IDS);
+		if (projectIds != null) {
+			for (String projectId : projectIds) {
+				String key = getProjectLanguageKey(projectId);
+				String language = configService.getConfigurationProperty(key);
+				if (language != null) {
+					properties.put(key, language);
+				}
+			}
+		}
 		logService.log(LogService.LOG_DEBUG,
 				"Configuring LuceneBasedModelSearchService with:\n" + OSGiUtil.configDictionaryToString(properties));
 		OSGiUtil.configureService(configurationAdmin, PID, properties);
 	}
 
+	/** Returns the config key of the language of the given project */
+	public static String getProjectLanguageKey(String projectId) {
+		return IProjectConfigService.PROJECT_PREFIX + projectId + IProjectConfigService.KEY_PROJECT_LANGUAGE;
+	}
+
 	/** Service reference for config admin */
 	@Reference
 	public void setConfigurationAdmin(ConfigurationAdmin configurationAdmin) {
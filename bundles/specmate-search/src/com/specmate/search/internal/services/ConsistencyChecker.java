@@ -0,0 +1,274 @@
+package com.specmate.search.internal.services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.emf.ecore.EObject;
+import org.osgi.service.log.LogService;
+
+import com.specmate.search.api.ConsistencyReport;
+import com.specmate.search.api.ProjectConsistency;
+
+/**
+ * Checks in the background whether the search index matches the model and
+ * optionally repairs the differences. Checks run on the executor of the
+ * reindexes, such that they do not run concurrently with a reindex, and are
+ * cancelled when a reindex starts.
+ */
+public class ConsistencyChecker {
+
+	private final LuceneBasedModelSearchService searchService;
+
+	private final IndexComparator comparator;
+
+	/** Executor of the reindexes, which also runs the checks */
+	private final ExecutorService executor;
+
+	private final LogService logService;
+
+	/** Flag to signal if a consistency check is running. */
+	private final AtomicBoolean isCheckRunning = new AtomicBoolean(false);
+
+	/** The running or latest consistency check */
+	private volatile ConsistencyCounter consistencyCheck = new ConsistencyCounter(null, false, 0);
+
+	public ConsistencyChecker(LuceneBasedModelSearchService searchService, IndexComparator comparator,
+			ExecutorService executor, LogService logService) {
+		this.searchService = searchService;
+		this.comparator = comparator;
+		this.executor = executor;
+		this.logService = logService;
+	}
+
+	/**
+	 * Starts a check of the given project, or of all projects if it is null
+	 *
+	 * @param repair
+	 *            Whether the differences are repaired
+	 * @return false if a check is already running
+	 */
+	public boolean start(String project, boolean repair) {
+		if (!isCheckRunning.compareAndSet(false, true)) {
+			return false;
+		}
+		ConsistencyCounter check = new ConsistencyCounter(project, repair, System.currentTimeMillis());
+		this.consistencyCheck = check;
+		logService.log(LogService.LOG_INFO,
+				"Search index consistency check" + (project != null ? " of project " + project : "") + " started.");
+		executor.submit(() -> checkConsistency(check));
+		return true;
+	}
+
+	/** Cancels the running check, as a reindex brings the index up to date */
+	public void cancel() {
+		consistencyCheck.cancel();
+	}
+
+	/** Returns the report of the running or latest check */
+	public ConsistencyReport getReport() {
+		return consistencyCheck.getReport();
+	}
+
+	/** Runs the given consistency check, unless it was cancelled meanwhile */
+	private void checkConsistency(ConsistencyCounter check) {
+		if (!check.begin()) {
+			finishConsistencyCheck(check);
+			return;
+		}
+		try {
+			searchService.awaitSearchable();
+			if (!comparator.compare(check.project, false, check)) {
+				check.failed = true;
+				return;
+			}
+			if (check.repair) {
+				searchService.awaitIndexed();
+				searchService.commitAll();
+				searchService.awaitSearchable();
+			}
+		} catch (IOException e) {
+			logService.log(LogService.LOG_ERROR, "Could not check search index.", e);
+			check.failed = true;
+		} catch (InterruptedException e) {
+			// Cancelled by a reindex, the interruption is cleared below
+			check.failed = true;
+		} finally {
+			check.end();
+			finishConsistencyCheck(check);
+		}
+	}
+
+	private void finishConsistencyCheck(ConsistencyCounter check) {
+		check.finished = System.currentTimeMillis();
+		isCheckRunning.set(false);
+		ConsistencyReport report = check.getReport();
+		if (report.isFailed()) {
+			logService.log(LogService.LOG_WARNING, "Search index consistency check"
+					+ (check.project != null ? " of project " + check.project : "") + " was cancelled or failed.");
+			return;
+		}
+		updateConsistencyMetrics(report);
+		logService.log(report.isConsistent() ? LogService.LOG_INFO : LogService.LOG_WARNING,
+				"Search index consistency check" + (check.project != null ? " of project " + check.project : "")
+						+ ": " + report.getMissing() + " missing, " + report.getStale() + " stale and "
+						+ report.getOrphaned() + " orphaned documents" + (report.isRepaired() ? ", repaired." : "."));
+	}
+
+	/**
+	 * Sets the gauges for the differences found by a consistency check per
+	 * project, and in total if all projects were checked
+	 */
+	private void updateConsistencyMetrics(ConsistencyReport report) {
+		if (report.getProject() == null) {
+			setGauges(LuceneBasedModelSearchService.SHARED_PARTITION, report.getMissing(), report.getStale(),
+					report.getOrphaned());
+		}
+		for (ProjectConsistency project : report.getProjects()) {
+			// Documents without project only count towards the totals
+			if (project.getProject() == null || project.getProject().isEmpty()) {
+				continue;
+			}
+			setGauges(project.getProject(), project.getMissing(), project.getStale(), project.getOrphaned());
+		}
+	}
+
+	private void setGauges(String project, long missing, long stale, long orphaned) {
+		searchService.setGauge("search_index_missing_documents",
+				"Number of model objects without search index document", project, missing);
+		searchService.setGauge("search_index_stale_documents", "Number of outdated search index documents", project,
+				stale);
+		searchService.setGauge("search_index_orphaned_documents",
+				"Number of search index documents without model object", project, orphaned);
+	}
+
+	/**
+	 * Counts the differences found by a consistency check per project and
+	 * optionally enqueues their repair
+	 */
+	private class ConsistencyCounter implements IndexComparator.DifferenceHandler {
+
+		/** Maximal number of ids reported per project and kind of difference */
+		private static final int MAX_REPORTED_IDS = 100;
+
+		/** The checked project, null for all projects */
+		private final String project;
+
+		private final boolean repair;
+
+		private final long started;
+
+		private volatile long finished;
+
+		private volatile boolean failed;
+
+		private final Map<String, long[]> counts = new TreeMap<>();
+
+		private final Map<String, List<List<String>>> ids = new HashMap<>();
+
+		/** Whether the check was cancelled by a reindex */
+		private boolean cancelled;
+
+		/** The thread running the check, which is interrupted to cancel it */
+		private Thread thread;
+
+		public ConsistencyCounter(String project, boolean repair, long started) {
+			this.project = project;
+			this.repair = repair;
+			this.started = started;
+		}
+
+		/** Marks the check as running on the current thread, false if it was cancelled */
+		public synchronized boolean begin() {
+			if (cancelled) {
+				failed = true;
+				return false;
+			}
+			thread = Thread.currentThread();
+			return true;
+		}
+
+		/** Cancels the check, interrupting it if it is running */
+		public synchronized void cancel() {
+			cancelled = true;
+			if (thread != null) {
+				thread.interrupt();
+			}
+		}
+
+		/** Marks the check as ended, such that a cancel no longer interrupts the thread */
+		public synchronized void end() {
+			thread = null;
+			// Clears an interruption by a cancel, the thread runs the next reindex
+			Thread.interrupted();
+		}
+
+		@Override
+		public void missing(String id, EObject object, String project) {
+			count(project, 1, id);
+			if (repair) {
+				searchService.enqueueUpdate(id, object, project);
+			}
+		}
+
+		@Override
+		public void stale(String id, EObject object, String project) {
+			count(project, 2, id);
+			if (repair) {
+				searchService.enqueueUpdate(id, object, project);
+			}
+		}
+
+		@Override
+		public void orphaned(IndexPartition partition, String id, String project) {
+			count(project != null ? project : "", 3, id);
+			if (repair) {
+				searchService.enqueueDelete(partition, id);
+			}
+		}
+
+		@Override
+		public void checked(String project) {
+			count(project, 0, null);
+		}
+
+		/**
+		 * Increments the count of the given kind: 0 checked, 1 missing, 2 stale,
+		 * 3 orphaned
+		 */
+		private synchronized void count(String project, int kind, String id) {
+			counts.computeIfAbsent(project, key -> new long[4])[kind]++;
+			if (id == null) {
+				return;
+			}
+			List<String> kindIds = ids.computeIfAbsent(project,
+					key -> Arrays.asList(new ArrayList<>(), new ArrayList<>(), new ArrayList<>())).get(kind - 1);
+			if (kindIds.size() < MAX_REPORTED_IDS) {
+				kindIds.add(id);
+			}
+		}
+
+		public synchronized ConsistencyReport getReport() {
+			boolean running = started > 0 && finished == 0;
+			List<ProjectConsistency> projects = new ArrayList<>();
+			for (Entry<String, long[]> entry : counts.entrySet()) {
+				long[] projectCounts = entry.getValue();
+				List<List<String>> projectIds = ids.getOrDefault(entry.getKey(),
+						Arrays.asList(Collections.emptyList(), Collections.emptyList(), Collections.emptyList()));
+				// Copies of the ids, as a running check adds more
+				projects.add(new ProjectConsistency(entry.getKey(), projectCounts[0], projectCounts[1],
+						projectCounts[2], projectCounts[3], new ArrayList<>(projectIds.get(0)),
+						new ArrayList<>(projectIds.get(1)), new ArrayList<>(projectIds.get(2))));
+			}
+			return new ConsistencyReport(project, repair, running, failed, started, finished, projects);
+		}
+	}
+}
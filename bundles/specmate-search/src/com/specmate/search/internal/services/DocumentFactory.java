@@ -1,60 +1,143 @@
 package com.specmate.search.internal.services;
 
+import java.util.List;
 import java.util.Map;
 
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.eclipse.emf.ecore.EStructuralFeature;
 
 import com.specmate.model.base.BasePackage;
+import com.specmate.model.requirements.RequirementsPackage;
+import com.specmate.model.testspecification.TestStep;
 
 public class DocumentFactory {
 
-	public static Document create(String className, String id, String project,
+	public static Document create(String className, String id, String url, String project,
 			Map<EStructuralFeature, Object> featureMap) {
 		switch (className) {
 		case "TestProcedure":
-			return createTestProcedureDocument(className, id, project, featureMap);
+			return createTestProcedureDocument(className, id, url, project, featureMap);
+		case "CEGNode":
+			return createCEGNodeDocument(className, id, url, project, featureMap);
 		default:
-			return createGenericDocument(className, id, project, featureMap);
+			return createGenericDocument(className, id, url, project, featureMap);
 		}
 	}
 
-	private static Document createDocument(String className, String id, String project, String extId, String name,
-			String description) {
+	private static Document createDocument(String className, String id, String url, String project, String extId,
+			String name, String description) {
 		Document doc = new Document();
 		// Use StringField for id, otherwise delete won't work. See
 		// https://stackoverflow.com/questions/43090032/lucene-delete-by-id-not-working
 		doc.add(new Field(FieldConstants.FIELD_ID, id, StringField.TYPE_STORED));
 		doc.add(new Field(FieldConstants.FIELD_PROJECT, project, TextField.TYPE_STORED));
 		doc.add(new Field("type", className.toLowerCase(), TextField.TYPE_STORED));
+		doc.add(new StoredField(FieldConstants.FIELD_CLASS_NAME, className));
+		if (url != null) {
+			doc.add(new StoredField(FieldConstants.FIELD_URL, url));
+		}
 		if (extId != null) {
 			doc.add(new Field(FieldConstants.FIELD_EXTID, extId, TextField.TYPE_STORED));
+			doc.add(new Field(FieldConstants.FIELD_EXTID_PREFIX, extId, TextField.TYPE_NOT_STORED));
 		}
+		// The analyzer lower-cases the terms, the stored values keep their case
+		// for displaying search hits
 		if (name != null) {
-			doc.add(new Field(FieldConstants.FIELD_NAME, name.toLowerCase(), TextField.TYPE_STORED));
+			doc.add(new Field(FieldConstants.FIELD_NAME, name, TextField.TYPE_STORED));
+			doc.add(new Field(FieldConstants.FIELD_NAME_PREFIX, name, TextField.TYPE_NOT_STORED));
 		}
 		if (description != null) {
-			doc.add(new Field(FieldConstants.FIELD_DESCRIPTION, description.toLowerCase(), TextField.TYPE_STORED));
+			doc.add(new Field(FieldConstants.FIELD_DESCRIPTION, description, TextField.TYPE_STORED));
 		}
 		return doc;
 	}
 
-	private static Document createGenericDocument(String className, String id, String project,
+	private static Document createGenericDocument(String className, String id, String url, String project,
 			Map<EStructuralFeature, Object> featureMap) {
 		String name = (String) featureMap.get(BasePackage.Literals.INAMED__NAME);
 		String description = (String) featureMap.get(BasePackage.Literals.IDESCRIBED__DESCRIPTION);
 		String extId = (String) featureMap.get(BasePackage.Literals.IEXTERNAL__EXT_ID);
-		return createDocument(className, id, project, extId, name, description);
+		return createDocument(className, id, url, project, extId, name, description);
 	}
 
-	private static Document createTestProcedureDocument(String className, String id, String project,
+	/**
+	 * Creates the document of a test procedure. The text of the steps is
+	 * indexed with the procedure, if the feature map contains the sorted steps
+	 * as contents.
+	 */
+	private static Document createTestProcedureDocument(String className, String id, String url, String project,
 			Map<EStructuralFeature, Object> featureMap) {
-		// TODO include test steps in document
 		String name = (String) featureMap.get(BasePackage.Literals.INAMED__NAME);
 		String description = (String) featureMap.get(BasePackage.Literals.IDESCRIBED__DESCRIPTION);
-		return createDocument(className, id, project, null, name, description);
+		String extId = (String) featureMap.get(BasePackage.Literals.IEXTERNAL__EXT_ID);
+		Document doc = createDocument(className, id, url, project, extId, name, description);
+		Object contents = featureMap.get(BasePackage.Literals.ICONTAINER__CONTENTS);
+		if (contents instanceof List) {
+			StringBuilder steps = new StringBuilder();
+			for (Object content : (List<?>) contents) {
+				if (content instanceof TestStep) {
+					TestStep step = (TestStep) content;
+					append(steps, step.getDescription());
+					append(steps, step.getExpectedOutcome());
+				}
+			}
+			if (steps.length() > 0) {
+				doc.add(new Field(FieldConstants.FIELD_STEPS, steps.toString(), TextField.TYPE_NOT_STORED));
+			}
+		}
+		return doc;
+	}
+
+	private static Document createCEGNodeDocument(String className, String id, String url, String project,
+			Map<EStructuralFeature, Object> featureMap) {
+		Document doc = createGenericDocument(className, id, url, project, featureMap);
+		String variable = (String) featureMap.get(RequirementsPackage.Literals.CEG_NODE__VARIABLE);
+		String condition = (String) featureMap.get(RequirementsPackage.Literals.CEG_NODE__CONDITION);
+		if (variable != null) {
+			doc.add(new Field(FieldConstants.FIELD_VARIABLE, variable, TextField.TYPE_STORED));
+		}
+		if (condition != null) {
+			doc.add(new Field(FieldConstants.FIELD_CONDITION, condition, TextField.TYPE_STORED));
+		}
+		return doc;
+	}
+
+	/** Adds the revision of the object the document was built from */
+	public static void addRevision(Document doc, String revision) {
+		doc.add(new StoredField(FieldConstants.FIELD_REVISION, revision));
+	}
+
+	/**
+	 * Adds the text fields analyzed for the given language and the language to
+	 * the document
+	 */
+	public static void addLanguageFields(Document doc, String language) {
+		for (String field : FieldConstants.LANGUAGE_FIELDS) {
+			for (String value : doc.getValues(field)) {
+				doc.add(new Field(FieldConstants.getLanguageField(field, language), value, TextField.TYPE_NOT_STORED));
+			}
+		}
+		doc.add(new Field(FieldConstants.FIELD_LANGUAGE, language, StringField.TYPE_STORED));
+	}
+
+	/** Returns the text of the fields that are analyzed per language */
+	public static String getText(Document doc) {
+		StringBuilder text = new StringBuilder();
+		for (String field : FieldConstants.LANGUAGE_FIELDS) {
+			for (String value : doc.getValues(field)) {
+				append(text, value);
+			}
+		}
+		return text.toString();
+	}
+
+	private static void append(StringBuilder builder, String text) {
+		if (text != null && !text.isEmpty()) {
+			builder.append(text).append('\n');
+		}
 	}
 }
@@ -1,5 +1,14 @@
 package com.specmate.search.internal.services;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 public class FieldConstants {
 
 	public static final String FIELD_DESCRIPTION = "description";
@@ -14,6 +23,128 @@ public class FieldConstants {
 
 	public static final String FIELD_PROJECT = "project";
 
-	public static final String[] SEARCH_FIELDS = { FIELD_DESCRIPTION, FIELD_NAME, FIELD_EXTID, FIELD_TYPE };
+	/** The variable of a CEG node */
+	public static final String FIELD_VARIABLE = "variable";
+
+	/** The condition of a CEG node */
+	public static final String FIELD_CONDITION = "condition";
+
+	/** Indexed only, the actions and expected outcomes of the steps of a test procedure */
+	public static final String FIELD_STEPS = "steps";
+
+	/** Indexed only, the prefixes of the words of the name */
+	public static final String FIELD_NAME_PREFIX = "name_prefix";
+
+	/** Indexed only, the prefixes of the external id */
+	public static final String FIELD_EXTID_PREFIX = "extId_prefix";
+
+	/** The maximal length of an indexed prefix, longer prefixes are truncated */
+	public static final int MAX_PREFIX_LENGTH = 20;
+
+	/** The language the text fields of the object were analyzed for */
+	public static final String FIELD_LANGUAGE = "language";
+
+	public static final String LANGUAGE_DE = "de";
+
+	public static final String LANGUAGE_EN = "en";
+
+	/** The languages with own analysis of the text fields */
+	public static final String[] LANGUAGES = { LANGUAGE_DE, LANGUAGE_EN };
+
+	/**
+	 * The text fields that are additionally indexed with the analyzer for the
+	 * language of the object
+	 */
+	public static final String[] LANGUAGE_FIELDS = { FIELD_NAME, FIELD_DESCRIPTION, FIELD_CONDITION, FIELD_STEPS };
+
+	/**
+	 * Factor of the boost of a language field relative to its plain field, such
+	 * that exact matches rank above matches of stems or parts of words
+	 */
+	private static final float LANGUAGE_FIELD_BOOST = 0.5f;
+
+	/** Stored only, the url of the object */
+	public static final String FIELD_URL = "url";
+
+	/** Stored only, the name of the class of the object */
+	public static final String FIELD_CLASS_NAME = "className";
+
+	/**
+	 * Stored only, the revision of the object the document was built from. An
+	 * incremental reindex updates the documents whose revision differs from
+	 * the one of the object.
+	 */
+	public static final String FIELD_REVISION = "revision";
+
+	/**
+	 * Version of the fields and their analysis. It is part of the revisions,
+	 * such that a change of the index format updates all documents on the next
+	 * incremental reindex.
+	 */
+	public static final int INDEX_FORMAT = 2;
+
+	/** The stored fields needed to compare the index with the model */
+	public static final Set<String> REVISION_FIELDS = new HashSet<>(
+			Arrays.asList(FIELD_ID, FIELD_REVISION, FIELD_PROJECT));
+
+	public static final String[] SEARCH_FIELDS;
+
+	/**
+	 * Boosts of matches in the search fields, relative to matches in the
+	 * description. Fields without boost have a boost of 1.
+	 */
+	public static final Map<String, Float> SEARCH_FIELD_BOOSTS;
+
+	static {
+		Map<String, Float> boosts = new HashMap<>();
+		boosts.put(FIELD_NAME, 3f);
+		boosts.put(FIELD_EXTID, 3f);
+		boosts.put(FIELD_VARIABLE, 2f);
+		boosts.put(FIELD_CONDITION, 1.5f);
+		boosts.put(FIELD_STEPS, 0.5f);
+
+		List<String> fields = new ArrayList<>(Arrays.asList(FIELD_DESCRIPTION, FIELD_NAME, FIELD_EXTID, FIELD_TYPE,
+				FIELD_VARIABLE, FIELD_CONDITION, FIELD_STEPS));
+		for (String field : LANGUAGE_FIELDS) {
+			for (String language : LANGUAGES) {
+				String languageField = getLanguageField(field, language);
+				fields.add(languageField);
+				boosts.put(languageField, boosts.getOrDefault(field, 1f) * LANGUAGE_FIELD_BOOST);
+			}
+		}
+		SEARCH_FIELDS = fields.toArray(new String[fields.size()]);
+		SEARCH_FIELD_BOOSTS = Collections.unmodifiableMap(boosts);
+	}
+
+	/** Returns the name of the field with the text of a field analyzed for the given language */
+	public static String getLanguageField(String field, String language) {
+		return field + "_" + language;
+	}
+
+	/**
+	 * The fields matched with a bounded edit distance by a fuzzy search. Their
+	 * boosts are the ones of {@link #SEARCH_FIELD_BOOSTS}.
+	 */
+	public static final String[] FUZZY_FIELDS = { FIELD_NAME, FIELD_EXTID, FIELD_DESCRIPTION, FIELD_VARIABLE,
+			FIELD_CONDITION, FIELD_STEPS };
+
+	/**
+	 * Returns the field with the prefixes of the given field, or null if its
+	 * prefixes are not indexed
+	 */
+	public static String getPrefixField(String field) {
+		switch (field) {
+		case FIELD_NAME:
+			return FIELD_NAME_PREFIX;
+		case FIELD_EXTID:
+			return FIELD_EXTID_PREFIX;
+		default:
+			return null;
+		}
+	}
+
+	/** The stored fields needed to build a search hit */
+	public static final Set<String> HIT_FIELDS = new HashSet<>(Arrays.asList(FIELD_ID, FIELD_URL, FIELD_NAME,
+			FIELD_CLASS_NAME, FIELD_TYPE, FIELD_PROJECT, FIELD_DESCRIPTION));
 
 }
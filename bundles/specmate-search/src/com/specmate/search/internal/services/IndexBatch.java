@@ -0,0 +1,38 @@
+package com.specmate.search.internal.services;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.lucene.document.Document;
+
+/**
+ * The document changes of the operations of one batch of the indexing queue,
+ * which are written in one pass per partition
+ */
+public class IndexBatch {
+
+	private final Map<IndexPartition, Map<String, Document>> changes = new LinkedHashMap<>();
+
+	/** Adds or replaces the document of the object with the given id */
+	public void update(IndexPartition partition, String id, Document document) {
+		changes.computeIfAbsent(partition, key -> new LinkedHashMap<>()).put(id, document);
+	}
+
+	/** Deletes the document of the object with the given id */
+	public void delete(IndexPartition partition, String id) {
+		update(partition, id, null);
+	}
+
+	/** Writes the changes added so far */
+	public void write() throws IOException {
+		try {
+			for (Entry<IndexPartition, Map<String, Document>> partitionChanges : changes.entrySet()) {
+				partitionChanges.getKey().updateDocuments(partitionChanges.getValue());
+			}
+		} finally {
+			changes.clear();
+		}
+	}
+}
@@ -0,0 +1,181 @@
+package com.specmate.search.internal.services;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.util.Bits;
+import org.eclipse.emf.cdo.CDOObject;
+import org.eclipse.emf.cdo.common.revision.CDORevision;
+import org.eclipse.emf.cdo.util.CDOUtil;
+import org.eclipse.emf.ecore.EObject;
+import org.osgi.service.log.LogService;
+
+import com.specmate.model.support.util.SpecmateEcoreUtil;
+import com.specmate.model.testspecification.TestProcedure;
+import com.specmate.model.testspecification.TestStep;
+
+/**
+ * Compares the documents of the search index with the model objects by their
+ * revisions. Reindexes and consistency checks receive the differences through
+ * a {@link DifferenceHandler}.
+ */
+public class IndexComparator {
+
+	private final LuceneBasedModelSearchService searchService;
+
+	private final LogService logService;
+
+	public IndexComparator(LuceneBasedModelSearchService searchService, LogService logService) {
+		this.searchService = searchService;
+		this.logService = logService;
+	}
+
+	/**
+	 * Compares the documents of the index with the model objects of the given
+	 * project, or of all projects if it is null, and passes the differences to
+	 * the given handler.
+	 *
+	 * @param force
+	 *            Whether documents are stale regardless of their revision
+	 * @return Whether the comparison is complete, false if it was interrupted
+	 *         before the orphaned documents were known
+	 */
+	public boolean compare(String project, boolean force, DifferenceHandler handler) throws IOException {
+		Collection<IndexPartition> checkedPartitions = project != null
+				? Collections.singleton(searchService.getPartition(project))
+				: searchService.openAllPartitions();
+		Map<IndexPartition, Map<String, IndexedDocument>> documents = new HashMap<>();
+		for (IndexPartition partition : checkedPartitions) {
+			documents.put(partition, partition.withSearcher(isearcher -> readDocuments(isearcher, project)));
+		}
+		Iterator<EObject> iterator = searchService.getContents(project);
+		while (iterator.hasNext() && !Thread.currentThread().isInterrupted()) {
+			EObject next = iterator.next();
+			if (!searchService.isIndexed(next)) {
+				continue;
+			}
+			String id = SpecmateEcoreUtil.getUniqueId(next);
+			if (id == null) {
+				logService.log(LogService.LOG_ERROR, "Could not reindex object.");
+				continue;
+			}
+			String objectProject = SpecmateEcoreUtil.getProjectId(next);
+			IndexPartition partition = searchService.getPartition(objectProject);
+			if (partition == null) {
+				continue;
+			}
+			Map<String, IndexedDocument> partitionDocuments = documents.get(partition);
+			IndexedDocument document = partitionDocuments != null ? partitionDocuments.remove(id) : null;
+			if (document == null) {
+				handler.missing(id, next, objectProject);
+			} else if (force || !getRevision(next).equals(document.revision)) {
+				handler.stale(id, next, objectProject);
+			}
+			handler.checked(objectProject);
+		}
+		if (Thread.currentThread().isInterrupted()) {
+			// Without the complete model, the orphans are unknown
+			return false;
+		}
+		// The remaining documents were not found in the model
+		for (Entry<IndexPartition, Map<String, IndexedDocument>> entry : documents.entrySet()) {
+			IndexPartition partition = entry.getKey();
+			for (Entry<String, IndexedDocument> document : entry.getValue().entrySet()) {
+				String id = document.getKey();
+				EObject object = searchService.findObject(id);
+				if (object == null || !searchService.isIndexed(object)
+						|| searchService.getPartition(SpecmateEcoreUtil.getProjectId(object)) != partition) {
+					handler.orphaned(partition, id, document.getValue().project);
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the ids, revisions and projects of all documents of the index, or
+	 * of the documents of the given project unless it is null
+	 */
+	public static Map<String, IndexedDocument> readDocuments(IndexSearcher isearcher, String project)
+			throws IOException {
+		IndexReader reader = isearcher.getIndexReader();
+		Bits liveDocs = MultiFields.getLiveDocs(reader);
+		Map<String, IndexedDocument> documents = new HashMap<>();
+		for (int i = 0; i < reader.maxDoc(); i++) {
+			if (liveDocs != null && !liveDocs.get(i)) {
+				continue;
+			}
+			Document doc = reader.document(i, FieldConstants.REVISION_FIELDS);
+			String documentProject = doc.get(FieldConstants.FIELD_PROJECT);
+			if (project != null && !project.equals(documentProject)) {
+				continue;
+			}
+			String revision = doc.get(FieldConstants.FIELD_REVISION);
+			// Documents indexed before revisions were stored have no revision
+			documents.put(doc.get(FieldConstants.FIELD_ID),
+					new IndexedDocument(revision != null ? revision : "", documentProject));
+		}
+		return documents;
+	}
+
+	/**
+	 * Returns the revision of the indexed content of an object: the index
+	 * format, the CDO version of the object and, for a test procedure, the ids
+	 * and versions of its steps, whose text is part of its document.
+	 */
+	public static String getRevision(EObject object) {
+		StringBuilder revision = new StringBuilder();
+		revision.append(FieldConstants.INDEX_FORMAT).append(':').append(getVersion(object));
+		if (object instanceof TestProcedure) {
+			for (TestStep step : SpecmateEcoreUtil.getStepsSorted((TestProcedure) object)) {
+				revision.append(',').append(CDOUtil.getCDOObject(step).cdoID()).append('@').append(getVersion(step));
+			}
+		}
+		return revision.toString();
+	}
+
+	/** Returns the CDO version of an object, 0 if it has no revision */
+	private static int getVersion(EObject object) {
+		CDOObject cdoObject = CDOUtil.getCDOObject(object);
+		CDORevision revision = cdoObject.cdoRevision();
+		return revision != null ? revision.getVersion() : 0;
+	}
+
+	/** Receives the differences between the index and the model */
+	public interface DifferenceHandler {
+
+		/** An indexed object without document */
+		void missing(String id, EObject object, String project) throws IOException;
+
+		/** An indexed object whose document has another revision */
+		void stale(String id, EObject object, String project) throws IOException;
+
+		/** A document whose object does not exist or belongs to another partition */
+		void orphaned(IndexPartition partition, String id, String project) throws IOException;
+
+		/** Called for each compared object, after the differences of the object */
+		void checked(String project) throws IOException;
+	}
+
+	/** The revision and project of a document of the index */
+	public static class IndexedDocument {
+
+		private final String revision;
+
+		private final String project;
+
+		public IndexedDocument(String revision, String project) {
+			this.revision = revision;
+			this.project = project;
+		}
+	}
+}
@@ -0,0 +1,13 @@
+package com.specmate.search.internal.services;
+
+import java.io.IOException;
+
+/** An operation on the index for a single object */
+@FunctionalInterface
+public interface IndexOperation {
+	/**
+	 * Applies the operation. Document changes are added to the given batch,
+	 * other changes of the index have to write the batch first.
+	 */
+	void apply(IndexBatch batch) throws IOException;
+}
@@ -0,0 +1,611 @@
+package com.specmate.search.internal.services;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.ControlledRealTimeReopenThread;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ReferenceManager.RefreshListener;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.osgi.service.log.LogService;
+
+import com.specmate.metrics.IGauge;
+
+/**
+ * A lucene index with the documents of one project, or of all projects if the
+ * index is not partitioned by project.
+ *
+ * Changes become visible to searches when a thread refreshes the searcher. The
+ * index can be replaced by an index that was rebuilt in a directory next to
+ * it. The file <code>current</code> in the location of the partition names the
+ * directory of the current index, such that the swap is atomic. Without it,
+ * the index is in the location itself.
+ *
+ * An index that is not used for a while can be closed, which stops its
+ * refresh thread. It is opened again on its next use.
+ */
+public class IndexPartition {
+
+	/** File in the location with the name of the directory of the current index */
+	private static final String CURRENT_INDEX_FILE = "current";
+
+	/** Prefix of the directories of rebuilt indexes */
+	private static final String INDEX_DIRECTORY_PREFIX = "index-";
+
+	/** The project of the partition, null if it is shared by all projects */
+	private final String project;
+
+	/** The directory with the indexes of the partition */
+	private final Path location;
+
+	private final Analyzer analyzer;
+
+	/** Maximal time in ms until a change is visible to searches */
+	private final int refreshMaxStale;
+
+	/** Minimal time in ms between refreshes when waiting for a change */
+	private final int refreshMinStale;
+
+	/** Gauge for the time until an indexed change was visible to searches, or null */
+	private final IGauge stalenessGauge;
+
+	private final LogService logService;
+
+	/** The path of the current index */
+	private Path indexPath;
+
+	/** The lucene directory. */
+	private volatile Directory directory;
+
+	/** Index writer to modify the lucene database */
+	private volatile IndexWriter indexWriter;
+
+	/** Search manager to perform searches on the lucene database. */
+	private volatile SearcherManager searcherManager;
+
+	/** Thread that refreshes the searcher to make changes visible */
+	private volatile ControlledRealTimeReopenThread<IndexSearcher> reopenThread;
+
+	/** Sequence number of the latest change of the index */
+	private AtomicLong lastGeneration = new AtomicLong(-1);
+
+	/** Time of the oldest change not yet visible to searches, 0 if none */
+	private AtomicLong unrefreshedSince = new AtomicLong(0);
+
+	/**
+	 * Ids of the objects whose documents changed while the index is rebuilt.
+	 * They are indexed again after the swap to the rebuilt index.
+	 */
+	private Set<String> rebuildChanges = ConcurrentHashMap.newKeySet();
+
+	/** Flag to signal if changes are recorded for a rebuild */
+	private volatile boolean isRecordingChanges = false;
+
+	/** Held while a batch is written and while the searcher is refreshed */
+	private final ReentrantLock batchLock = new ReentrantLock();
+
+	/** Read-locked while the index is used, write-locked to open or close it */
+	private final ReentrantReadWriteLock usageLock = new ReentrantReadWriteLock();
+
+	/** Whether the index was closed because it was idle */
+	private boolean isIdleClosed = false;
+
+	/** Time of the last search or change of the index */
+	private volatile long lastUsed = System.currentTimeMillis();
+
+	public IndexPartition(String project, Path location, Analyzer analyzer, int refreshMaxStale, int refreshMinStale,
+			IGauge stalenessGauge, LogService logService) {
+		this.project = project;
+		this.location = location;
+		this.analyzer = analyzer;
+		this.refreshMaxStale = refreshMaxStale;
+		this.refreshMinStale = refreshMinStale;
+		this.stalenessGauge = stalenessGauge;
+		this.logService = logService;
+	}
+
+	/** Opens the current index of the partition */
+	public void open() throws IOException {
+		this.indexPath = readCurrentIndexPath();
+		deleteStaleIndexes();
+		openIndex(indexPath);
+	}
+
+	/** Commits the pending changes and closes the index */
+	public void close() throws IOException {
+		usageLock.writeLock().lock();
+		try {
+			if (!isIdleClosed) {
+				closeIndex();
+			}
+		} finally {
+			usageLock.writeLock().unlock();
+		}
+	}
+
+	/** Closes the index without committing and deletes all its files */
+	public void delete() throws IOException {
+		usageLock.writeLock().lock();
+		try {
+			if (!isIdleClosed) {
+				reopenThread.close();
+				searcherManager.close();
+				indexWriter.rollback();
+				directory.close();
+			}
+			deleteIndex(location);
+		} finally {
+			usageLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Commits the pending changes and closes the index if it was not searched or
+	 * changed for the given time and it is not being rebuilt. Uses of the index
+	 * afterwards open it again.
+	 *
+	 * @return Whether the index is closed
+	 */
+	public boolean closeIfIdle(long idleTime) throws IOException {
+		if (isRecordingChanges || System.currentTimeMillis() - lastUsed < idleTime) {
+			return false;
+		}
+		if (!usageLock.writeLock().tryLock()) {
+			return false;
+		}
+		try {
+			if (!isIdleClosed) {
+				closeIndex();
+				isIdleClosed = true;
+				logService.log(LogService.LOG_DEBUG, "Closed idle search index " + location + ".");
+			}
+			return true;
+		} finally {
+			usageLock.writeLock().unlock();
+		}
+	}
+
+	/** Whether the index is open, i.e. it was not closed because it was idle */
+	public boolean isOpen() {
+		usageLock.readLock().lock();
+		try {
+			return !isIdleClosed;
+		} finally {
+			usageLock.readLock().unlock();
+		}
+	}
+
+	/** The project of the partition, null if it is shared by all projects */
+	public String getProject() {
+		return project;
+	}
+
+	/**
+	 * Replaces the documents of the given objects in one writer pass, deleting
+	 * the documents of the objects mapped to null. Refreshes wait until the pass
+	 * is complete, such that searches never see an object without its
+	 * document.
+	 */
+	public void updateDocuments(Map<String, Document> documents) throws IOException {
+		if (documents.isEmpty()) {
+			return;
+		}
+		Term[] terms = new Term[documents.size()];
+		List<Document> added = new ArrayList<>(documents.size());
+		int i = 0;
+		for (Map.Entry<String, Document> document : documents.entrySet()) {
+			recordChange(document.getKey());
+			terms[i++] = new Term(FieldConstants.FIELD_ID, document.getKey());
+			if (document.getValue() != null) {
+				added.add(document.getValue());
+			}
+		}
+		acquireIndex(true);
+		batchLock.lock();
+		try {
+			long generation = indexWriter.deleteDocuments(terms);
+			if (!added.isEmpty()) {
+				generation = indexWriter.addDocuments(added);
+			}
+			changed(generation);
+		} finally {
+			batchLock.unlock();
+			releaseIndex();
+		}
+	}
+
+	/** Deletes the documents of the objects with the given ids */
+	public void deleteDocuments(String... ids) throws IOException {
+		Term[] terms = new Term[ids.length];
+		for (int i = 0; i < ids.length; i++) {
+			recordChange(ids[i]);
+			terms[i] = new Term(FieldConstants.FIELD_ID, ids[i]);
+		}
+		acquireIndex(true);
+		try {
+			changed(indexWriter.deleteDocuments(terms));
+		} finally {
+			releaseIndex();
+		}
+	}
+
+	/** Deletes all documents */
+	public void deleteAll() throws IOException {
+		acquireIndex(true);
+		try {
+			changed(indexWriter.deleteAll());
+		} finally {
+			releaseIndex();
+		}
+	}
+
+	/** Makes the changes durable, a closed index has no pending changes */
+	public void commit() throws IOException {
+		usageLock.readLock().lock();
+		try {
+			if (!isIdleClosed && indexWriter.hasUncommittedChanges()) {
+				indexWriter.commit();
+			}
+		} catch (AlreadyClosedException e) {
+			// The index was swapped with a rebuilt index, which is committed
+			// on its own
+		} finally {
+			usageLock.readLock().unlock();
+		}
+	}
+
+	/** Runs the given function with an index searcher */
+	public <T> T withSearcher(SearcherFunction<T> function) throws IOException {
+		return withSearcher(function, true);
+	}
+
+	/**
+	 * Runs the given function with an index searcher, the search only counts as
+	 * use of the index if <code>use</code> is set
+	 */
+	private <T> T withSearcher(SearcherFunction<T> function, boolean use) throws IOException {
+		acquireIndex(use);
+		try {
+			return search(function);
+		} finally {
+			releaseIndex();
+		}
+	}
+
+	private <T> T search(SearcherFunction<T> function) throws IOException {
+		SearcherManager manager = searcherManager;
+		IndexSearcher isearcher;
+		try {
+			isearcher = manager.acquire();
+		} catch (AlreadyClosedException e) {
+			// The index was swapped with a rebuilt index meanwhile
+			manager = searcherManager;
+			isearcher = manager.acquire();
+		}
+		try {
+			return function.apply(isearcher);
+		} finally {
+			try {
+				manager.release(isearcher);
+			} catch (IOException e) {
+				logService.log(LogService.LOG_ERROR, "Error while releasing lucene searcher.", e);
+			}
+		}
+	}
+
+	/**
+	 * Waits until the changes made so far are visible to searches, which
+	 * refreshes the searcher without waiting for the regular refresh interval
+	 */
+	public void awaitSearchable() throws InterruptedException {
+		long generation = lastGeneration.get();
+		if (generation < 0) {
+			return;
+		}
+		usageLock.readLock().lock();
+		try {
+			// Closing the index made all changes visible
+			if (!isIdleClosed) {
+				reopenThread.waitForGeneration(generation, refreshMaxStale);
+			}
+		} finally {
+			usageLock.readLock().unlock();
+		}
+	}
+
+	/** Returns the number of documents visible to searches */
+	public int getNumDocs() throws IOException {
+		return withSearcher(isearcher -> isearcher.getIndexReader().numDocs(), false);
+	}
+
+	/** Returns the size of the files of the partition in bytes */
+	public long getSizeInBytes() throws IOException {
+		try (Stream<Path> files = Files.walk(location)) {
+			long size = 0;
+			for (Path file : (Iterable<Path>) files::iterator) {
+				if (Files.isRegularFile(file)) {
+					size += Files.size(file);
+				}
+			}
+			return size;
+		}
+	}
+
+	/**
+	 * Starts recording the changes for a rebuild and returns the directory to
+	 * build the new index in
+	 */
+	public Path startRebuild() {
+		rebuildChanges.clear();
+		isRecordingChanges = true;
+		return location.resolve(INDEX_DIRECTORY_PREFIX + System.currentTimeMillis());
+	}
+
+	/** Opens a writer to build a new index in the given directory */
+	public IndexWriter openRebuildWriter(Directory rebuildDirectory) throws IOException {
+		return new IndexWriter(rebuildDirectory, new IndexWriterConfig(analyzer));
+	}
+
+	/** Stops recording changes and deletes the incomplete rebuilt index */
+	public void cancelRebuild() {
+		isRecordingChanges = false;
+		rebuildChanges.clear();
+		deleteStaleIndexes();
+	}
+
+	/**
+	 * Replaces the current index with the rebuilt index in the given directory.
+	 * Must not run concurrently with changes of the index. Searches that
+	 * started before the swap complete on the previous index.
+	 *
+	 * @return The ids of the objects whose documents changed during the
+	 *         rebuild, which have to be indexed again
+	 */
+	public Set<String> swap(Path rebuiltPath) throws IOException {
+		acquireIndex(true);
+		try {
+			return swapIndex(rebuiltPath);
+		} finally {
+			releaseIndex();
+		}
+	}
+
+	private Set<String> swapIndex(Path rebuiltPath) throws IOException {
+		Directory previousDirectory = directory;
+		IndexWriter previousWriter = indexWriter;
+		SearcherManager previousSearcherManager = searcherManager;
+		ControlledRealTimeReopenThread<IndexSearcher> previousReopenThread = reopenThread;
+
+		try {
+			writeCurrentIndexPath(rebuiltPath);
+			openIndex(rebuiltPath);
+		} finally {
+			isRecordingChanges = false;
+		}
+		indexPath = rebuiltPath;
+		lastGeneration.set(-1);
+		unrefreshedSince.set(0);
+
+		previousReopenThread.close();
+		previousSearcherManager.close();
+		// The changes since the last commit are indexed again
+		previousWriter.rollback();
+		previousDirectory.close();
+		deleteStaleIndexes();
+
+		Set<String> changes = new HashSet<>(rebuildChanges);
+		rebuildChanges.clear();
+		logService.log(LogService.LOG_INFO, "Swapped search index with rebuilt index " + rebuiltPath + ".");
+		return changes;
+	}
+
+	/**
+	 * Takes the read lock for a use of the index, opening the index again if it
+	 * was closed because it was idle
+	 */
+	private void acquireIndex(boolean use) throws IOException {
+		if (use) {
+			lastUsed = System.currentTimeMillis();
+		}
+		usageLock.readLock().lock();
+		if (!isIdleClosed) {
+			return;
+		}
+		usageLock.readLock().unlock();
+		usageLock.writeLock().lock();
+		try {
+			if (isIdleClosed) {
+				openIndex(indexPath);
+				lastGeneration.set(-1);
+				isIdleClosed = false;
+			}
+			// Downgrade to the read lock, such that the index is not closed before it is used
+			usageLock.readLock().lock();
+		} finally {
+			usageLock.writeLock().unlock();
+		}
+	}
+
+	private void releaseIndex() {
+		usageLock.readLock().unlock();
+	}
+
+	/** Closes the components of the open index, committing its changes */
+	private void closeIndex() throws IOException {
+		reopenThread.close();
+		searcherManager.close();
+		indexWriter.close();
+		directory.close();
+	}
+
+	/** Opens the index in the given directory, replacing the index opened before */
+	private void openIndex(Path path) throws IOException {
+		Directory directory = FSDirectory.open(path);
+		IndexWriterConfig config = new IndexWriterConfig(analyzer);
+		IndexWriter indexWriter = new IndexWriter(directory, config);
+		SearcherManager searcherManager = new SearcherManager(indexWriter, true, true, null);
+		searcherManager.addListener(new BatchListener());
+		searcherManager.addListener(new StalenessListener());
+		ControlledRealTimeReopenThread<IndexSearcher> reopenThread = new ControlledRealTimeReopenThread<>(indexWriter,
+				searcherManager, refreshMaxStale / 1000.0, refreshMinStale / 1000.0);
+		reopenThread.setName("Search index refresh" + (project != null ? " " + project : ""));
+		reopenThread.setDaemon(true);
+		reopenThread.start();
+		this.directory = directory;
+		this.indexWriter = indexWriter;
+		this.searcherManager = searcherManager;
+		this.reopenThread = reopenThread;
+	}
+
+	/** Returns the path of the current index */
+	private Path readCurrentIndexPath() throws IOException {
+		Path current = location.resolve(CURRENT_INDEX_FILE);
+		if (!Files.exists(current)) {
+			return location;
+		}
+		String name = new String(Files.readAllBytes(current), StandardCharsets.UTF_8).trim();
+		return location.resolve(name);
+	}
+
+	/** Makes the index in the given directory the current index, atomically */
+	private void writeCurrentIndexPath(Path path) throws IOException {
+		Path temp = location.resolve(CURRENT_INDEX_FILE + ".tmp");
+		Files.write(temp, path.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+		Files.move(temp, location.resolve(CURRENT_INDEX_FILE), StandardCopyOption.ATOMIC_MOVE,
+				StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Deletes the indexes in the location other than the current index, i.e.
+	 * the previous index after a swap or an incomplete rebuild. Files that are
+	 * still in use are deleted on the next start. Other files in the location
+	 * are kept.
+	 */
+	private void deleteStaleIndexes() {
+		if (!Files.isDirectory(location)) {
+			return;
+		}
+		try (DirectoryStream<Path> entries = Files.newDirectoryStream(location)) {
+			for (Path entry : entries) {
+				String name = entry.getFileName().toString();
+				try {
+					if (Files.isDirectory(entry) && name.startsWith(INDEX_DIRECTORY_PREFIX)
+							&& !entry.equals(indexPath)) {
+						deleteIndex(entry);
+					} else if (Files.isRegularFile(entry) && isIndexFile(name) && !location.equals(indexPath)) {
+						// A file of the index in the location itself, which was
+						// replaced by a rebuilt index
+						Files.delete(entry);
+					}
+				} catch (IOException e) {
+					logService.log(LogService.LOG_WARNING, "Could not delete stale search index file: " + entry, e);
+				}
+			}
+		} catch (IOException e) {
+			logService.log(LogService.LOG_WARNING, "Could not delete stale search indexes.", e);
+		}
+	}
+
+	/** Returns whether the file name is one of the names Lucene gives index files */
+	/* package */static boolean isIndexFile(String name) {
+		return name.startsWith(IndexFileNames.SEGMENTS) || name.startsWith(IndexFileNames.PENDING_SEGMENTS)
+				|| name.equals(IndexWriter.WRITE_LOCK_NAME)
+				|| IndexFileNames.CODEC_FILE_PATTERN.matcher(name).matches();
+	}
+
+	/** Deletes the given directory with its contents */
+	private static void deleteIndex(Path path) throws IOException {
+		try (Stream<Path> files = Files.walk(path)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	private void recordChange(String id) {
+		if (isRecordingChanges) {
+			rebuildChanges.add(id);
+		}
+	}
+
+	/**
+	 * Records a change of the index with the given sequence number, such that it
+	 * can be awaited and its staleness be measured
+	 */
+	private void changed(long generation) {
+		if (generation < 0) {
+			return;
+		}
+		lastGeneration.accumulateAndGet(generation, Math::max);
+		unrefreshedSince.compareAndSet(0, System.currentTimeMillis());
+	}
+
+	/** A function evaluated with an index searcher */
+	@FunctionalInterface
+	public interface SearcherFunction<T> {
+		T apply(IndexSearcher isearcher) throws IOException;
+	}
+
+	/** Lets a refresh wait for the batch being written, such that it is not split */
+	private class BatchListener implements RefreshListener {
+
+		@Override
+		public void beforeRefresh() {
+			batchLock.lock();
+		}
+
+		@Override
+		public void afterRefresh(boolean didRefresh) {
+			batchLock.unlock();
+		}
+	}
+
+	/** Measures how long the changes of a refresh were not visible */
+	private class StalenessListener implements RefreshListener {
+
+		/** Time of the oldest change that is made visible by the running refresh */
+		private long refreshing;
+
+		@Override
+		public void beforeRefresh() {
+			refreshing = unrefreshedSince.getAndSet(0);
+		}
+
+		@Override
+		public void afterRefresh(boolean didRefresh) {
+			if (refreshing == 0) {
+				return;
+			}
+			if (!didRefresh) {
+				unrefreshedSince.compareAndSet(0, refreshing);
+			} else if (stalenessGauge != null) {
+				stalenessGauge.set((System.currentTimeMillis() - refreshing) / 1000.0);
+			}
+			refreshing = 0;
+		}
+	}
+}
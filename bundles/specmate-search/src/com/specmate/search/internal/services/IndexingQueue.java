@@ -0,0 +1,182 @@
+package com.specmate.search.internal.services;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded queue of pending index operations, keyed by the id of the object
+ * they refer to.
+ *
+ * A new operation for an object that is already waiting replaces the waiting
+ * operation, such that a burst of changes to the same object is indexed only
+ * once. If the queue is full, {@link #put} blocks until the indexer has taken
+ * a batch from the queue, while {@link #offer} rejects the operation.
+ */
+public class IndexingQueue<V> {
+
+	/** A pending operation together with the time it was first enqueued */
+	public static class Entry<V> {
+		private final String key;
+		private V value;
+		private final long enqueued;
+
+		private Entry(String key, V value, long enqueued) {
+			this.key = key;
+			this.value = value;
+			this.enqueued = enqueued;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		public V getValue() {
+			return value;
+		}
+
+		/** The time in ms when the oldest change merged into this entry was enqueued */
+		public long getEnqueued() {
+			return enqueued;
+		}
+	}
+
+	private final int capacity;
+
+	private final LinkedHashMap<String, Entry<V>> pending = new LinkedHashMap<>();
+
+	/** Number of entries taken but not yet reported as done */
+	private int inFlight;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notFull = lock.newCondition();
+	private final Condition notEmpty = lock.newCondition();
+	private final Condition idle = lock.newCondition();
+
+	public IndexingQueue(int capacity) {
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Adds an operation for the given key, replacing a waiting operation for the
+	 * same key. Blocks while the queue is full.
+	 */
+	public void put(String key, V value) throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			Entry<V> entry = pending.get(key);
+			if (entry != null) {
+				entry.value = value;
+				return;
+			}
+			while (pending.size() >= capacity) {
+				notFull.await();
+			}
+			pending.put(key, new Entry<>(key, value, System.currentTimeMillis()));
+			notEmpty.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Adds an operation for the given key, replacing a waiting operation for the
+	 * same key. Never blocks.
+	 *
+	 * @return Whether the operation was added, false if the queue is full
+	 */
+	public boolean offer(String key, V value) {
+		lock.lock();
+		try {
+			Entry<V> entry = pending.get(key);
+			if (entry != null) {
+				entry.value = value;
+				return true;
+			}
+			if (pending.size() >= capacity) {
+				return false;
+			}
+			pending.put(key, new Entry<>(key, value, System.currentTimeMillis()));
+			notEmpty.signal();
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Removes up to the given number of the oldest entries, waiting until at
+	 * least one entry is available. The caller has to call {@link #done()} once
+	 * the entries are processed.
+	 */
+	public List<Entry<V>> take(int max) throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			while (pending.isEmpty()) {
+				notEmpty.await();
+			}
+			List<Entry<V>> batch = new ArrayList<>(Math.min(max, pending.size()));
+			Iterator<Entry<V>> iterator = pending.values().iterator();
+			while (iterator.hasNext() && batch.size() < max) {
+				batch.add(iterator.next());
+				iterator.remove();
+			}
+			inFlight += batch.size();
+			notFull.signalAll();
+			return batch;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/** Reports that the entries of the last batch have been processed */
+	public void done() {
+		lock.lock();
+		try {
+			inFlight = 0;
+			if (pending.isEmpty()) {
+				idle.signalAll();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/** Waits until all enqueued operations have been processed */
+	public void awaitIdle() throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			while (!pending.isEmpty() || inFlight > 0) {
+				idle.await();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/** Returns the number of waiting operations */
+	public int size() {
+		lock.lock();
+		try {
+			return pending.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/** Returns the time in ms the oldest waiting operation has been waiting */
+	public long getOldestAge() {
+		lock.lock();
+		try {
+			if (pending.isEmpty()) {
+				return 0;
+			}
+			return System.currentTimeMillis() - pending.values().iterator().next().enqueued;
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package com.specmate.search.internal.services;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.de.GermanAnalyzer;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+
+/**
+ * Guesses whether a text is German or English.
+ *
+ * Stop words make up a large part of any running text, hence the language
+ * with more stop words in the text wins. Words with umlauts or sharp s count
+ * as German. Short texts without stop words, such as names, get the default
+ * language.
+ */
+public class LanguageDetector {
+
+	private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}]+");
+
+	private static final Pattern GERMAN_LETTERS = Pattern.compile(".*[äöüß].*");
+
+	private final String defaultLanguage;
+
+	private final CharArraySet germanStopWords = GermanAnalyzer.getDefaultStopSet();
+
+	private final CharArraySet englishStopWords = EnglishAnalyzer.getDefaultStopSet();
+
+	public LanguageDetector(String defaultLanguage) {
+		this.defaultLanguage = defaultLanguage;
+	}
+
+	/** Returns the language of the text */
+	public String detect(String text) {
+		if (text == null || text.isEmpty()) {
+			return defaultLanguage;
+		}
+		int german = 0;
+		int english = 0;
+		for (String word : WORD_SEPARATOR.split(text.toLowerCase(Locale.GERMAN))) {
+			if (word.isEmpty()) {
+				continue;
+			}
+			if (germanStopWords.contains(word) || GERMAN_LETTERS.matcher(word).matches()) {
+				german++;
+			}
+			if (englishStopWords.contains(word)) {
+				english++;
+			}
+		}
+		if (german > english) {
+			return FieldConstants.LANGUAGE_DE;
+		}
+		if (english > german) {
+			return FieldConstants.LANGUAGE_EN;
+		}
+		return defaultLanguage;
+	}
+}
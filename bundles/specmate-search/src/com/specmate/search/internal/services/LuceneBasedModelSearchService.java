@@ -1,53 +1,76 @@
 package com.specmate.search.internal.services;
 
+import static com.specmate.search.config.LuceneBasedSearchServiceConfig.KEY_COMPOUND_DICTIONARY_DE;
+import static com.specmate.search.config.LuceneBasedSearchServiceConfig.KEY_DEFAULT_LANGUAGE;
 import static com.specmate.search.config.LuceneBasedSearchServiceConfig.KEY_LUCENE_DB_LOCATION;
 import static com.specmate.search.config.LuceneBasedSearchServiceConfig.KEY_MAX_SEARCH_RESULTS;
+import static com.specmate.search.config.LuceneBasedSearchServiceConfig.KEY_PARTITION_BY_PROJECT;
+import static com.specmate.search.config.LuceneBasedSearchServiceConfig.KEY_QUEUE_BATCH_SIZE;
+import static com.specmate.search.config.LuceneBasedSearchServiceConfig.KEY_QUEUE_CAPACITY;
+import static com.specmate.search.config.LuceneBasedSearchServiceConfig.KEY_REFRESH_MAX_STALE;
+import static com.specmate.search.config.LuceneBasedSearchServiceConfig.KEY_REFRESH_MIN_STALE;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import javax.ws.rs.core.MultivaluedMap;
-import javax.ws.rs.core.Response;
-
-import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.document.Document;
-import org.apache.lucene.index.IndexWriter;
-import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
 import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.queryparser.classic.QueryParser.Operator;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
-import org.apache.lucene.search.SearcherManager;
-import org.apache.lucene.store.Directory;
-import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.eclipse.emf.cdo.common.branch.CDOBranchVersion;
 import org.eclipse.emf.cdo.util.ObjectNotFoundException;
-import org.eclipse.emf.common.util.TreeIterator;
 import org.eclipse.emf.ecore.EAttribute;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EStructuralFeature;
-import org.eclipse.emf.ecore.resource.Resource;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.osgi.service.event.Event;
 import org.osgi.service.event.EventHandler;
 import org.osgi.service.log.LogService;
@@ -55,16 +78,27 @@ import org.osgi.service.log.LogService;
 import com.specmate.common.exception.SpecmateException;
 import com.specmate.common.exception.SpecmateInternalException;
 import com.specmate.common.exception.SpecmateValidationException;
-import com.specmate.emfrest.api.IRestService;
-import com.specmate.emfrest.api.RestServiceBase;
+import com.specmate.connectors.api.IProjectConfigService;
+import com.specmate.metrics.ICounter;
+import com.specmate.metrics.IGauge;
+import com.specmate.metrics.IMetricsService;
 import com.specmate.model.administration.ErrorCode;
+import com.specmate.model.base.BasePackage;
+import com.specmate.model.base.Folder;
 import com.specmate.model.support.util.SpecmateEcoreUtil;
+import com.specmate.model.testspecification.TestProcedure;
 import com.specmate.persistency.IPersistencyService;
 import com.specmate.persistency.IView;
 import com.specmate.persistency.event.ModelEvent;
-import com.specmate.rest.RestResult;
+import com.specmate.search.api.ConsistencyReport;
 import com.specmate.search.api.IModelSearchService;
+import com.specmate.search.api.ReindexProgress;
+import com.specmate.search.api.SearchMode;
+import com.specmate.search.api.SearchHit;
+import com.specmate.search.api.SearchPage;
 import com.specmate.search.config.LuceneBasedSearchServiceConfig;
+import com.specmate.search.internal.services.IndexPartition.SearcherFunction;
+import com.specmate.urihandler.IURIFactory;
 
 /**
  * Service that provides a search facility via Apache Lucene. It registers with
@@ -74,16 +108,74 @@ import com.specmate.search.config.LuceneBasedSearchServiceConfig;
  *
  */
 @Component(configurationPid = LuceneBasedSearchServiceConfig.PID, configurationPolicy = ConfigurationPolicy.REQUIRE, service = {
-		IModelSearchService.class, EventHandler.class, IRestService.class }, property = {
+		IModelSearchService.class, EventHandler.class }, property = {
 				"event.topics=com/specmate/model/notification", "event.topics=com/specmate/model/notification/*" })
-public class LuceneBasedModelSearchService extends RestServiceBase implements EventHandler, IModelSearchService {
+public class LuceneBasedModelSearchService implements EventHandler, IModelSearchService {
 
 	/** The name of the UserSession class */
 	private static final String USER_SESSION = "UserSession";
 
-	/** Time to wait in seconds before committing the changes to the index */
+	/**
+	 * Time to wait in seconds before committing the changes to the index. Commits
+	 * only make the index durable, changes become visible to searches when the
+	 * searcher is refreshed.
+	 */
 	private static final int COMMIT_RATE = 30;
 
+	/**
+	 * Time in ms after which the index of a project that was neither searched
+	 * nor changed is closed, which also stops its refresh thread
+	 */
+	private static final long PARTITION_IDLE_TIME = TimeUnit.MINUTES.toMillis(30);
+
+	/** Default maximal time in ms until a change is visible to searches */
+	private static final int DEFAULT_REFRESH_MAX_STALE = 1000;
+
+	/**
+	 * Default minimal time in ms between two refreshes when a caller waits for a
+	 * change to become visible
+	 */
+	private static final int DEFAULT_REFRESH_MIN_STALE = 50;
+
+	/** Default maximal number of objects waiting to be indexed */
+	private static final int DEFAULT_QUEUE_CAPACITY = 10000;
+
+	/** Default maximal number of objects indexed in one batch */
+	private static final int DEFAULT_QUEUE_BATCH_SIZE = 500;
+
+	/** Maximal length of the description snippet of a search hit */
+	private static final int SNIPPET_LENGTH = 200;
+
+	/** Milliseconds to wait for the view to show the changes of a batch */
+	private static final long VIEW_UPDATE_TIMEOUT = 10000;
+
+	/** Key of the deletion of the partition of a project in the indexing queue */
+	private static final String DELETE_PARTITION_KEY = "#delete";
+
+	/** Key of the index partition that is shared by all projects */
+	/* package */static final String SHARED_PARTITION = "";
+
+	/** Directory in the index location with the partitions of the projects */
+	private static final String PROJECTS_DIRECTORY = "projects";
+
+	/** The stored field needed to load the object of a search hit */
+	private static final Set<String> ID_FIELD = Collections.singleton(FieldConstants.FIELD_ID);
+
+	/** The stored field needed for a suggestion */
+	private static final Set<String> NAME_FIELD = Collections.singleton(FieldConstants.FIELD_NAME);
+
+	/** Number of matches searched per requested suggestion */
+	private static final int SUGGEST_MATCHES_PER_NAME = 3;
+
+	/** Number of leading characters of a word that a fuzzy match must not change */
+	private static final int FUZZY_PREFIX_LENGTH = 1;
+
+	/** Minimal length of a word that a fuzzy match may change at one position */
+	private static final int FUZZY_ONE_EDIT_LENGTH = 3;
+
+	/** Minimal length of a word that a fuzzy match may change at two positions */
+	private static final int FUZZY_TWO_EDITS_LENGTH = 6;
+
 	/** Pattern to extract to project name from an event topic */
 	Pattern pattern = Pattern.compile("com\\/specmate\\/model\\/notification\\/([^\\/]+)");
 
@@ -93,14 +185,23 @@ public class LuceneBasedModelSearchService extends RestServiceBase implements Ev
 	/** The view through which the model data is accessed. */
 	private IView view;
 
-	/** The lucene directory. */
-	private Directory directory;
+	/** Factory for the urls of model objects */
+	private IURIFactory uriFactory;
 
-	/** Index writer to modify the lucene database */
-	private IndexWriter indexWriter;
+	/** Whether each project has an own index partition */
+	private boolean partitionByProject;
 
-	/** Search manager to perform searches on the lucene database. */
-	private SearcherManager searcherManager;
+	/**
+	 * The opened index partitions by project, or the partition shared by all
+	 * projects. Partitions are opened on first use.
+	 */
+	private Map<String, IndexPartition> partitions = new ConcurrentHashMap<>();
+
+	/** Maximal time in ms until a change is visible to searches */
+	private int refreshMaxStale;
+
+	/** Minimal time in ms between refreshes when waiting for a change */
+	private int refreshMinStale;
 
 	/** Service for message logging. */
 	private LogService logService;
@@ -114,17 +215,66 @@ public class LuceneBasedModelSearchService extends RestServiceBase implements Ev
 	/** Maximum number of search results to return */
 	private int maxSearchResults;
 
-	/** The analyzer that is used. */
-	private StandardAnalyzer analyzer;
+	/** The analyzer that is used, per field and language. */
+	private Analyzer analyzer;
+
+	/** The analyzer that splits the queries of prefix and fuzzy searches into words */
+	private Analyzer queryAnalyzer;
+
+	/** The file with the parts of German compound words, or null for the built-in dictionary */
+	private String compoundDictionaryDe;
+
+	/** Detects the language of objects in projects without a configured language */
+	private LanguageDetector languageDetector;
+
+	/** The configured languages of the projects */
+	private Map<String, String> projectLanguages = new HashMap<>();
+
+	/** Pending index operations by the id of the object they refer to */
+	private IndexingQueue<IndexOperation> indexingQueue;
+
+	/** Maximal number of objects waiting to be indexed */
+	private int queueCapacity;
+
+	/** Maximal number of objects indexed in one batch */
+	private int queueBatchSize;
+
+	/** Executor for the thread that applies the pending index operations */
+	private ExecutorService indexThread;
+
+	/** Executor for the thread that traverses the model during a reindex or a consistency check */
+	private ExecutorService reindexThread;
 
-	/** Executor for the indexing jobs */
-	private ExecutorService indexThreadPool;
+	/** Runs the reindexes */
+	private Reindexer reindexer;
 
-	/** Flag to signal if a reindex is running. */
-	private AtomicBoolean isReindexRunning = new AtomicBoolean(false);
+	/** Runs the consistency checks */
+	private ConsistencyChecker consistencyChecker;
+
+	/** The metrics service */
+	private IMetricsService metricsService;
+
+	/** Gauge for the number of objects waiting to be indexed */
+	private IGauge queueDepthGauge;
+
+	/** Gauge for the time between a change and its indexing */
+	private IGauge indexingLagGauge;
+
+	/** Gauge for the time until an indexed change was visible to searches */
+	private IGauge stalenessGauge;
+
+	/** Counter for the model events dropped because the indexing queue was full */
+	private ICounter droppedEventsCounter;
 
 	/** List of classes included in the index */
-	private List<String> indexedClasses = Arrays.asList("Requirement", "CEGModel", "TestSpecification", "Process");
+	private List<String> indexedClasses = Arrays.asList("Requirement", "CEGModel", "CEGNode", "TestSpecification",
+			"TestProcedure", "Process");
+
+	/**
+	 * List of classes whose text is indexed with the document of their container
+	 * instead of an own document
+	 */
+	private List<String> containedClasses = Arrays.asList("TestStep");
 
 	/**
 	 * Flag to signal if this search service is enabled. Only if it is enabled it
@@ -140,38 +290,62 @@ public class LuceneBasedModelSearchService extends RestServiceBase implements Ev
 	@Activate
 	public void activate(Map<String, Object> properties) throws SpecmateException {
 		readConfig(properties);
-		this.view = persistencyService.openView();
+		this.view = persistencyService.openReadOnlyView();
 
 		try {
+			initMetrics();
 			initializeLucene();
 			startPeriodicCommitThread();
-			initIndexThreadPool();
+			initIndexThread();
 		} catch (IOException e) {
 			logService.log(LogService.LOG_ERROR, "Could not open index for full-text search.");
 		}
 	}
 
-	private void initIndexThreadPool() {
-		this.indexThreadPool = Executors.newFixedThreadPool(5);
+	private void initMetrics() throws SpecmateException {
+		if (metricsService != null) {
+			this.queueDepthGauge = metricsService.createGauge("search_queue_depth",
+					"Number of objects waiting to be indexed");
+			this.indexingLagGauge = metricsService.createGauge("search_indexing_lag_seconds",
+					"Time between the oldest change of the last indexed batch and its indexing");
+			this.stalenessGauge = metricsService.createGauge("search_max_staleness_seconds",
+					"Time the oldest change of the last searcher refresh was not visible to searches");
+			this.droppedEventsCounter = metricsService.createCounter("search_dropped_events",
+					"Number of model events not queued for indexing because the queue was full");
+		}
+	}
+
+	/** Starts the thread that applies the pending index operations */
+	private void initIndexThread() {
+		this.indexingQueue = new IndexingQueue<>(queueCapacity);
+		this.indexThread = Executors.newSingleThreadExecutor();
+		this.indexThread.submit(this::processIndexingQueue);
+		this.reindexThread = Executors.newSingleThreadExecutor();
+		IndexComparator comparator = new IndexComparator(this, logService);
+		this.consistencyChecker = new ConsistencyChecker(this, comparator, reindexThread, logService);
+		this.reindexer = new Reindexer(this, comparator, consistencyChecker, reindexThread, logService);
 	}
 
 	/** Service Deactivation */
 	@Deactivate
 	public void deactivate() {
-		if (this.indexWriter != null) {
+		if (this.reindexThread != null) {
+			this.reindexThread.shutdownNow();
+		}
+		if (this.indexThread != null) {
+			this.indexThread.shutdownNow();
+		}
+		for (IndexPartition partition : partitions.values()) {
 			try {
-				this.indexWriter.close();
+				partition.close();
 			} catch (IOException e) {
 				logService.log(LogService.LOG_ERROR, "Could not close full-text index.");
 			}
 		}
+		partitions.clear();
 		if (this.scheduledExecutor != null) {
 			this.scheduledExecutor.shutdown();
 		}
-
-		if (this.indexThreadPool != null) {
-			this.indexThreadPool.shutdown();
-		}
 	}
 
 	private void readConfig(Map<String, Object> properties) throws SpecmateException {
@@ -186,6 +360,32 @@ public class LuceneBasedModelSearchService extends RestServiceBase implements Ev
 		} else {
 			this.maxSearchResults = (int) properties.get(KEY_MAX_SEARCH_RESULTS);
 		}
+		this.queueCapacity = (int) properties.getOrDefault(KEY_QUEUE_CAPACITY, DEFAULT_QUEUE_CAPACITY);
+		this.queueBatchSize = (int) properties.getOrDefault(KEY_QUEUE_BATCH_SIZE, DEFAULT_QUEUE_BATCH_SIZE);
+		this.refreshMaxStale = (int) properties.getOrDefault(KEY_REFRESH_MAX_STALE, DEFAULT_REFRESH_MAX_STALE);
+		this.refreshMinStale = (int) properties.getOrDefault(KEY_REFRESH_MIN_STALE, DEFAULT_REFRESH_MIN_STALE);
+		this.compoundDictionaryDe = (String) properties.get(KEY_COMPOUND_DICTIONARY_DE);
+		this.partitionByProject = (boolean) properties.getOrDefault(KEY_PARTITION_BY_PROJECT, false);
+		String defaultLanguage = (String) properties.getOrDefault(KEY_DEFAULT_LANGUAGE, FieldConstants.LANGUAGE_EN);
+		this.languageDetector = new LanguageDetector(checkLanguage(KEY_DEFAULT_LANGUAGE, defaultLanguage));
+		for (Entry<String, Object> property : properties.entrySet()) {
+			String key = property.getKey();
+			if (key.startsWith(IProjectConfigService.PROJECT_PREFIX)
+					&& key.endsWith(IProjectConfigService.KEY_PROJECT_LANGUAGE)) {
+				String project = key.substring(IProjectConfigService.PROJECT_PREFIX.length(),
+						key.length() - IProjectConfigService.KEY_PROJECT_LANGUAGE.length());
+				projectLanguages.put(project, checkLanguage(key, (String) property.getValue()));
+			}
+		}
+	}
+
+	private String checkLanguage(String key, String language) throws SpecmateException {
+		String normalized = language.trim().toLowerCase();
+		if (!Arrays.asList(FieldConstants.LANGUAGES).contains(normalized)) {
+			throw new SpecmateInternalException(ErrorCode.CONFIGURATION, "Unsupported language for " + key + ": "
+					+ language + ". Supported languages are " + String.join(", ", FieldConstants.LANGUAGES) + ".");
+		}
+		return normalized;
 	}
 
 	/**
@@ -194,30 +394,393 @@ public class LuceneBasedModelSearchService extends RestServiceBase implements Ev
 	private void startPeriodicCommitThread() {
 		this.scheduledExecutor = Executors.newScheduledThreadPool(3);
 		scheduledExecutor.scheduleWithFixedDelay(() -> {
-			try {
-				indexWriter.commit();
-				searcherManager.maybeRefresh();
-			} catch (IOException e) {
-				e.printStackTrace();
+			for (Entry<String, IndexPartition> entry : partitions.entrySet()) {
+				IndexPartition partition = entry.getValue();
+				if (!partition.isOpen()) {
+					continue;
+				}
+				try {
+					partition.commit();
+					updateSizeMetrics(entry.getKey(), partition.getNumDocs(), partition.getSizeInBytes());
+					if (partitionByProject) {
+						partition.closeIfIdle(PARTITION_IDLE_TIME);
+					}
+				} catch (IOException e) {
+					logService.log(LogService.LOG_ERROR, "Could not commit full-text index.", e);
+				} catch (AlreadyClosedException e) {
+					// The partition was deleted meanwhile
+				}
 			}
 		}, COMMIT_RATE, COMMIT_RATE, TimeUnit.SECONDS);
 	}
 
 	/** Initialize the access to the lucene database */
 	private void initializeLucene() throws IOException {
-		this.analyzer = new StandardAnalyzer();
-		directory = FSDirectory.open(Paths.get(luceneDbLocation));
-		IndexWriterConfig config = new IndexWriterConfig(analyzer);
-		indexWriter = new IndexWriter(directory, config);
-		this.searcherManager = new SearcherManager(indexWriter, true, true, null);
+		this.analyzer = SearchAnalyzers.create(loadGermanCompounds());
+		this.queryAnalyzer = SearchAnalyzers.createQueryAnalyzer();
+		if (!partitionByProject) {
+			getPartition(null);
+		}
+	}
+
+	/**
+	 * Returns the index partition of the given project, which is opened on
+	 * first use. Without partitioning by project, this is the partition shared
+	 * by all projects.
+	 *
+	 * @return The partition, or null if the index is partitioned by project and
+	 *         the project is null or empty
+	 */
+	/* package */IndexPartition getPartition(String project) throws IOException {
+		String key = SHARED_PARTITION;
+		if (partitionByProject) {
+			if (project == null || project.isEmpty()) {
+				return null;
+			}
+			key = project;
+		}
+		IndexPartition partition = partitions.get(key);
+		if (partition != null) {
+			return partition;
+		}
+		synchronized (partitions) {
+			partition = partitions.get(key);
+			if (partition == null) {
+				partition = new IndexPartition(partitionByProject ? project : null, getPartitionLocation(key),
+						analyzer, refreshMaxStale, refreshMinStale, stalenessGauge, logService);
+				partition.open();
+				partitions.put(key, partition);
+			}
+			return partition;
+		}
+	}
+
+	/**
+	 * Opens the partitions of all projects that have an index and returns all
+	 * open partitions
+	 */
+	/* package */Collection<IndexPartition> openAllPartitions() throws IOException {
+		if (!partitionByProject) {
+			return Collections.singleton(getPartition(null));
+		}
+		Path projects = Paths.get(luceneDbLocation, PROJECTS_DIRECTORY);
+		if (Files.isDirectory(projects)) {
+			try (DirectoryStream<Path> entries = Files.newDirectoryStream(projects)) {
+				for (Path entry : entries) {
+					if (Files.isDirectory(entry)) {
+						getPartition(URLDecoder.decode(entry.getFileName().toString(), StandardCharsets.UTF_8.name()));
+					}
+				}
+			}
+		}
+		return new ArrayList<>(partitions.values());
+	}
+
+	/** Returns the directory of the partition with the given key */
+	private Path getPartitionLocation(String key) throws IOException {
+		if (SHARED_PARTITION.equals(key)) {
+			return Paths.get(luceneDbLocation);
+		}
+		return Paths.get(luceneDbLocation, PROJECTS_DIRECTORY, URLEncoder.encode(key, StandardCharsets.UTF_8.name()));
+	}
+
+	/**
+	 * Closes the partition of the given project and deletes its files. Runs as
+	 * index operation, such that no changes are applied meanwhile.
+	 */
+	private void deletePartition(String project) throws IOException {
+		IndexPartition partition = getPartition(project);
+		synchronized (partitions) {
+			partitions.remove(project);
+		}
+		partition.delete();
+		updateSizeMetrics(project, 0, 0);
+	}
+
+	/** Commits the pending changes of all partitions */
+	/* package */void commitAll() throws IOException {
+		for (IndexPartition partition : partitions.values()) {
+			partition.commit();
+		}
+	}
+
+	/**
+	 * Waits until the changes made so far are visible to searches, which
+	 * refreshes the searchers without waiting for the regular refresh interval
+	 */
+	/* package */void awaitSearchable() throws InterruptedException {
+		for (IndexPartition partition : partitions.values()) {
+			partition.awaitSearchable();
+		}
+	}
+
+	/** Waits until the pending index operations are applied */
+	/* package */void awaitIndexed() throws InterruptedException {
+		indexingQueue.awaitIdle();
+	}
+
+	/** Returns whether the given object has an own document in the index */
+	/* package */boolean isIndexed(EObject object) {
+		return indexedClasses.contains(object.eClass().getName());
+	}
+
+	/**
+	 * Sets the gauges for the number of documents and the size of the
+	 * partition with the given key
+	 */
+	private void updateSizeMetrics(String key, long documents, long bytes) {
+		setGauge("search_index_documents", "Number of documents in the search index", key, documents);
+		setGauge("search_index_size_bytes", "Size in bytes of the search index", key, bytes);
+	}
+
+	/**
+	 * Sets a gauge, which is created on first use. The gauge of a project has
+	 * the encoded project as suffix of its name, as gauges have no labels.
+	 *
+	 * @param project
+	 *            The project the value refers to, or the empty string for all
+	 *            projects
+	 */
+	/* package */void setGauge(String name, String description, String project, double value) {
+		IMetricsService metricsService = this.metricsService;
+		if (metricsService == null) {
+			return;
+		}
+		if (!SHARED_PARTITION.equals(project)) {
+			name += "_" + toMetricName(project);
+			description += " of project " + project;
+		}
+		try {
+			metricsService.createGauge(name, description).set(value);
+		} catch (SpecmateException e) {
+			logService.log(LogService.LOG_WARNING, "Could not update the search index metric " + name + ".", e);
+		}
+	}
+
+	/**
+	 * Encodes the project for the name of a metric, which may only contain
+	 * letters, digits and underscores. Underscores are doubled and other
+	 * characters are replaced by their code, such that different projects have
+	 * different names.
+	 */
+	/* package */static String toMetricName(String project) {
+		StringBuilder builder = new StringBuilder();
+		for (char c : project.toCharArray()) {
+			if (c == '_') {
+				builder.append("__");
+			} else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+				builder.append(c);
+			} else {
+				builder.append(String.format("_x%04x", (int) c));
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Loads the configured dictionary of parts of German compound words, or the
+	 * built-in dictionary. Without a dictionary, compound words are not split.
+	 */
+	private CharArraySet loadGermanCompounds() {
+		try {
+			if (compoundDictionaryDe != null) {
+				try (InputStream in = Files.newInputStream(Paths.get(compoundDictionaryDe))) {
+					return SearchAnalyzers.loadDictionary(in);
+				}
+			}
+			return SearchAnalyzers.loadGermanCompounds();
+		} catch (IOException e) {
+			logService.log(LogService.LOG_WARNING, "Could not load dictionary of German compound words.", e);
+			return null;
+		}
 	}
 
 	/** Performs a search with the given field/value-list query. */
 	@Override
 	public Set<EObject> search(String queryString, String project) throws SpecmateException {
+		Query query = parseQuery(queryString, project, null);
+		return withSearcher(project, isearcher -> performSearch(query, isearcher));
+	}
+
+	/** Performs a search and returns a page of the matching objects. */
+	@Override
+	public SearchPage<EObject> search(String queryString, String project, Collection<String> types, SearchMode mode,
+			int offset, int limit) throws SpecmateException {
+		Query query = buildQuery(queryString, project, types, mode);
+		int pageSize = getPageSize(offset, limit);
+		return withSearcher(project, isearcher -> collectObjects(query, offset, pageSize, isearcher));
+	}
+
+	/** Performs a search and builds a page of hits from the stored fields. */
+	@Override
+	public SearchPage<SearchHit> searchHits(String queryString, String project, Collection<String> types,
+			SearchMode mode, int offset, int limit) throws SpecmateException {
+		Query query = buildQuery(queryString, project, types, mode);
+		int pageSize = getPageSize(offset, limit);
+		return withSearcher(project, isearcher -> collectHits(query, offset, pageSize, isearcher));
+	}
+
+	/** Returns the distinct names of the best matches of a prefix search on names. */
+	@Override
+	public List<String> suggest(String prefix, String project, int limit) throws SpecmateException {
+		int pageSize = getPageSize(0, limit);
+		Query query = filter(buildPrefixQuery(prefix, false), project, null);
+		return withSearcher(project, isearcher -> collectNames(query, pageSize, isearcher));
+	}
+
+	/** Checks the bounds of a page and limits its size to the maximal number of results */
+	private int getPageSize(int offset, int limit) throws SpecmateValidationException {
+		if (offset < 0) {
+			throw new SpecmateValidationException("Invalid search offset: " + offset + ".");
+		}
+		if (limit < 1) {
+			throw new SpecmateValidationException("Invalid search limit: " + limit + ".");
+		}
+		return Math.min(limit, maxSearchResults);
+	}
+
+	/**
+	 * Builds the query of the given mode, restricted to the given project and,
+	 * unless null or empty, to objects of the given classes
+	 */
+	private Query buildQuery(String queryString, String project, Collection<String> types, SearchMode mode)
+			throws SpecmateException {
+		switch (mode) {
+		case PREFIX:
+			return filter(buildPrefixQuery(queryString, true), project, types);
+		case FUZZY:
+			return filter(buildFuzzyQuery(queryString), project, types);
+		default:
+			return parseQuery(queryString, project, types);
+		}
+	}
+
+	/**
+	 * Builds a query that matches names in which each word of the query starts
+	 * a word. Matches of whole words rank above matches of prefixes.
+	 *
+	 * @param matchExtId
+	 *            Whether the query also matches the beginning of the external
+	 *            id
+	 */
+	private Query buildPrefixQuery(String queryString, boolean matchExtId) throws SpecmateException {
+		List<String> words = analyzeQuery(queryString);
+		BooleanQuery.Builder nameQuery = new BooleanQuery.Builder();
+		for (String word : words) {
+			nameQuery.add(new TermQuery(new Term(FieldConstants.FIELD_NAME_PREFIX, truncatePrefix(word))),
+					Occur.MUST);
+			nameQuery.add(new TermQuery(new Term(FieldConstants.FIELD_NAME, word)), Occur.SHOULD);
+		}
+		float nameBoost = FieldConstants.SEARCH_FIELD_BOOSTS.get(FieldConstants.FIELD_NAME);
+		BooleanQuery.Builder query = new BooleanQuery.Builder();
+		query.add(new BoostQuery(nameQuery.build(), nameBoost), Occur.SHOULD);
+		if (matchExtId) {
+			String extId = truncatePrefix(queryString.trim().toLowerCase());
+			float extIdBoost = FieldConstants.SEARCH_FIELD_BOOSTS.get(FieldConstants.FIELD_EXTID);
+			query.add(new BoostQuery(new TermQuery(new Term(FieldConstants.FIELD_EXTID_PREFIX, extId)), extIdBoost),
+					Occur.SHOULD);
+		}
+		return query.setMinimumNumberShouldMatch(1).build();
+	}
+
+	/**
+	 * Builds a query that matches objects in which each word of the query
+	 * occurs with at most a few typos. Closer matches rank higher.
+	 */
+	private Query buildFuzzyQuery(String queryString) throws SpecmateException {
+		BooleanQuery.Builder query = new BooleanQuery.Builder();
+		for (String word : analyzeQuery(queryString)) {
+			int maxEdits = getMaxEdits(word);
+			BooleanQuery.Builder wordQuery = new BooleanQuery.Builder();
+			for (String field : FieldConstants.FUZZY_FIELDS) {
+				Query fieldQuery = new FuzzyQuery(new Term(field, word), maxEdits, FUZZY_PREFIX_LENGTH);
+				float boost = FieldConstants.SEARCH_FIELD_BOOSTS.getOrDefault(field, 1f);
+				wordQuery.add(boost != 1f ? new BoostQuery(fieldQuery, boost) : fieldQuery, Occur.SHOULD);
+			}
+			query.add(wordQuery.build(), Occur.MUST);
+		}
+		return query.build();
+	}
+
+	/**
+	 * Returns the maximal edit distance of a fuzzy match of the given word,
+	 * such that short words do not match arbitrary other words
+	 */
+	private static int getMaxEdits(String word) {
+		if (word.length() < FUZZY_ONE_EDIT_LENGTH) {
+			return 0;
+		}
+		return word.length() < FUZZY_TWO_EDITS_LENGTH ? 1 : 2;
+	}
+
+	/** Truncates a prefix to the maximal length of the indexed prefixes */
+	private static String truncatePrefix(String prefix) {
+		return prefix.length() > FieldConstants.MAX_PREFIX_LENGTH
+				? prefix.substring(0, FieldConstants.MAX_PREFIX_LENGTH)
+				: prefix;
+	}
+
+	/** Splits a query of a prefix or fuzzy search into lower-cased words */
+	private List<String> analyzeQuery(String queryString) throws SpecmateException {
+		List<String> words = new ArrayList<>();
+		try (TokenStream stream = queryAnalyzer.tokenStream(FieldConstants.FIELD_NAME, queryString)) {
+			CharTermAttribute termAttribute = stream.addAttribute(CharTermAttribute.class);
+			stream.reset();
+			while (stream.incrementToken()) {
+				words.add(termAttribute.toString());
+			}
+			stream.end();
+		} catch (IOException e) {
+			throw new SpecmateInternalException(ErrorCode.SEARCH, "Could not analyze query: " + queryString + ".", e);
+		}
+		if (words.isEmpty()) {
+			throw new SpecmateValidationException("Query without words: " + queryString + ".");
+		}
+		return words;
+	}
+
+	/**
+	 * Restricts a query to the given project and, unless null or empty, to
+	 * objects of the given classes. The restrictions do not contribute to the
+	 * score.
+	 */
+	private Query filter(Query query, String project, Collection<String> types) throws SpecmateException {
+		BooleanQuery.Builder builder = new BooleanQuery.Builder().add(query, Occur.MUST);
+		if (!partitionByProject) {
+			QueryParser projectParser = new QueryParser(FieldConstants.FIELD_PROJECT, analyzer);
+			projectParser.setDefaultOperator(Operator.AND);
+			try {
+				builder.add(projectParser.parse(QueryParser.escape(project)), Occur.FILTER);
+			} catch (ParseException e) {
+				throw new SpecmateValidationException("Invalid search project: " + project + ".", e);
+			}
+		}
+		if (types != null && !types.isEmpty()) {
+			builder.add(buildTypeFilter(types), Occur.FILTER);
+		}
+		return builder.build();
+	}
+
+	/** Builds a query that matches objects of any of the given classes */
+	private Query buildTypeFilter(Collection<String> types) {
+		BooleanQuery.Builder typeFilter = new BooleanQuery.Builder();
+		for (String type : types) {
+			typeFilter.add(new TermQuery(new Term(FieldConstants.FIELD_TYPE, type.toLowerCase())), Occur.SHOULD);
+		}
+		return typeFilter.build();
+	}
+
+	/**
+	 * Parses a query and restricts it to the given project and, unless null or
+	 * empty, to objects of the given classes
+	 */
+	private Query parseQuery(String queryString, String project, Collection<String> types) throws SpecmateException {
 		// QueryParser not thread-safe, hence create new for each search
-		String projectPrefix = "(" + FieldConstants.FIELD_PROJECT + ":" + project + ") ";
-		QueryParser queryParser = new MultiFieldQueryParser(FieldConstants.SEARCH_FIELDS, analyzer);
+		// The partition of a project contains only its objects
+		String projectPrefix = partitionByProject ? ""
+				: "(" + FieldConstants.FIELD_PROJECT + ":" + project + ") ";
+		QueryParser queryParser = new MultiFieldQueryParser(FieldConstants.SEARCH_FIELDS, analyzer,
+				FieldConstants.SEARCH_FIELD_BOOSTS);
 		queryParser.setDefaultOperator(Operator.AND);
 		Query query;
 		try {
@@ -227,24 +790,29 @@ public class LuceneBasedModelSearchService extends RestServiceBase implements Ev
 			logService.log(LogService.LOG_ERROR, msg, e);
 			throw new SpecmateValidationException(msg, e);
 		}
+		if (types == null || types.isEmpty()) {
+			return query;
+		}
+		// The type filter does not contribute to the score
+		return new BooleanQuery.Builder().add(query, Occur.MUST).add(buildTypeFilter(types), Occur.FILTER).build();
+	}
 
-		IndexSearcher isearcher;
+	/** Runs the given function with a searcher of the index of the given project */
+	private <T> T withSearcher(String project, SearcherFunction<T> function) throws SpecmateException {
+		IndexPartition partition;
 		try {
-			isearcher = searcherManager.acquire();
+			partition = getPartition(project);
 		} catch (IOException e) {
-			throw new SpecmateInternalException(ErrorCode.SEARCH, "Could not aquire index searcher.", e);
+			throw new SpecmateInternalException(ErrorCode.SEARCH,
+					"Could not open search index of project " + project + ".", e);
+		}
+		if (partition == null) {
+			throw new SpecmateValidationException("Invalid search project: " + project + ".");
 		}
-
 		try {
-			return performSearch(query, isearcher);
+			return partition.withSearcher(function);
 		} catch (IOException e) {
 			throw new SpecmateInternalException(ErrorCode.SEARCH, "IO error while searching lucene database.", e);
-		} finally {
-			try {
-				searcherManager.release(isearcher);
-			} catch (IOException e) {
-				logService.log(LogService.LOG_ERROR, "Error while releasing lucene searcher.", e);
-			}
 		}
 	}
 
@@ -252,57 +820,210 @@ public class LuceneBasedModelSearchService extends RestServiceBase implements Ev
 	public void clear() throws SpecmateException {
 
 		try {
-			indexWriter.deleteAll();
-			indexWriter.commit();
-			searcherManager.maybeRefresh();
+			for (IndexPartition partition : openAllPartitions()) {
+				partition.deleteAll();
+				partition.commit();
+			}
+			awaitSearchable();
+		} catch (IOException e) {
+			throw new SpecmateInternalException(ErrorCode.SEARCH, e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public void clear(String project) throws SpecmateException {
+		if (project == null || project.isEmpty()) {
+			throw new SpecmateValidationException("Invalid project: " + project + ".");
+		}
+		try {
+			if (partitionByProject) {
+				enqueueDeletePartition(project);
+				indexingQueue.awaitIdle();
+				return;
+			}
+			IndexPartition partition = getPartition(project);
+			Set<String> ids = partition.withSearcher(isearcher -> IndexComparator.readDocuments(isearcher, project))
+					.keySet();
+			partition.deleteDocuments(ids.toArray(new String[ids.size()]));
+			partition.commit();
+			partition.awaitSearchable();
 		} catch (IOException e) {
 			throw new SpecmateInternalException(ErrorCode.SEARCH, e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/** Starts rebuilding the index of all elements. */
+	@Override
+	public boolean startReIndex() throws SpecmateException {
+		return startReIndex(true, null);
+	}
+
+	/** Starts rebuilding the index of the elements of a project. */
+	@Override
+	public boolean startReIndex(String project) throws SpecmateException {
+		return startReIndex(true, project);
+	}
+
+	/** Starts updating the index of all elements that changed. */
+	@Override
+	public boolean startIncrementalReIndex() throws SpecmateException {
+		return startReIndex(false, null);
+	}
+
+	/** Starts updating the index of the elements of a project that changed. */
+	@Override
+	public boolean startIncrementalReIndex(String project) throws SpecmateException {
+		return startReIndex(false, project);
+	}
+
+	private boolean startReIndex(boolean full, String project) {
+		return reindexer.start(full, project);
+	}
+
+	@Override
+	public ReindexProgress getReindexProgress() {
+		return reindexer.getProgress();
+	}
+
+	/** Starts the check, unless a reindex is running */
+	@Override
+	public boolean startConsistencyCheck(String project, boolean repair) {
+		if (reindexer.isRunning()) {
+			return false;
+		}
+		return consistencyChecker.start(project, repair && isIndexingEnabled);
+	}
+
+	@Override
+	public ConsistencyReport getConsistencyReport() {
+		return consistencyChecker.getReport();
+	}
+
+	/** Enqueues the update of the document of the given object */
+	/* package */void enqueueUpdate(String id, EObject object, String project) {
+		enqueue(id, batch -> updateIndex(id, object, project, batch));
+	}
+
+	/** Enqueues the deletion of the partition of the given project */
+	/* package */void enqueueDeletePartition(String project) {
+		enqueue(DELETE_PARTITION_KEY + project, batch -> {
+			// The changes before the deletion are written to the deleted partition
+			batch.write();
+			deletePartition(project);
+		});
+	}
+
+	/** Enqueues the deletion of the document with the given id from the given partition */
+	/* package */void enqueueDelete(IndexPartition partition, String id) {
+		enqueue(id, batch -> batch.delete(partition, id));
+	}
+
+	/**
+	 * Returns the model objects of the given project, or of all projects if it
+	 * is null
+	 */
+	/* package */Iterator<EObject> getContents(String project) {
+		if (project == null) {
+			return this.view.getResource().getAllContents();
 		}
+		List<Folder> folders = getProjectFolders(project);
+		return folders.isEmpty() ? Collections.emptyIterator() : folders.get(0).eAllContents();
 	}
 
 	/**
-	 * Starts reindexing of all elements.
-	 *
-	 * @throws SpecmateException
+	 * Returns the folder of the given project, or the folders of all projects
+	 * if it is null
 	 */
-	@Override
-	public void startReIndex() throws SpecmateException {
-		if (!isIndexingEnabled) {
+	/* package */List<Folder> getProjectFolders(String project) {
+		List<Folder> folders = SpecmateEcoreUtil.pickInstancesOf(this.view.getResource().getContents(),
+				Folder.class);
+		if (project == null) {
+			return folders;
+		}
+		EObject folder = SpecmateEcoreUtil.getEObjectWithId(project, folders);
+		return folder != null ? Collections.singletonList((Folder) folder) : Collections.emptyList();
+	}
+
+	/**
+	 * Adds an index operation for the object with the given id to the indexing
+	 * queue, replacing a waiting operation for the same object. Blocks while the
+	 * queue is full.
+	 */
+	/* package */void enqueue(String id, IndexOperation operation) {
+		try {
+			indexingQueue.put(id, operation);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 			return;
 		}
-		boolean start = isReindexRunning.compareAndSet(false, true);
-		if (!start) {
+		if (queueDepthGauge != null) {
+			queueDepthGauge.set(indexingQueue.size());
+		}
+	}
+
+	/**
+	 * Adds the index operation of a model event to the indexing queue without
+	 * blocking the delivery of the event. If the queue is full, the event is
+	 * dropped and its project is re-indexed once the queue has been processed.
+	 */
+	private void enqueueEvent(String id, String project, IndexOperation operation) {
+		if (!indexingQueue.offer(id, operation)) {
+			if (droppedEventsCounter != null) {
+				droppedEventsCounter.inc();
+			}
+			if (reindexer.addDroppedProject(project)) {
+				logService.log(LogService.LOG_WARNING, "The indexing queue is full, the search index of project "
+						+ project + " will be updated by a re-index.");
+			}
 			return;
 		}
-		logService.log(LogService.LOG_INFO, "Re-indexing started.");
-		TreeIterator<EObject> iterator = this.view.getResource().getAllContents();
-		try {
-			clear();
-		} catch (SpecmateException e) {
-			logService.log(LogService.LOG_ERROR, "Error while clearing search index.", e);
-			throw e;
-		}
-		while (iterator.hasNext()) {
-			EObject next = iterator.next();
-			String className = next.eClass().getName();
-			if (className != null && !indexedClasses.contains(className)) {
-				continue;
+		if (queueDepthGauge != null) {
+			queueDepthGauge.set(indexingQueue.size());
+		}
+	}
+
+	/** Applies the pending index operations in batches until interrupted */
+	private void processIndexingQueue() {
+		while (!Thread.currentThread().isInterrupted()) {
+			List<IndexingQueue.Entry<IndexOperation>> batch;
+			try {
+				batch = indexingQueue.take(queueBatchSize);
+			} catch (InterruptedException e) {
+				return;
 			}
-			String id = SpecmateEcoreUtil.getUniqueId(next);
-			String project = SpecmateEcoreUtil.getProjectId(next);
-			if (id != null) {
-				indexThreadPool.submit(() -> {
-					updateIndex(id, next, project);
-				});
-			} else {
-				logService.log(LogService.LOG_ERROR, "Could not reindex object.");
+			// The view may be on a read session, which gets the changes after the events
+			if (!view.waitForUpdate(VIEW_UPDATE_TIMEOUT)) {
+				logService.log(LogService.LOG_WARNING,
+						"The model view is behind the model events, indexing may use outdated objects.");
+			}
+			long oldest = Long.MAX_VALUE;
+			IndexBatch indexBatch = new IndexBatch();
+			for (IndexingQueue.Entry<IndexOperation> entry : batch) {
+				try {
+					entry.getValue().apply(indexBatch);
+				} catch (IOException | RuntimeException e) {
+					logService.log(LogService.LOG_ERROR, "Could not update index: " + entry.getKey(), e);
+				}
+				oldest = Math.min(oldest, entry.getEnqueued());
+			}
+			try {
+				indexBatch.write();
+			} catch (IOException | RuntimeException e) {
+				logService.log(LogService.LOG_ERROR, "Could not update index of " + batch.size() + " objects.", e);
+			}
+			indexingQueue.done();
+			if (indexingLagGauge != null) {
+				indexingLagGauge.set((System.currentTimeMillis() - oldest) / 1000.0);
+				queueDepthGauge.set(indexingQueue.size());
+			}
+			if (indexingQueue.size() == 0) {
+				reindexer.reindexDroppedProjects();
 			}
 		}
-		// when all reindex jobs have run, reset the flag
-		indexThreadPool.submit(() -> {
-			logService.log(LogService.LOG_INFO, "Re-indexing completed.");
-			isReindexRunning.set(false);
-		});
 	}
 
 	/** Performs the given lucene query on the given searcher. */
@@ -312,23 +1033,137 @@ public class LuceneBasedModelSearchService extends RestServiceBase implements Ev
 		Set<EObject> result = new HashSet<>();
 		// Iterate through the results:
 		for (int i = 0; i < hits.length; i++) {
-			Document hitDoc = isearcher.doc(hits[i].doc);
+			Document hitDoc = isearcher.doc(hits[i].doc, ID_FIELD);
+			EObject object = getObject(hitDoc.get(FieldConstants.FIELD_ID));
+			if (object != null) {
+				result.add(object);
+			}
+		}
+		return result;
+	}
+
+	/** Loads the objects of a page of matches of the given lucene query. */
+	private SearchPage<EObject> collectObjects(Query query, int offset, int pageSize, IndexSearcher isearcher)
+			throws IOException {
+		TopDocs topDocs = searchWindow(query, offset, pageSize, isearcher);
+		ScoreDoc[] hits = topDocs.scoreDocs;
+		List<EObject> result = new ArrayList<>();
+		for (int i = offset; i < hits.length; i++) {
+			Document hitDoc = isearcher.doc(hits[i].doc, ID_FIELD);
+			EObject object = getObject(hitDoc.get(FieldConstants.FIELD_ID));
+			if (object != null) {
+				result.add(object);
+			}
+		}
+		return new SearchPage<>(result, topDocs.totalHits, offset, Math.max(offset, hits.length));
+	}
+
+	/**
+	 * Builds the hits of a page of matches of the given lucene query from the
+	 * stored fields.
+	 */
+	private SearchPage<SearchHit> collectHits(Query query, int offset, int pageSize, IndexSearcher isearcher)
+			throws IOException {
+		TopDocs topDocs = searchWindow(query, offset, pageSize, isearcher);
+		ScoreDoc[] hits = topDocs.scoreDocs;
+		Set<Term> terms = new HashSet<>();
+		isearcher.createNormalizedWeight(query, false).extractTerms(terms);
+		SnippetHighlighter highlighter = new SnippetHighlighter(analyzer, terms);
+		List<SearchHit> result = new ArrayList<>();
+		for (int i = offset; i < hits.length; i++) {
+			ScoreDoc hit = hits[i];
+			Document hitDoc = isearcher.doc(hit.doc, FieldConstants.HIT_FIELDS);
 			String id = hitDoc.get(FieldConstants.FIELD_ID);
-			try {
-				EObject object = view.getObjectById(id);
-				if (object != null) {
-					result.add(object);
+			String url = hitDoc.get(FieldConstants.FIELD_URL);
+			if (url == null) {
+				// indexed before urls were stored
+				url = getUrl(id);
+				if (url == null) {
+					continue;
 				}
-			} catch (ObjectNotFoundException onfe) {
-				// object not found, probably it was deleted but the index is
-				// not
-				// yet updated. No action taken except logging.
-				logService.log(LogService.LOG_WARNING,
-						"The search returned an object id, but no object with this id was found.");
 			}
+			String className = hitDoc.get(FieldConstants.FIELD_CLASS_NAME);
+			if (className == null) {
+				className = hitDoc.get(FieldConstants.FIELD_TYPE);
+			}
+			String name = hitDoc.get(FieldConstants.FIELD_NAME);
+			String description = hitDoc.get(FieldConstants.FIELD_DESCRIPTION);
+			result.add(new SearchHit(id, url, name, highlighter.highlight(FieldConstants.FIELD_NAME, name), className,
+					hitDoc.get(FieldConstants.FIELD_PROJECT),
+					highlighter.fragment(FieldConstants.FIELD_DESCRIPTION, description, SNIPPET_LENGTH), hit.score));
+		}
+		return new SearchPage<>(result, topDocs.totalHits, offset, Math.max(offset, hits.length));
+	}
 
+	/**
+	 * Collects the distinct stored names of the best matches of the given
+	 * query, ignoring case. As several objects may have the same name, more
+	 * matches than names are searched.
+	 */
+	private List<String> collectNames(Query query, int count, IndexSearcher isearcher) throws IOException {
+		int window = (int) Math.min((long) count * SUGGEST_MATCHES_PER_NAME, maxSearchResults);
+		ScoreDoc[] hits = isearcher.search(query, Math.max(window, count)).scoreDocs;
+		Map<String, String> names = new LinkedHashMap<>();
+		for (ScoreDoc hit : hits) {
+			String name = isearcher.doc(hit.doc, NAME_FIELD).get(FieldConstants.FIELD_NAME);
+			if (name != null) {
+				names.putIfAbsent(name.toLowerCase(), name);
+				if (names.size() == count) {
+					break;
+				}
+			}
+		}
+		return new ArrayList<>(names.values());
+	}
+
+	/**
+	 * Returns the best matches up to the end of the given page. Lucene ranks
+	 * the matches with a priority queue of the size of the window, such that
+	 * the pages before the requested one are collected, but not loaded.
+	 */
+	private TopDocs searchWindow(Query query, int offset, int pageSize, IndexSearcher isearcher) throws IOException {
+		int window = (int) Math.min((long) offset + pageSize, Integer.MAX_VALUE);
+		return isearcher.search(query, window);
+	}
+
+	/** Returns the object with the given id, or null if it does not exist */
+	/* package */EObject findObject(String id) {
+		try {
+			return view.getObjectById(id);
+		} catch (ObjectNotFoundException onfe) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the object of a search hit with the given id, or null if it does
+	 * not exist
+	 */
+	private EObject getObject(String id) {
+		try {
+			return view.getObjectById(id);
+		} catch (ObjectNotFoundException onfe) {
+			// object not found, probably it was deleted but the index is not
+			// yet updated. No action taken except logging.
+			logService.log(LogService.LOG_WARNING,
+					"The search returned an object id, but no object with this id was found.");
+			return null;
+		}
+	}
+
+	/** Returns the url of the object with the given id, or null if it does not exist */
+	private String getUrl(String id) {
+		EObject object = getObject(id);
+		return object != null ? getUrl(object) : null;
+	}
+
+	private String getUrl(EObject object) {
+		try {
+			return uriFactory.getURI(object);
+		} catch (SpecmateException e) {
+			logService.log(LogService.LOG_WARNING, "Could not determine the url of an indexed object.", e);
+			return null;
 		}
-		return result;
 	}
 
 	/**
@@ -346,17 +1181,22 @@ public class LuceneBasedModelSearchService extends RestServiceBase implements Ev
 		ModelEvent modelEvent = (ModelEvent) event;
 		String className = modelEvent.getClassName();
 
-		if (className != null && !indexedClasses.contains(className)) {
+		if (className != null && !indexedClasses.contains(className) && !containedClasses.contains(className)) {
 			return;
 		}
 
 		String project = extractProject(modelEvent.getTopic());
 		switch (modelEvent.getType()) {
 		case NEW:
-			submitNewDocJob(modelEvent, project);
+			if (containedClasses.contains(className)) {
+				// Reindex the container with the new content
+				submitUpdateDocJob(modelEvent, project);
+			} else {
+				submitNewDocJob(modelEvent, project);
+			}
 			break;
 		case DELETE:
-			submitDeleteDocJob(modelEvent);
+			submitDeleteDocJob(modelEvent, project);
 			break;
 		default:
 			submitUpdateDocJob(modelEvent, project);
@@ -364,35 +1204,34 @@ public class LuceneBasedModelSearchService extends RestServiceBase implements Ev
 	}
 
 	private void submitUpdateDocJob(ModelEvent modelEvent, String project) {
-		this.indexThreadPool.submit(() -> {
-			updateIndex(modelEvent.getId(), project);
-		});
+		enqueueEvent(modelEvent.getId(), project, batch -> updateIndex(modelEvent.getId(), project, batch));
 	}
 
-	private void submitDeleteDocJob(ModelEvent modelEvent) {
-		this.indexThreadPool.submit(() -> {
-			try {
-				indexWriter.deleteDocuments(new Term(FieldConstants.FIELD_ID, modelEvent.getId()));
-			} catch (IOException e) {
-				this.logService.log(LogService.LOG_ERROR,
-						"Could not delete document from index: " + modelEvent.getTopic(), e);
+	private void submitDeleteDocJob(ModelEvent modelEvent, String project) {
+		enqueueEvent(modelEvent.getId(), project, batch -> {
+			IndexPartition partition = getPartition(project);
+			if (partition != null) {
+				batch.delete(partition, modelEvent.getId());
+				return;
+			}
+			// The project is unknown, hence delete from all partitions
+			for (IndexPartition openPartition : partitions.values()) {
+				batch.delete(openPartition, modelEvent.getId());
 			}
 		});
 	}
 
 	private void submitNewDocJob(ModelEvent modelEvent, String project) {
-		this.indexThreadPool.submit(() -> {
-			Document document = getDocumentForModelObject(modelEvent.getId(), project, modelEvent.getClassName(),
-					modelEvent.getFeatureMap());
-			if (document == null) {
+		enqueueEvent(modelEvent.getId(), project, batch -> {
+			Document document = getDocumentForModelObject(modelEvent.getId(), modelEvent.getUrl(), project,
+					modelEvent.getClassName(), modelEvent.getFeatureMap());
+			IndexPartition partition = getPartition(project);
+			if (document == null || partition == null) {
 				return;
 			}
-			try {
-				indexWriter.addDocument(document);
-			} catch (IOException e) {
-				this.logService.log(LogService.LOG_ERROR, "Could not add document to index: " + modelEvent.getTopic(),
-						e);
-			}
+			// A new object has its first version and, as test procedure, no steps yet
+			DocumentFactory.addRevision(document, FieldConstants.INDEX_FORMAT + ":" + CDOBranchVersion.FIRST_VERSION);
+			batch.update(partition, modelEvent.getId(), document);
 		});
 	}
 
@@ -411,49 +1250,95 @@ public class LuceneBasedModelSearchService extends RestServiceBase implements Ev
 	 * Updates the index for the item with the given id with the given feature/value
 	 * mapping
 	 */
-	private void updateIndex(String id, String project) {
+	private void updateIndex(String id, String project, IndexBatch batch) throws IOException {
 		EObject object = view.getObjectById(id);
-		updateIndex(id, object, project);
+		if (object == null) {
+			return;
+		}
+		if (containedClasses.contains(object.eClass().getName())) {
+			object = object.eContainer();
+			if (object == null) {
+				return;
+			}
+			id = SpecmateEcoreUtil.getUniqueId(object);
+		}
+		updateIndex(id, object, project, batch);
 	}
 
-	private void updateIndex(String id, EObject object, String project) {
+	/**
+	 * Updates the document of the object with the given id, or deletes it if
+	 * the object no longer exists in the given partition
+	 */
+	/* package */void reindexObject(IndexPartition partition, String id, IndexBatch batch) throws IOException {
+		EObject object = findObject(id);
+		if (object == null || getPartition(SpecmateEcoreUtil.getProjectId(object)) != partition) {
+			batch.delete(partition, id);
+			return;
+		}
+		updateIndex(id, SpecmateEcoreUtil.getProjectId(object), batch);
+	}
+
+	private void updateIndex(String id, EObject object, String project, IndexBatch batch) throws IOException {
+		Document doc = createDocument(id, object, project);
+		IndexPartition partition = getPartition(project);
+		if (doc == null || partition == null) {
+			return;
+		}
+		batch.update(partition, id, doc);
+	}
+
+	/**
+	 * Produces the document of an object with its revision, or null if its
+	 * class is not indexed
+	 */
+	/* package */Document createDocument(String id, EObject object, String project) {
+		String className = object.eClass().getName();
+		if (!indexedClasses.contains(className)) {
+			return null;
+		}
 		Map<EStructuralFeature, Object> featureMap = new HashMap<>();
 		for (EAttribute attribute : object.eClass().getEAllAttributes()) {
 			featureMap.put(attribute, object.eGet(attribute));
 		}
-		String className = object.eClass().getName();
-		if (!indexedClasses.contains(className)) {
-			return;
+		if (object instanceof TestProcedure) {
+			featureMap.put(BasePackage.Literals.ICONTAINER__CONTENTS,
+					SpecmateEcoreUtil.getStepsSorted((TestProcedure) object));
 		}
-		Document doc = getDocumentForModelObject(id, project, className, featureMap);
-		try {
-			indexWriter.updateDocument(new Term(FieldConstants.FIELD_ID, id), doc);
-		} catch (IOException e) {
-			this.logService.log(LogService.LOG_ERROR, "Could not update index: " + id, e);
+		Document doc = getDocumentForModelObject(id, getUrl(object), project, className, featureMap);
+		if (doc != null) {
+			DocumentFactory.addRevision(doc, IndexComparator.getRevision(object));
 		}
+		return doc;
 	}
 
 	/** Produces a document for a model given as a fature/value mapping. */
-	private Document getDocumentForModelObject(String id, String project, String className,
+	private Document getDocumentForModelObject(String id, String url, String project, String className,
 			Map<EStructuralFeature, Object> featureMap) {
-		return DocumentFactory.create(className, id, project, featureMap);
+		Document doc = DocumentFactory.create(className, id, url, project, featureMap);
+		if (doc != null) {
+			DocumentFactory.addLanguageFields(doc, getLanguage(project, doc));
+		}
+		return doc;
 	}
 
-	@Override
-	public String getServiceName() {
-		return "reindex";
+	/**
+	 * Returns the configured language of the project, or the language detected
+	 * from the text of the document
+	 */
+	private String getLanguage(String project, Document doc) {
+		String language = projectLanguages.get(project);
+		if (language != null) {
+			return language;
+		}
+		return languageDetector.detect(DocumentFactory.getText(doc));
 	}
 
-	@Override
-	public boolean canGet(Object target) {
-		return (target instanceof Resource);
+	/* package */boolean isPartitionByProject() {
+		return partitionByProject;
 	}
 
-	@Override
-	public RestResult<?> get(Object object, MultivaluedMap<String, String> queryParams, String token)
-			throws SpecmateException {
-		startReIndex();
-		return new RestResult<>(Response.Status.NO_CONTENT);
+	/* package */boolean isIndexingEnabled() {
+		return isIndexingEnabled;
 	}
 
 	@Override
@@ -478,4 +1363,21 @@ public class LuceneBasedModelSearchService extends RestServiceBase implements Ev
 		this.logService = logService;
 	}
 
+	/** Sets the uri factory. */
+	@Reference
+	public void setUriFactory(IURIFactory uriFactory) {
+		this.uriFactory = uriFactory;
+	}
+
+	/** Sets the metrics service. */
+	@Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+	public void setMetricsService(IMetricsService metricsService) {
+		this.metricsService = metricsService;
+	}
+
+	/** Unsets the metrics service. */
+	public void unsetMetricsService(IMetricsService metricsService) {
+		this.metricsService = null;
+	}
+
 }
@@ -0,0 +1,374 @@
+package com.specmate.search.internal.services;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.eclipse.emf.ecore.EObject;
+import org.osgi.service.log.LogService;
+
+import com.specmate.model.base.Folder;
+import com.specmate.model.support.util.SpecmateEcoreUtil;
+import com.specmate.search.api.ReindexProgress;
+
+/**
+ * Brings the search index up to date with the model in the background, either
+ * by rebuilding the index or by updating the documents that differ from the
+ * model. Only one reindex runs at a time.
+ *
+ * Projects whose model events were dropped because the indexing queue was full
+ * are reindexed one after the other once the queue has been processed.
+ */
+public class Reindexer {
+
+	/**
+	 * Number of objects after which a reindex commits its progress. An
+	 * interrupted incremental reindex continues from the last commit, since
+	 * documents that are up to date are skipped.
+	 */
+	private static final int CHECKPOINT_INTERVAL = 5000;
+
+	/** Key of the swap to a rebuilt index in the indexing queue */
+	private static final String SWAP_KEY = "#swap";
+
+	private final LuceneBasedModelSearchService searchService;
+
+	private final IndexComparator comparator;
+
+	/** The consistency check, which is cancelled by a reindex */
+	private final ConsistencyChecker consistencyChecker;
+
+	/** Executor for the thread that traverses the model during a reindex */
+	private final ExecutorService executor;
+
+	private final LogService logService;
+
+	/**
+	 * Projects with dropped model events, which are re-indexed once the queue
+	 * has been processed. The empty string stands for events of unknown
+	 * projects.
+	 */
+	private final Set<String> droppedProjects = ConcurrentHashMap.newKeySet();
+
+	/** Flag to signal if a reindex is running. */
+	private final AtomicBoolean isReindexRunning = new AtomicBoolean(false);
+
+	/** The progress of the running or latest reindex */
+	private volatile ReindexTracker reindexTracker = new ReindexTracker(null, false, 0);
+
+	public Reindexer(LuceneBasedModelSearchService searchService, IndexComparator comparator,
+			ConsistencyChecker consistencyChecker, ExecutorService executor, LogService logService) {
+		this.searchService = searchService;
+		this.comparator = comparator;
+		this.consistencyChecker = consistencyChecker;
+		this.executor = executor;
+		this.logService = logService;
+	}
+
+	/**
+	 * Starts a reindex of the given project, or of all projects if it is null
+	 *
+	 * @param full
+	 *            Whether the index is rebuilt, instead of updating the
+	 *            documents that changed
+	 * @return false if indexing is disabled or a reindex is already running
+	 */
+	public boolean start(boolean full, String project) {
+		if (!searchService.isIndexingEnabled()) {
+			return false;
+		}
+		boolean start = isReindexRunning.compareAndSet(false, true);
+		if (!start) {
+			return false;
+		}
+		// The reindex brings the index up to date, the check would be outdated
+		consistencyChecker.cancel();
+		ReindexTracker tracker = new ReindexTracker(project, full, System.currentTimeMillis());
+		this.reindexTracker = tracker;
+		logService.log(LogService.LOG_INFO, (full ? "Rebuilding search index" : "Re-indexing")
+				+ (project != null ? " of project " + project : "") + " started.");
+		executor.submit(() -> {
+			if (full) {
+				rebuild(tracker);
+			} else {
+				reindexIncrementally(tracker, false);
+			}
+		});
+		return true;
+	}
+
+	/** Returns whether a reindex is running */
+	public boolean isRunning() {
+		return isReindexRunning.get();
+	}
+
+	/** Returns the progress of the running or latest reindex */
+	public ReindexProgress getProgress() {
+		return reindexTracker.getProgress();
+	}
+
+	/**
+	 * Records that a model event of the given project was dropped
+	 *
+	 * @return false if events of the project were dropped before
+	 */
+	public boolean addDroppedProject(String project) {
+		return droppedProjects.add(project);
+	}
+
+	/**
+	 * Starts the re-index of a project with dropped model events, unless a
+	 * re-index is running. The remaining projects follow when it is finished.
+	 */
+	public void reindexDroppedProjects() {
+		Iterator<String> iterator = droppedProjects.iterator();
+		if (!iterator.hasNext()) {
+			return;
+		}
+		String project = iterator.next();
+		droppedProjects.remove(project);
+		if (!start(false, project.isEmpty() ? null : project)) {
+			droppedProjects.add(project);
+		}
+	}
+
+	/**
+	 * Compares the revisions stored in the index with the model. Enqueues the
+	 * objects that changed or are not indexed and the deletion of the documents
+	 * of objects that no longer exist, and waits until they are indexed. Blocks
+	 * whenever the indexing queue is full.
+	 *
+	 * @param force
+	 *            Whether all objects are indexed again, regardless of their
+	 *            revision
+	 */
+	private void reindexIncrementally(ReindexTracker tracker, boolean force) {
+		try {
+			searchService.awaitSearchable();
+			boolean complete = comparator.compare(tracker.project, force, new IndexComparator.DifferenceHandler() {
+				@Override
+				public void missing(String id, EObject object, String project) {
+					searchService.enqueueUpdate(id, object, project);
+					tracker.updated.incrementAndGet();
+				}
+
+				@Override
+				public void stale(String id, EObject object, String project) {
+					missing(id, object, project);
+				}
+
+				@Override
+				public void orphaned(IndexPartition partition, String id, String project) {
+					searchService.enqueueDelete(partition, id);
+					tracker.deleted.incrementAndGet();
+				}
+
+				@Override
+				public void checked(String project) throws IOException {
+					if (tracker.checked.incrementAndGet() % CHECKPOINT_INTERVAL == 0) {
+						searchService.commitAll();
+						logService.log(LogService.LOG_DEBUG, "Re-indexing checked " + tracker.checked + " objects.");
+					}
+				}
+			});
+			if (!complete) {
+				return;
+			}
+			searchService.awaitIndexed();
+			searchService.commitAll();
+			searchService.awaitSearchable();
+		} catch (IOException e) {
+			logService.log(LogService.LOG_ERROR, "Error while re-indexing.", e);
+			tracker.failed = true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			finishReindex(tracker);
+		}
+	}
+
+	/**
+	 * Rebuilds the index of all partitions, or of the partition of the project
+	 * of the tracker. With a partition shared by all projects, the documents of
+	 * a single project are updated in place instead.
+	 */
+	private void rebuild(ReindexTracker tracker) {
+		boolean partitionByProject = searchService.isPartitionByProject();
+		if (tracker.project != null && !partitionByProject) {
+			reindexIncrementally(tracker, true);
+			return;
+		}
+		try {
+			if (!partitionByProject) {
+				rebuildPartition(tracker, searchService.getPartition(null), searchService.getContents(null));
+			} else {
+				List<Folder> projects = searchService.getProjectFolders(tracker.project);
+				Set<String> projectIds = new HashSet<>();
+				for (Folder project : projects) {
+					projectIds.add(project.getId());
+				}
+				for (Folder project : projects) {
+					if (Thread.currentThread().isInterrupted()) {
+						break;
+					}
+					rebuildPartition(tracker, searchService.getPartition(project.getId()), project.eAllContents());
+				}
+				if (tracker.project == null && !Thread.currentThread().isInterrupted()) {
+					// Partitions of deleted projects
+					for (IndexPartition partition : searchService.openAllPartitions()) {
+						String project = partition.getProject();
+						if (!projectIds.contains(project)) {
+							searchService.enqueueDeletePartition(project);
+						}
+					}
+				}
+			}
+			searchService.awaitIndexed();
+			searchService.awaitSearchable();
+		} catch (IOException e) {
+			logService.log(LogService.LOG_ERROR, "Error while rebuilding search index.", e);
+			tracker.failed = true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			finishReindex(tracker);
+		}
+	}
+
+	/**
+	 * Builds a new index of the indexed objects among the given contents in a
+	 * separate directory and enqueues the swap with the current index of the
+	 * partition. Meanwhile, changes are applied to the current index and
+	 * recorded to be applied to the new index after the swap.
+	 */
+	private void rebuildPartition(ReindexTracker tracker, IndexPartition partition, Iterator<EObject> contents)
+			throws IOException {
+		Path rebuildPath = partition.startRebuild();
+		boolean complete = false;
+		try {
+			try (Directory rebuildDirectory = FSDirectory.open(rebuildPath);
+					IndexWriter rebuildWriter = partition.openRebuildWriter(rebuildDirectory)) {
+				while (contents.hasNext() && !Thread.currentThread().isInterrupted()) {
+					EObject next = contents.next();
+					if (!searchService.isIndexed(next)) {
+						continue;
+					}
+					String id = SpecmateEcoreUtil.getUniqueId(next);
+					if (id == null) {
+						logService.log(LogService.LOG_ERROR, "Could not reindex object.");
+						continue;
+					}
+					Document doc = searchService.createDocument(id, next, SpecmateEcoreUtil.getProjectId(next));
+					if (doc != null) {
+						rebuildWriter.addDocument(doc);
+						tracker.updated.incrementAndGet();
+					}
+					checkpoint(tracker.checked.incrementAndGet(), rebuildWriter);
+				}
+				if (Thread.currentThread().isInterrupted()) {
+					rebuildWriter.rollback();
+					return;
+				}
+				rebuildWriter.commit();
+				complete = true;
+			}
+			String project = partition.getProject();
+			searchService.enqueue(SWAP_KEY + (project != null ? project : ""),
+					batch -> swapPartition(partition, rebuildPath, tracker, batch));
+		} finally {
+			if (!complete) {
+				partition.cancelRebuild();
+			}
+		}
+	}
+
+	/**
+	 * Replaces the current index of a partition with the rebuilt index in the
+	 * given directory and applies the changes recorded during the rebuild to
+	 * it. Runs as index operation, such that no other changes are applied
+	 * meanwhile.
+	 */
+	private void swapPartition(IndexPartition partition, Path rebuiltPath, ReindexTracker tracker,
+			IndexBatch batch) throws IOException {
+		// The changes before the swap are recorded for the rebuilt index
+		batch.write();
+		Set<String> changes;
+		try {
+			changes = partition.swap(rebuiltPath);
+		} catch (IOException e) {
+			tracker.failed = true;
+			throw e;
+		}
+		for (String id : changes) {
+			try {
+				searchService.reindexObject(partition, id, batch);
+			} catch (IOException | RuntimeException e) {
+				logService.log(LogService.LOG_ERROR, "Could not update index: " + id, e);
+			}
+		}
+	}
+
+	/** Commits the progress of a reindex to the given index at every checkpoint */
+	private void checkpoint(long checked, IndexWriter writer) throws IOException {
+		if (checked % CHECKPOINT_INTERVAL == 0) {
+			writer.commit();
+			logService.log(LogService.LOG_DEBUG, "Re-indexing checked " + checked + " objects.");
+		}
+	}
+
+	private void finishReindex(ReindexTracker tracker) {
+		tracker.finished = System.currentTimeMillis();
+		isReindexRunning.set(false);
+		ReindexProgress progress = tracker.getProgress();
+		String result = progress.isFailed() ? "failed" : "completed";
+		logService.log(LogService.LOG_INFO,
+				"Re-indexing " + result + ": checked " + progress.getChecked() + " objects, updated "
+						+ progress.getUpdated() + " and deleted " + progress.getDeleted() + " documents in "
+						+ (progress.getFinished() - progress.getStarted()) + " ms.");
+		reindexDroppedProjects();
+	}
+
+	/** Counts the progress of a reindex */
+	private static class ReindexTracker {
+
+		/** The reindexed project, null for all projects */
+		private final String project;
+
+		private final boolean full;
+
+		private final long started;
+
+		private volatile long finished;
+
+		private volatile boolean failed;
+
+		private final AtomicLong checked = new AtomicLong();
+
+		private final AtomicLong updated = new AtomicLong();
+
+		private final AtomicLong deleted = new AtomicLong();
+
+		public ReindexTracker(String project, boolean full, long started) {
+			this.project = project;
+			this.full = full;
+			this.started = started;
+		}
+
+		public ReindexProgress getProgress() {
+			boolean running = started > 0 && finished == 0;
+			return new ReindexProgress(project, full, running, failed, started, finished, checked.get(),
+					updated.get(), deleted.get());
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package com.specmate.search.internal.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.StopFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.compound.DictionaryCompoundWordTokenFilter;
+import org.apache.lucene.analysis.core.KeywordTokenizer;
+import org.apache.lucene.analysis.de.GermanAnalyzer;
+import org.apache.lucene.analysis.de.GermanLightStemFilter;
+import org.apache.lucene.analysis.de.GermanNormalizationFilter;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.EdgeNGramTokenFilter;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+
+/**
+ * Creates the analyzer of the search index.
+ *
+ * The text fields are analyzed with the standard analyzer, which only splits
+ * and lower-cases words. For the language of the object, they are indexed once
+ * more in a language field, e.g. <code>description_de</code>, with stop words
+ * and stemming and, for German, splitting of compound words. Searches query
+ * the plain and the language fields, such that exact matches rank above
+ * matches of stems or parts of words.
+ *
+ * The prefixes of the words of names and of whole external ids are indexed
+ * in prefix fields for prefix searches and suggestions. Queries of these
+ * fields are not analyzed with the analyzer of the index, but split into
+ * lower-cased words by the query analyzer.
+ */
+public class SearchAnalyzers {
+
+	/** The built-in dictionary of parts of German compound words */
+	private static final String GERMAN_COMPOUND_DICTIONARY = "compound-words-de.txt";
+
+	/** Words shorter than this are not split */
+	private static final int MIN_COMPOUND_SIZE = 6;
+
+	private static final int MIN_SUBWORD_SIZE = 3;
+
+	private static final int MAX_SUBWORD_SIZE = 20;
+
+	/**
+	 * Creates the analyzer for all fields of the index
+	 *
+	 * @param germanCompounds
+	 *            The parts of German compound words, or <code>null</code>
+	 */
+	public static Analyzer create(CharArraySet germanCompounds) {
+		Map<String, Analyzer> languageAnalyzers = new HashMap<>();
+		Analyzer german = new GermanSearchAnalyzer(germanCompounds);
+		Analyzer english = new EnglishAnalyzer();
+		for (String field : FieldConstants.LANGUAGE_FIELDS) {
+			languageAnalyzers.put(FieldConstants.getLanguageField(field, FieldConstants.LANGUAGE_DE), german);
+			languageAnalyzers.put(FieldConstants.getLanguageField(field, FieldConstants.LANGUAGE_EN), english);
+		}
+		languageAnalyzers.put(FieldConstants.FIELD_NAME_PREFIX, new PrefixAnalyzer(false));
+		languageAnalyzers.put(FieldConstants.FIELD_EXTID_PREFIX, new PrefixAnalyzer(true));
+		return new PerFieldAnalyzerWrapper(new StandardAnalyzer(), languageAnalyzers);
+	}
+
+	/**
+	 * Creates the analyzer that splits queries of prefix and fuzzy searches
+	 * into lower-cased words, without removing stop words
+	 */
+	public static Analyzer createQueryAnalyzer() {
+		return new Analyzer() {
+			@Override
+			protected TokenStreamComponents createComponents(String fieldName) {
+				Tokenizer source = new StandardTokenizer();
+				return new TokenStreamComponents(source, new LowerCaseFilter(source));
+			}
+		};
+	}
+
+	/** Loads the built-in dictionary of parts of German compound words */
+	public static CharArraySet loadGermanCompounds() throws IOException {
+		try (InputStream in = SearchAnalyzers.class.getResourceAsStream(GERMAN_COMPOUND_DICTIONARY)) {
+			if (in == null) {
+				throw new IOException("Missing dictionary " + GERMAN_COMPOUND_DICTIONARY);
+			}
+			return loadDictionary(in);
+		}
+	}
+
+	/**
+	 * Loads a dictionary with one word per line. Empty lines and lines starting
+	 * with # are ignored.
+	 */
+	public static CharArraySet loadDictionary(InputStream in) throws IOException {
+		CharArraySet dictionary = new CharArraySet(1000, true);
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		String line;
+		while ((line = reader.readLine()) != null) {
+			String word = line.trim();
+			if (!word.isEmpty() && !word.startsWith("#")) {
+				dictionary.add(word.toLowerCase(Locale.GERMAN));
+			}
+		}
+		return dictionary;
+	}
+
+	/**
+	 * Analyzer for the prefix fields: indexes all prefixes of the lower-cased
+	 * words, or of the whole text, up to the maximal prefix length.
+	 */
+	private static class PrefixAnalyzer extends Analyzer {
+
+		/** Whether the whole text is one word, e.g. an id */
+		private final boolean keyword;
+
+		public PrefixAnalyzer(boolean keyword) {
+			this.keyword = keyword;
+		}
+
+		@Override
+		protected TokenStreamComponents createComponents(String fieldName) {
+			Tokenizer source = keyword ? new KeywordTokenizer() : new StandardTokenizer();
+			TokenStream result = new LowerCaseFilter(source);
+			result = new EdgeNGramTokenFilter(result, 1, FieldConstants.MAX_PREFIX_LENGTH);
+			return new TokenStreamComponents(source, result);
+		}
+	}
+
+	/**
+	 * Analyzer for German text: removes stop words, splits compound words into
+	 * their known parts, normalizes umlauts and reduces the words to their
+	 * stems. The compound word is kept besides its parts.
+	 */
+	private static class GermanSearchAnalyzer extends Analyzer {
+
+		private final CharArraySet compounds;
+
+		public GermanSearchAnalyzer(CharArraySet compounds) {
+			this.compounds = compounds;
+		}
+
+		@Override
+		protected TokenStreamComponents createComponents(String fieldName) {
+			Tokenizer source = new StandardTokenizer();
+			TokenStream result = new LowerCaseFilter(source);
+			result = new StopFilter(result, GermanAnalyzer.getDefaultStopSet());
+			if (compounds != null && !compounds.isEmpty()) {
+				result = new DictionaryCompoundWordTokenFilter(result, compounds, MIN_COMPOUND_SIZE,
+						MIN_SUBWORD_SIZE, MAX_SUBWORD_SIZE, true);
+			}
+			result = new GermanNormalizationFilter(result);
+			result = new GermanLightStemFilter(result);
+			return new TokenStreamComponents(source, result);
+		}
+
+		@Override
+		protected TokenStream normalize(String fieldName, TokenStream in) {
+			return new GermanNormalizationFilter(new LowerCaseFilter(in));
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package com.specmate.search.internal.services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
+import org.apache.lucene.index.Term;
+
+/**
+ * Marks the terms of a query in the stored text of a search hit.
+ *
+ * The text is analyzed with the analyzer of the index, such that a token is
+ * marked exactly if it matches a term of the query in the same field or in one
+ * of its language or prefix fields, e.g. a stem, a part of a compound word or
+ * a prefix, which marks the whole word. The result is HTML: the text is
+ * escaped and the matches are enclosed in <code>&lt;em&gt;</code> tags.
+ */
+public class SnippetHighlighter {
+
+	/** Opens a marked match */
+	public static final String PRE_TAG = "<em>";
+
+	/** Closes a marked match */
+	public static final String POST_TAG = "</em>";
+
+	private static final String ELLIPSIS = "...";
+
+	private final Analyzer analyzer;
+
+	private final Set<Term> terms;
+
+	/**
+	 * @param analyzer
+	 *            The analyzer used to index the text
+	 * @param terms
+	 *            The terms of the query
+	 */
+	public SnippetHighlighter(Analyzer analyzer, Set<Term> terms) {
+		this.analyzer = analyzer;
+		this.terms = terms;
+	}
+
+	/** Returns the whole text with the matches of the given field marked */
+	public String highlight(String field, String text) throws IOException {
+		if (text == null) {
+			return null;
+		}
+		return fragment(field, text, text.length());
+	}
+
+	/**
+	 * Returns a fragment of at most the given length with the matches of the
+	 * given field marked. The fragment starts shortly before the first match,
+	 * or at the beginning of the text if nothing matches.
+	 */
+	public String fragment(String field, String text, int length) throws IOException {
+		if (text == null) {
+			return null;
+		}
+		List<int[]> matches = findMatches(field, text);
+		int start = 0;
+		if (text.length() > length && !matches.isEmpty()) {
+			// Keep some context before the first match
+			start = Math.max(0, Math.min(matches.get(0)[0] - length / 4, text.length() - length));
+			int wordStart = text.indexOf(' ', start);
+			if (start > 0 && wordStart >= 0 && wordStart < matches.get(0)[0]) {
+				start = wordStart + 1;
+			}
+		}
+		int end = Math.min(text.length(), start + length);
+
+		StringBuilder builder = new StringBuilder();
+		if (start > 0) {
+			builder.append(ELLIPSIS);
+		}
+		int position = start;
+		for (int[] match : matches) {
+			if (match[0] < position || match[1] > end) {
+				continue;
+			}
+			escape(builder, text, position, match[0]);
+			builder.append(PRE_TAG);
+			escape(builder, text, match[0], match[1]);
+			builder.append(POST_TAG);
+			position = match[1];
+		}
+		escape(builder, text, position, end);
+		if (end < text.length()) {
+			builder.append(ELLIPSIS);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Returns the start and end offsets of the tokens matching a query term,
+	 * ordered and without overlaps
+	 */
+	private List<int[]> findMatches(String field, String text) throws IOException {
+		List<int[]> matches = new ArrayList<>();
+		if (terms.isEmpty()) {
+			return matches;
+		}
+		findMatches(field, text, matches);
+		for (String language : FieldConstants.LANGUAGES) {
+			findMatches(FieldConstants.getLanguageField(field, language), text, matches);
+		}
+		String prefixField = FieldConstants.getPrefixField(field);
+		if (prefixField != null) {
+			findMatches(prefixField, text, matches);
+		}
+		matches.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(b[1], a[1]));
+		List<int[]> merged = new ArrayList<>();
+		for (int[] match : matches) {
+			int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+			if (last != null && match[0] < last[1]) {
+				last[1] = Math.max(last[1], match[1]);
+			} else {
+				merged.add(match);
+			}
+		}
+		return merged;
+	}
+
+	private void findMatches(String field, String text, List<int[]> matches) throws IOException {
+		try (TokenStream stream = analyzer.tokenStream(field, text)) {
+			CharTermAttribute termAttribute = stream.addAttribute(CharTermAttribute.class);
+			OffsetAttribute offsetAttribute = stream.addAttribute(OffsetAttribute.class);
+			stream.reset();
+			while (stream.incrementToken()) {
+				if (terms.contains(new Term(field, termAttribute.toString()))) {
+					matches.add(new int[] { offsetAttribute.startOffset(), offsetAttribute.endOffset() });
+				}
+			}
+			stream.end();
+		}
+	}
+
+	private static void escape(StringBuilder builder, String text, int start, int end) {
+		for (int i = start; i < end; i++) {
+			char c = text.charAt(i);
+			switch (c) {
+			case '&':
+				builder.append("&amp;");
+				break;
+			case '<':
+				builder.append("&lt;");
+				break;
+			case '>':
+				builder.append("&gt;");
+				break;
+			case '"':
+				builder.append("&quot;");
+				break;
+			case '\'':
+				builder.append("&#39;");
+				break;
+			default:
+				builder.append(c);
+			}
+		}
+	}
+}